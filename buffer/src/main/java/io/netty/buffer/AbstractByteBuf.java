@@ -643,6 +643,14 @@ public abstract class AbstractByteBuf extends ByteBuf {
         return slice;
     }
 
+    @Override
+    public ByteBuf readRetainedSlice(int length) {
+        checkReadableBytes(length);
+        ByteBuf slice = retainedSlice(readerIndex, length);
+        readerIndex += length;
+        return slice;
+    }
+
     @Override
     public ByteBuf readBytes(byte[] dst, int dstIndex, int length) {
         checkReadableBytes(length);
@@ -886,6 +894,191 @@ public abstract class AbstractByteBuf extends ByteBuf {
         return this;
     }
 
+    @Override
+    public ByteBuf getShorts(int index, short[] dst, int dstIndex, int length) {
+        checkIndex(index, checkArrayLength(length, 2));
+        checkArrayIndex(dstIndex, length, dst.length);
+        _getShorts(index, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setShorts(int index, short[] src, int srcIndex, int length) {
+        checkIndex(index, checkArrayLength(length, 2));
+        checkArrayIndex(srcIndex, length, src.length);
+        _setShorts(index, src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf readShorts(short[] dst, int dstIndex, int length) {
+        int bytes = checkArrayLength(length, 2);
+        checkReadableBytes(bytes);
+        checkArrayIndex(dstIndex, length, dst.length);
+        _getShorts(readerIndex, dst, dstIndex, length);
+        readerIndex += bytes;
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeShorts(short[] src, int srcIndex, int length) {
+        int bytes = checkArrayLength(length, 2);
+        checkArrayIndex(srcIndex, length, src.length);
+        ensureAccessible();
+        ensureWritable(bytes);
+        _setShorts(writerIndex, src, srcIndex, length);
+        writerIndex += bytes;
+        return this;
+    }
+
+    @Override
+    public ByteBuf getInts(int index, int[] dst, int dstIndex, int length) {
+        checkIndex(index, checkArrayLength(length, 4));
+        checkArrayIndex(dstIndex, length, dst.length);
+        _getInts(index, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setInts(int index, int[] src, int srcIndex, int length) {
+        checkIndex(index, checkArrayLength(length, 4));
+        checkArrayIndex(srcIndex, length, src.length);
+        _setInts(index, src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf readInts(int[] dst, int dstIndex, int length) {
+        int bytes = checkArrayLength(length, 4);
+        checkReadableBytes(bytes);
+        checkArrayIndex(dstIndex, length, dst.length);
+        _getInts(readerIndex, dst, dstIndex, length);
+        readerIndex += bytes;
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeInts(int[] src, int srcIndex, int length) {
+        int bytes = checkArrayLength(length, 4);
+        checkArrayIndex(srcIndex, length, src.length);
+        ensureAccessible();
+        ensureWritable(bytes);
+        _setInts(writerIndex, src, srcIndex, length);
+        writerIndex += bytes;
+        return this;
+    }
+
+    @Override
+    public ByteBuf getLongs(int index, long[] dst, int dstIndex, int length) {
+        checkIndex(index, checkArrayLength(length, 8));
+        checkArrayIndex(dstIndex, length, dst.length);
+        _getLongs(index, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setLongs(int index, long[] src, int srcIndex, int length) {
+        checkIndex(index, checkArrayLength(length, 8));
+        checkArrayIndex(srcIndex, length, src.length);
+        _setLongs(index, src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf readLongs(long[] dst, int dstIndex, int length) {
+        int bytes = checkArrayLength(length, 8);
+        checkReadableBytes(bytes);
+        checkArrayIndex(dstIndex, length, dst.length);
+        _getLongs(readerIndex, dst, dstIndex, length);
+        readerIndex += bytes;
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeLongs(long[] src, int srcIndex, int length) {
+        int bytes = checkArrayLength(length, 8);
+        checkArrayIndex(srcIndex, length, src.length);
+        ensureAccessible();
+        ensureWritable(bytes);
+        _setLongs(writerIndex, src, srcIndex, length);
+        writerIndex += bytes;
+        return this;
+    }
+
+    @Override
+    public ByteBuf getFloats(int index, float[] dst, int dstIndex, int length) {
+        checkIndex(index, checkArrayLength(length, 4));
+        checkArrayIndex(dstIndex, length, dst.length);
+        _getFloats(index, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setFloats(int index, float[] src, int srcIndex, int length) {
+        checkIndex(index, checkArrayLength(length, 4));
+        checkArrayIndex(srcIndex, length, src.length);
+        _setFloats(index, src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf readFloats(float[] dst, int dstIndex, int length) {
+        int bytes = checkArrayLength(length, 4);
+        checkReadableBytes(bytes);
+        checkArrayIndex(dstIndex, length, dst.length);
+        _getFloats(readerIndex, dst, dstIndex, length);
+        readerIndex += bytes;
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeFloats(float[] src, int srcIndex, int length) {
+        int bytes = checkArrayLength(length, 4);
+        checkArrayIndex(srcIndex, length, src.length);
+        ensureAccessible();
+        ensureWritable(bytes);
+        _setFloats(writerIndex, src, srcIndex, length);
+        writerIndex += bytes;
+        return this;
+    }
+
+    @Override
+    public ByteBuf getDoubles(int index, double[] dst, int dstIndex, int length) {
+        checkIndex(index, checkArrayLength(length, 8));
+        checkArrayIndex(dstIndex, length, dst.length);
+        _getDoubles(index, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setDoubles(int index, double[] src, int srcIndex, int length) {
+        checkIndex(index, checkArrayLength(length, 8));
+        checkArrayIndex(srcIndex, length, src.length);
+        _setDoubles(index, src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf readDoubles(double[] dst, int dstIndex, int length) {
+        int bytes = checkArrayLength(length, 8);
+        checkReadableBytes(bytes);
+        checkArrayIndex(dstIndex, length, dst.length);
+        _getDoubles(readerIndex, dst, dstIndex, length);
+        readerIndex += bytes;
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeDoubles(double[] src, int srcIndex, int length) {
+        int bytes = checkArrayLength(length, 8);
+        checkArrayIndex(srcIndex, length, src.length);
+        ensureAccessible();
+        ensureWritable(bytes);
+        _setDoubles(writerIndex, src, srcIndex, length);
+        writerIndex += bytes;
+        return this;
+    }
+
     @Override
     public ByteBuf copy() {
         return copy(readerIndex, readableBytes());
@@ -910,6 +1103,23 @@ public abstract class AbstractByteBuf extends ByteBuf {
         return new SlicedByteBuf(this, index, length);
     }
 
+    @Override
+    public ByteBuf retainedDuplicate() {
+        ensureAccessible();
+        return PooledDuplicatedByteBuf.newInstance(this, this);
+    }
+
+    @Override
+    public ByteBuf retainedSlice() {
+        return retainedSlice(readerIndex, readableBytes());
+    }
+
+    @Override
+    public ByteBuf retainedSlice(int index, int length) {
+        ensureAccessible();
+        return PooledSlicedByteBuf.newInstance(this, this, index, length);
+    }
+
     @Override
     public ByteBuffer nioBuffer() {
         return nioBuffer(readerIndex, readableBytes());
@@ -948,6 +1158,11 @@ public abstract class AbstractByteBuf extends ByteBuf {
         return ByteBufUtil.indexOf(this, fromIndex, toIndex, value);
     }
 
+    @Override
+    public int indexOfAny(int fromIndex, int toIndex, byte... values) {
+        return ByteBufUtil.indexOfAny(this, fromIndex, toIndex, values);
+    }
+
     @Override
     public int bytesBefore(byte value) {
         return bytesBefore(readerIndex(), readableBytes(), value);
@@ -992,6 +1207,10 @@ public abstract class AbstractByteBuf extends ByteBuf {
         }
 
         final int endIndex = index + length;
+        if (processor instanceof IndexOfProcessor && ByteBufUtil.isSwarSupported(this, index, endIndex)) {
+            return ((IndexOfProcessor) processor).indexOf(this, index, endIndex);
+        }
+
         int i = index;
         try {
             do {
@@ -1133,6 +1352,124 @@ public abstract class AbstractByteBuf extends ByteBuf {
         }
     }
 
+    /**
+     * Returns the number of bytes of {@code length} elements of {@code elementSize} bytes each.
+     */
+    static int checkArrayLength(int length, int elementSize) {
+        int maxLength = Integer.MAX_VALUE / elementSize;
+        if (length < 0 || length > maxLength) {
+            throw new IllegalArgumentException("length: " + length + " (expected: 0-" + maxLength + ')');
+        }
+        return length * elementSize;
+    }
+
+    static void checkArrayIndex(int arrayIndex, int length, int arrayLength) {
+        if (arrayIndex < 0 || arrayIndex > arrayLength - length) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "arrayIndex: %d, length: %d (expected: range(0, %d))", arrayIndex, length, arrayLength));
+        }
+    }
+
+    /**
+     * Transfers {@code length} {@code short}s without any bounds checks. Sub-classes may override this with a
+     * faster implementation than the default one which calls {@code _getShort} for every element.
+     */
+    void _getShorts(int index, short[] dst, int dstIndex, int length) {
+        for (int i = dstIndex, end = dstIndex + length; i < end; i ++, index += 2) {
+            dst[i] = _getShort(index);
+        }
+    }
+
+    /**
+     * Transfers {@code length} {@code short}s without any bounds checks. Sub-classes may override this with a
+     * faster implementation than the default one which calls {@code _setShort} for every element.
+     */
+    void _setShorts(int index, short[] src, int srcIndex, int length) {
+        for (int i = srcIndex, end = srcIndex + length; i < end; i ++, index += 2) {
+            _setShort(index, src[i]);
+        }
+    }
+
+    /**
+     * Transfers {@code length} {@code int}s without any bounds checks. Sub-classes may override this with a
+     * faster implementation than the default one which calls {@code _getInt} for every element.
+     */
+    void _getInts(int index, int[] dst, int dstIndex, int length) {
+        for (int i = dstIndex, end = dstIndex + length; i < end; i ++, index += 4) {
+            dst[i] = _getInt(index);
+        }
+    }
+
+    /**
+     * Transfers {@code length} {@code int}s without any bounds checks. Sub-classes may override this with a
+     * faster implementation than the default one which calls {@code _setInt} for every element.
+     */
+    void _setInts(int index, int[] src, int srcIndex, int length) {
+        for (int i = srcIndex, end = srcIndex + length; i < end; i ++, index += 4) {
+            _setInt(index, src[i]);
+        }
+    }
+
+    /**
+     * Transfers {@code length} {@code long}s without any bounds checks. Sub-classes may override this with a
+     * faster implementation than the default one which calls {@code _getLong} for every element.
+     */
+    void _getLongs(int index, long[] dst, int dstIndex, int length) {
+        for (int i = dstIndex, end = dstIndex + length; i < end; i ++, index += 8) {
+            dst[i] = _getLong(index);
+        }
+    }
+
+    /**
+     * Transfers {@code length} {@code long}s without any bounds checks. Sub-classes may override this with a
+     * faster implementation than the default one which calls {@code _setLong} for every element.
+     */
+    void _setLongs(int index, long[] src, int srcIndex, int length) {
+        for (int i = srcIndex, end = srcIndex + length; i < end; i ++, index += 8) {
+            _setLong(index, src[i]);
+        }
+    }
+
+    /**
+     * Transfers {@code length} {@code float}s without any bounds checks. Sub-classes may override this with a
+     * faster implementation than the default one which calls {@code _getInt} for every element.
+     */
+    void _getFloats(int index, float[] dst, int dstIndex, int length) {
+        for (int i = dstIndex, end = dstIndex + length; i < end; i ++, index += 4) {
+            dst[i] = Float.intBitsToFloat(_getInt(index));
+        }
+    }
+
+    /**
+     * Transfers {@code length} {@code float}s without any bounds checks. Sub-classes may override this with a
+     * faster implementation than the default one which calls {@code _setInt} for every element.
+     */
+    void _setFloats(int index, float[] src, int srcIndex, int length) {
+        for (int i = srcIndex, end = srcIndex + length; i < end; i ++, index += 4) {
+            _setInt(index, Float.floatToRawIntBits(src[i]));
+        }
+    }
+
+    /**
+     * Transfers {@code length} {@code double}s without any bounds checks. Sub-classes may override this with a
+     * faster implementation than the default one which calls {@code _getLong} for every element.
+     */
+    void _getDoubles(int index, double[] dst, int dstIndex, int length) {
+        for (int i = dstIndex, end = dstIndex + length; i < end; i ++, index += 8) {
+            dst[i] = Double.longBitsToDouble(_getLong(index));
+        }
+    }
+
+    /**
+     * Transfers {@code length} {@code double}s without any bounds checks. Sub-classes may override this with a
+     * faster implementation than the default one which calls {@code _setLong} for every element.
+     */
+    void _setDoubles(int index, double[] src, int srcIndex, int length) {
+        for (int i = srcIndex, end = srcIndex + length; i < end; i ++, index += 8) {
+            _setLong(index, Double.doubleToRawLongBits(src[i]));
+        }
+    }
+
     /**
      * Throws an {@link IndexOutOfBoundsException} if the current
      * {@linkplain #readableBytes() readable bytes} of this buffer is less
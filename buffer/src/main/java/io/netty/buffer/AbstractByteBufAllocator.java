@@ -39,6 +39,7 @@ public abstract class AbstractByteBufAllocator implements ByteBufAllocator {
                 break;
             case ADVANCED:
             case PARANOID:
+            case ADAPTIVE:
                 leak = AbstractByteBuf.leakDetector.open(buf);
                 if (leak != null) {
                     buf = new AdvancedLeakAwareByteBuf(buf, leak);
@@ -178,7 +179,7 @@ public abstract class AbstractByteBufAllocator implements ByteBufAllocator {
 
     @Override
     public CompositeByteBuf compositeHeapBuffer(int maxNumComponents) {
-        return new CompositeByteBuf(this, false, maxNumComponents);
+        return CompositeByteBuf.newInstance(this, false, maxNumComponents);
     }
 
     @Override
@@ -188,7 +189,7 @@ public abstract class AbstractByteBufAllocator implements ByteBufAllocator {
 
     @Override
     public CompositeByteBuf compositeDirectBuffer(int maxNumComponents) {
-        return new CompositeByteBuf(this, true, maxNumComponents);
+        return CompositeByteBuf.newInstance(this, true, maxNumComponents);
     }
 
     private static void validate(int initialCapacity, int maxCapacity) {
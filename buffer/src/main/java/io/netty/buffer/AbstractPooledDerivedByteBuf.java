@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.Recycler;
+import io.netty.util.Recycler.Handle;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Abstract base class for derived buffers which are returned by {@link ByteBuf#retainedSlice(int, int)} and
+ * {@link ByteBuf#retainedDuplicate()}. Such a buffer holds one reference of its parent for as long as it is not
+ * released itself and is returned to its {@link Recycler} once it was released. As the instance may be reused after
+ * that, the non-retained {@link ByteBuf#slice()} and {@link ByteBuf#duplicate()} of such a buffer are derived from
+ * the buffer it wraps and so share the reference count of that buffer.
+ */
+abstract class AbstractPooledDerivedByteBuf<T extends AbstractPooledDerivedByteBuf<T>>
+        extends AbstractReferenceCountedByteBuf {
+
+    private final Handle<T> recyclerHandle;
+
+    // The buffer to access the content through.
+    ByteBuf buffer;
+    // The buffer whose reference is held, which may be a wrapper of buffer like a leak-aware one.
+    private ByteBuf parent;
+
+    @SuppressWarnings("unchecked")
+    AbstractPooledDerivedByteBuf(Handle<? extends T> recyclerHandle) {
+        super(0);
+        this.recyclerHandle = (Handle<T>) recyclerHandle;
+    }
+
+    /**
+     * Must be called with a {@code parent} which was retained already.
+     */
+    final void init(ByteBuf buffer, ByteBuf parent, int readerIndex, int writerIndex, int maxCapacity) {
+        this.buffer = buffer;
+        this.parent = parent;
+        setRefCnt(1);
+        inheritThreadConfinement(buffer);
+        maxCapacity(maxCapacity);
+        setIndex(0, 0);
+        markReaderIndex();
+        markWriterIndex();
+        setIndex(readerIndex, writerIndex);
+    }
+
+    @Override
+    protected final void deallocate() {
+        ByteBuf parent = this.parent;
+        buffer = null;
+        this.parent = null;
+        @SuppressWarnings("unchecked")
+        T self = (T) this;
+        recyclerHandle.recycle(self);
+        parent.release();
+    }
+
+    @Override
+    public final ByteBuf unwrap() {
+        return buffer;
+    }
+
+    @Override
+    public final ByteBufAllocator alloc() {
+        return buffer.alloc();
+    }
+
+    @Override
+    public final ByteOrder order() {
+        return buffer.order();
+    }
+
+    @Override
+    public final boolean isDirect() {
+        return buffer.isDirect();
+    }
+
+    @Override
+    public final boolean hasArray() {
+        return buffer.hasArray();
+    }
+
+    @Override
+    public final byte[] array() {
+        return buffer.array();
+    }
+
+    @Override
+    public final boolean hasMemoryAddress() {
+        return buffer.hasMemoryAddress();
+    }
+
+    @Override
+    public final int nioBufferCount() {
+        return buffer.nioBufferCount();
+    }
+
+    @Override
+    public final ByteBuffer internalNioBuffer(int index, int length) {
+        return nioBuffer(index, length);
+    }
+}
@@ -39,6 +39,10 @@ public abstract class AbstractReferenceCountedByteBuf extends AbstractByteBuf {
 
     private volatile int refCnt = 1;
 
+    // Non-null if the reference count is only updated by this thread, see ThreadConfinedByteBufAllocator.
+    private Thread owner;
+    private boolean checkOwner;
+
     protected AbstractReferenceCountedByteBuf(int maxCapacity) {
         super(maxCapacity);
     }
@@ -55,8 +59,36 @@ public abstract class AbstractReferenceCountedByteBuf extends AbstractByteBuf {
         this.refCnt = refCnt;
     }
 
+    /**
+     * Confines the reference count of this buffer to the current thread until it is deallocated. Until then
+     * {@link #retain()} and {@link #release()} use plain stores instead of a CAS. If {@code checkOwner} is
+     * {@code true} they throw an {@link IllegalStateException} when called by another thread.
+     */
+    final void confineToCurrentThread(boolean checkOwner) {
+        owner = Thread.currentThread();
+        this.checkOwner = checkOwner;
+    }
+
+    /**
+     * Confines the reference count of this buffer like the one of {@code buffer}, if it is confined.
+     */
+    final void inheritThreadConfinement(ByteBuf buffer) {
+        if (buffer instanceof AbstractReferenceCountedByteBuf) {
+            AbstractReferenceCountedByteBuf buf = (AbstractReferenceCountedByteBuf) buffer;
+            owner = buf.owner;
+            checkOwner = buf.checkOwner;
+        }
+    }
+
+    final boolean isThreadConfined() {
+        return owner != null;
+    }
+
     @Override
     public ByteBuf retain() {
+        if (owner != null) {
+            return retainConfined(1);
+        }
         for (;;) {
             int refCnt = this.refCnt;
             if (refCnt == 0) {
@@ -77,6 +109,9 @@ public abstract class AbstractReferenceCountedByteBuf extends AbstractByteBuf {
         if (increment <= 0) {
             throw new IllegalArgumentException("increment: " + increment + " (expected: > 0)");
         }
+        if (owner != null) {
+            return retainConfined(increment);
+        }
 
         for (;;) {
             int refCnt = this.refCnt;
@@ -105,6 +140,9 @@ public abstract class AbstractReferenceCountedByteBuf extends AbstractByteBuf {
 
     @Override
     public final boolean release() {
+        if (owner != null) {
+            return releaseConfined(1);
+        }
         for (;;) {
             int refCnt = this.refCnt;
             if (refCnt == 0) {
@@ -126,6 +164,9 @@ public abstract class AbstractReferenceCountedByteBuf extends AbstractByteBuf {
         if (decrement <= 0) {
             throw new IllegalArgumentException("decrement: " + decrement + " (expected: > 0)");
         }
+        if (owner != null) {
+            return releaseConfined(decrement);
+        }
 
         for (;;) {
             int refCnt = this.refCnt;
@@ -143,6 +184,46 @@ public abstract class AbstractReferenceCountedByteBuf extends AbstractByteBuf {
         }
     }
 
+    private ByteBuf retainConfined(int increment) {
+        checkOwner();
+        int refCnt = this.refCnt;
+        if (refCnt == 0) {
+            throw new IllegalReferenceCountException(0, increment);
+        }
+        if (refCnt > Integer.MAX_VALUE - increment) {
+            throw new IllegalReferenceCountException(refCnt, increment);
+        }
+        // Only the owner updates the count, so an ordered store is enough and no CAS is needed.
+        refCntUpdater.lazySet(this, refCnt + increment);
+        return this;
+    }
+
+    private boolean releaseConfined(int decrement) {
+        checkOwner();
+        int refCnt = this.refCnt;
+        if (refCnt < decrement) {
+            throw new IllegalReferenceCountException(refCnt, -decrement);
+        }
+        refCntUpdater.lazySet(this, refCnt - decrement);
+        if (refCnt == decrement) {
+            // Pooled instances may be reused by an allocation which is not thread-confined.
+            owner = null;
+            deallocate();
+            return true;
+        }
+        return false;
+    }
+
+    private void checkOwner() {
+        if (checkOwner) {
+            Thread current = Thread.currentThread();
+            if (current != owner) {
+                throw new IllegalStateException(
+                        "thread-confined buffer accessed by " + current + " (expected: " + owner + ')');
+            }
+        }
+    }
+
     /**
      * Called once {@link #refCnt()} is equals 0.
      */
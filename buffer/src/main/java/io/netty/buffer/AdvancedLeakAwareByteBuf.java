@@ -70,6 +70,30 @@ final class AdvancedLeakAwareByteBuf extends WrappedByteBuf {
         return new AdvancedLeakAwareByteBuf(super.readSlice(length), leak);
     }
 
+    @Override
+    public ByteBuf readRetainedSlice(int length) {
+        leak.record();
+        return super.readRetainedSlice(length);
+    }
+
+    @Override
+    public ByteBuf retainedSlice() {
+        leak.record();
+        return super.retainedSlice();
+    }
+
+    @Override
+    public ByteBuf retainedSlice(int index, int length) {
+        leak.record();
+        return super.retainedSlice(index, length);
+    }
+
+    @Override
+    public ByteBuf retainedDuplicate() {
+        leak.record();
+        return super.retainedDuplicate();
+    }
+
     @Override
     public ByteBuf discardReadBytes() {
         leak.record();
@@ -574,12 +598,138 @@ final class AdvancedLeakAwareByteBuf extends WrappedByteBuf {
         return super.writeZero(length);
     }
 
+    @Override
+    public ByteBuf getShorts(int index, short[] dst, int dstIndex, int length) {
+        leak.record();
+        return super.getShorts(index, dst, dstIndex, length);
+    }
+
+    @Override
+    public ByteBuf setShorts(int index, short[] src, int srcIndex, int length) {
+        leak.record();
+        return super.setShorts(index, src, srcIndex, length);
+    }
+
+    @Override
+    public ByteBuf readShorts(short[] dst, int dstIndex, int length) {
+        leak.record();
+        return super.readShorts(dst, dstIndex, length);
+    }
+
+    @Override
+    public ByteBuf writeShorts(short[] src, int srcIndex, int length) {
+        leak.record();
+        return super.writeShorts(src, srcIndex, length);
+    }
+
+    @Override
+    public ByteBuf getInts(int index, int[] dst, int dstIndex, int length) {
+        leak.record();
+        return super.getInts(index, dst, dstIndex, length);
+    }
+
+    @Override
+    public ByteBuf setInts(int index, int[] src, int srcIndex, int length) {
+        leak.record();
+        return super.setInts(index, src, srcIndex, length);
+    }
+
+    @Override
+    public ByteBuf readInts(int[] dst, int dstIndex, int length) {
+        leak.record();
+        return super.readInts(dst, dstIndex, length);
+    }
+
+    @Override
+    public ByteBuf writeInts(int[] src, int srcIndex, int length) {
+        leak.record();
+        return super.writeInts(src, srcIndex, length);
+    }
+
+    @Override
+    public ByteBuf getLongs(int index, long[] dst, int dstIndex, int length) {
+        leak.record();
+        return super.getLongs(index, dst, dstIndex, length);
+    }
+
+    @Override
+    public ByteBuf setLongs(int index, long[] src, int srcIndex, int length) {
+        leak.record();
+        return super.setLongs(index, src, srcIndex, length);
+    }
+
+    @Override
+    public ByteBuf readLongs(long[] dst, int dstIndex, int length) {
+        leak.record();
+        return super.readLongs(dst, dstIndex, length);
+    }
+
+    @Override
+    public ByteBuf writeLongs(long[] src, int srcIndex, int length) {
+        leak.record();
+        return super.writeLongs(src, srcIndex, length);
+    }
+
+    @Override
+    public ByteBuf getFloats(int index, float[] dst, int dstIndex, int length) {
+        leak.record();
+        return super.getFloats(index, dst, dstIndex, length);
+    }
+
+    @Override
+    public ByteBuf setFloats(int index, float[] src, int srcIndex, int length) {
+        leak.record();
+        return super.setFloats(index, src, srcIndex, length);
+    }
+
+    @Override
+    public ByteBuf readFloats(float[] dst, int dstIndex, int length) {
+        leak.record();
+        return super.readFloats(dst, dstIndex, length);
+    }
+
+    @Override
+    public ByteBuf writeFloats(float[] src, int srcIndex, int length) {
+        leak.record();
+        return super.writeFloats(src, srcIndex, length);
+    }
+
+    @Override
+    public ByteBuf getDoubles(int index, double[] dst, int dstIndex, int length) {
+        leak.record();
+        return super.getDoubles(index, dst, dstIndex, length);
+    }
+
+    @Override
+    public ByteBuf setDoubles(int index, double[] src, int srcIndex, int length) {
+        leak.record();
+        return super.setDoubles(index, src, srcIndex, length);
+    }
+
+    @Override
+    public ByteBuf readDoubles(double[] dst, int dstIndex, int length) {
+        leak.record();
+        return super.readDoubles(dst, dstIndex, length);
+    }
+
+    @Override
+    public ByteBuf writeDoubles(double[] src, int srcIndex, int length) {
+        leak.record();
+        return super.writeDoubles(src, srcIndex, length);
+    }
+
     @Override
     public int indexOf(int fromIndex, int toIndex, byte value) {
         leak.record();
         return super.indexOf(fromIndex, toIndex, value);
     }
 
+    @Override
+    public int indexOfAny(int fromIndex, int toIndex, byte... values) {
+        leak.record();
+        return super.indexOfAny(fromIndex, toIndex, values);
+    }
+
     @Override
     public int bytesBefore(byte value) {
         leak.record();
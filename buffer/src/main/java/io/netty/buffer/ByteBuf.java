@@ -177,6 +177,7 @@ import java.nio.charset.UnsupportedCharsetException;
  * <h3>Search operations</h3>
  *
  * For simple single-byte searches, use {@link #indexOf(int, int, byte)} and {@link #bytesBefore(int, int, byte)}.
+ * To search for any of a few bytes at once, use {@link #indexOfAny(int, int, byte...)}.
  * {@link #bytesBefore(byte)} is especially useful when you deal with a {@code NUL}-terminated string.
  * For complicated searches, use {@link #forEachByte(int, int, ByteBufProcessor)} with a {@link ByteBufProcessor}
  * implementation.
@@ -1200,6 +1201,21 @@ public abstract class ByteBuf implements ReferenceCounted, Comparable<ByteBuf> {
      */
     public abstract ByteBuf readSlice(int length);
 
+    /**
+     * Returns a new retained slice of this buffer's sub-region starting at the current
+     * {@code readerIndex} and increases the {@code readerIndex} by the size
+     * of the new slice (= {@code length}). See {@link #retainedSlice(int, int)} for how the returned buffer
+     * needs to be released.
+     *
+     * @param length the size of the new slice
+     *
+     * @return the newly created slice
+     *
+     * @throws IndexOutOfBoundsException
+     *         if {@code length} is greater than {@code this.readableBytes}
+     */
+    public abstract ByteBuf readRetainedSlice(int length);
+
     /**
      * Transfers this buffer's data to the specified destination starting at
      * the current {@code readerIndex} until the destination becomes
@@ -1540,6 +1556,331 @@ public abstract class ByteBuf implements ReferenceCounted, Comparable<ByteBuf> {
      */
     public abstract ByteBuf writeZero(int length);
 
+    /**
+     * Transfers {@code length} {@code short}s of this buffer starting at the specified absolute {@code index} to
+     * the specified destination, honoring the {@linkplain #order() byte order} of this buffer.
+     * This method does not modify {@code readerIndex} or {@code writerIndex} of this buffer.
+     *
+     * @param dstIndex the first index of the destination
+     * @param length   the number of {@code short}s to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code index} is less than {@code 0},
+     *         if the specified {@code dstIndex} is less than {@code 0},
+     *         if {@code index + length * 2} is greater than
+     *            {@code this.capacity}, or
+     *         if {@code dstIndex + length} is greater than
+     *            {@code dst.length}
+     */
+    public abstract ByteBuf getShorts(int index, short[] dst, int dstIndex, int length);
+
+    /**
+     * Transfers {@code length} {@code int}s of this buffer starting at the specified absolute {@code index} to
+     * the specified destination, honoring the {@linkplain #order() byte order} of this buffer.
+     * This method does not modify {@code readerIndex} or {@code writerIndex} of this buffer.
+     *
+     * @param dstIndex the first index of the destination
+     * @param length   the number of {@code int}s to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code index} is less than {@code 0},
+     *         if the specified {@code dstIndex} is less than {@code 0},
+     *         if {@code index + length * 4} is greater than
+     *            {@code this.capacity}, or
+     *         if {@code dstIndex + length} is greater than
+     *            {@code dst.length}
+     */
+    public abstract ByteBuf getInts(int index, int[] dst, int dstIndex, int length);
+
+    /**
+     * Transfers {@code length} {@code long}s of this buffer starting at the specified absolute {@code index} to
+     * the specified destination, honoring the {@linkplain #order() byte order} of this buffer.
+     * This method does not modify {@code readerIndex} or {@code writerIndex} of this buffer.
+     *
+     * @param dstIndex the first index of the destination
+     * @param length   the number of {@code long}s to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code index} is less than {@code 0},
+     *         if the specified {@code dstIndex} is less than {@code 0},
+     *         if {@code index + length * 8} is greater than
+     *            {@code this.capacity}, or
+     *         if {@code dstIndex + length} is greater than
+     *            {@code dst.length}
+     */
+    public abstract ByteBuf getLongs(int index, long[] dst, int dstIndex, int length);
+
+    /**
+     * Transfers {@code length} {@code float}s of this buffer starting at the specified absolute {@code index} to
+     * the specified destination, honoring the {@linkplain #order() byte order} of this buffer.
+     * This method does not modify {@code readerIndex} or {@code writerIndex} of this buffer.
+     *
+     * @param dstIndex the first index of the destination
+     * @param length   the number of {@code float}s to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code index} is less than {@code 0},
+     *         if the specified {@code dstIndex} is less than {@code 0},
+     *         if {@code index + length * 4} is greater than
+     *            {@code this.capacity}, or
+     *         if {@code dstIndex + length} is greater than
+     *            {@code dst.length}
+     */
+    public abstract ByteBuf getFloats(int index, float[] dst, int dstIndex, int length);
+
+    /**
+     * Transfers {@code length} {@code double}s of this buffer starting at the specified absolute {@code index} to
+     * the specified destination, honoring the {@linkplain #order() byte order} of this buffer.
+     * This method does not modify {@code readerIndex} or {@code writerIndex} of this buffer.
+     *
+     * @param dstIndex the first index of the destination
+     * @param length   the number of {@code double}s to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code index} is less than {@code 0},
+     *         if the specified {@code dstIndex} is less than {@code 0},
+     *         if {@code index + length * 8} is greater than
+     *            {@code this.capacity}, or
+     *         if {@code dstIndex + length} is greater than
+     *            {@code dst.length}
+     */
+    public abstract ByteBuf getDoubles(int index, double[] dst, int dstIndex, int length);
+
+    /**
+     * Transfers {@code length} {@code short}s of the specified source to this buffer starting at the specified
+     * absolute {@code index}, honoring the {@linkplain #order() byte order} of this buffer.
+     * This method does not modify {@code readerIndex} or {@code writerIndex} of this buffer.
+     *
+     * @param srcIndex the first index of the source
+     * @param length   the number of {@code short}s to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code index} is less than {@code 0},
+     *         if the specified {@code srcIndex} is less than {@code 0},
+     *         if {@code index + length * 2} is greater than
+     *            {@code this.capacity}, or
+     *         if {@code srcIndex + length} is greater than {@code src.length}
+     */
+    public abstract ByteBuf setShorts(int index, short[] src, int srcIndex, int length);
+
+    /**
+     * Transfers {@code length} {@code int}s of the specified source to this buffer starting at the specified
+     * absolute {@code index}, honoring the {@linkplain #order() byte order} of this buffer.
+     * This method does not modify {@code readerIndex} or {@code writerIndex} of this buffer.
+     *
+     * @param srcIndex the first index of the source
+     * @param length   the number of {@code int}s to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code index} is less than {@code 0},
+     *         if the specified {@code srcIndex} is less than {@code 0},
+     *         if {@code index + length * 4} is greater than
+     *            {@code this.capacity}, or
+     *         if {@code srcIndex + length} is greater than {@code src.length}
+     */
+    public abstract ByteBuf setInts(int index, int[] src, int srcIndex, int length);
+
+    /**
+     * Transfers {@code length} {@code long}s of the specified source to this buffer starting at the specified
+     * absolute {@code index}, honoring the {@linkplain #order() byte order} of this buffer.
+     * This method does not modify {@code readerIndex} or {@code writerIndex} of this buffer.
+     *
+     * @param srcIndex the first index of the source
+     * @param length   the number of {@code long}s to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code index} is less than {@code 0},
+     *         if the specified {@code srcIndex} is less than {@code 0},
+     *         if {@code index + length * 8} is greater than
+     *            {@code this.capacity}, or
+     *         if {@code srcIndex + length} is greater than {@code src.length}
+     */
+    public abstract ByteBuf setLongs(int index, long[] src, int srcIndex, int length);
+
+    /**
+     * Transfers {@code length} {@code float}s of the specified source to this buffer starting at the specified
+     * absolute {@code index}, honoring the {@linkplain #order() byte order} of this buffer.
+     * This method does not modify {@code readerIndex} or {@code writerIndex} of this buffer.
+     *
+     * @param srcIndex the first index of the source
+     * @param length   the number of {@code float}s to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code index} is less than {@code 0},
+     *         if the specified {@code srcIndex} is less than {@code 0},
+     *         if {@code index + length * 4} is greater than
+     *            {@code this.capacity}, or
+     *         if {@code srcIndex + length} is greater than {@code src.length}
+     */
+    public abstract ByteBuf setFloats(int index, float[] src, int srcIndex, int length);
+
+    /**
+     * Transfers {@code length} {@code double}s of the specified source to this buffer starting at the specified
+     * absolute {@code index}, honoring the {@linkplain #order() byte order} of this buffer.
+     * This method does not modify {@code readerIndex} or {@code writerIndex} of this buffer.
+     *
+     * @param srcIndex the first index of the source
+     * @param length   the number of {@code double}s to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code index} is less than {@code 0},
+     *         if the specified {@code srcIndex} is less than {@code 0},
+     *         if {@code index + length * 8} is greater than
+     *            {@code this.capacity}, or
+     *         if {@code srcIndex + length} is greater than {@code src.length}
+     */
+    public abstract ByteBuf setDoubles(int index, double[] src, int srcIndex, int length);
+
+    /**
+     * Transfers {@code length} {@code short}s of this buffer to the specified destination starting at the current
+     * {@code readerIndex}, honoring the {@linkplain #order() byte order} of this buffer, and increases the
+     * {@code readerIndex} by {@code length * 2}.
+     *
+     * @param dstIndex the first index of the destination
+     * @param length   the number of {@code short}s to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code dstIndex} is less than {@code 0},
+     *         if {@code length * 2} is greater than {@code this.readableBytes}, or
+     *         if {@code dstIndex + length} is greater than {@code dst.length}
+     */
+    public abstract ByteBuf readShorts(short[] dst, int dstIndex, int length);
+
+    /**
+     * Transfers {@code length} {@code int}s of this buffer to the specified destination starting at the current
+     * {@code readerIndex}, honoring the {@linkplain #order() byte order} of this buffer, and increases the
+     * {@code readerIndex} by {@code length * 4}.
+     *
+     * @param dstIndex the first index of the destination
+     * @param length   the number of {@code int}s to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code dstIndex} is less than {@code 0},
+     *         if {@code length * 4} is greater than {@code this.readableBytes}, or
+     *         if {@code dstIndex + length} is greater than {@code dst.length}
+     */
+    public abstract ByteBuf readInts(int[] dst, int dstIndex, int length);
+
+    /**
+     * Transfers {@code length} {@code long}s of this buffer to the specified destination starting at the current
+     * {@code readerIndex}, honoring the {@linkplain #order() byte order} of this buffer, and increases the
+     * {@code readerIndex} by {@code length * 8}.
+     *
+     * @param dstIndex the first index of the destination
+     * @param length   the number of {@code long}s to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code dstIndex} is less than {@code 0},
+     *         if {@code length * 8} is greater than {@code this.readableBytes}, or
+     *         if {@code dstIndex + length} is greater than {@code dst.length}
+     */
+    public abstract ByteBuf readLongs(long[] dst, int dstIndex, int length);
+
+    /**
+     * Transfers {@code length} {@code float}s of this buffer to the specified destination starting at the current
+     * {@code readerIndex}, honoring the {@linkplain #order() byte order} of this buffer, and increases the
+     * {@code readerIndex} by {@code length * 4}.
+     *
+     * @param dstIndex the first index of the destination
+     * @param length   the number of {@code float}s to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code dstIndex} is less than {@code 0},
+     *         if {@code length * 4} is greater than {@code this.readableBytes}, or
+     *         if {@code dstIndex + length} is greater than {@code dst.length}
+     */
+    public abstract ByteBuf readFloats(float[] dst, int dstIndex, int length);
+
+    /**
+     * Transfers {@code length} {@code double}s of this buffer to the specified destination starting at the current
+     * {@code readerIndex}, honoring the {@linkplain #order() byte order} of this buffer, and increases the
+     * {@code readerIndex} by {@code length * 8}.
+     *
+     * @param dstIndex the first index of the destination
+     * @param length   the number of {@code double}s to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code dstIndex} is less than {@code 0},
+     *         if {@code length * 8} is greater than {@code this.readableBytes}, or
+     *         if {@code dstIndex + length} is greater than {@code dst.length}
+     */
+    public abstract ByteBuf readDoubles(double[] dst, int dstIndex, int length);
+
+    /**
+     * Transfers {@code length} {@code short}s of the specified source to this buffer starting at the current
+     * {@code writerIndex}, honoring the {@linkplain #order() byte order} of this buffer, and increases the
+     * {@code writerIndex} by {@code length * 2}.
+     *
+     * @param srcIndex the first index of the source
+     * @param length   the number of {@code short}s to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code srcIndex} is less than {@code 0},
+     *         if {@code length * 2} is greater than {@code this.writableBytes}, or
+     *         if {@code srcIndex + length} is greater than {@code src.length}
+     */
+    public abstract ByteBuf writeShorts(short[] src, int srcIndex, int length);
+
+    /**
+     * Transfers {@code length} {@code int}s of the specified source to this buffer starting at the current
+     * {@code writerIndex}, honoring the {@linkplain #order() byte order} of this buffer, and increases the
+     * {@code writerIndex} by {@code length * 4}.
+     *
+     * @param srcIndex the first index of the source
+     * @param length   the number of {@code int}s to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code srcIndex} is less than {@code 0},
+     *         if {@code length * 4} is greater than {@code this.writableBytes}, or
+     *         if {@code srcIndex + length} is greater than {@code src.length}
+     */
+    public abstract ByteBuf writeInts(int[] src, int srcIndex, int length);
+
+    /**
+     * Transfers {@code length} {@code long}s of the specified source to this buffer starting at the current
+     * {@code writerIndex}, honoring the {@linkplain #order() byte order} of this buffer, and increases the
+     * {@code writerIndex} by {@code length * 8}.
+     *
+     * @param srcIndex the first index of the source
+     * @param length   the number of {@code long}s to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code srcIndex} is less than {@code 0},
+     *         if {@code length * 8} is greater than {@code this.writableBytes}, or
+     *         if {@code srcIndex + length} is greater than {@code src.length}
+     */
+    public abstract ByteBuf writeLongs(long[] src, int srcIndex, int length);
+
+    /**
+     * Transfers {@code length} {@code float}s of the specified source to this buffer starting at the current
+     * {@code writerIndex}, honoring the {@linkplain #order() byte order} of this buffer, and increases the
+     * {@code writerIndex} by {@code length * 4}.
+     *
+     * @param srcIndex the first index of the source
+     * @param length   the number of {@code float}s to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code srcIndex} is less than {@code 0},
+     *         if {@code length * 4} is greater than {@code this.writableBytes}, or
+     *         if {@code srcIndex + length} is greater than {@code src.length}
+     */
+    public abstract ByteBuf writeFloats(float[] src, int srcIndex, int length);
+
+    /**
+     * Transfers {@code length} {@code double}s of the specified source to this buffer starting at the current
+     * {@code writerIndex}, honoring the {@linkplain #order() byte order} of this buffer, and increases the
+     * {@code writerIndex} by {@code length * 8}.
+     *
+     * @param srcIndex the first index of the source
+     * @param length   the number of {@code double}s to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code srcIndex} is less than {@code 0},
+     *         if {@code length * 8} is greater than {@code this.writableBytes}, or
+     *         if {@code srcIndex + length} is greater than {@code src.length}
+     */
+    public abstract ByteBuf writeDoubles(double[] src, int srcIndex, int length);
+
     /**
      * Locates the first occurrence of the specified {@code value} in this
      * buffer.  The search takes place from the specified {@code fromIndex}
@@ -1556,6 +1897,23 @@ public abstract class ByteBuf implements ReferenceCounted, Comparable<ByteBuf> {
      */
     public abstract int indexOf(int fromIndex, int toIndex, byte value);
 
+    /**
+     * Locates the first occurrence of any of the specified {@code values} in this
+     * buffer.  The search takes place from the specified {@code fromIndex}
+     * (inclusive)  to the specified {@code toIndex} (exclusive).  This method is
+     * meant for small sets of bytes, like {@code CR} and {@code LF}.
+     * <p>
+     * If {@code fromIndex} is greater than {@code toIndex}, the search is
+     * performed in a reversed order.
+     * <p>
+     * This method does not modify {@code readerIndex} or {@code writerIndex} of
+     * this buffer.
+     *
+     * @return the absolute index of the first occurrence if found.
+     *         {@code -1} otherwise.
+     */
+    public abstract int indexOfAny(int fromIndex, int toIndex, byte... values);
+
     /**
      * Locates the first occurrence of the specified {@code value} in this
      * buffer.  The search takes place from the current {@code readerIndex}
@@ -1682,6 +2040,34 @@ public abstract class ByteBuf implements ReferenceCounted, Comparable<ByteBuf> {
      */
     public abstract ByteBuf duplicate();
 
+    /**
+     * Returns a retained slice of this buffer's readable bytes. Unlike {@code slice().retain()} the returned buffer
+     * has its own reference count and may be recycled once it is released, so it must be released exactly once more
+     * than it was retained. It holds one reference of this buffer until then.
+     * This method is identical to {@code buf.retainedSlice(buf.readerIndex(), buf.readableBytes())}.
+     * This method does not modify {@code readerIndex} or {@code writerIndex} of
+     * this buffer.
+     */
+    public abstract ByteBuf retainedSlice();
+
+    /**
+     * Returns a retained slice of this buffer's sub-region. Unlike {@code slice(index, length).retain()} the returned
+     * buffer has its own reference count and may be recycled once it is released, so it must be released exactly
+     * once more than it was retained. It holds one reference of this buffer until then.
+     * This method does not modify {@code readerIndex} or {@code writerIndex} of
+     * this buffer.
+     */
+    public abstract ByteBuf retainedSlice(int index, int length);
+
+    /**
+     * Returns a retained buffer which shares the whole region of this buffer. Unlike {@code duplicate().retain()}
+     * the returned buffer has its own reference count and may be recycled once it is released, so it must be
+     * released exactly once more than it was retained. It holds one reference of this buffer until then.
+     * This method does not modify {@code readerIndex} or {@code writerIndex} of
+     * this buffer.
+     */
+    public abstract ByteBuf retainedDuplicate();
+
     /**
      * Returns the maximum number of NIO {@link ByteBuffer}s that consist this buffer.  Note that {@link #nioBuffers()}
      * or {@link #nioBuffers(int, int)} might return a less number of {@link ByteBuffer}s.
@@ -21,12 +21,7 @@ public interface ByteBufProcessor {
     /**
      * Aborts on a {@code NUL (0x00)}.
      */
-    ByteBufProcessor FIND_NUL = new ByteBufProcessor() {
-        @Override
-        public boolean process(byte value) throws Exception {
-            return value != 0;
-        }
-    };
+    ByteBufProcessor FIND_NUL = new IndexOfProcessor((byte) 0);
 
     /**
      * Aborts on a non-{@code NUL (0x00)}.
@@ -41,12 +36,7 @@ public interface ByteBufProcessor {
     /**
      * Aborts on a {@code CR ('\r')}.
      */
-    ByteBufProcessor FIND_CR = new ByteBufProcessor() {
-        @Override
-        public boolean process(byte value) throws Exception {
-            return value != '\r';
-        }
-    };
+    ByteBufProcessor FIND_CR = new IndexOfProcessor((byte) '\r');
 
     /**
      * Aborts on a non-{@code CR ('\r')}.
@@ -61,12 +51,7 @@ public interface ByteBufProcessor {
     /**
      * Aborts on a {@code LF ('\n')}.
      */
-    ByteBufProcessor FIND_LF = new ByteBufProcessor() {
-        @Override
-        public boolean process(byte value) throws Exception {
-            return value != '\n';
-        }
-    };
+    ByteBufProcessor FIND_LF = new IndexOfProcessor((byte) '\n');
 
     /**
      * Aborts on a non-{@code LF ('\n')}.
@@ -81,12 +66,7 @@ public interface ByteBufProcessor {
     /**
      * Aborts on a {@code CR ('\r')} or a {@code LF ('\n')}.
      */
-    ByteBufProcessor FIND_CRLF = new ByteBufProcessor() {
-        @Override
-        public boolean process(byte value) throws Exception {
-            return value != '\r' && value != '\n';
-        }
-    };
+    ByteBufProcessor FIND_CRLF = new IndexOfProcessor((byte) '\r', (byte) '\n');
 
     /**
      * Aborts on a byte which is neither a {@code CR ('\r')} nor a {@code LF ('\n')}.
@@ -101,12 +81,7 @@ public interface ByteBufProcessor {
     /**
      * Aborts on a linear whitespace (a ({@code ' '} or a {@code '\t'}).
      */
-    ByteBufProcessor FIND_LINEAR_WHITESPACE = new ByteBufProcessor() {
-        @Override
-        public boolean process(byte value) throws Exception {
-            return value != ' ' && value != '\t';
-        }
-    };
+    ByteBufProcessor FIND_LINEAR_WHITESPACE = new IndexOfProcessor((byte) ' ', (byte) '\t');
 
     /**
      * Aborts on a byte which is not a linear whitespace (neither {@code ' '} nor {@code '\t'}).
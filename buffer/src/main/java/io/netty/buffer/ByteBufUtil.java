@@ -46,6 +46,12 @@ public final class ByteBufUtil {
 
     private static final int THREAD_LOCAL_BUFFER_SIZE;
 
+    private static final boolean HAS_UNSAFE = PlatformDependent.hasUnsafe();
+    private static final boolean BIG_ENDIAN_NATIVE_ORDER = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+    // Searches over less bytes than a few words are not worth the setup of the word-at-a-time search.
+    private static final int SWAR_MIN_LENGTH = 16;
+    private static final long SWAR_LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
     static {
         final char[] DIGITS = "0123456789abcdef".toCharArray();
         for (int i = 0; i < 256; i ++) {
@@ -346,6 +352,10 @@ public final class ByteBufUtil {
             return -1;
         }
 
+        if (isSwarSupported(buffer, fromIndex, toIndex)) {
+            return swarIndexOf(buffer, fromIndex, toIndex, value);
+        }
+
         for (int i = fromIndex; i < toIndex; i ++) {
             if (buffer.getByte(i) == value) {
                 return i;
@@ -370,6 +380,369 @@ public final class ByteBufUtil {
         return -1;
     }
 
+    /**
+     * The default implementation of {@link ByteBuf#indexOfAny(int, int, byte...)}.
+     * This method is useful when implementing a new buffer type.
+     */
+    public static int indexOfAny(ByteBuf buffer, int fromIndex, int toIndex, byte... values) {
+        if (values == null) {
+            throw new NullPointerException("values");
+        }
+        if (values.length == 1) {
+            return indexOf(buffer, fromIndex, toIndex, values[0]);
+        }
+        if (fromIndex <= toIndex) {
+            return firstIndexOfAny(buffer, fromIndex, toIndex, values);
+        } else {
+            return lastIndexOfAny(buffer, fromIndex, toIndex, values);
+        }
+    }
+
+    private static int firstIndexOfAny(ByteBuf buffer, int fromIndex, int toIndex, byte[] values) {
+        fromIndex = Math.max(fromIndex, 0);
+        if (fromIndex >= toIndex || buffer.capacity() == 0 || values.length == 0) {
+            return -1;
+        }
+
+        if (isSwarSupported(buffer, fromIndex, toIndex)) {
+            return swarIndexOfAny(buffer, fromIndex, toIndex, values);
+        }
+
+        for (int i = fromIndex; i < toIndex; i ++) {
+            if (contains(values, buffer.getByte(i))) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int lastIndexOfAny(ByteBuf buffer, int fromIndex, int toIndex, byte[] values) {
+        fromIndex = Math.min(fromIndex, buffer.capacity());
+        if (fromIndex < 0 || buffer.capacity() == 0 || values.length == 0) {
+            return -1;
+        }
+
+        for (int i = fromIndex - 1; i >= toIndex; i --) {
+            if (contains(values, buffer.getByte(i))) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    static boolean contains(byte[] values, byte value) {
+        for (byte v: values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if the memory of {@code buffer} between {@code fromIndex} and {@code toIndex} can be
+     * searched a word at a time. A released buffer is never supported, so the caller falls back to
+     * {@link ByteBuf#getByte(int)} which will throw.
+     */
+    static boolean isSwarSupported(ByteBuf buffer, int fromIndex, int toIndex) {
+        return HAS_UNSAFE && toIndex - fromIndex >= SWAR_MIN_LENGTH && fromIndex >= 0 &&
+               toIndex <= buffer.capacity() && (buffer.hasMemoryAddress() || buffer.hasArray()) &&
+               buffer.refCnt() != 0;
+    }
+
+    /**
+     * Returns the index of the first {@code value} between {@code fromIndex} and {@code toIndex} by reading
+     * 8 bytes at once. {@link #isSwarSupported(ByteBuf, int, int)} must have returned {@code true}.
+     */
+    static int swarIndexOf(ByteBuf buffer, int fromIndex, int toIndex, byte value) {
+        final long pattern = compilePattern(value);
+        if (buffer.hasMemoryAddress()) {
+            final long address = buffer.memoryAddress();
+            int i = fromIndex;
+            for (final int end = toIndex - 7; i < end; i += 8) {
+                long mask = matchMask(PlatformDependent.getLong(address + i), pattern);
+                if (mask != 0) {
+                    return i + firstMatch(mask);
+                }
+            }
+            for (; i < toIndex; i ++) {
+                if (PlatformDependent.getByte(address + i) == value) {
+                    return i;
+                }
+            }
+        } else {
+            final byte[] array = buffer.array();
+            final int offset = buffer.arrayOffset();
+            int i = fromIndex + offset;
+            final int arrayToIndex = toIndex + offset;
+            for (final int end = arrayToIndex - 7; i < end; i += 8) {
+                long mask = matchMask(PlatformDependent.getLong(array, i), pattern);
+                if (mask != 0) {
+                    return i + firstMatch(mask) - offset;
+                }
+            }
+            for (; i < arrayToIndex; i ++) {
+                if (array[i] == value) {
+                    return i - offset;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first byte which is contained in {@code values} between {@code fromIndex} and
+     * {@code toIndex} by reading 8 bytes at once. {@code values} must contain at least two bytes and
+     * {@link #isSwarSupported(ByteBuf, int, int)} must have returned {@code true}.
+     */
+    static int swarIndexOfAny(ByteBuf buffer, int fromIndex, int toIndex, byte[] values) {
+        // Compute the first two patterns only once as most callers search for two bytes, like CR and LF.
+        final long pattern1 = compilePattern(values[0]);
+        final long pattern2 = compilePattern(values[1]);
+        if (buffer.hasMemoryAddress()) {
+            final long address = buffer.memoryAddress();
+            int i = fromIndex;
+            for (final int end = toIndex - 7; i < end; i += 8) {
+                long mask = matchMask(PlatformDependent.getLong(address + i), pattern1, pattern2, values);
+                if (mask != 0) {
+                    return i + firstMatch(mask);
+                }
+            }
+            for (; i < toIndex; i ++) {
+                if (contains(values, PlatformDependent.getByte(address + i))) {
+                    return i;
+                }
+            }
+        } else {
+            final byte[] array = buffer.array();
+            final int offset = buffer.arrayOffset();
+            int i = fromIndex + offset;
+            final int arrayToIndex = toIndex + offset;
+            for (final int end = arrayToIndex - 7; i < end; i += 8) {
+                long mask = matchMask(PlatformDependent.getLong(array, i), pattern1, pattern2, values);
+                if (mask != 0) {
+                    return i + firstMatch(mask) - offset;
+                }
+            }
+            for (; i < arrayToIndex; i ++) {
+                if (contains(values, array[i])) {
+                    return i - offset;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static long compilePattern(byte value) {
+        return (value & 0xFFL) * 0x101010101010101L;
+    }
+
+    /**
+     * Returns a word which has the high bit set in every byte of {@code word} that equals the byte of
+     * {@code pattern}. Unlike the classic {@code (x - 0x01..) & ~x & 0x80..} trick this never reports a false
+     * match, so it is safe for both native byte orders.
+     */
+    private static long matchMask(long word, long pattern) {
+        long input = word ^ pattern;
+        long tmp = (input & SWAR_LOW_BITS) + SWAR_LOW_BITS;
+        return ~(tmp | input | SWAR_LOW_BITS);
+    }
+
+    private static long matchMask(long word, long pattern1, long pattern2, byte[] values) {
+        long mask = matchMask(word, pattern1) | matchMask(word, pattern2);
+        for (int i = 2; i < values.length; i ++) {
+            mask |= matchMask(word, compilePattern(values[i]));
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the offset of the first matching byte in memory order.
+     */
+    private static int firstMatch(long mask) {
+        if (BIG_ENDIAN_NATIVE_ORDER) {
+            return Long.numberOfLeadingZeros(mask) >>> 3;
+        }
+        return Long.numberOfTrailingZeros(mask) >>> 3;
+    }
+
+    /**
+     * Returns the number of bytes the {@code UTF-8} encoding of {@code seq} takes. A surrogate pair takes
+     * 4 bytes and an unpaired surrogate is counted as the single byte of its {@code '?'} replacement.
+     */
+    public static int utf8Length(CharSequence seq) {
+        final int len = seq.length();
+        int bytes = len;
+        for (int i = 0; i < len; i ++) {
+            char c = seq.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                bytes ++;
+            } else if (isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(seq.charAt(i + 1))) {
+                    // Two chars for four bytes.
+                    bytes += 2;
+                    i ++;
+                }
+            } else {
+                bytes += 2;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Encode a {@link CharSequence} in {@code UTF-8} and put it into a new {@link ByteBuf} which is allocated via
+     * the {@link ByteBufAllocator} with the exact encoded length.
+     */
+    public static ByteBuf writeUtf8(ByteBufAllocator alloc, CharSequence seq) {
+        return encodeUtf8(alloc, false, seq);
+    }
+
+    static ByteBuf encodeUtf8(ByteBufAllocator alloc, boolean enforceHeap, CharSequence seq) {
+        final int bytes = utf8Length(seq);
+        final ByteBuf buf = enforceHeap ? alloc.heapBuffer(bytes) : alloc.buffer(bytes);
+        writeUtf8(buf, seq, bytes);
+        return buf;
+    }
+
+    /**
+     * Encode a {@link CharSequence} in {@code UTF-8} and write it to the {@link ByteBuf} without going through a
+     * {@link CharsetEncoder}. Unpaired surrogates are replaced by {@code '?'}, like
+     * {@link String#getBytes(Charset)} does.
+     *
+     * @return the number of bytes written
+     */
+    public static int writeUtf8(ByteBuf buf, CharSequence seq) {
+        final int bytes = utf8Length(seq);
+        writeUtf8(buf, seq, bytes);
+        return bytes;
+    }
+
+    private static void writeUtf8(ByteBuf buf, CharSequence seq, int bytes) {
+        buf.ensureWritable(bytes);
+        final int writerIndex = buf.writerIndex();
+        if (HAS_UNSAFE && buf.hasMemoryAddress()) {
+            writeUtf8(buf.memoryAddress() + writerIndex, seq);
+        } else if (buf.hasArray()) {
+            writeUtf8(buf.array(), buf.arrayOffset() + writerIndex, seq);
+        } else {
+            byte[] encoded = seq.toString().getBytes(CharsetUtil.UTF_8);
+            buf.setBytes(writerIndex, encoded);
+        }
+        buf.writerIndex(writerIndex + bytes);
+    }
+
+    private static void writeUtf8(long address, CharSequence seq) {
+        final int len = seq.length();
+        for (int i = 0; i < len; i ++) {
+            char c = seq.charAt(i);
+            if (c < 0x80) {
+                PlatformDependent.putByte(address ++, (byte) c);
+            } else if (c < 0x800) {
+                PlatformDependent.putByte(address ++, (byte) (0xc0 | c >> 6));
+                PlatformDependent.putByte(address ++, (byte) (0x80 | c & 0x3f));
+            } else if (isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(seq.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, seq.charAt(++ i));
+                    PlatformDependent.putByte(address ++, (byte) (0xf0 | codePoint >> 18));
+                    PlatformDependent.putByte(address ++, (byte) (0x80 | codePoint >> 12 & 0x3f));
+                    PlatformDependent.putByte(address ++, (byte) (0x80 | codePoint >> 6 & 0x3f));
+                    PlatformDependent.putByte(address ++, (byte) (0x80 | codePoint & 0x3f));
+                } else {
+                    PlatformDependent.putByte(address ++, (byte) '?');
+                }
+            } else {
+                PlatformDependent.putByte(address ++, (byte) (0xe0 | c >> 12));
+                PlatformDependent.putByte(address ++, (byte) (0x80 | c >> 6 & 0x3f));
+                PlatformDependent.putByte(address ++, (byte) (0x80 | c & 0x3f));
+            }
+        }
+    }
+
+    private static void writeUtf8(byte[] array, int index, CharSequence seq) {
+        final int len = seq.length();
+        for (int i = 0; i < len; i ++) {
+            char c = seq.charAt(i);
+            if (c < 0x80) {
+                array[index ++] = (byte) c;
+            } else if (c < 0x800) {
+                array[index ++] = (byte) (0xc0 | c >> 6);
+                array[index ++] = (byte) (0x80 | c & 0x3f);
+            } else if (isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(seq.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, seq.charAt(++ i));
+                    array[index ++] = (byte) (0xf0 | codePoint >> 18);
+                    array[index ++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                    array[index ++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                    array[index ++] = (byte) (0x80 | codePoint & 0x3f);
+                } else {
+                    array[index ++] = '?';
+                }
+            } else {
+                array[index ++] = (byte) (0xe0 | c >> 12);
+                array[index ++] = (byte) (0x80 | c >> 6 & 0x3f);
+                array[index ++] = (byte) (0x80 | c & 0x3f);
+            }
+        }
+    }
+
+    private static boolean isSurrogate(char c) {
+        return c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE;
+    }
+
+    /**
+     * Encode a {@link CharSequence} with one byte per char and put it into a new {@link ByteBuf} which is
+     * allocated via the {@link ByteBufAllocator} with the exact encoded length.
+     *
+     * @see #writeAscii(ByteBuf, CharSequence)
+     */
+    public static ByteBuf writeAscii(ByteBufAllocator alloc, CharSequence seq) {
+        ByteBuf buf = alloc.buffer(seq.length());
+        writeAscii(buf, seq);
+        return buf;
+    }
+
+    /**
+     * Encode a {@link CharSequence} with one byte per char and write it to the {@link ByteBuf} without going through
+     * a {@link CharsetEncoder}. This is meant for {@code US-ASCII} text like protocol elements and headers. Other
+     * chars below {@code 0x100} are written as their {@code ISO-8859-1} byte and all others are replaced by
+     * {@code '?'}.
+     *
+     * @return the number of bytes written
+     */
+    public static int writeAscii(ByteBuf buf, CharSequence seq) {
+        final int len = seq.length();
+        buf.ensureWritable(len);
+        final int writerIndex = buf.writerIndex();
+        if (HAS_UNSAFE && buf.hasMemoryAddress()) {
+            final long address = buf.memoryAddress() + writerIndex;
+            for (int i = 0; i < len; i ++) {
+                PlatformDependent.putByte(address + i, c2b(seq.charAt(i)));
+            }
+        } else if (buf.hasArray()) {
+            final byte[] array = buf.array();
+            final int offset = buf.arrayOffset() + writerIndex;
+            for (int i = 0; i < len; i ++) {
+                array[offset + i] = c2b(seq.charAt(i));
+            }
+        } else {
+            for (int i = 0; i < len; i ++) {
+                buf.setByte(writerIndex + i, c2b(seq.charAt(i)));
+            }
+        }
+        buf.writerIndex(writerIndex + len);
+        return len;
+    }
+
+    private static byte c2b(char c) {
+        return c < 0x100 ? (byte) c : (byte) '?';
+    }
+
     /**
      * Encode the given {@link CharBuffer} using the given {@link Charset} into a new {@link ByteBuf} which
      * is allocated via the {@link ByteBufAllocator}.
@@ -379,6 +752,13 @@ public final class ByteBufUtil {
     }
 
     static ByteBuf encodeString0(ByteBufAllocator alloc, boolean enforceHeap, CharBuffer src, Charset charset) {
+        if (CharsetUtil.UTF_8.equals(charset)) {
+            // Encode without a CharsetEncoder and consume the source like the encoder would.
+            ByteBuf dst = encodeUtf8(alloc, enforceHeap, src);
+            src.position(src.limit());
+            return dst;
+        }
+
         final CharsetEncoder encoder = CharsetUtil.getEncoder(charset);
         int length = (int) ((double) src.remaining() * encoder.maxBytesPerChar());
         boolean release = true;
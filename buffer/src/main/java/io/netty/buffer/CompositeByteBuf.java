@@ -15,6 +15,8 @@
  */
 package io.netty.buffer;
 
+import io.netty.util.Recycler;
+import io.netty.util.Recycler.Handle;
 import io.netty.util.ResourceLeak;
 import io.netty.util.internal.EmptyArrays;
 
@@ -26,11 +28,11 @@ import java.nio.ByteOrder;
 import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.ScatteringByteChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.ListIterator;
 
 /**
  * A virtual buffer which shows multiple buffers as a single merged buffer.  It is recommended to use
@@ -39,28 +41,89 @@ import java.util.ListIterator;
  */
 public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
 
-    private final ResourceLeak leak;
-    private final ByteBufAllocator alloc;
-    private final boolean direct;
-    private final List<Component> components = new ArrayList<Component>();
-    private final int maxNumComponents;
     private static final ByteBuffer FULL_BYTEBUFFER = (ByteBuffer) ByteBuffer.allocate(1).position(1);
+    private static final Component[] EMPTY_COMPONENTS = new Component[0];
+    private static final int DEFAULT_COMPONENT_ARRAY_SIZE = 16;
+    // Larger component arrays are not kept when a recycled instance is returned to the pool.
+    private static final int MAX_RECYCLED_COMPONENT_ARRAY_SIZE = 256;
+
+    private static final Recycler<CompositeByteBuf> RECYCLER = new Recycler<CompositeByteBuf>() {
+        @Override
+        protected CompositeByteBuf newObject(Handle<CompositeByteBuf> handle) {
+            return new CompositeByteBuf(handle);
+        }
+    };
+
+    /**
+     * Returns a recycled {@link CompositeByteBuf} which is returned to the pool once it is deallocated.
+     */
+    static CompositeByteBuf newInstance(ByteBufAllocator alloc, boolean direct, int maxNumComponents) {
+        if (alloc == null) {
+            throw new NullPointerException("alloc");
+        }
+        CompositeByteBuf buf = RECYCLER.get();
+        buf.setRefCnt(1);
+        buf.alloc = alloc;
+        buf.direct = direct;
+        buf.maxNumComponents = maxNumComponents;
+        buf.consolidationPolicy = ConsolidationPolicy.ALL;
+        buf.freed = false;
+        buf.setIndex(0, 0);
+        buf.markReaderIndex();
+        buf.markWriterIndex();
+        buf.leak = leakDetector.open(buf);
+        return buf;
+    }
+
+    private final Handle<CompositeByteBuf> recyclerHandle;
+
+    private ResourceLeak leak;
+    private ByteBufAllocator alloc;
+    private boolean direct;
+    private int maxNumComponents;
+    private ConsolidationPolicy consolidationPolicy;
+
+    private Component[] components = EMPTY_COMPONENTS;
+    private int componentCount;
+    // The number of leading components whose offset and endOffset are up to date.
+    private int validOffsets;
+    private Component lastAccessed;
 
     private boolean freed;
 
+    private CompositeByteBuf(Handle<CompositeByteBuf> recyclerHandle) {
+        super(Integer.MAX_VALUE);
+        this.recyclerHandle = recyclerHandle;
+    }
+
     public CompositeByteBuf(ByteBufAllocator alloc, boolean direct, int maxNumComponents) {
+        this(alloc, direct, maxNumComponents, ConsolidationPolicy.ALL);
+    }
+
+    /**
+     * Creates a new instance which uses the given {@link ConsolidationPolicy} to decide when and which components
+     * are merged once {@code maxNumComponents} is exceeded.
+     */
+    public CompositeByteBuf(ByteBufAllocator alloc, boolean direct, int maxNumComponents,
+                            ConsolidationPolicy consolidationPolicy) {
         super(Integer.MAX_VALUE);
+        recyclerHandle = null;
         if (alloc == null) {
             throw new NullPointerException("alloc");
         }
+        if (consolidationPolicy == null) {
+            throw new NullPointerException("consolidationPolicy");
+        }
         this.alloc = alloc;
         this.direct = direct;
         this.maxNumComponents = maxNumComponents;
+        this.consolidationPolicy = consolidationPolicy;
         leak = leakDetector.open(this);
     }
 
     public CompositeByteBuf(ByteBufAllocator alloc, boolean direct, int maxNumComponents, ByteBuf... buffers) {
         super(Integer.MAX_VALUE);
+        recyclerHandle = null;
         if (alloc == null) {
             throw new NullPointerException("alloc");
         }
@@ -72,6 +135,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         this.alloc = alloc;
         this.direct = direct;
         this.maxNumComponents = maxNumComponents;
+        consolidationPolicy = ConsolidationPolicy.ALL;
 
         addComponents0(0, buffers);
         consolidateIfNeeded();
@@ -82,6 +146,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
     public CompositeByteBuf(
             ByteBufAllocator alloc, boolean direct, int maxNumComponents, Iterable<ByteBuf> buffers) {
         super(Integer.MAX_VALUE);
+        recyclerHandle = null;
         if (alloc == null) {
             throw new NullPointerException("alloc");
         }
@@ -93,6 +158,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         this.alloc = alloc;
         this.direct = direct;
         this.maxNumComponents = maxNumComponents;
+        consolidationPolicy = ConsolidationPolicy.ALL;
         addComponents0(0, buffers);
         consolidateIfNeeded();
         setIndex(0, capacity());
@@ -108,7 +174,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
      * @param buffer the {@link ByteBuf} to add
      */
     public CompositeByteBuf addComponent(ByteBuf buffer) {
-        addComponent0(components.size(), buffer);
+        addComponent0(componentCount, buffer);
         consolidateIfNeeded();
         return this;
     }
@@ -122,7 +188,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
      * @param buffers the {@link ByteBuf}s to add
      */
     public CompositeByteBuf addComponents(ByteBuf... buffers) {
-        addComponents0(components.size(), buffers);
+        addComponents0(componentCount, buffers);
         consolidateIfNeeded();
         return this;
     }
@@ -136,7 +202,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
      * @param buffers the {@link ByteBuf}s to add
      */
     public CompositeByteBuf addComponents(Iterable<ByteBuf> buffers) {
-        addComponents0(components.size(), buffers);
+        addComponents0(componentCount, buffers);
         consolidateIfNeeded();
         return this;
     }
@@ -163,26 +229,13 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
             throw new NullPointerException("buffer");
         }
 
-        int readableBytes = buffer.readableBytes();
-        if (readableBytes == 0) {
+        if (!buffer.isReadable()) {
             return cIndex;
         }
 
-        // No need to consolidate - just add a component to the list.
-        Component c = new Component(buffer.order(ByteOrder.BIG_ENDIAN).slice());
-        if (cIndex == components.size()) {
-            components.add(c);
-            if (cIndex == 0) {
-                c.endOffset = readableBytes;
-            } else {
-                Component prev = components.get(cIndex - 1);
-                c.offset = prev.endOffset;
-                c.endOffset = c.offset + readableBytes;
-            }
-        } else {
-            components.add(cIndex, c);
-            updateComponentOffsets(cIndex);
-        }
+        // No need to consolidate - just add a component to the array. The offsets are computed lazily.
+        insertComponents(cIndex, 1);
+        components[cIndex] = Component.newInstance(buffer.order(ByteOrder.BIG_ENDIAN).slice());
         return cIndex;
     }
 
@@ -208,29 +261,29 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
             throw new NullPointerException("buffers");
         }
 
-        int readableBytes = 0;
-        for (ByteBuf b: buffers) {
+        int numBuffers = 0;
+        int numReadable = 0;
+        for (; numBuffers < buffers.length; numBuffers ++) {
+            ByteBuf b = buffers[numBuffers];
             if (b == null) {
                 break;
             }
-            readableBytes += b.readableBytes();
+            if (b.isReadable()) {
+                numReadable ++;
+            }
         }
 
-        if (readableBytes == 0) {
+        if (numReadable == 0) {
             return cIndex;
         }
 
-        // No need for consolidation
-        for (ByteBuf b: buffers) {
-            if (b == null) {
-                break;
-            }
+        // No need for consolidation. Make room for all readable buffers at once so that the existing components
+        // are moved only a single time and the offsets are recomputed only once on the next access.
+        insertComponents(cIndex, numReadable);
+        for (int i = 0; i < numBuffers; i ++) {
+            ByteBuf b = buffers[i];
             if (b.isReadable()) {
-                cIndex = addComponent0(cIndex, b) + 1;
-                int size = components.size();
-                if (cIndex > size) {
-                    cIndex = size;
-                }
+                components[cIndex ++] = Component.newInstance(b.order(ByteOrder.BIG_ENDIAN).slice());
             } else {
                 b.release();
             }
@@ -280,66 +333,97 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
      * array of components and so affect the index etc.
      */
     private void consolidateIfNeeded() {
-        // Consolidate if the number of components will exceed the allowed maximum by the current
-        // operation.
-        final int numComponents = components.size();
-        if (numComponents > maxNumComponents) {
-            final int capacity = components.get(numComponents - 1).endOffset;
-
-            ByteBuf consolidated = allocBuffer(capacity);
-
-            // We're not using foreach to avoid creating an iterator.
-            for (int i = 0; i < numComponents; i ++) {
-                Component c = components.get(i);
-                ByteBuf b = c.buf;
-                consolidated.writeBytes(b);
-                c.freeIfNecessary();
-            }
-            Component c = new Component(consolidated);
-            c.endOffset = c.length;
-            components.clear();
-            components.add(c);
+        if (componentCount > maxNumComponents) {
+            consolidationPolicy.consolidate(this);
+        }
+    }
+
+    /**
+     * Opens a gap of {@code numComponents} slots at {@code cIndex}. The caller must fill the gap.
+     */
+    private void insertComponents(int cIndex, int numComponents) {
+        final int size = componentCount;
+        final int newSize = size + numComponents;
+        Component[] components = this.components;
+        if (newSize > components.length) {
+            int newLength = Math.max(newSize, Math.max(DEFAULT_COMPONENT_ARRAY_SIZE, components.length << 1));
+            Component[] newComponents = new Component[newLength];
+            System.arraycopy(components, 0, newComponents, 0, cIndex);
+            System.arraycopy(components, cIndex, newComponents, cIndex + numComponents, size - cIndex);
+            this.components = newComponents;
+        } else if (cIndex < size) {
+            System.arraycopy(components, cIndex, components, cIndex + numComponents, size - cIndex);
+        }
+        componentCount = newSize;
+        invalidateOffsets(cIndex);
+    }
+
+    /**
+     * Removes the components in the range {@code [fromIndex, toIndex)} without releasing them.
+     */
+    private void removeComponentRange(int fromIndex, int toIndex) {
+        if (fromIndex >= toIndex) {
+            return;
+        }
+        final int size = componentCount;
+        final int newSize = size - (toIndex - fromIndex);
+        System.arraycopy(components, toIndex, components, fromIndex, size - toIndex);
+        Arrays.fill(components, newSize, size, null);
+        componentCount = newSize;
+        invalidateOffsets(fromIndex);
+        lastAccessed = null;
+    }
+
+    private void setComponent(int cIndex, Component c) {
+        components[cIndex] = c;
+        invalidateOffsets(cIndex);
+        lastAccessed = null;
+    }
+
+    private void invalidateOffsets(int cIndex) {
+        if (cIndex < validOffsets) {
+            validOffsets = cIndex;
         }
     }
 
     private void checkComponentIndex(int cIndex) {
         ensureAccessible();
-        if (cIndex < 0 || cIndex > components.size()) {
+        if (cIndex < 0 || cIndex > componentCount) {
             throw new IndexOutOfBoundsException(String.format(
                     "cIndex: %d (expected: >= 0 && <= numComponents(%d))",
-                    cIndex, components.size()));
+                    cIndex, componentCount));
         }
     }
 
     private void checkComponentIndex(int cIndex, int numComponents) {
         ensureAccessible();
-        if (cIndex < 0 || cIndex + numComponents > components.size()) {
+        if (cIndex < 0 || cIndex + numComponents > componentCount) {
             throw new IndexOutOfBoundsException(String.format(
                     "cIndex: %d, numComponents: %d " +
                     "(expected: cIndex >= 0 && cIndex + numComponents <= totalNumComponents(%d))",
-                    cIndex, numComponents, components.size()));
+                    cIndex, numComponents, componentCount));
         }
     }
 
-    private void updateComponentOffsets(int cIndex) {
-        int size = components.size();
-        if (size <= cIndex) {
+    /**
+     * Recomputes the offsets of all components which were invalidated by a structural change since the last call.
+     */
+    private void updateComponentOffsets() {
+        final int size = componentCount;
+        int i = validOffsets;
+        if (i >= size) {
             return;
         }
 
-        Component c = components.get(cIndex);
-        if (cIndex == 0) {
-            c.offset = 0;
-            c.endOffset = c.length;
-            cIndex ++;
-        }
-
-        for (int i = cIndex; i < size; i ++) {
-            Component prev = components.get(i - 1);
-            Component cur = components.get(i);
-            cur.offset = prev.endOffset;
-            cur.endOffset = cur.offset + cur.length;
+        final Component[] components = this.components;
+        int offset = i == 0 ? 0 : components[i - 1].endOffset;
+        for (; i < size; i ++) {
+            Component c = components[i];
+            c.offset = offset;
+            offset += c.length;
+            c.endOffset = offset;
         }
+        validOffsets = size;
     }
 
     /**
@@ -349,8 +433,9 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
      */
     public CompositeByteBuf removeComponent(int cIndex) {
         checkComponentIndex(cIndex);
-        components.remove(cIndex).freeIfNecessary();
-        updateComponentOffsets(cIndex);
+        Component c = components[cIndex];
+        removeComponentRange(cIndex, cIndex + 1);
+        c.freeIfNecessary();
         return this;
     }
 
@@ -363,21 +448,20 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
     public CompositeByteBuf removeComponents(int cIndex, int numComponents) {
         checkComponentIndex(cIndex, numComponents);
 
-        List<Component> toRemove = components.subList(cIndex, cIndex + numComponents);
-        for (Component c: toRemove) {
-            c.freeIfNecessary();
+        final int endCIndex = cIndex + numComponents;
+        for (int i = cIndex; i < endCIndex; i ++) {
+            components[i].freeIfNecessary();
         }
-        toRemove.clear();
-
-        updateComponentOffsets(cIndex);
+        removeComponentRange(cIndex, endCIndex);
         return this;
     }
 
     public Iterator<ByteBuf> iterator() {
         ensureAccessible();
-        List<ByteBuf> list = new ArrayList<ByteBuf>(components.size());
-        for (Component c: components) {
-            list.add(c.buf);
+        final int size = componentCount;
+        List<ByteBuf> list = new ArrayList<ByteBuf>(size);
+        for (int i = 0; i < size; i ++) {
+            list.add(components[i].buf);
         }
         return list.iterator();
     }
@@ -392,10 +476,10 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         }
 
         int componentId = toComponentIndex(offset);
-        List<ByteBuf> slice = new ArrayList<ByteBuf>(components.size());
+        List<ByteBuf> slice = new ArrayList<ByteBuf>(componentCount);
 
         // The first component
-        Component firstC = components.get(componentId);
+        Component firstC = components[componentId];
         ByteBuf first = firstC.buf.duplicate();
         first.readerIndex(offset - firstC.offset);
 
@@ -415,7 +499,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
                 componentId ++;
 
                 // Fetch the next component.
-                buf = components.get(componentId).buf.duplicate();
+                buf = components[componentId].buf.duplicate();
             }
         } while (bytesToSlice > 0);
 
@@ -429,12 +513,12 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
 
     @Override
     public boolean isDirect() {
-        int size = components.size();
+        int size = componentCount;
         if (size == 0) {
             return false;
         }
         for (int i = 0; i < size; i++) {
-           if (!components.get(i).buf.isDirect()) {
+           if (!components[i].buf.isDirect()) {
                return false;
            }
         }
@@ -443,50 +527,54 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
 
     @Override
     public boolean hasArray() {
-        if (components.size() == 1) {
-            return components.get(0).buf.hasArray();
+        if (componentCount == 1) {
+            return components[0].buf.hasArray();
         }
         return false;
     }
 
     @Override
     public byte[] array() {
-        if (components.size() == 1) {
-            return components.get(0).buf.array();
+        if (componentCount == 1) {
+            return components[0].buf.array();
         }
         throw new UnsupportedOperationException();
     }
 
     @Override
     public int arrayOffset() {
-        if (components.size() == 1) {
-            return components.get(0).buf.arrayOffset();
+        if (componentCount == 1) {
+            return components[0].buf.arrayOffset();
         }
         throw new UnsupportedOperationException();
     }
 
     @Override
     public boolean hasMemoryAddress() {
-        if (components.size() == 1) {
-            return components.get(0).buf.hasMemoryAddress();
+        if (componentCount == 1) {
+            return components[0].buf.hasMemoryAddress();
         }
         return false;
     }
 
     @Override
     public long memoryAddress() {
-        if (components.size() == 1) {
-            return components.get(0).buf.memoryAddress();
+        if (componentCount == 1) {
+            return components[0].buf.memoryAddress();
         }
         throw new UnsupportedOperationException();
     }
 
     @Override
     public int capacity() {
-        if (components.isEmpty()) {
+        final int size = componentCount;
+        if (size == 0) {
             return 0;
         }
-        return components.get(components.size() - 1).endOffset;
+        if (validOffsets < size) {
+            updateComponentOffsets();
+        }
+        return components[size - 1].endOffset;
     }
 
     @Override
@@ -499,37 +587,27 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         int oldCapacity = capacity();
         if (newCapacity > oldCapacity) {
             final int paddingLength = newCapacity - oldCapacity;
-            ByteBuf padding;
-            int nComponents = components.size();
-            if (nComponents < maxNumComponents) {
-                padding = allocBuffer(paddingLength);
-                padding.setIndex(0, paddingLength);
-                addComponent0(components.size(), padding);
-            } else {
-                padding = allocBuffer(paddingLength);
-                padding.setIndex(0, paddingLength);
-                // FIXME: No need to create a padding buffer and consolidate.
-                // Just create a big single buffer and put the current content there.
-                addComponent0(components.size(), padding);
-                consolidateIfNeeded();
-            }
+            ByteBuf padding = allocBuffer(paddingLength);
+            padding.setIndex(0, paddingLength);
+            // FIXME: No need to create a padding buffer and consolidate.
+            // Just create a big single buffer and put the current content there.
+            addComponent0(componentCount, padding);
+            consolidateIfNeeded();
         } else if (newCapacity < oldCapacity) {
             int bytesToTrim = oldCapacity - newCapacity;
-            for (ListIterator<Component> i = components.listIterator(components.size()); i.hasPrevious();) {
-                Component c = i.previous();
+            int i = componentCount - 1;
+            for (; i >= 0; i --) {
+                Component c = components[i];
                 if (bytesToTrim >= c.length) {
                     bytesToTrim -= c.length;
-                    i.remove();
                     continue;
                 }
 
                 // Replace the last component with the trimmed slice.
-                Component newC = new Component(c.buf.slice(0, c.length - bytesToTrim));
-                newC.offset = c.offset;
-                newC.endOffset = newC.offset + newC.length;
-                i.set(newC);
+                setComponent(i, Component.newInstance(c.buf.slice(0, c.length - bytesToTrim)));
                 break;
             }
+            removeComponentRange(i + 1, componentCount);
 
             if (readerIndex() > newCapacity) {
                 setIndex(newCapacity, newCapacity);
@@ -554,7 +632,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
      * Return the current number of {@link ByteBuf}'s that are composed in this instance
      */
     public int numComponents() {
-        return components.size();
+        return componentCount;
     }
 
     /**
@@ -564,30 +642,29 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         return maxNumComponents;
     }
 
+    /**
+     * Return the {@link ConsolidationPolicy} which is used once {@link #maxNumComponents()} is exceeded.
+     */
+    public ConsolidationPolicy consolidationPolicy() {
+        return consolidationPolicy;
+    }
+
     /**
      * Return the index for the given offset
      */
     public int toComponentIndex(int offset) {
         checkIndex(offset);
-
-        for (int low = 0, high = components.size(); low <= high;) {
-            int mid = low + high >>> 1;
-            Component c = components.get(mid);
-            if (offset >= c.endOffset) {
-                low = mid + 1;
-            } else if (offset < c.offset) {
-                high = mid - 1;
-            } else {
-                return mid;
-            }
-        }
-
-        throw new Error("should not reach here");
+        return componentIndexOf(offset);
     }
 
     public int toByteIndex(int cIndex) {
         checkComponentIndex(cIndex);
-        return components.get(cIndex).offset;
+        if (cIndex == componentCount) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "cIndex: %d (expected: >= 0 && < numComponents(%d))", cIndex, componentCount));
+        }
+        updateComponentOffsets();
+        return components[cIndex].offset;
     }
 
     @Override
@@ -658,7 +735,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
 
         int i = toComponentIndex(index);
         while (length > 0) {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf s = c.buf;
             int adjustment = c.offset;
             int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -684,7 +761,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         int i = toComponentIndex(index);
         try {
             while (length > 0) {
-                Component c = components.get(i);
+                Component c = components[i];
                 ByteBuf s = c.buf;
                 int adjustment = c.offset;
                 int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -709,7 +786,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
 
         int i = toComponentIndex(index);
         while (length > 0) {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf s = c.buf;
             int adjustment = c.offset;
             int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -747,7 +824,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
 
         int i = toComponentIndex(index);
         while (length > 0) {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf s = c.buf;
             int adjustment = c.offset;
             int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -856,7 +933,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
 
         int i = toComponentIndex(index);
         while (length > 0) {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf s = c.buf;
             int adjustment = c.offset;
             int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -882,7 +959,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         int i = toComponentIndex(index);
         try {
             while (length > 0) {
-                Component c = components.get(i);
+                Component c = components[i];
                 ByteBuf s = c.buf;
                 int adjustment = c.offset;
                 int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -907,7 +984,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
 
         int i = toComponentIndex(index);
         while (length > 0) {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf s = c.buf;
             int adjustment = c.offset;
             int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -931,7 +1008,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         int readBytes = 0;
 
         do {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf s = c.buf;
             int adjustment = c.offset;
             int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -969,7 +1046,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         int i = toComponentIndex(index);
         int readBytes = 0;
         do {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf s = c.buf;
             int adjustment = c.offset;
             int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -1017,7 +1094,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         int i = componentId;
 
         while (length > 0) {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf s = c.buf;
             int adjustment = c.offset;
             int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -1059,7 +1136,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
      */
     public ByteBuf internalComponent(int cIndex) {
         checkComponentIndex(cIndex);
-        return components.get(cIndex).buf;
+        return components[cIndex].buf;
     }
 
     /**
@@ -1075,30 +1152,45 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
     private Component findComponent(int offset) {
         checkIndex(offset);
 
-        for (int low = 0, high = components.size(); low <= high;) {
+        // Sequential access usually hits the same component again, so check the last one first.
+        Component la = lastAccessed;
+        if (la != null && offset >= la.offset && offset < la.endOffset) {
+            return la;
+        }
+        Component c = components[componentIndexOf(offset)];
+        lastAccessed = c;
+        return c;
+    }
+
+    /**
+     * Binary search for the first component whose {@code endOffset} is greater than {@code offset}. As no empty
+     * components are stored this is the component which contains {@code offset}. The offsets must be up to date,
+     * which is guaranteed after {@link #checkIndex(int)} as it calls {@link #capacity()}.
+     */
+    private int componentIndexOf(int offset) {
+        final Component[] components = this.components;
+        int low = 0;
+        int high = componentCount - 1;
+        while (low < high) {
             int mid = low + high >>> 1;
-            Component c = components.get(mid);
-            if (offset >= c.endOffset) {
-                low = mid + 1;
-            } else if (offset < c.offset) {
-                high = mid - 1;
+            if (offset < components[mid].endOffset) {
+                high = mid;
             } else {
-                return c;
+                low = mid + 1;
             }
         }
-
-        throw new Error("should not reach here");
+        return low;
     }
 
     @Override
     public int nioBufferCount() {
-        if (components.size() == 1) {
-            return components.get(0).buf.nioBufferCount();
+        if (componentCount == 1) {
+            return components[0].buf.nioBufferCount();
         } else {
             int count = 0;
-            int componentsCount = components.size();
+            int componentsCount = componentCount;
             for (int i = 0; i < componentsCount; i++) {
-                Component c = components.get(i);
+                Component c = components[i];
                 count += c.buf.nioBufferCount();
             }
             return count;
@@ -1107,18 +1199,18 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
 
     @Override
     public ByteBuffer internalNioBuffer(int index, int length) {
-        if (components.size() == 1) {
-            return components.get(0).buf.internalNioBuffer(index, length);
+        if (componentCount == 1) {
+            return components[0].buf.internalNioBuffer(index, length);
         }
         throw new UnsupportedOperationException();
     }
 
     @Override
     public ByteBuffer nioBuffer(int index, int length) {
-        if (components.size() == 1) {
-            ByteBuf buf = components.get(0).buf;
+        if (componentCount == 1) {
+            ByteBuf buf = components[0].buf;
             if (buf.nioBufferCount() == 1) {
-                return components.get(0).buf.nioBuffer(index, length);
+                return components[0].buf.nioBuffer(index, length);
             }
         }
         ByteBuffer merged = ByteBuffer.allocate(length).order(order());
@@ -1140,10 +1232,10 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
             return EmptyArrays.EMPTY_BYTE_BUFFERS;
         }
 
-        List<ByteBuffer> buffers = new ArrayList<ByteBuffer>(components.size());
+        List<ByteBuffer> buffers = new ArrayList<ByteBuffer>(componentCount);
         int i = toComponentIndex(index);
         while (length > 0) {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf s = c.buf;
             int adjustment = c.offset;
             int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -1175,21 +1267,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
             return this;
         }
 
-        final Component last = components.get(numComponents - 1);
-        final int capacity = last.endOffset;
-        final ByteBuf consolidated = allocBuffer(capacity);
-
-        for (int i = 0; i < numComponents; i ++) {
-            Component c = components.get(i);
-            ByteBuf b = c.buf;
-            consolidated.writeBytes(b);
-            c.freeIfNecessary();
-        }
-
-        components.clear();
-        components.add(new Component(consolidated));
-        updateComponentOffsets(0);
-        return this;
+        return consolidate0(0, numComponents);
     }
 
     /**
@@ -1204,21 +1282,25 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
             return this;
         }
 
+        return consolidate0(cIndex, numComponents);
+    }
+
+    private CompositeByteBuf consolidate0(int cIndex, int numComponents) {
+        updateComponentOffsets();
         final int endCIndex = cIndex + numComponents;
-        final Component last = components.get(endCIndex - 1);
-        final int capacity = last.endOffset - components.get(cIndex).offset;
+        final Component last = components[endCIndex - 1];
+        final int capacity = last.endOffset - components[cIndex].offset;
         final ByteBuf consolidated = allocBuffer(capacity);
 
         for (int i = cIndex; i < endCIndex; i ++) {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf b = c.buf;
             consolidated.writeBytes(b);
             c.freeIfNecessary();
         }
 
-        components.subList(cIndex + 1, endCIndex).clear();
-        components.set(cIndex, new Component(consolidated));
-        updateComponentOffsets(cIndex);
+        removeComponentRange(cIndex + 1, endCIndex);
+        setComponent(cIndex, Component.newInstance(consolidated));
         return this;
     }
 
@@ -1235,10 +1317,10 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         // Discard everything if (readerIndex = writerIndex = capacity).
         int writerIndex = writerIndex();
         if (readerIndex == writerIndex && writerIndex == capacity()) {
-            for (Component c: components) {
-                c.freeIfNecessary();
+            for (int i = 0; i < componentCount; i ++) {
+                components[i].freeIfNecessary();
             }
-            components.clear();
+            removeComponentRange(0, componentCount);
             setIndex(0, 0);
             adjustMarkers(readerIndex);
             return this;
@@ -1247,14 +1329,14 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         // Remove read components.
         int firstComponentId = toComponentIndex(readerIndex);
         for (int i = 0; i < firstComponentId; i ++) {
-            components.get(i).freeIfNecessary();
+            components[i].freeIfNecessary();
         }
-        components.subList(0, firstComponentId).clear();
+        removeComponentRange(0, firstComponentId);
 
-        // Update indexes and markers.
-        Component first = components.get(0);
+        // Update indexes and markers. The offsets are recomputed lazily, so the first component still holds its
+        // offset from before the removal.
+        Component first = components[0];
         int offset = first.offset;
-        updateComponentOffsets(0);
         setIndex(readerIndex - offset, writerIndex - offset);
         adjustMarkers(offset);
         return this;
@@ -1271,10 +1353,10 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         // Discard everything if (readerIndex = writerIndex = capacity).
         int writerIndex = writerIndex();
         if (readerIndex == writerIndex && writerIndex == capacity()) {
-            for (Component c: components) {
-                c.freeIfNecessary();
+            for (int i = 0; i < componentCount; i ++) {
+                components[i].freeIfNecessary();
             }
-            components.clear();
+            removeComponentRange(0, componentCount);
             setIndex(0, 0);
             adjustMarkers(readerIndex);
             return this;
@@ -1283,23 +1365,22 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         // Remove read components.
         int firstComponentId = toComponentIndex(readerIndex);
         for (int i = 0; i < firstComponentId; i ++) {
-            components.get(i).freeIfNecessary();
+            components[i].freeIfNecessary();
         }
-        components.subList(0, firstComponentId).clear();
+        removeComponentRange(0, firstComponentId);
 
-        // Remove or replace the first readable component with a new slice.
-        Component c = components.get(0);
+        // Remove or replace the first readable component with a new slice. The offsets are recomputed lazily, so
+        // the first component still holds its offset from before the removal.
+        Component c = components[0];
         int adjustment = readerIndex - c.offset;
         if (adjustment == c.length) {
             // new slice would be empty, so remove instead
-            components.remove(0);
+            removeComponentRange(0, 1);
         } else {
-            Component newC = new Component(c.buf.slice(adjustment, c.length - adjustment));
-            components.set(0, newC);
+            setComponent(0, Component.newInstance(c.buf.slice(adjustment, c.length - adjustment)));
         }
 
         // Update indexes and markers.
-        updateComponentOffsets(0);
         setIndex(0, writerIndex - readerIndex);
         adjustMarkers(readerIndex);
         return this;
@@ -1316,24 +1397,78 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
     public String toString() {
         String result = super.toString();
         result = result.substring(0, result.length() - 1);
-        return result + ", components=" + components.size() + ')';
+        return result + ", components=" + componentCount + ')';
     }
 
     private static final class Component {
-        final ByteBuf buf;
-        final int length;
+        private static final Recycler<Component> RECYCLER = new Recycler<Component>() {
+            @Override
+            protected Component newObject(Handle<Component> handle) {
+                return new Component(handle);
+            }
+        };
+
+        static Component newInstance(ByteBuf buf) {
+            Component c = RECYCLER.get();
+            c.buf = buf;
+            c.length = buf.readableBytes();
+            return c;
+        }
+
+        private final Handle<Component> recyclerHandle;
+        ByteBuf buf;
+        int length;
         int offset;
         int endOffset;
 
-        Component(ByteBuf buf) {
-            this.buf = buf;
-            length = buf.readableBytes();
+        private Component(Handle<Component> recyclerHandle) {
+            this.recyclerHandle = recyclerHandle;
         }
 
         void freeIfNecessary() {
             // Unwrap so that we can free slices, too.
             buf.release(); // We should not get a NPE here. If so, it must be a bug.
         }
+
+        void recycle() {
+            buf = null;
+            recyclerHandle.recycle(this);
+        }
+    }
+
+    /**
+     * Decides how a {@link CompositeByteBuf} reduces its number of components once it holds more than
+     * {@link CompositeByteBuf#maxNumComponents()} of them.
+     */
+    public interface ConsolidationPolicy {
+
+        /**
+         * Merges all components into a single buffer, which is the historical behavior.
+         */
+        ConsolidationPolicy ALL = new ConsolidationPolicy() {
+            @Override
+            public void consolidate(CompositeByteBuf buffer) {
+                buffer.consolidate();
+            }
+        };
+
+        /**
+         * Never merges any components, so {@link CompositeByteBuf#maxNumComponents()} is ignored. Useful when
+         * copying the data is more expensive than the lookup of the component which holds a given index.
+         */
+        ConsolidationPolicy NONE = new ConsolidationPolicy() {
+            @Override
+            public void consolidate(CompositeByteBuf buffer) {
+                // NOOP
+            }
+        };
+
+        /**
+         * Called after components were added to {@code buffer} and {@link CompositeByteBuf#numComponents()}
+         * exceeds {@link CompositeByteBuf#maxNumComponents()}. Implementations are expected to use
+         * {@link CompositeByteBuf#consolidate(int, int)} to merge a range of components.
+         */
+        void consolidate(CompositeByteBuf buffer);
     }
 
     @Override
@@ -1556,6 +1691,106 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         return (CompositeByteBuf) super.writeZero(length);
     }
 
+    @Override
+    public CompositeByteBuf getShorts(int index, short[] dst, int dstIndex, int length) {
+        return (CompositeByteBuf) super.getShorts(index, dst, dstIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf setShorts(int index, short[] src, int srcIndex, int length) {
+        return (CompositeByteBuf) super.setShorts(index, src, srcIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf readShorts(short[] dst, int dstIndex, int length) {
+        return (CompositeByteBuf) super.readShorts(dst, dstIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf writeShorts(short[] src, int srcIndex, int length) {
+        return (CompositeByteBuf) super.writeShorts(src, srcIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf getInts(int index, int[] dst, int dstIndex, int length) {
+        return (CompositeByteBuf) super.getInts(index, dst, dstIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf setInts(int index, int[] src, int srcIndex, int length) {
+        return (CompositeByteBuf) super.setInts(index, src, srcIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf readInts(int[] dst, int dstIndex, int length) {
+        return (CompositeByteBuf) super.readInts(dst, dstIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf writeInts(int[] src, int srcIndex, int length) {
+        return (CompositeByteBuf) super.writeInts(src, srcIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf getLongs(int index, long[] dst, int dstIndex, int length) {
+        return (CompositeByteBuf) super.getLongs(index, dst, dstIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf setLongs(int index, long[] src, int srcIndex, int length) {
+        return (CompositeByteBuf) super.setLongs(index, src, srcIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf readLongs(long[] dst, int dstIndex, int length) {
+        return (CompositeByteBuf) super.readLongs(dst, dstIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf writeLongs(long[] src, int srcIndex, int length) {
+        return (CompositeByteBuf) super.writeLongs(src, srcIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf getFloats(int index, float[] dst, int dstIndex, int length) {
+        return (CompositeByteBuf) super.getFloats(index, dst, dstIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf setFloats(int index, float[] src, int srcIndex, int length) {
+        return (CompositeByteBuf) super.setFloats(index, src, srcIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf readFloats(float[] dst, int dstIndex, int length) {
+        return (CompositeByteBuf) super.readFloats(dst, dstIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf writeFloats(float[] src, int srcIndex, int length) {
+        return (CompositeByteBuf) super.writeFloats(src, srcIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf getDoubles(int index, double[] dst, int dstIndex, int length) {
+        return (CompositeByteBuf) super.getDoubles(index, dst, dstIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf setDoubles(int index, double[] src, int srcIndex, int length) {
+        return (CompositeByteBuf) super.setDoubles(index, src, srcIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf readDoubles(double[] dst, int dstIndex, int length) {
+        return (CompositeByteBuf) super.readDoubles(dst, dstIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf writeDoubles(double[] src, int srcIndex, int length) {
+        return (CompositeByteBuf) super.writeDoubles(src, srcIndex, length);
+    }
+
     @Override
     public CompositeByteBuf retain(int increment) {
         return (CompositeByteBuf) super.retain(increment);
@@ -1599,16 +1834,36 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         }
 
         freed = true;
-        int size = components.size();
+        int size = componentCount;
         // We're not using foreach to avoid creating an iterator.
         // see https://github.com/netty/netty/issues/2642
         for (int i = 0; i < size; i++) {
-            components.get(i).freeIfNecessary();
+            components[i].freeIfNecessary();
         }
 
         if (leak != null) {
             leak.close();
         }
+
+        if (recyclerHandle != null) {
+            recycle();
+        }
+    }
+
+    private void recycle() {
+        final Component[] components = this.components;
+        for (int i = 0; i < componentCount; i ++) {
+            components[i].recycle();
+            components[i] = null;
+        }
+        if (components.length > MAX_RECYCLED_COMPONENT_ARRAY_SIZE) {
+            this.components = EMPTY_COMPONENTS;
+        }
+        componentCount = 0;
+        validOffsets = 0;
+        lastAccessed = null;
+        leak = null;
+        recyclerHandle.recycle(this);
     }
 
     @Override
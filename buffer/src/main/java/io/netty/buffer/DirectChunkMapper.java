@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.buffer;
+
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Creates the memory of the chunks of a direct arena by memory-mapping files instead of using
+ * {@link ByteBuffer#allocateDirect(int)}.
+ * <p>
+ * Each file is deleted right after it was mapped, so its memory is released as soon as it is unmapped, just like an
+ * anonymous mapping (which the JDK does not offer). If the directory is on a {@code tmpfs} (e.g. {@code /dev/shm})
+ * the memory can be backed by transparent huge pages. On a {@code hugetlbfs} mount (e.g. {@code /dev/hugepages}) it
+ * is always backed by huge pages, which reduces TLB misses when accessing the pooled memory.
+ * <p>
+ * The memory of each chunk is aligned to {@value #ALIGNMENT} bytes (or the chunk size if it is smaller) so it can
+ * be covered by huge pages completely. A mapping is released by unmapping it via its {@code Cleaner}.
+ */
+final class DirectChunkMapper {
+
+    // The size of a huge page on x86_64.
+    static final int ALIGNMENT = 2 * 1024 * 1024;
+    private static final int PAGE_SIZE = 4096;
+
+    private final File directory;
+    private final boolean preFault;
+
+    DirectChunkMapper(File directory, boolean preFault) {
+        if (directory == null) {
+            throw new NullPointerException("directory");
+        }
+        if (!directory.isDirectory()) {
+            throw new IllegalArgumentException("directory: " + directory + " (expected: an existing directory)");
+        }
+        this.directory = directory;
+        this.preFault = preFault;
+    }
+
+    File directory() {
+        return directory;
+    }
+
+    /**
+     * Map a new region that contains at least {@code size} bytes which are aligned to
+     * {@code min(ALIGNMENT, size)}. The aligned memory can be obtained via {@link #alignedSlice(ByteBuffer, int)}.
+     * The returned mapping must be released via {@link PlatformDependent#freeDirectBuffer(ByteBuffer)}.
+     */
+    MappedByteBuffer map(int size) {
+        MappedByteBuffer mapping = map0(size);
+        if (alignmentOffset(mapping, size) != 0) {
+            // The kernel chose an unaligned address, so map a bigger region which contains an aligned one.
+            PlatformDependent.freeDirectBuffer(mapping);
+            mapping = map0(size + alignment(size));
+        }
+        if (preFault) {
+            // Touch every page so no page faults happen once the memory is used.
+            for (int i = 0; i < mapping.capacity(); i += PAGE_SIZE) {
+                mapping.put(i, (byte) 0);
+            }
+        }
+        return mapping;
+    }
+
+    private MappedByteBuffer map0(int size) {
+        try {
+            File file = File.createTempFile("netty-chunk-", ".mem", directory);
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                if (!file.delete()) {
+                    // Some platforms do not allow to delete a file which is open.
+                    file.deleteOnExit();
+                }
+                raf.setLength(size);
+                // The mapping stays valid after the file was closed.
+                return raf.getChannel().map(MapMode.READ_WRITE, 0, size);
+            } finally {
+                raf.close();
+            }
+        } catch (IOException e) {
+            OutOfMemoryError error = new OutOfMemoryError(
+                    "failed to map " + size + " bytes in " + directory + ": " + e.getMessage());
+            error.initCause(e);
+            throw error;
+        }
+    }
+
+    /**
+     * Returns a buffer of {@code size} bytes that shares the aligned region of the given mapping.
+     */
+    static ByteBuffer alignedSlice(ByteBuffer mapping, int size) {
+        int offset = alignmentOffset(mapping, size);
+        if (offset == 0 && mapping.capacity() == size) {
+            return mapping;
+        }
+        ByteBuffer slice = mapping.duplicate();
+        slice.position(offset).limit(offset + size);
+        return slice.slice();
+    }
+
+    private static int alignment(int size) {
+        return Math.min(ALIGNMENT, Integer.highestOneBit(size));
+    }
+
+    private static int alignmentOffset(ByteBuffer mapping, int size) {
+        if (!PlatformDependent.hasUnsafe()) {
+            // Without the address there is no way to align.
+            return 0;
+        }
+        int alignment = alignment(size);
+        return (int) (-PlatformDependent.directBufferAddress(mapping) & alignment - 1);
+    }
+}
@@ -234,6 +234,56 @@ public class DuplicatedByteBuf extends AbstractDerivedByteBuf {
         buffer.setLong(index, value);
     }
 
+    @Override
+    void _getShorts(int index, short[] dst, int dstIndex, int length) {
+        buffer.getShorts(index, dst, dstIndex, length);
+    }
+
+    @Override
+    void _setShorts(int index, short[] src, int srcIndex, int length) {
+        buffer.setShorts(index, src, srcIndex, length);
+    }
+
+    @Override
+    void _getInts(int index, int[] dst, int dstIndex, int length) {
+        buffer.getInts(index, dst, dstIndex, length);
+    }
+
+    @Override
+    void _setInts(int index, int[] src, int srcIndex, int length) {
+        buffer.setInts(index, src, srcIndex, length);
+    }
+
+    @Override
+    void _getLongs(int index, long[] dst, int dstIndex, int length) {
+        buffer.getLongs(index, dst, dstIndex, length);
+    }
+
+    @Override
+    void _setLongs(int index, long[] src, int srcIndex, int length) {
+        buffer.setLongs(index, src, srcIndex, length);
+    }
+
+    @Override
+    void _getFloats(int index, float[] dst, int dstIndex, int length) {
+        buffer.getFloats(index, dst, dstIndex, length);
+    }
+
+    @Override
+    void _setFloats(int index, float[] src, int srcIndex, int length) {
+        buffer.setFloats(index, src, srcIndex, length);
+    }
+
+    @Override
+    void _getDoubles(int index, double[] dst, int dstIndex, int length) {
+        buffer.getDoubles(index, dst, dstIndex, length);
+    }
+
+    @Override
+    void _setDoubles(int index, double[] src, int srcIndex, int length) {
+        buffer.setDoubles(index, src, srcIndex, length);
+    }
+
     @Override
     public ByteBuf setBytes(int index, byte[] src, int srcIndex, int length) {
         buffer.setBytes(index, src, srcIndex, length);
@@ -505,6 +505,11 @@ public final class EmptyByteBuf extends ByteBuf {
         return checkLength(length);
     }
 
+    @Override
+    public ByteBuf readRetainedSlice(int length) {
+        return checkLength(length);
+    }
+
     @Override
     public ByteBuf readBytes(ByteBuf dst) {
         return checkLength(dst.writableBytes());
@@ -643,6 +648,106 @@ public final class EmptyByteBuf extends ByteBuf {
         return checkLength(length);
     }
 
+    @Override
+    public ByteBuf getShorts(int index, short[] dst, int dstIndex, int length) {
+        return checkIndex(index, length);
+    }
+
+    @Override
+    public ByteBuf setShorts(int index, short[] src, int srcIndex, int length) {
+        return checkIndex(index, length);
+    }
+
+    @Override
+    public ByteBuf readShorts(short[] dst, int dstIndex, int length) {
+        return checkLength(length);
+    }
+
+    @Override
+    public ByteBuf writeShorts(short[] src, int srcIndex, int length) {
+        return checkLength(length);
+    }
+
+    @Override
+    public ByteBuf getInts(int index, int[] dst, int dstIndex, int length) {
+        return checkIndex(index, length);
+    }
+
+    @Override
+    public ByteBuf setInts(int index, int[] src, int srcIndex, int length) {
+        return checkIndex(index, length);
+    }
+
+    @Override
+    public ByteBuf readInts(int[] dst, int dstIndex, int length) {
+        return checkLength(length);
+    }
+
+    @Override
+    public ByteBuf writeInts(int[] src, int srcIndex, int length) {
+        return checkLength(length);
+    }
+
+    @Override
+    public ByteBuf getLongs(int index, long[] dst, int dstIndex, int length) {
+        return checkIndex(index, length);
+    }
+
+    @Override
+    public ByteBuf setLongs(int index, long[] src, int srcIndex, int length) {
+        return checkIndex(index, length);
+    }
+
+    @Override
+    public ByteBuf readLongs(long[] dst, int dstIndex, int length) {
+        return checkLength(length);
+    }
+
+    @Override
+    public ByteBuf writeLongs(long[] src, int srcIndex, int length) {
+        return checkLength(length);
+    }
+
+    @Override
+    public ByteBuf getFloats(int index, float[] dst, int dstIndex, int length) {
+        return checkIndex(index, length);
+    }
+
+    @Override
+    public ByteBuf setFloats(int index, float[] src, int srcIndex, int length) {
+        return checkIndex(index, length);
+    }
+
+    @Override
+    public ByteBuf readFloats(float[] dst, int dstIndex, int length) {
+        return checkLength(length);
+    }
+
+    @Override
+    public ByteBuf writeFloats(float[] src, int srcIndex, int length) {
+        return checkLength(length);
+    }
+
+    @Override
+    public ByteBuf getDoubles(int index, double[] dst, int dstIndex, int length) {
+        return checkIndex(index, length);
+    }
+
+    @Override
+    public ByteBuf setDoubles(int index, double[] src, int srcIndex, int length) {
+        return checkIndex(index, length);
+    }
+
+    @Override
+    public ByteBuf readDoubles(double[] dst, int dstIndex, int length) {
+        return checkLength(length);
+    }
+
+    @Override
+    public ByteBuf writeDoubles(double[] src, int srcIndex, int length) {
+        return checkLength(length);
+    }
+
     @Override
     public int indexOf(int fromIndex, int toIndex, byte value) {
         checkIndex(fromIndex);
@@ -650,6 +755,13 @@ public final class EmptyByteBuf extends ByteBuf {
         return -1;
     }
 
+    @Override
+    public int indexOfAny(int fromIndex, int toIndex, byte... values) {
+        checkIndex(fromIndex);
+        checkIndex(toIndex);
+        return -1;
+    }
+
     @Override
     public int bytesBefore(byte value) {
         return -1;
@@ -714,6 +826,21 @@ public final class EmptyByteBuf extends ByteBuf {
         return this;
     }
 
+    @Override
+    public ByteBuf retainedSlice() {
+        return this;
+    }
+
+    @Override
+    public ByteBuf retainedSlice(int index, int length) {
+        return checkIndex(index, length);
+    }
+
+    @Override
+    public ByteBuf retainedDuplicate() {
+        return this;
+    }
+
     @Override
     public int nioBufferCount() {
         return 1;
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.internal.ThreadExecutorMap;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link PoolArenaChooser} which binds every {@link EventExecutor} of an {@link EventExecutorGroup}, like the
+ * {@code EventLoop}s of an {@code EventLoopGroup}, to its own arena. The binding is per {@link EventExecutor}, so
+ * a new thread which takes over an {@link EventExecutor} uses the same arena as the old one.
+ * <p>
+ * All other threads use the least used of the remaining arenas, so they do not share an arena with an
+ * {@link EventExecutor} unless the allocator has no more arenas than the group has {@link EventExecutor}s.
+ */
+public final class EventExecutorPoolArenaChooser implements PoolArenaChooser {
+
+    // Never modified after construction, so it can be read by multiple threads.
+    private final Map<EventExecutor, Integer> ordinals = new IdentityHashMap<EventExecutor, Integer>();
+
+    public EventExecutorPoolArenaChooser(EventExecutorGroup group) {
+        if (group == null) {
+            throw new NullPointerException("group");
+        }
+        for (EventExecutor executor: group.children()) {
+            ordinals.put(executor, ordinals.size());
+        }
+    }
+
+    @Override
+    public int choose(List<PoolArenaMetric> arenas) {
+        int numArenas = arenas.size();
+        EventExecutor executor = ThreadExecutorMap.currentExecutor();
+        if (executor != null) {
+            Integer ordinal = ordinals.get(executor);
+            if (ordinal != null) {
+                return ordinal % numArenas;
+            }
+        }
+
+        int numBound = ordinals.size();
+        if (numBound < numArenas) {
+            return PooledByteBufAllocator.leastUsedArena(arenas, numBound, 1);
+        }
+        return PooledByteBufAllocator.leastUsedArena(arenas, 0, 1);
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+/**
+ * A {@link ByteBufProcessor} which aborts on any of a small set of bytes. {@link AbstractByteBuf} recognizes it
+ * and uses the word-at-a-time search of {@link ByteBufUtil} instead of calling {@link #process(byte)} per byte.
+ */
+final class IndexOfProcessor implements ByteBufProcessor {
+
+    private final byte[] values;
+
+    IndexOfProcessor(byte... values) {
+        this.values = values;
+    }
+
+    /**
+     * Returns the index of the first matching byte between {@code fromIndex} and {@code toIndex}, which must
+     * be supported by {@link ByteBufUtil#isSwarSupported(ByteBuf, int, int)}.
+     */
+    int indexOf(ByteBuf buffer, int fromIndex, int toIndex) {
+        if (values.length == 1) {
+            return ByteBufUtil.swarIndexOf(buffer, fromIndex, toIndex, values[0]);
+        }
+        return ByteBufUtil.swarIndexOfAny(buffer, fromIndex, toIndex, values);
+    }
+
+    @Override
+    public boolean process(byte value) throws Exception {
+        return !ByteBufUtil.contains(values, value);
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.internal.PlatformDependent;
+
+import java.nio.MappedByteBuffer;
+
+/**
+ * Read-only {@link ByteBuf} which is backed by a memory-mapped region of a file and uses unsafe to access it.
+ * The region is unmapped as soon as the last reference to this buffer is released, so neither this buffer nor
+ * any buffer derived from it may be accessed afterwards.
+ * <p>
+ * The {@link #memoryAddress()} is not exposed as the pages behind it are mapped read-only: the unsafe copy paths
+ * of other buffers write through the address of their destination, which would crash the JVM.
+ */
+final class MappedFileByteBuf extends ReadOnlyUnsafeDirectByteBuf {
+
+    // Keep the original buffer as only it owns the Cleaner which unmaps the region, not the slice of the super class.
+    private final MappedByteBuffer mapped;
+
+    MappedFileByteBuf(ByteBufAllocator allocator, MappedByteBuffer mapped) {
+        super(allocator, mapped);
+        this.mapped = mapped;
+    }
+
+    @Override
+    protected void deallocate() {
+        PlatformDependent.freeDirectBuffer(mapped);
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.CharsetUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * {@link PoolArenaChooser} which groups the arenas by NUMA node and lets every thread use the least used arena
+ * of the node whose CPU it currently runs on. The nodes are read from {@code /sys/devices/system/node} and the
+ * CPU of a thread from {@code /proc/thread-self/stat}, so this only has an effect on Linux.
+ * <p>
+ * As the memory of a chunk is placed on the node of the thread which touches it first, allocations stay local
+ * to the node only if the threads, e.g. the {@code EventLoop}s, are pinned to the CPUs of a single node, for
+ * example via {@code taskset} or {@code numactl}. Use at least as many arenas as there are nodes.
+ */
+public final class NumaPoolArenaChooser implements PoolArenaChooser {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(NumaPoolArenaChooser.class);
+
+    private static final Pattern NODE_DIR_PATTERN = Pattern.compile("node[0-9]+");
+    private static final File DEFAULT_NODE_DIR = new File("/sys/devices/system/node");
+    private static final File THREAD_STAT = new File("/proc/thread-self/stat");
+
+    // The "processor" field of /proc/<pid>/task/<tid>/stat, counted from the field after the command name.
+    private static final int PROCESSOR_FIELD = 36;
+
+    private final int[] cpuToNode;
+    private final int numNodes;
+
+    public NumaPoolArenaChooser() {
+        this(DEFAULT_NODE_DIR);
+    }
+
+    NumaPoolArenaChooser(File nodeDir) {
+        int[] cpuToNode = new int[0];
+        int numNodes = 0;
+        File[] nodes = nodeDir.listFiles();
+        if (nodes != null) {
+            for (File node: nodes) {
+                if (!NODE_DIR_PATTERN.matcher(node.getName()).matches()) {
+                    continue;
+                }
+                int nodeId = Integer.parseInt(node.getName().substring(4));
+                try {
+                    int[] cpus = parseCpuList(readFirstLine(new File(node, "cpulist")));
+                    for (int cpu: cpus) {
+                        if (cpu >= cpuToNode.length) {
+                            int oldLength = cpuToNode.length;
+                            cpuToNode = Arrays.copyOf(cpuToNode, cpu + 1);
+                            Arrays.fill(cpuToNode, oldLength, cpuToNode.length, -1);
+                        }
+                        cpuToNode[cpu] = nodeId;
+                    }
+                    numNodes = Math.max(numNodes, nodeId + 1);
+                } catch (Exception e) {
+                    logger.debug("Failed to read the CPUs of NUMA node: {}", node, e);
+                }
+            }
+        }
+        this.cpuToNode = cpuToNode;
+        this.numNodes = numNodes;
+        logger.debug("NUMA nodes: {}", numNodes);
+    }
+
+    /**
+     * Returns the number of NUMA nodes, or {@code 0} if they are unknown.
+     */
+    public int numNodes() {
+        return numNodes;
+    }
+
+    /**
+     * Returns the NUMA node of the specified CPU, or {@code -1} if it is unknown.
+     */
+    int node(int cpu) {
+        return cpu >= 0 && cpu < cpuToNode.length ? cpuToNode[cpu] : -1;
+    }
+
+    @Override
+    public int choose(List<PoolArenaMetric> arenas) {
+        int node = numNodes > 1 ? node(currentCpu()) : -1;
+        if (node < 0) {
+            return PooledByteBufAllocator.leastUsedArena(arenas, 0, 1);
+        }
+
+        // The arenas at index node, node + numNodes, node + 2 * numNodes, ... belong to the node.
+        int numArenas = arenas.size();
+        if (numArenas < numNodes) {
+            return node % numArenas;
+        }
+        return PooledByteBufAllocator.leastUsedArena(arenas, node, numNodes);
+    }
+
+    /**
+     * Returns the CPU the current thread ran on most recently, or {@code -1} if it is unknown.
+     */
+    static int currentCpu() {
+        try {
+            String stat = readFirstLine(THREAD_STAT);
+            // The command name in parentheses may contain spaces, so start after it.
+            String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+            return Integer.parseInt(fields[PROCESSOR_FIELD]);
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Parses a list of CPUs in the format of {@code /sys/devices/system/node/node<N>/cpulist},
+     * e.g. {@code 0-3,8,10-11}.
+     */
+    static int[] parseCpuList(String cpuList) {
+        int[] cpus = new int[0];
+        int count = 0;
+        for (String range: cpuList.trim().split(",")) {
+            if (range.isEmpty()) {
+                continue;
+            }
+            int dash = range.indexOf('-');
+            int first = Integer.parseInt(dash < 0 ? range : range.substring(0, dash));
+            int last = dash < 0 ? first : Integer.parseInt(range.substring(dash + 1));
+            for (int cpu = first; cpu <= last; cpu ++) {
+                if (count == cpus.length) {
+                    cpus = Arrays.copyOf(cpus, Math.max(8, count << 1));
+                }
+                cpus[count ++] = cpu;
+            }
+        }
+        return Arrays.copyOf(cpus, count);
+    }
+
+    private static String readFirstLine(File file) throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), CharsetUtil.US_ASCII));
+        try {
+            String line = reader.readLine();
+            return line != null ? line : "";
+        } finally {
+            reader.close();
+        }
+    }
+}
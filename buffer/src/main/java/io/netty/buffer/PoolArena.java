@@ -20,11 +20,32 @@ import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
 
 import java.nio.ByteBuffer;
-
-abstract class PoolArena<T> {
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+abstract class PoolArena<T> implements PoolArenaMetric {
+
+    enum SizeClass {
+        Tiny,
+        Small,
+        Normal
+    }
 
     static final int numTinySubpagePools = 512 >>> 4;
 
+    // Number of size classes per doubling (as log2) for small and normal capacities if the finer grained size classes
+    // are used. With four classes per doubling at most 20% of an allocation are wasted by rounding up.
+    static final int SIZE_CLASSES_PER_DOUBLING_SHIFT = 2;
+    static final int SIZE_CLASSES_PER_DOUBLING = 1 << SIZE_CLASSES_PER_DOUBLING_SHIFT;
+    // Normal capacities which are not a power of two can not be served by a run of pages directly. Instead they are
+    // served like tiny and small capacities, by splitting a run of (1 << NORMAL_SUBPAGE_RUN_SHIFT) times the power of
+    // two below the capacity into elements. These runs are at most a quarter of the chunk.
+    static final int NORMAL_SUBPAGE_RUN_SHIFT = 3;
+
     final PooledByteBufAllocator parent;
 
     private final int maxOrder;
@@ -33,8 +54,12 @@ abstract class PoolArena<T> {
     final int chunkSize;
     final int subpageOverflowMask;
     final int numSmallSubpagePools;
+    final boolean powerOfTwoSizeClasses;
+    // The largest power of two for which there are finer grained normal size classes above, 0 if there are none.
+    private final int maxSubpageNormalBase;
     private final PoolSubpage<T>[] tinySubpagePools;
     private final PoolSubpage<T>[] smallSubpagePools;
+    private final PoolSubpage<T>[] normalSubpagePools;
 
     private final PoolChunkList<T> q050;
     private final PoolChunkList<T> q025;
@@ -43,26 +68,70 @@ abstract class PoolArena<T> {
     private final PoolChunkList<T> q075;
     private final PoolChunkList<T> q100;
 
+    private final List<PoolChunkListMetric> chunkListMetrics;
+
+    private final PoolHugeChunkCache<T> hugeChunkCache;
+
+    // Metrics for allocations and deallocations. Allocations and deallocations may happen without holding the arena
+    // lock, so atomic counters are needed.
+    private final AtomicLong allocationsTiny = new AtomicLong();
+    private final AtomicLong allocationsSmall = new AtomicLong();
+    private final AtomicLong allocationsNormal = new AtomicLong();
+    private final AtomicLong allocationsHuge = new AtomicLong();
+
+    private final AtomicLong deallocationsNormal = new AtomicLong();
+    private final AtomicLong deallocationsTiny = new AtomicLong();
+    private final AtomicLong deallocationsSmall = new AtomicLong();
+    private final AtomicLong deallocationsHuge = new AtomicLong();
+
+    private final AtomicLong activeBytesPooled = new AtomicLong();
+    private final AtomicLong activeBytesHuge = new AtomicLong();
+
+    private final AtomicLong threadCacheHits = new AtomicLong();
+    private final AtomicLong threadCacheMisses = new AtomicLong();
+
+    // Number of thread caches backed by this arena.
+    final AtomicInteger numThreadCaches = new AtomicInteger();
+
     // TODO: Test if adding padding helps under contention
     //private long pad0, pad1, pad2, pad3, pad4, pad5, pad6, pad7;
 
-    protected PoolArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize) {
+    protected PoolArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize,
+                        int maxCachedHugeBytes, boolean powerOfTwoSizeClasses) {
         this.parent = parent;
         this.pageSize = pageSize;
         this.maxOrder = maxOrder;
         this.pageShifts = pageShifts;
         this.chunkSize = chunkSize;
+        this.powerOfTwoSizeClasses = powerOfTwoSizeClasses;
         subpageOverflowMask = ~(pageSize - 1);
         tinySubpagePools = newSubpagePoolArray(numTinySubpagePools);
         for (int i = 0; i < tinySubpagePools.length; i ++) {
             tinySubpagePools[i] = newSubpagePoolHead(pageSize);
         }
 
-        numSmallSubpagePools = pageShifts - 9;
+        if (powerOfTwoSizeClasses) {
+            numSmallSubpagePools = pageShifts - 9;
+            maxSubpageNormalBase = 0;
+            normalSubpagePools = newSubpagePoolArray(0);
+        } else {
+            numSmallSubpagePools = pageShifts - 9 << SIZE_CLASSES_PER_DOUBLING_SHIFT;
+            int maxBase = chunkSize >>> NORMAL_SUBPAGE_RUN_SHIFT + 2;
+            if (maxBase >= pageSize) {
+                maxSubpageNormalBase = maxBase;
+                normalSubpagePools = newSubpagePoolArray(normalIdx(maxBase) + SIZE_CLASSES_PER_DOUBLING);
+            } else {
+                maxSubpageNormalBase = 0;
+                normalSubpagePools = newSubpagePoolArray(0);
+            }
+        }
         smallSubpagePools = newSubpagePoolArray(numSmallSubpagePools);
         for (int i = 0; i < smallSubpagePools.length; i ++) {
             smallSubpagePools[i] = newSubpagePoolHead(pageSize);
         }
+        for (int i = 0; i < normalSubpagePools.length; i ++) {
+            normalSubpagePools[i] = newSubpagePoolHead(pageSize);
+        }
 
         q100 = new PoolChunkList<T>(this, null, 100, Integer.MAX_VALUE);
         q075 = new PoolChunkList<T>(this, q100, 75, 100);
@@ -77,6 +146,19 @@ abstract class PoolArena<T> {
         q025.prevList = q000;
         q000.prevList = null;
         qInit.prevList = qInit;
+
+        List<PoolChunkListMetric> metrics = new ArrayList<PoolChunkListMetric>(6);
+        metrics.add(qInit);
+        metrics.add(q000);
+        metrics.add(q025);
+        metrics.add(q050);
+        metrics.add(q075);
+        metrics.add(q100);
+        chunkListMetrics = Collections.unmodifiableList(metrics);
+
+        hugeChunkCache = new PoolHugeChunkCache<T>(this, chunkSize, maxCachedHugeBytes,
+                PooledByteBufAllocator.DEFAULT_MAX_UNUSED_CHUNK_AGE_MILLIS < 0 ? -1 :
+                        TimeUnit.MILLISECONDS.toNanos(PooledByteBufAllocator.DEFAULT_MAX_UNUSED_CHUNK_AGE_MILLIS));
     }
 
     private PoolSubpage<T> newSubpagePoolHead(int pageSize) {
@@ -103,7 +185,10 @@ abstract class PoolArena<T> {
         return normCapacity >>> 4;
     }
 
-    static int smallIdx(int normCapacity) {
+    int smallIdx(int normCapacity) {
+        if (!powerOfTwoSizeClasses) {
+            return sizeClassIdx(normCapacity, 9);
+        }
         int tableIdx = 0;
         int i = normCapacity >>> 10;
         while (i != 0) {
@@ -113,6 +198,29 @@ abstract class PoolArena<T> {
         return tableIdx;
     }
 
+    // capacity >= pageSize
+    int normalIdx(int normCapacity) {
+        if (!powerOfTwoSizeClasses) {
+            return sizeClassIdx(normCapacity, pageShifts);
+        }
+        return log2(normCapacity) - pageShifts;
+    }
+
+    private static int sizeClassIdx(int normCapacity, int minShift) {
+        int shift = log2(normCapacity);
+        return (shift - minShift << SIZE_CLASSES_PER_DOUBLING_SHIFT) +
+                (normCapacity >>> shift - SIZE_CLASSES_PER_DOUBLING_SHIFT) - SIZE_CLASSES_PER_DOUBLING;
+    }
+
+    private static int log2(int val) {
+        return Integer.SIZE - 1 - Integer.numberOfLeadingZeros(val);
+    }
+
+    // pageSize <= capacity <= chunkSize, but not a power of two so it is served from a subpage
+    static boolean isSubpageNormal(int normCapacity) {
+        return (normCapacity & normCapacity - 1) != 0;
+    }
+
     // capacity < pageSize
     boolean isTinyOrSmall(int normCapacity) {
         return (normCapacity & subpageOverflowMask) == 0;
@@ -124,11 +232,13 @@ abstract class PoolArena<T> {
     }
 
     private void allocate(PoolThreadCache cache, PooledByteBuf<T> buf, final int reqCapacity) {
+        buf.cache = cache;
         final int normCapacity = normalizeCapacity(reqCapacity);
         if (isTinyOrSmall(normCapacity)) { // capacity < pageSize
             int tableIdx;
             PoolSubpage<T>[] table;
-            if (isTiny(normCapacity)) { // < 512
+            boolean tiny = isTiny(normCapacity);
+            if (tiny) { // < 512
                 if (cache.allocateTiny(this, buf, reqCapacity, normCapacity)) {
                     // was able to allocate out of the cache so move on
                     return;
@@ -144,61 +254,265 @@ abstract class PoolArena<T> {
                 table = smallSubpagePools;
             }
 
-            synchronized (this) {
-                final PoolSubpage<T> head = table[tableIdx];
-                final PoolSubpage<T> s = head.next;
-                if (s != head) {
-                    assert s.doNotDestroy && s.elemSize == normCapacity;
-                    long handle = s.allocate();
-                    assert handle >= 0;
-                    s.chunk.initBufWithSubpage(buf, handle, reqCapacity);
-                    return;
-                }
+            if (!allocateFromSubpagePool(table[tableIdx], buf, reqCapacity, normCapacity)) {
+                allocateNormal(cache, buf, reqCapacity, normCapacity);
             }
+            incTinySmallAllocation(tiny);
         } else if (normCapacity <= chunkSize) {
             if (cache.allocateNormal(this, buf, reqCapacity, normCapacity)) {
                 // was able to allocate out of the cache so move on
                 return;
             }
+            if (!isSubpageNormal(normCapacity) ||
+                    !allocateFromSubpagePool(normalSubpagePools[normalIdx(normCapacity)], buf, reqCapacity,
+                            normCapacity)) {
+                allocateNormal(cache, buf, reqCapacity, normCapacity);
+            }
+            allocationsNormal.incrementAndGet();
         } else {
-            // Huge allocations are never served via the cache so just call allocateHuge
+            // Huge allocations are never served via the thread cache so just call allocateHuge
             allocateHuge(buf, reqCapacity);
+        }
+    }
+
+    private static <T> boolean allocateFromSubpagePool(
+            PoolSubpage<T> head, PooledByteBuf<T> buf, int reqCapacity, int normCapacity) {
+        // Synchronize on the head only. This is needed as PoolChunk.allocateSubpage(int) and
+        // PoolChunk.freeSubpageElement(long) may modify the doubly linked list as well.
+        synchronized (head) {
+            final PoolSubpage<T> s = head.next;
+            if (s != head) {
+                assert s.doNotDestroy && s.elemSize == normCapacity;
+                long handle = s.allocate();
+                assert handle >= 0;
+                s.chunk.initBufWithSubpage(buf, handle, reqCapacity);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void incTinySmallAllocation(boolean tiny) {
+        if (tiny) {
+            allocationsTiny.incrementAndGet();
+        } else {
+            allocationsSmall.incrementAndGet();
+        }
+    }
+
+    /**
+     * Allocate a run of pages from the chunk the thread cache allocated from last, which only needs the lock of
+     * that chunk. Only if it has not enough room left the arena lock is acquired to pick another chunk, preferring
+     * chunks no other thread cache allocates from so that threads using the same arena do not contend on a chunk.
+     */
+    private void allocateNormal(PoolThreadCache cache, PooledByteBuf<T> buf, int reqCapacity, int normCapacity) {
+        PoolChunk<T> chunk = cache.allocChunk(this);
+        if (chunk != null && allocateFromChunk(chunk, buf, reqCapacity, normCapacity)) {
             return;
         }
-        allocateNormal(buf, reqCapacity, normCapacity);
+
+        synchronized (this) {
+            chunk = allocateFromChunkLists(buf, reqCapacity, normCapacity, false);
+            if (chunk == null) {
+                chunk = allocateFromChunkLists(buf, reqCapacity, normCapacity, true);
+            }
+            if (chunk == null) {
+                // Add a new chunk.
+                chunk = newChunk(pageSize, maxOrder, pageShifts, chunkSize);
+                synchronized (chunk) {
+                    long handle = chunk.allocate(normCapacity);
+                    assert handle > 0;
+                    chunk.initBuf(buf, handle, reqCapacity);
+                    qInit.add(chunk);
+                }
+                activeBytesPooled.addAndGet(chunkSize);
+            }
+            setAllocChunk(cache, chunk);
+        }
     }
 
-    private synchronized void allocateNormal(PooledByteBuf<T> buf, int reqCapacity, int normCapacity) {
-        if (q050.allocate(buf, reqCapacity, normCapacity) || q025.allocate(buf, reqCapacity, normCapacity) ||
-            q000.allocate(buf, reqCapacity, normCapacity) || qInit.allocate(buf, reqCapacity, normCapacity) ||
-            q075.allocate(buf, reqCapacity, normCapacity) || q100.allocate(buf, reqCapacity, normCapacity)) {
+    private boolean allocateFromChunk(PoolChunk<T> chunk, PooledByteBuf<T> buf, int reqCapacity, int normCapacity) {
+        boolean relocate;
+        synchronized (chunk) {
+            if (chunk.destroyed) {
+                return false;
+            }
+            long handle = chunk.allocate(normCapacity);
+            if (handle < 0) {
+                return false;
+            }
+            chunk.initBuf(buf, handle, reqCapacity);
+            relocate = chunk.parent.needsRelocation(chunk);
+        }
+        if (relocate) {
+            relocate(chunk);
+        }
+        return true;
+    }
+
+    // Method must be called while holding the arena lock.
+    private PoolChunk<T> allocateFromChunkLists(
+            PooledByteBuf<T> buf, int reqCapacity, int normCapacity, boolean shared) {
+        PoolChunk<T> chunk = q050.allocate(buf, reqCapacity, normCapacity, shared);
+        if (chunk != null) {
+            return chunk;
+        }
+        chunk = q025.allocate(buf, reqCapacity, normCapacity, shared);
+        if (chunk != null) {
+            return chunk;
+        }
+        chunk = q000.allocate(buf, reqCapacity, normCapacity, shared);
+        if (chunk != null) {
+            return chunk;
+        }
+        chunk = qInit.allocate(buf, reqCapacity, normCapacity, shared);
+        if (chunk != null) {
+            return chunk;
+        }
+        chunk = q075.allocate(buf, reqCapacity, normCapacity, shared);
+        if (chunk != null) {
+            return chunk;
+        }
+        return q100.allocate(buf, reqCapacity, normCapacity, shared);
+    }
+
+    // Method must be called while holding the arena lock.
+    private void setAllocChunk(PoolThreadCache cache, PoolChunk<T> chunk) {
+        PoolChunk<T> old = cache.allocChunk(this);
+        if (old == chunk) {
             return;
         }
+        if (old != null) {
+            old.numAllocatingCaches --;
+        }
+        chunk.numAllocatingCaches ++;
+        cache.allocChunk(this, chunk);
+    }
+
+    /**
+     * Stop allocating from the chunk the thread cache allocated from last, so other thread caches can pick it.
+     */
+    void releaseAllocChunk(PoolThreadCache cache) {
+        synchronized (this) {
+            PoolChunk<T> old = cache.allocChunk(this);
+            if (old != null) {
+                old.numAllocatingCaches --;
+                cache.allocChunk(this, null);
+            }
+        }
+    }
 
-        // Add a new chunk.
-        PoolChunk<T> c = newChunk(pageSize, maxOrder, pageShifts, chunkSize);
-        long handle = c.allocate(normCapacity);
-        assert handle > 0;
-        c.initBuf(buf, handle, reqCapacity);
-        qInit.add(c);
+    // Must not be called while holding the lock of the chunk, as the arena lock is acquired first.
+    private void relocate(PoolChunk<T> chunk) {
+        synchronized (this) {
+            synchronized (chunk) {
+                if (!chunk.destroyed) {
+                    chunk.parent.relocate(chunk);
+                }
+            }
+        }
     }
 
     private void allocateHuge(PooledByteBuf<T> buf, int reqCapacity) {
-        buf.initUnpooled(newUnpooledChunk(reqCapacity), reqCapacity);
+        PoolChunk<T> chunk;
+        int normCapacity = hugeChunkCache.normalizeCapacity(reqCapacity);
+        if (normCapacity < 0) {
+            // Too big to be cached at all, so do not waste memory by rounding up.
+            chunk = newUnpooledChunk(reqCapacity);
+        } else {
+            chunk = hugeChunkCache.poll(normCapacity);
+            if (chunk == null) {
+                chunk = newUnpooledChunk(normCapacity);
+            }
+        }
+        buf.initUnpooled(chunk, reqCapacity);
+        activeBytesHuge.addAndGet(chunk.chunkSize());
+        allocationsHuge.incrementAndGet();
     }
 
-    void free(PoolChunk<T> chunk, long handle, int normCapacity) {
+    void free(PoolChunk<T> chunk, long handle, int normCapacity, PoolThreadCache ownerCache) {
         if (chunk.unpooled) {
-            destroyChunk(chunk);
+            activeBytesHuge.addAndGet(-chunk.chunkSize());
+            deallocationsHuge.incrementAndGet();
+            if (!hugeChunkCache.offer(chunk)) {
+                destroyChunk(chunk);
+            }
         } else {
+            if (ownerCache != null && !ownerCache.isOwnerThread() &&
+                    ownerCache.offerReturned(chunk, handle, normCapacity)) {
+                // released by another thread so hand it back to the thread that allocated it.
+                return;
+            }
             PoolThreadCache cache = parent.threadCache.get();
             if (cache.add(this, chunk, handle, normCapacity)) {
                 // cached so not free it.
                 return;
             }
-            synchronized (this) {
-                chunk.parent.free(chunk, handle);
-            }
+            freeChunk(chunk, handle, sizeClass(normCapacity));
+        }
+    }
+
+    SizeClass sizeClass(int normCapacity) {
+        if (!isTinyOrSmall(normCapacity)) {
+            return SizeClass.Normal;
+        }
+        return isTiny(normCapacity) ? SizeClass.Tiny : SizeClass.Small;
+    }
+
+    void freeChunk(PoolChunk<T> chunk, long handle, SizeClass sizeClass) {
+        switch (sizeClass) {
+            case Tiny:
+                deallocationsTiny.incrementAndGet();
+                break;
+            case Small:
+                deallocationsSmall.incrementAndGet();
+                break;
+            case Normal:
+                deallocationsNormal.incrementAndGet();
+                break;
+            default:
+                throw new Error();
+        }
+        if (chunk.freeSubpageElement(handle)) {
+            // The subpage is still in use so only the lock of its pool head was needed.
+            return;
+        }
+        boolean relocate;
+        synchronized (chunk) {
+            chunk.free(PoolChunk.runHandle(handle));
+            relocate = chunk.parent.needsRelocation(chunk);
+        }
+        if (relocate) {
+            relocate(chunk);
+        }
+    }
+
+    // Method must be called while holding the arena lock and the lock of the chunk.
+    void destroyPooledChunk(PoolChunk<T> chunk) {
+        activeBytesPooled.addAndGet(-chunk.chunkSize());
+        destroyChunk(chunk);
+    }
+
+    /**
+     * Release all pooled chunks back to the system which were completely unused for at least
+     * {@code maxUnusedNanos}. Only chunks in {@code qInit} can be unused, as all other lists release their chunks
+     * once they are not used anymore. Cached huge chunks are released after the same time.
+     */
+    int destroyUnusedChunks(long maxUnusedNanos) {
+        long now = System.nanoTime();
+        int destroyed;
+        synchronized (this) {
+            destroyed = qInit.destroyUnusedChunks(now, maxUnusedNanos);
+        }
+        return destroyed + hugeChunkCache.destroyUnusedChunks(now, maxUnusedNanos);
+    }
+
+    void threadCacheStats(long hits, long misses) {
+        if (hits != 0) {
+            threadCacheHits.addAndGet(hits);
+        }
+        if (misses != 0) {
+            threadCacheMisses.addAndGet(misses);
         }
     }
 
@@ -208,14 +522,12 @@ abstract class PoolArena<T> {
         if (isTiny(elemSize)) { // < 512
             tableIdx = elemSize >>> 4;
             table = tinySubpagePools;
-        } else {
-            tableIdx = 0;
-            elemSize >>>= 10;
-            while (elemSize != 0) {
-                elemSize >>>= 1;
-                tableIdx ++;
-            }
+        } else if (isTinyOrSmall(elemSize)) { // < pageSize
+            tableIdx = smallIdx(elemSize);
             table = smallSubpagePools;
+        } else {
+            tableIdx = normalIdx(elemSize);
+            table = normalSubpagePools;
         }
 
         return table[tableIdx];
@@ -245,6 +557,15 @@ abstract class PoolArena<T> {
                 normalizedCapacity >>>= 1;
             }
 
+            if (!powerOfTwoSizeClasses && normalizedCapacity != reqCapacity) {
+                // Use one of the finer grained size classes between the two powers of two if there are any.
+                int base = normalizedCapacity >>> 1;
+                if (base < pageSize || base <= maxSubpageNormalBase) {
+                    int step = base >>> SIZE_CLASSES_PER_DOUBLING_SHIFT;
+                    return reqCapacity + step - 1 & -step;
+                }
+            }
+
             return normalizedCapacity;
         }
 
@@ -266,6 +587,7 @@ abstract class PoolArena<T> {
             return;
         }
 
+        PoolThreadCache oldCache = buf.cache;
         PoolChunk<T> oldChunk = buf.chunk;
         long oldHandle = buf.handle;
         T oldMemory = buf.memory;
@@ -295,8 +617,159 @@ abstract class PoolArena<T> {
         buf.setIndex(readerIndex, writerIndex);
 
         if (freeOldMemory) {
-            free(oldChunk, oldHandle, oldMaxLength);
+            free(oldChunk, oldHandle, oldMaxLength, oldCache);
+        }
+    }
+
+    @Override
+    public int numThreadCaches() {
+        return numThreadCaches.get();
+    }
+
+    @Override
+    public int numTinySubpages() {
+        return tinySubpagePools.length;
+    }
+
+    @Override
+    public int numSmallSubpages() {
+        return smallSubpagePools.length;
+    }
+
+    @Override
+    public int numChunkLists() {
+        return chunkListMetrics.size();
+    }
+
+    @Override
+    public List<PoolSubpageMetric> tinySubpages() {
+        return subPageMetricList(tinySubpagePools);
+    }
+
+    @Override
+    public List<PoolSubpageMetric> smallSubpages() {
+        return subPageMetricList(smallSubpagePools);
+    }
+
+    @Override
+    public List<PoolChunkListMetric> chunkLists() {
+        return chunkListMetrics;
+    }
+
+    private static List<PoolSubpageMetric> subPageMetricList(PoolSubpage<?>[] pages) {
+        List<PoolSubpageMetric> metrics = new ArrayList<PoolSubpageMetric>();
+        for (PoolSubpage<?> head : pages) {
+            synchronized (head) {
+                if (head.next == head) {
+                    continue;
+                }
+                PoolSubpage<?> s = head.next;
+                for (;;) {
+                    metrics.add(s);
+                    s = s.next;
+                    if (s == head) {
+                        break;
+                    }
+                }
+            }
         }
+        return Collections.unmodifiableList(metrics);
+    }
+
+    @Override
+    public long numAllocations() {
+        return allocationsTiny.get() + allocationsSmall.get() + allocationsNormal.get() + allocationsHuge.get();
+    }
+
+    @Override
+    public long numTinyAllocations() {
+        return allocationsTiny.get();
+    }
+
+    @Override
+    public long numSmallAllocations() {
+        return allocationsSmall.get();
+    }
+
+    @Override
+    public long numNormalAllocations() {
+        return allocationsNormal.get();
+    }
+
+    @Override
+    public long numHugeAllocations() {
+        return allocationsHuge.get();
+    }
+
+    @Override
+    public long numDeallocations() {
+        return deallocationsTiny.get() + deallocationsSmall.get() + deallocationsNormal.get() + deallocationsHuge.get();
+    }
+
+    @Override
+    public long numTinyDeallocations() {
+        return deallocationsTiny.get();
+    }
+
+    @Override
+    public long numSmallDeallocations() {
+        return deallocationsSmall.get();
+    }
+
+    @Override
+    public long numNormalDeallocations() {
+        return deallocationsNormal.get();
+    }
+
+    @Override
+    public long numHugeDeallocations() {
+        return deallocationsHuge.get();
+    }
+
+    @Override
+    public long numActiveAllocations() {
+        long val = numAllocations() - numDeallocations();
+        return Math.max(val, 0);
+    }
+
+    @Override
+    public long numActiveTinyAllocations() {
+        return Math.max(numTinyAllocations() - numTinyDeallocations(), 0);
+    }
+
+    @Override
+    public long numActiveSmallAllocations() {
+        return Math.max(numSmallAllocations() - numSmallDeallocations(), 0);
+    }
+
+    @Override
+    public long numActiveNormalAllocations() {
+        return Math.max(numNormalAllocations() - numNormalDeallocations(), 0);
+    }
+
+    @Override
+    public long numActiveHugeAllocations() {
+        return Math.max(numHugeAllocations() - numHugeDeallocations(), 0);
+    }
+
+    @Override
+    public long numActiveBytes() {
+        return activeBytesPooled.get() + activeBytesHuge.get();
+    }
+
+    @Override
+    public long numCachedHugeBytes() {
+        return hugeChunkCache.cachedBytes();
+    }
+
+    @Override
+    public long numThreadCacheHits() {
+        return threadCacheHits.get();
+    }
+
+    @Override
+    public long numThreadCacheMisses() {
+        return threadCacheMisses.get();
     }
 
     protected abstract PoolChunk<T> newChunk(int pageSize, int maxOrder, int pageShifts, int chunkSize);
@@ -333,35 +806,28 @@ abstract class PoolArena<T> {
         buf.append(StringUtil.NEWLINE);
         buf.append("tiny subpages:");
         for (int i = 1; i < tinySubpagePools.length; i ++) {
-            PoolSubpage<T> head = tinySubpagePools[i];
-            if (head.next == head) {
-                continue;
-            }
-
-            buf.append(StringUtil.NEWLINE);
-            buf.append(i);
-            buf.append(": ");
-            PoolSubpage<T> s = head.next;
-            for (;;) {
-                buf.append(s);
-                s = s.next;
-                if (s == head) {
-                    break;
-                }
-            }
+            appendPoolSubpages(buf, i, tinySubpagePools[i]);
         }
         buf.append(StringUtil.NEWLINE);
         buf.append("small subpages:");
         for (int i = 1; i < smallSubpagePools.length; i ++) {
-            PoolSubpage<T> head = smallSubpagePools[i];
+            appendPoolSubpages(buf, i, smallSubpagePools[i]);
+        }
+        buf.append(StringUtil.NEWLINE);
+
+        return buf.toString();
+    }
+
+    private static void appendPoolSubpages(StringBuilder buf, int idx, PoolSubpage<?> head) {
+        synchronized (head) {
             if (head.next == head) {
-                continue;
+                return;
             }
 
             buf.append(StringUtil.NEWLINE);
-            buf.append(i);
+            buf.append(idx);
             buf.append(": ");
-            PoolSubpage<T> s = head.next;
+            PoolSubpage<?> s = head.next;
             for (;;) {
                 buf.append(s);
                 s = s.next;
@@ -370,15 +836,15 @@ abstract class PoolArena<T> {
                 }
             }
         }
-        buf.append(StringUtil.NEWLINE);
-
-        return buf.toString();
     }
 
     static final class HeapArena extends PoolArena<byte[]> {
 
-        HeapArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize) {
-            super(parent, pageSize, maxOrder, pageShifts, chunkSize);
+        private static final boolean HAS_UNSAFE = PlatformDependent.hasUnsafe();
+
+        HeapArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize,
+                  int maxCachedHugeBytes, boolean powerOfTwoSizeClasses) {
+            super(parent, pageSize, maxOrder, pageShifts, chunkSize, maxCachedHugeBytes, powerOfTwoSizeClasses);
         }
 
         @Override
@@ -388,7 +854,8 @@ abstract class PoolArena<T> {
 
         @Override
         protected PoolChunk<byte[]> newChunk(int pageSize, int maxOrder, int pageShifts, int chunkSize) {
-            return new PoolChunk<byte[]>(this, new byte[chunkSize], pageSize, maxOrder, pageShifts, chunkSize);
+            byte[] memory = new byte[chunkSize];
+            return new PoolChunk<byte[]>(this, memory, memory, pageSize, maxOrder, pageShifts, chunkSize);
         }
 
         @Override
@@ -403,7 +870,11 @@ abstract class PoolArena<T> {
 
         @Override
         protected PooledByteBuf<byte[]> newByteBuf(int maxCapacity) {
-            return PooledHeapByteBuf.newInstance(maxCapacity);
+            if (HAS_UNSAFE) {
+                return PooledUnsafeHeapByteBuf.newUnsafeInstance(maxCapacity);
+            } else {
+                return PooledHeapByteBuf.newInstance(maxCapacity);
+            }
         }
 
         @Override
@@ -420,8 +891,13 @@ abstract class PoolArena<T> {
 
         private static final boolean HAS_UNSAFE = PlatformDependent.hasUnsafe();
 
-        DirectArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize) {
-            super(parent, pageSize, maxOrder, pageShifts, chunkSize);
+        // Maps the memory of pooled chunks if not null, otherwise it is allocated via allocateDirect(int).
+        private final DirectChunkMapper chunkMapper;
+
+        DirectArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize,
+                    int maxCachedHugeBytes, boolean powerOfTwoSizeClasses, DirectChunkMapper chunkMapper) {
+            super(parent, pageSize, maxOrder, pageShifts, chunkSize, maxCachedHugeBytes, powerOfTwoSizeClasses);
+            this.chunkMapper = chunkMapper;
         }
 
         @Override
@@ -431,18 +907,33 @@ abstract class PoolArena<T> {
 
         @Override
         protected PoolChunk<ByteBuffer> newChunk(int pageSize, int maxOrder, int pageShifts, int chunkSize) {
-            return new PoolChunk<ByteBuffer>(
-                    this, ByteBuffer.allocateDirect(chunkSize), pageSize, maxOrder, pageShifts, chunkSize);
+            if (chunkMapper != null) {
+                ByteBuffer mapping = chunkMapper.map(chunkSize);
+                return new PoolChunk<ByteBuffer>(this, mapping, DirectChunkMapper.alignedSlice(mapping, chunkSize),
+                        pageSize, maxOrder, pageShifts, chunkSize);
+            }
+            ByteBuffer memory = allocateDirect(chunkSize);
+            return new PoolChunk<ByteBuffer>(this, memory, memory, pageSize, maxOrder, pageShifts, chunkSize);
         }
 
         @Override
         protected PoolChunk<ByteBuffer> newUnpooledChunk(int capacity) {
-            return new PoolChunk<ByteBuffer>(this, ByteBuffer.allocateDirect(capacity), capacity);
+            return new PoolChunk<ByteBuffer>(this, allocateDirect(capacity), capacity);
+        }
+
+        private static ByteBuffer allocateDirect(int capacity) {
+            return PlatformDependent.useDirectBufferNoCleaner() ?
+                    PlatformDependent.allocateDirectNoCleaner(capacity) : ByteBuffer.allocateDirect(capacity);
         }
 
         @Override
         protected void destroyChunk(PoolChunk<ByteBuffer> chunk) {
-            PlatformDependent.freeDirectBuffer(chunk.memory);
+            if (chunkMapper != null && !chunk.unpooled || !PlatformDependent.useDirectBufferNoCleaner()) {
+                // Mapped chunks are unmapped via their Cleaner.
+                PlatformDependent.freeDirectBuffer((ByteBuffer) chunk.base);
+            } else {
+                PlatformDependent.freeDirectNoCleaner((ByteBuffer) chunk.base);
+            }
         }
 
         @Override
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import java.util.List;
+
+/**
+ * Chooses the arena of a {@link PooledByteBufAllocator} which serves a thread. It is asked once per thread and
+ * arena type when the thread allocates from the {@link PooledByteBufAllocator} for the first time.
+ *
+ * @see EventExecutorPoolArenaChooser
+ * @see NumaPoolArenaChooser
+ */
+public interface PoolArenaChooser {
+
+    /**
+     * Returns the index of the arena that serves the current thread.
+     *
+     * @param arenas the heap or direct arenas of the allocator, never empty
+     */
+    int choose(List<PoolArenaMetric> arenas);
+}
@@ -91,6 +91,12 @@ package io.netty.buffer;
  * 2) use this handle to construct the PoolSubpage object or if it already exists just call init(normCapacity)
  *    note that this PoolSubpage object is added to subpagesPool in the PoolArena when we init() it
  *
+ * Locking:
+ * --------
+ * The memoryMap, the subpages and freeBytes of a chunk are guarded by the lock of the chunk itself, so allocations
+ * from different chunks of the same arena do not contend with each other. The PoolChunkList the chunk belongs to is
+ * guarded by the lock of the PoolArena, which is always acquired before the lock of the chunk.
+ *
  * Note:
  * -----
  * In the implementation for improving cache coherence,
@@ -101,9 +107,12 @@ package io.netty.buffer;
  * the second value (i.e, x) indicates that the first node which is free to be allocated is at depth x (from root)
  */
 
-final class PoolChunk<T> {
+final class PoolChunk<T> implements PoolChunkMetric {
 
     final PoolArena<T> arena;
+    // The object that must be released when the chunk is destroyed. It differs from memory if memory is only an
+    // aligned part of it.
+    final Object base;
     final T memory;
     final boolean unpooled;
 
@@ -122,7 +131,14 @@ final class PoolChunk<T> {
     private final byte unusable;
 
     private int freeBytes;
-
+    // System.nanoTime() of the last time this chunk became completely unused.
+    long unusedSince;
+    // Set once the memory of the chunk was released. Guarded by the lock of the chunk.
+    boolean destroyed;
+    // The number of thread caches which allocate normal sizes from this chunk first. Guarded by the arena lock.
+    int numAllocatingCaches;
+
+    // Only modified while holding the lock of the arena and of the chunk.
     PoolChunkList<T> parent;
     PoolChunk<T> prev;
     PoolChunk<T> next;
@@ -130,9 +146,10 @@ final class PoolChunk<T> {
     // TODO: Test if adding padding helps under contention
     //private long pad0, pad1, pad2, pad3, pad4, pad5, pad6, pad7;
 
-    PoolChunk(PoolArena<T> arena, T memory, int pageSize, int maxOrder, int pageShifts, int chunkSize) {
+    PoolChunk(PoolArena<T> arena, Object base, T memory, int pageSize, int maxOrder, int pageShifts, int chunkSize) {
         unpooled = false;
         this.arena = arena;
+        this.base = base;
         this.memory = memory;
         this.pageSize = pageSize;
         this.pageShifts = pageShifts;
@@ -167,6 +184,7 @@ final class PoolChunk<T> {
     PoolChunk(PoolArena<T> arena, T memory, int size) {
         unpooled = true;
         this.arena = arena;
+        base = memory;
         this.memory = memory;
         memoryMap = null;
         depthMap = null;
@@ -186,7 +204,8 @@ final class PoolChunk<T> {
         return new PoolSubpage[size];
     }
 
-    int usage() {
+    @Override
+    public int usage() {
         final int freeBytes = this.freeBytes;
         if (freeBytes == 0) {
             return 100;
@@ -199,8 +218,26 @@ final class PoolChunk<T> {
         return 100 - freePercentage;
     }
 
+    @Override
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    @Override
+    public int freeBytes() {
+        return freeBytes;
+    }
+
+    boolean isUnused() {
+        return freeBytes == chunkSize;
+    }
+
+    /**
+     * Must be called while holding the lock of this chunk.
+     */
     long allocate(int normCapacity) {
-        if ((normCapacity & subpageOverflowMask) != 0) { // >= pageSize
+        if ((normCapacity & subpageOverflowMask) != 0 && !PoolArena.isSubpageNormal(normCapacity)) {
+            // >= pageSize and a power of two
             return allocateRun(normCapacity);
         } else {
             return allocateSubpage(normCapacity);
@@ -306,26 +343,44 @@ final class PoolChunk<T> {
      * @return index in memoryMap
      */
     private long allocateSubpage(int normCapacity) {
-        int d = maxOrder; // subpages are only be allocated from pages i.e., leaves
+        final int runSize = subpageRunSize(normCapacity);
+        int d = maxOrder - (log2(runSize) - pageShifts);
         int id = allocateNode(d);
         if (id < 0) {
             return id;
         }
 
         final PoolSubpage<T>[] subpages = this.subpages;
-        final int pageSize = this.pageSize;
 
-        freeBytes -= pageSize;
+        freeBytes -= runSize;
+
+        // Obtain the head of the PoolSubpage pool that is owned by the PoolArena and synchronize on it.
+        // This is needed as the subpage is added to the pool and so alters the linked-list structure.
+        PoolSubpage<T> head = arena.findSubpagePoolHead(normCapacity);
+        synchronized (head) {
+            int subpageIdx = subpageIdx(id);
+            PoolSubpage<T> subpage = subpages[subpageIdx];
+            if (subpage == null || subpage.memoryMapIdx != id) {
+                // Either never used or last used for a run with a different size that started at the same page.
+                subpage = new PoolSubpage<T>(head, this, id, runOffset(id), runSize, normCapacity);
+                subpages[subpageIdx] = subpage;
+            } else {
+                subpage.init(head, normCapacity);
+            }
+            return subpage.allocate();
+        }
+    }
 
-        int subpageIdx = subpageIdx(id);
-        PoolSubpage<T> subpage = subpages[subpageIdx];
-        if (subpage == null) {
-            subpage = new PoolSubpage<T>(this, id, runOffset(id), pageSize, normCapacity);
-            subpages[subpageIdx] = subpage;
-        } else {
-            subpage.init(normCapacity);
+    /**
+     * Returns the size of the run which is split into elements of {@code normCapacity}. This is a single page for
+     * tiny and small capacities. Normal capacities which are not a power of two are served from a run of
+     * {@code 1 << NORMAL_SUBPAGE_RUN_SHIFT} times the power of two below them, so that at least four elements fit.
+     */
+    private int subpageRunSize(int normCapacity) {
+        if ((normCapacity & subpageOverflowMask) == 0) { // < pageSize
+            return pageSize;
         }
-        return subpage.allocate();
+        return Integer.highestOneBit(normCapacity) << PoolArena.NORMAL_SUBPAGE_RUN_SHIFT;
     }
 
     /**
@@ -334,22 +389,53 @@ final class PoolChunk<T> {
      * If the subpage pool in PoolArena has at least one other PoolSubpage of given elemSize, we can
      * completely free the owning Page so it is available for subsequent allocations
      *
+     * Must be called while holding the lock of this chunk.
+     *
      * @param handle handle to free
      */
     void free(long handle) {
-        int memoryMapIdx = (int) handle;
-        int bitmapIdx = (int) (handle >>> Integer.SIZE);
-
-        if (bitmapIdx != 0) { // free a subpage
-            PoolSubpage<T> subpage = subpages[subpageIdx(memoryMapIdx)];
-            assert subpage != null && subpage.doNotDestroy;
-            if (subpage.free(bitmapIdx & 0x3FFFFFFF)) {
-                return;
-            }
+        if (freeSubpageElement(handle)) {
+            return;
         }
+        int memoryMapIdx = (int) handle;
         freeBytes += runLength(memoryMapIdx);
         setValue(memoryMapIdx, depth(memoryMapIdx));
         updateParentsFree(memoryMapIdx);
+        if (isUnused()) {
+            unusedSince = System.nanoTime();
+        }
+    }
+
+    /**
+     * Free the subpage element referenced by the handle while only holding the lock of the subpage pool head.
+     *
+     * @param handle handle to free
+     * @return {@code true} if the handle referenced a subpage element and the subpage is still in use.
+     *         {@code false} if the handle referenced a run of pages or the subpage is not used anymore, in which
+     *         case the page itself must be freed via {@link #free(long)} using {@link #runHandle(long)}.
+     */
+    boolean freeSubpageElement(long handle) {
+        int bitmapIdx = (int) (handle >>> Integer.SIZE);
+        if (bitmapIdx == 0) {
+            return false;
+        }
+
+        PoolSubpage<T> subpage = subpages[subpageIdx((int) handle)];
+        assert subpage != null && subpage.doNotDestroy;
+
+        // Obtain the head of the PoolSubpage pool that is owned by the PoolArena and synchronize on it.
+        // This is needed as the subpage may be added back to or removed from the pool.
+        PoolSubpage<T> head = arena.findSubpagePoolHead(subpage.elemSize);
+        synchronized (head) {
+            return subpage.free(head, bitmapIdx & 0x3FFFFFFF);
+        }
+    }
+
+    /**
+     * Returns the handle of the run (page) that contains the allocation referenced by the given handle.
+     */
+    static long runHandle(long handle) {
+        return (int) handle;
     }
 
     void initBuf(PooledByteBuf<T> buf, long handle, int reqCapacity) {
@@ -411,7 +497,10 @@ final class PoolChunk<T> {
     }
 
     private int subpageIdx(int memoryMapIdx) {
-        return memoryMapIdx ^ maxSubpageAllocs; // remove highest set bit, to get offset
+        // Subpages are stored at the index of the first page of their run, which is the page itself for tiny and
+        // small capacities.
+        int firstPageIdx = memoryMapIdx << maxOrder - depth(memoryMapIdx);
+        return firstPageIdx ^ maxSubpageAllocs; // remove highest set bit, to get offset
     }
 
     @Override
@@ -18,7 +18,15 @@ package io.netty.buffer;
 
 import io.netty.util.internal.StringUtil;
 
-final class PoolChunkList<T> {
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+final class PoolChunkList<T> implements PoolChunkListMetric {
+    private static final Iterator<PoolChunkMetric> EMPTY_METRICS =
+            Collections.<PoolChunkMetric>emptyList().iterator();
+
     private final PoolArena<T> arena;
     private final PoolChunkList<T> nextList;
     PoolChunkList<T> prevList;
@@ -26,7 +34,11 @@ final class PoolChunkList<T> {
     private final int minUsage;
     private final int maxUsage;
 
+    // The list is guarded by the lock of the arena. Adding or removing a chunk also requires the lock of the chunk,
+    // so that the parent of a chunk can be read while only holding the lock of the chunk.
     private PoolChunk<T> head;
+    // Only modified while holding the lock of the arena but read without it by the metrics.
+    private volatile int numChunks;
 
     // TODO: Test if adding padding helps under contention
     //private long pad0, pad1, pad2, pad3, pad4, pad5, pad6, pad7;
@@ -38,42 +50,66 @@ final class PoolChunkList<T> {
         this.maxUsage = maxUsage;
     }
 
-    boolean allocate(PooledByteBuf<T> buf, int reqCapacity, int normCapacity) {
-        if (head == null) {
-            return false;
-        }
-
-        for (PoolChunk<T> cur = head;;) {
-            long handle = cur.allocate(normCapacity);
-            if (handle < 0) {
-                cur = cur.next;
-                if (cur == null) {
-                    return false;
+    /**
+     * Allocate from the first chunk in this list that has enough room, only considering chunks which other thread
+     * caches allocate from first if {@code shared} is {@code true} and only the other chunks if it is {@code false}.
+     * Returns the chunk or {@code null} if none had enough room. Must be called while holding the arena lock.
+     */
+    PoolChunk<T> allocate(PooledByteBuf<T> buf, int reqCapacity, int normCapacity, boolean shared) {
+        for (PoolChunk<T> cur = head; cur != null; cur = cur.next) {
+            if (cur.numAllocatingCaches > 0 != shared) {
+                continue;
+            }
+            synchronized (cur) {
+                long handle = cur.allocate(normCapacity);
+                if (handle < 0) {
+                    continue;
                 }
-            } else {
                 cur.initBuf(buf, handle, reqCapacity);
-                if (cur.usage() >= maxUsage) {
-                    remove(cur);
-                    nextList.add(cur);
-                }
-                return true;
+                relocate(cur);
             }
+            return cur;
         }
+        return null;
     }
 
-    void free(PoolChunk<T> chunk, long handle) {
-        chunk.free(handle);
-        if (chunk.usage() < minUsage) {
-            remove(chunk);
-            if (prevList == null) {
-                assert chunk.usage() == 0;
-                arena.destroyChunk(chunk);
-            } else {
-                prevList.add(chunk);
+    /**
+     * Returns {@code true} if the usage of the chunk does not fit this list anymore. Must be called while holding the
+     * lock of the chunk.
+     */
+    boolean needsRelocation(PoolChunk<T> chunk) {
+        int usage = chunk.usage();
+        return usage >= maxUsage || usage < minUsage;
+    }
+
+    /**
+     * Move the chunk to the list that fits its usage, or destroy it if it is not used anymore and there is no list
+     * to move it to. Must be called while holding the lock of the arena and of the chunk.
+     */
+    void relocate(PoolChunk<T> chunk) {
+        assert chunk.parent == this;
+        if (!needsRelocation(chunk)) {
+            return;
+        }
+
+        remove(chunk);
+        PoolChunkList<T> list = this;
+        int usage = chunk.usage();
+        while (usage < list.minUsage) {
+            list = list.prevList;
+            if (list == null) {
+                assert usage == 0;
+                chunk.destroyed = true;
+                arena.destroyPooledChunk(chunk);
+                return;
             }
         }
+        list.add(chunk);
     }
 
+    /**
+     * Must be called while holding the lock of the arena and of the chunk.
+     */
     void add(PoolChunk<T> chunk) {
         if (chunk.usage() >= maxUsage) {
             nextList.add(chunk);
@@ -81,6 +117,7 @@ final class PoolChunkList<T> {
         }
 
         chunk.parent = this;
+        numChunks ++;
         if (head == null) {
             head = chunk;
             chunk.prev = null;
@@ -93,7 +130,29 @@ final class PoolChunkList<T> {
         }
     }
 
+    /**
+     * Destroy all chunks in this list which were completely unused for at least {@code maxUnusedNanos}.
+     * Returns the number of destroyed chunks.
+     */
+    int destroyUnusedChunks(long nowNanos, long maxUnusedNanos) {
+        int numDestroyed = 0;
+        for (PoolChunk<T> cur = head; cur != null;) {
+            PoolChunk<T> next = cur.next;
+            synchronized (cur) {
+                if (cur.isUnused() && nowNanos - cur.unusedSince >= maxUnusedNanos) {
+                    remove(cur);
+                    cur.destroyed = true;
+                    arena.destroyPooledChunk(cur);
+                    numDestroyed ++;
+                }
+            }
+            cur = next;
+        }
+        return numDestroyed;
+    }
+
     private void remove(PoolChunk<T> cur) {
+        numChunks --;
         if (cur == head) {
             head = cur.next;
             if (head != null) {
@@ -108,6 +167,42 @@ final class PoolChunkList<T> {
         }
     }
 
+    @Override
+    public int minUsage() {
+        return Math.max(0, minUsage);
+    }
+
+    @Override
+    public int maxUsage() {
+        return Math.min(maxUsage, 100);
+    }
+
+    @Override
+    public int numChunks() {
+        return numChunks;
+    }
+
+    /**
+     * Returns a snapshot of the chunks in this list. The arena lock is only held while the chunks are collected.
+     */
+    @Override
+    public Iterator<PoolChunkMetric> iterator() {
+        synchronized (arena) {
+            if (head == null) {
+                return EMPTY_METRICS;
+            }
+            List<PoolChunkMetric> metrics = new ArrayList<PoolChunkMetric>();
+            for (PoolChunk<T> cur = head;;) {
+                metrics.add(cur);
+                cur = cur.next;
+                if (cur == null) {
+                    break;
+                }
+            }
+            return metrics.iterator();
+        }
+    }
+
     @Override
     public String toString() {
         if (head == null) {
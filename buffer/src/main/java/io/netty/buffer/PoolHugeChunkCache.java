@@ -0,0 +1,223 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.buffer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the unpooled chunks of huge allocations (larger than the chunk size of the arena) around after they were
+ * released so they can be used again by the next huge allocation of the same size class instead of allocating
+ * (and later freeing) new memory every time.
+ * <p>
+ * Huge capacities are rounded up to one of four size classes per power of two, so at most 25% of a huge allocation
+ * is wasted. Each size class has its own free list, and the total number of bytes that may be cached is capped.
+ * If the cap is exceeded, the chunks which were unused for the longest time are released first. Chunks which were
+ * unused for longer than {@code maxUnusedNanos} are released by the next huge allocation or release of the arena,
+ * so cached memory does not depend on the periodic trimming of the thread caches to be given back.
+ */
+final class PoolHugeChunkCache<T> {
+
+    private static final int SIZE_CLASSES_PER_DOUBLING_SHIFT = 2;
+    private static final int SIZE_CLASSES_PER_DOUBLING = 1 << SIZE_CLASSES_PER_DOUBLING_SHIFT;
+
+    private final PoolArena<T> arena;
+    private final int log2ChunkSize;
+    private final long maxCachedBytes;
+    private final long maxUnusedNanos;
+    private final Deque<PoolChunk<T>>[] freeLists;
+
+    // Guarded by this.
+    private long cachedBytes;
+
+    /**
+     * @param maxUnusedNanos the time after which a cached chunk is released, or a negative value to keep cached chunks
+     *                       until the cap is exceeded or {@link #destroyUnusedChunks(long, long)} is called.
+     */
+    PoolHugeChunkCache(PoolArena<T> arena, int chunkSize, long maxCachedBytes, long maxUnusedNanos) {
+        this.arena = arena;
+        this.maxCachedBytes = maxCachedBytes;
+        this.maxUnusedNanos = maxUnusedNanos;
+        log2ChunkSize = log2(chunkSize);
+        if (maxCachedBytes > chunkSize) {
+            freeLists = newFreeListArray((Integer.SIZE - 1 - log2ChunkSize) * SIZE_CLASSES_PER_DOUBLING);
+            for (int i = 0; i < freeLists.length; i ++) {
+                freeLists[i] = new ArrayDeque<PoolChunk<T>>();
+            }
+        } else {
+            // Every huge allocation is bigger than the cap, so there is nothing to cache.
+            freeLists = null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Deque<PoolChunk<T>>[] newFreeListArray(int size) {
+        return new Deque[size];
+    }
+
+    private static int log2(int val) {
+        return Integer.SIZE - 1 - Integer.numberOfLeadingZeros(val);
+    }
+
+    /**
+     * Return the capacity of the size class for the given huge capacity, or {@code -1} if allocations of this size
+     * can not be cached and so must not be rounded up.
+     */
+    int normalizeCapacity(int reqCapacity) {
+        if (freeLists == null) {
+            return -1;
+        }
+        int step = 1 << (log2(reqCapacity - 1) - SIZE_CLASSES_PER_DOUBLING_SHIFT);
+        long normCapacity = ((long) reqCapacity + step - 1) & ~(step - 1);
+        if (normCapacity > maxCachedBytes || normCapacity > Integer.MAX_VALUE) {
+            return -1;
+        }
+        return (int) normCapacity;
+    }
+
+    private int freeListIdx(int normCapacity) {
+        int shift = log2(normCapacity - 1);
+        int sizeClass = (normCapacity >>> (shift - SIZE_CLASSES_PER_DOUBLING_SHIFT)) - SIZE_CLASSES_PER_DOUBLING - 1;
+        return (shift - log2ChunkSize) * SIZE_CLASSES_PER_DOUBLING + sizeClass;
+    }
+
+    /**
+     * Return a cached chunk of exactly {@code normCapacity} bytes, or {@code null} if none is cached.
+     */
+    PoolChunk<T> poll(int normCapacity) {
+        Deque<PoolChunk<T>> freeList = freeLists[freeListIdx(normCapacity)];
+        PoolChunk<T> chunk;
+        List<PoolChunk<T>> evicted;
+        synchronized (this) {
+            // Use the most recently released chunk as its memory is most likely still warm.
+            chunk = freeList.pollLast();
+            if (chunk != null) {
+                cachedBytes -= chunk.chunkSize();
+            }
+            evicted = pollExpired(System.nanoTime(), null);
+        }
+        destroy(evicted);
+        return chunk;
+    }
+
+    /**
+     * Cache the given unpooled chunk which is not used anymore.
+     *
+     * @return {@code false} if the chunk can not be cached and so must be destroyed by the caller.
+     */
+    boolean offer(PoolChunk<T> chunk) {
+        assert chunk.unpooled;
+        int size = chunk.chunkSize();
+        if (freeLists == null || size > maxCachedBytes || size != normalizeCapacity(size)) {
+            return false;
+        }
+        Deque<PoolChunk<T>> freeList = freeLists[freeListIdx(size)];
+        List<PoolChunk<T>> evicted = null;
+        synchronized (this) {
+            long now = System.nanoTime();
+            chunk.unusedSince = now;
+            freeList.addLast(chunk);
+            cachedBytes += size;
+            while (cachedBytes > maxCachedBytes) {
+                PoolChunk<T> oldest = pollOldest(now, 0);
+                if (evicted == null) {
+                    evicted = new ArrayList<PoolChunk<T>>(2);
+                }
+                evicted.add(oldest);
+            }
+            evicted = pollExpired(now, evicted);
+        }
+        destroy(evicted);
+        return true;
+    }
+
+    /**
+     * Release all cached chunks which were unused for at least {@code maxUnusedNanos}.
+     */
+    int destroyUnusedChunks(long nowNanos, long maxUnusedNanos) {
+        if (freeLists == null) {
+            return 0;
+        }
+        List<PoolChunk<T>> evicted = null;
+        synchronized (this) {
+            for (;;) {
+                PoolChunk<T> oldest = pollOldest(nowNanos, maxUnusedNanos);
+                if (oldest == null) {
+                    break;
+                }
+                if (evicted == null) {
+                    evicted = new ArrayList<PoolChunk<T>>();
+                }
+                evicted.add(oldest);
+            }
+        }
+        return destroy(evicted);
+    }
+
+    // Method must be called while holding the lock of this cache.
+    private List<PoolChunk<T>> pollExpired(long nowNanos, List<PoolChunk<T>> evicted) {
+        if (maxUnusedNanos < 0 || cachedBytes == 0) {
+            return evicted;
+        }
+        for (;;) {
+            PoolChunk<T> oldest = pollOldest(nowNanos, maxUnusedNanos);
+            if (oldest == null) {
+                return evicted;
+            }
+            if (evicted == null) {
+                evicted = new ArrayList<PoolChunk<T>>(2);
+            }
+            evicted.add(oldest);
+        }
+    }
+
+    // Method must be called while holding the lock of this cache.
+    private PoolChunk<T> pollOldest(long nowNanos, long maxUnusedNanos) {
+        // Chunks are always added to the tail of a free list, so the oldest chunk is the head of one of the lists.
+        Deque<PoolChunk<T>> oldestList = null;
+        long oldestUnusedSince = 0;
+        for (Deque<PoolChunk<T>> freeList: freeLists) {
+            PoolChunk<T> head = freeList.peekFirst();
+            if (head != null && (oldestList == null || head.unusedSince - oldestUnusedSince < 0)) {
+                oldestList = freeList;
+                oldestUnusedSince = head.unusedSince;
+            }
+        }
+        if (oldestList == null || nowNanos - oldestUnusedSince < maxUnusedNanos) {
+            return null;
+        }
+        PoolChunk<T> chunk = oldestList.pollFirst();
+        cachedBytes -= chunk.chunkSize();
+        return chunk;
+    }
+
+    private int destroy(List<PoolChunk<T>> chunks) {
+        if (chunks == null) {
+            return 0;
+        }
+        for (PoolChunk<T> chunk: chunks) {
+            arena.destroyChunk(chunk);
+        }
+        return chunks.size();
+    }
+
+    synchronized long cachedBytes() {
+        return cachedBytes;
+    }
+}
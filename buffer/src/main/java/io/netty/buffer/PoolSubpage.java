@@ -16,13 +16,13 @@
 
 package io.netty.buffer;
 
-final class PoolSubpage<T> {
+final class PoolSubpage<T> implements PoolSubpageMetric {
 
     final PoolChunk<T> chunk;
-    private final int memoryMapIdx;
+    final int memoryMapIdx;
     private final int runOffset;
     private final int pageSize;
-    private final long[] bitmap;
+    private long[] bitmap;
 
     PoolSubpage<T> prev;
     PoolSubpage<T> next;
@@ -47,24 +47,28 @@ final class PoolSubpage<T> {
         bitmap = null;
     }
 
-    PoolSubpage(PoolChunk<T> chunk, int memoryMapIdx, int runOffset, int pageSize, int elemSize) {
+    PoolSubpage(PoolSubpage<T> head, PoolChunk<T> chunk, int memoryMapIdx, int runOffset, int pageSize, int elemSize) {
         this.chunk = chunk;
         this.memoryMapIdx = memoryMapIdx;
         this.runOffset = runOffset;
         this.pageSize = pageSize;
-        bitmap = new long[pageSize >>> 10]; // pageSize / 16 / 64
-        init(elemSize);
+        bitmap = new long[elemSize == 0 ? 1 : bitmapLength(pageSize / elemSize)];
+        init(head, elemSize);
     }
 
-    void init(int elemSize) {
+    /**
+     * Must be called while holding the lock of {@code head}.
+     */
+    void init(PoolSubpage<T> head, int elemSize) {
         doNotDestroy = true;
         this.elemSize = elemSize;
         if (elemSize != 0) {
             maxNumElems = numAvail = pageSize / elemSize;
             nextAvail = 0;
-            bitmapLength = maxNumElems >>> 6;
-            if ((maxNumElems & 63) != 0) {
-                bitmapLength ++;
+            bitmapLength = bitmapLength(maxNumElems);
+            if (bitmapLength > bitmap.length) {
+                // Reused for smaller elements, so make room for the smallest possible ones.
+                bitmap = new long[pageSize >>> 10]; // pageSize / 16 / 64
             }
 
             for (int i = 0; i < bitmapLength; i ++) {
@@ -72,11 +76,20 @@ final class PoolSubpage<T> {
             }
         }
 
-        addToPool();
+        addToPool(head);
+    }
+
+    private static int bitmapLength(int numElems) {
+        int bitmapLength = numElems >>> 6;
+        if ((numElems & 63) != 0) {
+            bitmapLength ++;
+        }
+        return bitmapLength;
     }
 
     /**
-     * Returns the bitmap index of the subpage allocation.
+     * Returns the bitmap index of the subpage allocation. Must be called while holding the lock of the pool head
+     * this subpage belongs to.
      */
     long allocate() {
         if (elemSize == 0) {
@@ -103,8 +116,9 @@ final class PoolSubpage<T> {
     /**
      * @return {@code true} if this subpage is in use.
      *         {@code false} if this subpage is not used by its chunk and thus it's OK to be released.
+     *         Must be called while holding the lock of {@code head}.
      */
-    boolean free(int bitmapIdx) {
+    boolean free(PoolSubpage<T> head, int bitmapIdx) {
 
         if (elemSize == 0) {
             return true;
@@ -118,7 +132,7 @@ final class PoolSubpage<T> {
         setNextAvail(bitmapIdx);
 
         if (numAvail ++ == 0) {
-            addToPool();
+            addToPool(head);
             return true;
         }
 
@@ -138,8 +152,7 @@ final class PoolSubpage<T> {
         }
     }
 
-    private void addToPool() {
-        PoolSubpage<T> head = chunk.arena.findSubpagePoolHead(elemSize);
+    private void addToPool(PoolSubpage<T> head) {
         assert prev == null && next == null;
         prev = head;
         next = head.next;
@@ -202,6 +215,7 @@ final class PoolSubpage<T> {
         return 0x4000000000000000L | (long) bitmapIdx << 32 | memoryMapIdx;
     }
 
+    @Override
     public String toString() {
         if (!doNotDestroy) {
             return "(" + memoryMapIdx + ": not in use)";
@@ -210,4 +224,24 @@ final class PoolSubpage<T> {
         return String.valueOf('(') + memoryMapIdx + ": " + (maxNumElems - numAvail) + '/' + maxNumElems +
                ", offset: " + runOffset + ", length: " + pageSize + ", elemSize: " + elemSize + ')';
     }
+
+    @Override
+    public int maxNumElements() {
+        return maxNumElems;
+    }
+
+    @Override
+    public int numAvailable() {
+        return numAvail;
+    }
+
+    @Override
+    public int elementSize() {
+        return elemSize;
+    }
+
+    @Override
+    public int pageSize() {
+        return pageSize;
+    }
 }
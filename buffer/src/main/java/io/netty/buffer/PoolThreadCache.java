@@ -17,11 +17,18 @@
 package io.netty.buffer;
 
 
+import io.netty.buffer.PoolArena.SizeClass;
+import io.netty.util.Recycler;
 import io.netty.util.ThreadDeathWatcher;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.RecyclableMpscLinkedQueueNode;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Acts a Thread cache for allocations. This implementation is moduled after
@@ -33,6 +40,9 @@ final class PoolThreadCache {
 
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(PoolThreadCache.class);
 
+    // Set in returnQueuePending once the cache was freed and so does not accept returned buffers anymore.
+    private static final int RETURN_QUEUE_CLOSED = Integer.MIN_VALUE;
+
     final PoolArena<byte[]> heapArena;
     final PoolArena<ByteBuffer> directArena;
 
@@ -44,12 +54,33 @@ final class PoolThreadCache {
     private final MemoryRegionCache<byte[]>[] normalHeapCaches;
     private final MemoryRegionCache<ByteBuffer>[] normalDirectCaches;
 
-    // Used for bitshifting when calculate the index of normal caches later
-    private final int numShiftsNormalDirect;
-    private final int numShiftsNormalHeap;
     private final int freeSweepAllocationThreshold;
 
+    // Buffers which were allocated by the thread that owns this cache but released by another thread are handed
+    // back via this queue. It is drained by the owning thread on its next allocation.
+    private final Queue<ReturnedEntry> returnQueue;
+    private final int returnQueueSize;
+    // Number of entries reserved in the returnQueue, or'ed with RETURN_QUEUE_CLOSED once the cache was freed.
+    private final AtomicInteger returnQueuePending = new AtomicInteger();
+
+    // The chunks normal sizes are allocated from first, see PoolArena.allocateNormal(...). Only modified while
+    // holding the lock of the arena.
+    private PoolChunk<byte[]> heapAllocChunk;
+    private PoolChunk<ByteBuffer> directAllocChunk;
+
     private int allocations;
+    // Set on every allocation and cleared by trimPeriodically() to detect threads which became idle.
+    private boolean allocatedSinceLastPeriodicTrim;
+
+    // Cache hits and misses are only counted by the owning thread and reported to the arenas when trimming
+    // or freeing the cache, so the hot path does not need to touch any shared state.
+    private long heapHits;
+    private long heapMisses;
+    private long directHits;
+    private long directMisses;
+
+    // The task that trims this cache periodically, if it was scheduled on the EventExecutor of the owning thread.
+    ScheduledFuture<?> trimFuture;
 
     private final Thread thread = Thread.currentThread();
     private final Runnable freeTask = new Runnable() {
@@ -64,7 +95,7 @@ final class PoolThreadCache {
 
     PoolThreadCache(PoolArena<byte[]> heapArena, PoolArena<ByteBuffer> directArena,
                     int tinyCacheSize, int smallCacheSize, int normalCacheSize,
-                    int maxCachedBufferCapacity, int freeSweepAllocationThreshold) {
+                    int maxCachedBufferCapacity, int freeSweepAllocationThreshold, int returnQueueSize) {
         if (maxCachedBufferCapacity < 0) {
             throw new IllegalArgumentException("maxCachedBufferCapacity: "
                     + maxCachedBufferCapacity + " (expected: >= 0)");
@@ -73,37 +104,53 @@ final class PoolThreadCache {
             throw new IllegalArgumentException("freeSweepAllocationThreshold: "
                     + maxCachedBufferCapacity + " (expected: > 0)");
         }
+        if (returnQueueSize < 0) {
+            throw new IllegalArgumentException("returnQueueSize: " + returnQueueSize + " (expected: >= 0)");
+        }
         this.freeSweepAllocationThreshold = freeSweepAllocationThreshold;
         this.heapArena = heapArena;
         this.directArena = directArena;
         if (directArena != null) {
-            tinySubPageDirectCaches = createSubPageCaches(tinyCacheSize, PoolArena.numTinySubpagePools);
-            smallSubPageDirectCaches = createSubPageCaches(smallCacheSize, directArena.numSmallSubpagePools);
+            tinySubPageDirectCaches = createSubPageCaches(
+                    tinyCacheSize, PoolArena.numTinySubpagePools, SizeClass.Tiny);
+            smallSubPageDirectCaches = createSubPageCaches(
+                    smallCacheSize, directArena.numSmallSubpagePools, SizeClass.Small);
 
-            numShiftsNormalDirect = log2(directArena.pageSize);
             normalDirectCaches = createNormalCaches(
                     normalCacheSize, maxCachedBufferCapacity, directArena);
+
+            directArena.numThreadCaches.incrementAndGet();
         } else {
             // No directArea is configured so just null out all caches
             tinySubPageDirectCaches = null;
             smallSubPageDirectCaches = null;
             normalDirectCaches = null;
-            numShiftsNormalDirect = -1;
         }
         if (heapArena != null) {
             // Create the caches for the heap allocations
-            tinySubPageHeapCaches = createSubPageCaches(tinyCacheSize, PoolArena.numTinySubpagePools);
-            smallSubPageHeapCaches = createSubPageCaches(smallCacheSize, heapArena.numSmallSubpagePools);
+            tinySubPageHeapCaches = createSubPageCaches(
+                    tinyCacheSize, PoolArena.numTinySubpagePools, SizeClass.Tiny);
+            smallSubPageHeapCaches = createSubPageCaches(
+                    smallCacheSize, heapArena.numSmallSubpagePools, SizeClass.Small);
 
-            numShiftsNormalHeap = log2(heapArena.pageSize);
             normalHeapCaches = createNormalCaches(
                     normalCacheSize, maxCachedBufferCapacity, heapArena);
+
+            heapArena.numThreadCaches.incrementAndGet();
         } else {
             // No heapArea is configured so just null out all caches
             tinySubPageHeapCaches = null;
             smallSubPageHeapCaches = null;
             normalHeapCaches = null;
-            numShiftsNormalHeap = -1;
+        }
+
+        // Only accept buffers released by other threads if there is a cache they can be put in.
+        if (returnQueueSize > 0 && (tinyCacheSize > 0 || smallCacheSize > 0 || normalCacheSize > 0)) {
+            this.returnQueueSize = returnQueueSize;
+            returnQueue = PlatformDependent.newMpscQueue();
+        } else {
+            this.returnQueueSize = 0;
+            returnQueue = null;
         }
 
         // The thread-local cache will keep a list of pooled buffers which must be returned to
@@ -111,13 +158,14 @@ final class PoolThreadCache {
         ThreadDeathWatcher.watch(thread, freeTask);
     }
 
-    private static <T> SubPageMemoryRegionCache<T>[] createSubPageCaches(int cacheSize, int numCaches) {
+    private static <T> SubPageMemoryRegionCache<T>[] createSubPageCaches(
+            int cacheSize, int numCaches, SizeClass sizeClass) {
         if (cacheSize > 0) {
             @SuppressWarnings("unchecked")
             SubPageMemoryRegionCache<T>[] cache = new SubPageMemoryRegionCache[numCaches];
             for (int i = 0; i < cache.length; i++) {
                 // TODO: maybe use cacheSize / cache.length
-                cache[i] = new SubPageMemoryRegionCache<T>(cacheSize);
+                cache[i] = new SubPageMemoryRegionCache<T>(cacheSize, sizeClass);
             }
             return cache;
         } else {
@@ -129,7 +177,12 @@ final class PoolThreadCache {
             int cacheSize, int maxCachedBufferCapacity, PoolArena<T> area) {
         if (cacheSize > 0) {
             int max = Math.min(area.chunkSize, maxCachedBufferCapacity);
-            int arraySize = Math.max(1, max / area.pageSize);
+            int arraySize = 1;
+            if (max > area.pageSize) {
+                // Cache all size classes up to the largest one that is not bigger than max.
+                int maxNormCapacity = area.normalizeCapacity(max);
+                arraySize = area.normalIdx(maxNormCapacity) + (maxNormCapacity == max ? 1 : 0);
+            }
 
             @SuppressWarnings("unchecked")
             NormalMemoryRegionCache<T>[] cache = new NormalMemoryRegionCache[arraySize];
@@ -142,43 +195,51 @@ final class PoolThreadCache {
         }
     }
 
-    private static int log2(int val) {
-        int res = 0;
-        while (val > 1) {
-            val >>= 1;
-            res++;
-        }
-        return res;
-    }
-
     /**
      * Try to allocate a tiny buffer out of the cache. Returns {@code true} if successful {@code false} otherwise
      */
     boolean allocateTiny(PoolArena<?> area, PooledByteBuf<?> buf, int reqCapacity, int normCapacity) {
-        return allocate(cacheForTiny(area, normCapacity), buf, reqCapacity);
+        return allocate(area, cacheForTiny(area, normCapacity), buf, reqCapacity);
     }
 
     /**
      * Try to allocate a small buffer out of the cache. Returns {@code true} if successful {@code false} otherwise
      */
     boolean allocateSmall(PoolArena<?> area, PooledByteBuf<?> buf, int reqCapacity, int normCapacity) {
-        return allocate(cacheForSmall(area, normCapacity), buf, reqCapacity);
+        return allocate(area, cacheForSmall(area, normCapacity), buf, reqCapacity);
     }
 
     /**
      * Try to allocate a small buffer out of the cache. Returns {@code true} if successful {@code false} otherwise
      */
     boolean allocateNormal(PoolArena<?> area, PooledByteBuf<?> buf, int reqCapacity, int normCapacity) {
-        return allocate(cacheForNormal(area, normCapacity), buf, reqCapacity);
+        return allocate(area, cacheForNormal(area, normCapacity), buf, reqCapacity);
     }
 
     @SuppressWarnings({ "unchecked", "rawtypes" })
-    private boolean allocate(MemoryRegionCache<?> cache, PooledByteBuf buf, int reqCapacity) {
+    private boolean allocate(PoolArena<?> area, MemoryRegionCache<?> cache, PooledByteBuf buf, int reqCapacity) {
+        if (returnQueuePending.get() > 0) {
+            drainReturnQueue();
+        }
+        allocatedSinceLastPeriodicTrim = true;
         if (cache == null) {
             // no cache found so just return false here
             return false;
         }
         boolean allocated = cache.allocate(buf, reqCapacity);
+        if (area.isDirect()) {
+            if (allocated) {
+                directHits ++;
+            } else {
+                directMisses ++;
+            }
+        } else {
+            if (allocated) {
+                heapHits ++;
+            } else {
+                heapMisses ++;
+            }
+        }
         if (++ allocations >= freeSweepAllocationThreshold) {
             allocations = 0;
             trim();
@@ -192,20 +253,114 @@ final class PoolThreadCache {
      */
     @SuppressWarnings({ "unchecked", "rawtypes" })
     boolean add(PoolArena<?> area, PoolChunk chunk, long handle, int normCapacity) {
-        MemoryRegionCache<?> cache;
+        MemoryRegionCache<?> cache = cache(area, normCapacity);
+        if (cache == null) {
+            return false;
+        }
+        return cache.add(chunk, handle);
+    }
+
+    private MemoryRegionCache<?> cache(PoolArena<?> area, int normCapacity) {
         if (area.isTinyOrSmall(normCapacity)) {
             if (PoolArena.isTiny(normCapacity)) {
-                cache = cacheForTiny(area, normCapacity);
-            } else {
-                cache = cacheForSmall(area, normCapacity);
+                return cacheForTiny(area, normCapacity);
             }
-        } else {
-            cache = cacheForNormal(area, normCapacity);
+            return cacheForSmall(area, normCapacity);
         }
-        if (cache == null) {
+        return cacheForNormal(area, normCapacity);
+    }
+
+    /**
+     * Returns {@code true} if the current thread is the thread that owns this cache.
+     */
+    boolean isOwnerThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Hand a {@link PoolChunk} and {@code handle} that were allocated via this cache but released by another thread
+     * back to the owning thread. Returns {@code true} if it was queued and {@code false} if the return queue is
+     * disabled or full, the cache can not hold buffers of this size or the cache was already freed.
+     */
+    boolean offerReturned(PoolChunk<?> chunk, long handle, int normCapacity) {
+        if (returnQueue == null || cache(chunk.arena, normCapacity) == null) {
+            // Sizes this cache can not hold would only be freed by the owning thread later, so the caller should
+            // free them to the arena directly.
             return false;
         }
-        return cache.add(chunk, handle);
+        for (;;) {
+            int pending = returnQueuePending.get();
+            if (pending < 0 || pending >= returnQueueSize) {
+                // closed or full
+                return false;
+            }
+            if (returnQueuePending.compareAndSet(pending, pending + 1)) {
+                break;
+            }
+        }
+        returnQueue.offer(ReturnedEntry.newInstance(chunk, handle, normCapacity));
+        if (returnQueuePending.get() < 0) {
+            // The cache was freed after the entry was reserved, so the owning thread may not receive it anymore.
+            drainClosedReturnQueue();
+        }
+        return true;
+    }
+
+    /**
+     * Move all buffers which were released by other threads into this cache or free them if they do not fit.
+     * Must only be called by the owning thread, or via {@link #drainClosedReturnQueue()} once the cache was freed,
+     * in which case all buffers are freed.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private int drainReturnQueue() {
+        boolean closed = returnQueuePending.get() < 0;
+        int drained = 0;
+        for (;;) {
+            ReturnedEntry entry = returnQueue.poll();
+            if (entry == null) {
+                break;
+            }
+            PoolChunk chunk = entry.chunk;
+            long handle = entry.handle;
+            int normCapacity = entry.normCapacity;
+            entry.chunk = null;
+
+            PoolArena arena = chunk.arena;
+            if (closed || !add(arena, chunk, handle, normCapacity)) {
+                arena.freeChunk(chunk, handle, arena.sizeClass(normCapacity));
+            }
+            drained ++;
+        }
+        if (drained > 0) {
+            returnQueuePending.addAndGet(-drained);
+        }
+        return drained;
+    }
+
+    private void closeReturnQueue() {
+        if (returnQueue == null) {
+            return;
+        }
+        for (;;) {
+            int pending = returnQueuePending.get();
+            if (pending < 0) {
+                // closed already
+                return;
+            }
+            if (returnQueuePending.compareAndSet(pending, pending | RETURN_QUEUE_CLOSED)) {
+                break;
+            }
+        }
+        // Threads which reserved an entry before the queue was closed but did not add it yet will see that the
+        // queue is closed once they added it and drain it themselves, so there is no need to wait for them.
+        drainClosedReturnQueue();
+    }
+
+    private void drainClosedReturnQueue() {
+        // Once closed the queue may be drained by any thread which added an entry, so serialize the consumers.
+        synchronized (returnQueue) {
+            drainReturnQueue();
+        }
     }
 
     /**
@@ -217,16 +372,34 @@ final class PoolThreadCache {
     }
 
     private void free0() {
-        int numFreed = free(tinySubPageDirectCaches) +
+        if (trimFuture != null) {
+            trimFuture.cancel(false);
+        }
+        closeReturnQueue();
+        releaseAllocChunks();
+
+        int numFreed = freeCaches();
+
+        reportStats();
+        if (directArena != null) {
+            directArena.numThreadCaches.decrementAndGet();
+        }
+        if (heapArena != null) {
+            heapArena.numThreadCaches.decrementAndGet();
+        }
+
+        if (numFreed > 0 && logger.isDebugEnabled()) {
+            logger.debug("Freed {} thread-local buffer(s) from thread: {}", numFreed, thread.getName());
+        }
+    }
+
+    private int freeCaches() {
+        return free(tinySubPageDirectCaches) +
                 free(smallSubPageDirectCaches) +
                 free(normalDirectCaches) +
                 free(tinySubPageHeapCaches) +
                 free(smallSubPageHeapCaches) +
                 free(normalHeapCaches);
-
-        if (numFreed > 0 && logger.isDebugEnabled()) {
-            logger.debug("Freed {} thread-local buffer(s) from thread: {}", numFreed, thread.getName());
-        }
     }
 
     private static int free(MemoryRegionCache<?>[] caches) {
@@ -248,7 +421,53 @@ final class PoolThreadCache {
         return cache.free();
     }
 
+    /**
+     * Trim the caches from a periodic task. If nothing was allocated since the last call the thread is considered
+     * idle and all cached buffers are released, otherwise only the ones which were not used as in {@link #trim()}.
+     * Must be called by the owning thread.
+     */
+    void trimPeriodically() {
+        if (returnQueuePending.get() > 0) {
+            drainReturnQueue();
+        }
+        if (allocatedSinceLastPeriodicTrim) {
+            allocatedSinceLastPeriodicTrim = false;
+            trim();
+        } else {
+            reportStats();
+            releaseAllocChunks();
+            int numFreed = freeCaches();
+            if (numFreed > 0 && logger.isDebugEnabled()) {
+                logger.debug("Freed {} thread-local buffer(s) from idle thread: {}", numFreed, thread.getName());
+            }
+        }
+    }
+
+    private void releaseAllocChunks() {
+        if (directArena != null) {
+            directArena.releaseAllocChunk(this);
+        }
+        if (heapArena != null) {
+            heapArena.releaseAllocChunk(this);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> PoolChunk<T> allocChunk(PoolArena<T> arena) {
+        return (PoolChunk<T>) (arena == directArena ? directAllocChunk : heapAllocChunk);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> void allocChunk(PoolArena<T> arena, PoolChunk<T> chunk) {
+        if (arena == directArena) {
+            directAllocChunk = (PoolChunk<ByteBuffer>) chunk;
+        } else {
+            heapAllocChunk = (PoolChunk<byte[]>) chunk;
+        }
+    }
+
     void trim() {
+        reportStats();
         trim(tinySubPageDirectCaches);
         trim(smallSubPageDirectCaches);
         trim(normalDirectCaches);
@@ -257,6 +476,16 @@ final class PoolThreadCache {
         trim(normalHeapCaches);
     }
 
+    private void reportStats() {
+        if (directArena != null) {
+            directArena.threadCacheStats(directHits, directMisses);
+        }
+        if (heapArena != null) {
+            heapArena.threadCacheStats(heapHits, heapMisses);
+        }
+        directHits = directMisses = heapHits = heapMisses = 0;
+    }
+
     private static void trim(MemoryRegionCache<?>[] caches) {
         if (caches == null) {
             return;
@@ -282,7 +511,7 @@ final class PoolThreadCache {
     }
 
     private MemoryRegionCache<?> cacheForSmall(PoolArena<?> area, int normCapacity) {
-        int idx = PoolArena.smallIdx(normCapacity);
+        int idx = area.smallIdx(normCapacity);
         if (area.isDirect()) {
             return cache(smallSubPageDirectCaches, idx);
         }
@@ -290,11 +519,10 @@ final class PoolThreadCache {
     }
 
     private MemoryRegionCache<?> cacheForNormal(PoolArena<?> area, int normCapacity) {
+        int idx = area.normalIdx(normCapacity);
         if (area.isDirect()) {
-            int idx = log2(normCapacity >> numShiftsNormalDirect);
             return cache(normalDirectCaches, idx);
         }
-        int idx = log2(normCapacity >> numShiftsNormalHeap);
         return cache(normalHeapCaches, idx);
     }
 
@@ -309,8 +537,8 @@ final class PoolThreadCache {
      * Cache used for buffers which are backed by TINY or SMALL size.
      */
     private static final class SubPageMemoryRegionCache<T> extends MemoryRegionCache<T> {
-        SubPageMemoryRegionCache(int size) {
-            super(size);
+        SubPageMemoryRegionCache(int size, SizeClass sizeClass) {
+            super(size, sizeClass);
         }
 
         @Override
@@ -325,7 +553,7 @@ final class PoolThreadCache {
      */
     private static final class NormalMemoryRegionCache<T> extends MemoryRegionCache<T> {
         NormalMemoryRegionCache(int size) {
-            super(size);
+            super(size, SizeClass.Normal);
         }
 
         @Override
@@ -341,18 +569,20 @@ final class PoolThreadCache {
     private abstract static class MemoryRegionCache<T> {
         private final Entry<T>[] entries;
         private final int maxUnusedCached;
+        private final SizeClass sizeClass;
         private int head;
         private int tail;
         private int maxEntriesInUse;
         private int entriesInUse;
 
         @SuppressWarnings("unchecked")
-        MemoryRegionCache(int size) {
+        MemoryRegionCache(int size, SizeClass sizeClass) {
             entries = new Entry[powerOfTwo(size)];
             for (int i = 0; i < entries.length; i++) {
                 entries[i] = new Entry<T>();
             }
             maxUnusedCached = size / 2;
+            this.sizeClass = sizeClass;
         }
 
         private static int powerOfTwo(int res) {
@@ -420,7 +650,7 @@ final class PoolThreadCache {
             entriesInUse = 0;
             maxEntriesInUse = 0;
             for (int i = head;; i = nextIdx(i)) {
-                if (freeEntry(entries[i])) {
+                if (freeEntry(entries[i], sizeClass)) {
                     numFreed++;
                 } else {
                     // all cleared
@@ -443,7 +673,7 @@ final class PoolThreadCache {
 
             int i = head;
             for (; free > 0; free--) {
-                if (!freeEntry(entries[i])) {
+                if (!freeEntry(entries[i], sizeClass)) {
                     // all freed
                     return;
                 }
@@ -452,15 +682,13 @@ final class PoolThreadCache {
         }
 
         @SuppressWarnings({ "unchecked", "rawtypes" })
-        private static boolean freeEntry(Entry entry) {
+        private static boolean freeEntry(Entry entry, SizeClass sizeClass) {
             PoolChunk chunk = entry.chunk;
             if (chunk == null) {
                 return false;
             }
-            // need to synchronize on the area from which it was allocated before.
-            synchronized (chunk.arena) {
-                chunk.parent.free(chunk, entry.handle);
-            }
+            // free via the arena from which it was allocated before.
+            chunk.arena.freeChunk(chunk, entry.handle, sizeClass);
             entry.chunk = null;
             return true;
         }
@@ -482,4 +710,37 @@ final class PoolThreadCache {
             long handle;
         }
     }
+
+    /**
+     * A {@link PoolChunk} and {@code handle} which was released by a thread other than the one that owns the cache.
+     */
+    private static final class ReturnedEntry extends RecyclableMpscLinkedQueueNode<ReturnedEntry> {
+        private static final Recycler<ReturnedEntry> RECYCLER = new Recycler<ReturnedEntry>() {
+            @Override
+            protected ReturnedEntry newObject(Handle<ReturnedEntry> handle) {
+                return new ReturnedEntry(handle);
+            }
+        };
+
+        static ReturnedEntry newInstance(PoolChunk<?> chunk, long handle, int normCapacity) {
+            ReturnedEntry entry = RECYCLER.get();
+            entry.chunk = chunk;
+            entry.handle = handle;
+            entry.normCapacity = normCapacity;
+            return entry;
+        }
+
+        PoolChunk<?> chunk;
+        long handle;
+        int normCapacity;
+
+        private ReturnedEntry(Recycler.Handle<ReturnedEntry> handle) {
+            super(handle);
+        }
+
+        @Override
+        public ReturnedEntry value() {
+            return this;
+        }
+    }
 }
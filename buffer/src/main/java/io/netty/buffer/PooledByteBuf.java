@@ -32,6 +32,8 @@ abstract class PooledByteBuf<T> extends AbstractReferenceCountedByteBuf {
     protected int offset;
     protected int length;
     int maxLength;
+    // The thread cache of the thread that allocated this buffer, set by the arena.
+    PoolThreadCache cache;
 
     private ByteBuffer tmpNioBuf;
 
@@ -142,7 +144,8 @@ abstract class PooledByteBuf<T> extends AbstractReferenceCountedByteBuf {
             final long handle = this.handle;
             this.handle = -1;
             memory = null;
-            chunk.arena.free(chunk, handle, maxLength);
+            chunk.arena.free(chunk, handle, maxLength, cache);
+            cache = null;
             recycle();
         }
     }
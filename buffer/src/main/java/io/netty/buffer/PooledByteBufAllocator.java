@@ -16,13 +16,22 @@
 
 package io.netty.buffer;
 
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.concurrent.ScheduledFuture;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.ThreadExecutorMap;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
+import java.io.File;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class PooledByteBufAllocator extends AbstractByteBufAllocator {
@@ -38,6 +47,14 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
     private static final int DEFAULT_NORMAL_CACHE_SIZE;
     private static final int DEFAULT_MAX_CACHED_BUFFER_CAPACITY;
     private static final int DEFAULT_CACHE_TRIM_INTERVAL;
+    private static final int DEFAULT_RETURN_QUEUE_SIZE;
+    private static final long DEFAULT_CACHE_TRIM_INTERVAL_MILLIS;
+    static final long DEFAULT_MAX_UNUSED_CHUNK_AGE_MILLIS;
+    private static final int DEFAULT_MAX_CACHED_HUGE_BYTES;
+    private static final boolean DEFAULT_POWER_OF_TWO_SIZE_CLASSES;
+    private static final File DEFAULT_MAPPED_CHUNK_DIRECTORY;
+    private static final boolean DEFAULT_PRE_FAULT_MAPPED_CHUNKS;
+    private static final boolean DEFAULT_NUMA_AWARE;
 
     private static final int MIN_PAGE_SIZE = 4096;
     private static final int MAX_CHUNK_SIZE = (int) (((long) Integer.MAX_VALUE + 1) / 2);
@@ -94,6 +111,40 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
         DEFAULT_CACHE_TRIM_INTERVAL = SystemPropertyUtil.getInt(
                 "io.netty.allocator.cacheTrimInterval", 8192);
 
+        // the maximum number of buffers released by other threads that are queued for the allocating thread
+        DEFAULT_RETURN_QUEUE_SIZE = Math.max(0, SystemPropertyUtil.getInt(
+                "io.netty.allocator.returnQueueSize", 1024));
+
+        // the interval at which the thread-local caches of event loop threads are trimmed, 0 disables it
+        DEFAULT_CACHE_TRIM_INTERVAL_MILLIS = SystemPropertyUtil.getLong(
+                "io.netty.allocator.cacheTrimIntervalMillis", 10000);
+
+        // the time after which a completely unused chunk is released when trimming, a negative value disables it
+        DEFAULT_MAX_UNUSED_CHUNK_AGE_MILLIS = SystemPropertyUtil.getLong(
+                "io.netty.allocator.maxUnusedChunkAgeMillis", 60000);
+
+        // the maximum number of bytes of released huge allocations that each arena keeps for reuse, 0 disables it.
+        // This is disabled by default as it keeps memory outside of the chunks around for every arena.
+        DEFAULT_MAX_CACHED_HUGE_BYTES = Math.max(0, SystemPropertyUtil.getInt(
+                "io.netty.allocator.maxCachedHugeBytes", 0));
+
+        // round small and normal capacities up to the next power of two instead of using finer grained size classes
+        DEFAULT_POWER_OF_TWO_SIZE_CLASSES = SystemPropertyUtil.getBoolean(
+                "io.netty.allocator.powerOfTwoSizeClasses", false);
+
+        // the directory in which the memory of direct chunks is mapped instead of using ByteBuffer.allocateDirect(),
+        // e.g. a tmpfs like /dev/shm or a hugetlbfs mount like /dev/hugepages
+        String mappedChunkDirectory = SystemPropertyUtil.get("io.netty.allocator.mappedChunkDirectory");
+        DEFAULT_MAPPED_CHUNK_DIRECTORY = mappedChunkDirectory == null || mappedChunkDirectory.isEmpty() ?
+                null : new File(mappedChunkDirectory);
+
+        // touch all pages of a mapped chunk when it is created so no page faults happen when it is used
+        DEFAULT_PRE_FAULT_MAPPED_CHUNKS = SystemPropertyUtil.getBoolean(
+                "io.netty.allocator.preFaultMappedChunks", false);
+
+        // group the arenas by NUMA node and let threads use the arenas of the node they run on
+        DEFAULT_NUMA_AWARE = SystemPropertyUtil.getBoolean("io.netty.allocator.numaAware", false);
+
         if (logger.isDebugEnabled()) {
             logger.debug("-Dio.netty.allocator.numHeapArenas: {}", DEFAULT_NUM_HEAP_ARENA);
             logger.debug("-Dio.netty.allocator.numDirectArenas: {}", DEFAULT_NUM_DIRECT_ARENA);
@@ -113,6 +164,14 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
             logger.debug("-Dio.netty.allocator.normalCacheSize: {}", DEFAULT_NORMAL_CACHE_SIZE);
             logger.debug("-Dio.netty.allocator.maxCachedBufferCapacity: {}", DEFAULT_MAX_CACHED_BUFFER_CAPACITY);
             logger.debug("-Dio.netty.allocator.cacheTrimInterval: {}", DEFAULT_CACHE_TRIM_INTERVAL);
+            logger.debug("-Dio.netty.allocator.returnQueueSize: {}", DEFAULT_RETURN_QUEUE_SIZE);
+            logger.debug("-Dio.netty.allocator.cacheTrimIntervalMillis: {}", DEFAULT_CACHE_TRIM_INTERVAL_MILLIS);
+            logger.debug("-Dio.netty.allocator.maxUnusedChunkAgeMillis: {}", DEFAULT_MAX_UNUSED_CHUNK_AGE_MILLIS);
+            logger.debug("-Dio.netty.allocator.maxCachedHugeBytes: {}", DEFAULT_MAX_CACHED_HUGE_BYTES);
+            logger.debug("-Dio.netty.allocator.powerOfTwoSizeClasses: {}", DEFAULT_POWER_OF_TWO_SIZE_CLASSES);
+            logger.debug("-Dio.netty.allocator.mappedChunkDirectory: {}", DEFAULT_MAPPED_CHUNK_DIRECTORY);
+            logger.debug("-Dio.netty.allocator.preFaultMappedChunks: {}", DEFAULT_PRE_FAULT_MAPPED_CHUNKS);
+            logger.debug("-Dio.netty.allocator.numaAware: {}", DEFAULT_NUMA_AWARE);
         }
     }
 
@@ -124,8 +183,19 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
     private final int tinyCacheSize;
     private final int smallCacheSize;
     private final int normalCacheSize;
+    private final int chunkSize;
+    private final List<PoolArenaMetric> heapArenaMetrics;
+    private final List<PoolArenaMetric> directArenaMetrics;
 
     final PoolThreadLocalCache threadCache;
+    private final PoolArenaChooser arenaChooser;
+
+    private final Runnable trimTask = new Runnable() {
+        @Override
+        public void run() {
+            trimCurrentThreadCache();
+        }
+    };
 
     public PooledByteBufAllocator() {
         this(false);
@@ -146,12 +216,26 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
 
     public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
                                   int tinyCacheSize, int smallCacheSize, int normalCacheSize) {
-        super(preferDirect);
+        this(builder().preferDirect(preferDirect).numHeapArenas(nHeapArena).numDirectArenas(nDirectArena)
+                .pageSize(pageSize).maxOrder(maxOrder)
+                .tinyCacheSize(tinyCacheSize).smallCacheSize(smallCacheSize).normalCacheSize(normalCacheSize));
+    }
+
+    private PooledByteBufAllocator(Builder builder) {
+        super(builder.preferDirect);
+        int nHeapArena = builder.nHeapArena;
+        int nDirectArena = builder.nDirectArena;
+        int pageSize = builder.pageSize;
+        int maxOrder = builder.maxOrder;
+        int maxCachedHugeBytes = builder.maxCachedHugeBytes;
+        boolean powerOfTwoSizeClasses = builder.powerOfTwoSizeClasses;
+        File mappedChunkDirectory = builder.mappedChunkDirectory;
+        arenaChooser = builder.arenaChooser;
         threadCache = new PoolThreadLocalCache();
-        this.tinyCacheSize = tinyCacheSize;
-        this.smallCacheSize = smallCacheSize;
-        this.normalCacheSize = normalCacheSize;
-        final int chunkSize = validateAndCalculateChunkSize(pageSize, maxOrder);
+        tinyCacheSize = builder.tinyCacheSize;
+        smallCacheSize = builder.smallCacheSize;
+        normalCacheSize = builder.normalCacheSize;
+        chunkSize = validateAndCalculateChunkSize(pageSize, maxOrder);
 
         if (nHeapArena < 0) {
             throw new IllegalArgumentException("nHeapArena: " + nHeapArena + " (expected: >= 0)");
@@ -159,28 +243,176 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
         if (nDirectArena < 0) {
             throw new IllegalArgumentException("nDirectArea: " + nDirectArena + " (expected: >= 0)");
         }
+        if (maxCachedHugeBytes < 0) {
+            throw new IllegalArgumentException("maxCachedHugeBytes: " + maxCachedHugeBytes + " (expected: >= 0)");
+        }
 
         int pageShifts = validateAndCalculatePageShifts(pageSize);
+        DirectChunkMapper chunkMapper = mappedChunkDirectory == null ?
+                null : new DirectChunkMapper(mappedChunkDirectory, DEFAULT_PRE_FAULT_MAPPED_CHUNKS);
 
         if (nHeapArena > 0) {
             heapArenas = newArenaArray(nHeapArena);
+            List<PoolArenaMetric> metrics = new ArrayList<PoolArenaMetric>(heapArenas.length);
             for (int i = 0; i < heapArenas.length; i ++) {
-                heapArenas[i] = new PoolArena.HeapArena(this, pageSize, maxOrder, pageShifts, chunkSize);
+                PoolArena.HeapArena arena = new PoolArena.HeapArena(
+                        this, pageSize, maxOrder, pageShifts, chunkSize, maxCachedHugeBytes, powerOfTwoSizeClasses);
+                heapArenas[i] = arena;
+                metrics.add(arena);
             }
+            heapArenaMetrics = Collections.unmodifiableList(metrics);
         } else {
             heapArenas = null;
+            heapArenaMetrics = Collections.emptyList();
         }
 
         if (nDirectArena > 0) {
             directArenas = newArenaArray(nDirectArena);
+            List<PoolArenaMetric> metrics = new ArrayList<PoolArenaMetric>(directArenas.length);
             for (int i = 0; i < directArenas.length; i ++) {
-                directArenas[i] = new PoolArena.DirectArena(this, pageSize, maxOrder, pageShifts, chunkSize);
+                PoolArena.DirectArena arena = new PoolArena.DirectArena(this, pageSize, maxOrder, pageShifts,
+                        chunkSize, maxCachedHugeBytes, powerOfTwoSizeClasses, chunkMapper);
+                directArenas[i] = arena;
+                metrics.add(arena);
             }
+            directArenaMetrics = Collections.unmodifiableList(metrics);
         } else {
             directArenas = null;
+            directArenaMetrics = Collections.emptyList();
         }
     }
 
+    /**
+     * Returns a new {@link Builder} which creates a {@link PooledByteBufAllocator} that uses the defaults of the
+     * {@code io.netty.allocator.*} system properties for everything that is not set explicitly.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder which creates a {@link PooledByteBufAllocator} with the less common options, so that no new
+     * constructor overload is needed for each of them.
+     */
+    public static final class Builder {
+
+        private boolean preferDirect;
+        private int nHeapArena = DEFAULT_NUM_HEAP_ARENA;
+        private int nDirectArena = DEFAULT_NUM_DIRECT_ARENA;
+        private int pageSize = DEFAULT_PAGE_SIZE;
+        private int maxOrder = DEFAULT_MAX_ORDER;
+        private int tinyCacheSize = DEFAULT_TINY_CACHE_SIZE;
+        private int smallCacheSize = DEFAULT_SMALL_CACHE_SIZE;
+        private int normalCacheSize = DEFAULT_NORMAL_CACHE_SIZE;
+        private int maxCachedHugeBytes = DEFAULT_MAX_CACHED_HUGE_BYTES;
+        private boolean powerOfTwoSizeClasses = DEFAULT_POWER_OF_TWO_SIZE_CLASSES;
+        private File mappedChunkDirectory = DEFAULT_MAPPED_CHUNK_DIRECTORY;
+        private PoolArenaChooser arenaChooser = DEFAULT_NUMA_AWARE ? new NumaPoolArenaChooser() : null;
+
+        Builder() { }
+
+        /**
+         * {@code true} if {@link PooledByteBufAllocator#buffer()} and friends should return direct buffers.
+         */
+        public Builder preferDirect(boolean preferDirect) {
+            this.preferDirect = preferDirect;
+            return this;
+        }
+
+        public Builder numHeapArenas(int nHeapArena) {
+            this.nHeapArena = nHeapArena;
+            return this;
+        }
+
+        public Builder numDirectArenas(int nDirectArena) {
+            this.nDirectArena = nDirectArena;
+            return this;
+        }
+
+        public Builder pageSize(int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        public Builder maxOrder(int maxOrder) {
+            this.maxOrder = maxOrder;
+            return this;
+        }
+
+        public Builder tinyCacheSize(int tinyCacheSize) {
+            this.tinyCacheSize = tinyCacheSize;
+            return this;
+        }
+
+        public Builder smallCacheSize(int smallCacheSize) {
+            this.smallCacheSize = smallCacheSize;
+            return this;
+        }
+
+        public Builder normalCacheSize(int normalCacheSize) {
+            this.normalCacheSize = normalCacheSize;
+            return this;
+        }
+
+        /**
+         * The maximum number of bytes of released huge allocations that each arena keeps for reuse, {@code 0}
+         * disables it.
+         */
+        public Builder maxCachedHugeBytes(int maxCachedHugeBytes) {
+            this.maxCachedHugeBytes = maxCachedHugeBytes;
+            return this;
+        }
+
+        /**
+         * {@code true} if small and normal capacities should be rounded up to the next power of two, {@code false}
+         * if finer grained size classes should be used which waste less memory.
+         */
+        public Builder powerOfTwoSizeClasses(boolean powerOfTwoSizeClasses) {
+            this.powerOfTwoSizeClasses = powerOfTwoSizeClasses;
+            return this;
+        }
+
+        /**
+         * The directory in which the memory of the chunks of the direct arenas is mapped, or {@code null} to use
+         * {@link ByteBuffer#allocateDirect(int)}. Use a {@code tmpfs} like {@code /dev/shm} for memory which is not
+         * backed by a file on disk or a {@code hugetlbfs} mount to back the memory with huge pages.
+         */
+        public Builder mappedChunkDirectory(File mappedChunkDirectory) {
+            this.mappedChunkDirectory = mappedChunkDirectory;
+            return this;
+        }
+
+        /**
+         * The {@link PoolArenaChooser} which chooses the arenas of a thread, or {@code null} to assign the arenas to
+         * the threads in a round-robin fashion.
+         */
+        public Builder arenaChooser(PoolArenaChooser arenaChooser) {
+            this.arenaChooser = arenaChooser;
+            return this;
+        }
+
+        public PooledByteBufAllocator build() {
+            return new PooledByteBufAllocator(this);
+        }
+    }
+
+    /**
+     * Returns the index of the arena with the fewest thread caches out of the arenas at {@code from},
+     * {@code from + step}, {@code from + 2 * step}, ...
+     */
+    static int leastUsedArena(List<PoolArenaMetric> arenas, int from, int step) {
+        int minIdx = from;
+        int minThreadCaches = Integer.MAX_VALUE;
+        for (int i = from; i < arenas.size(); i += step) {
+            int numThreadCaches = arenas.get(i).numThreadCaches();
+            if (numThreadCaches < minThreadCaches) {
+                minIdx = i;
+                minThreadCaches = numThreadCaches;
+            }
+        }
+        return minIdx;
+    }
+
     @SuppressWarnings("unchecked")
     private static <T> PoolArena<T>[] newArenaArray(int size) {
         return new PoolArena[size];
@@ -225,7 +457,9 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
         if (heapArena != null) {
             buf = heapArena.allocate(cache, initialCapacity, maxCapacity);
         } else {
-            buf = new UnpooledHeapByteBuf(this, initialCapacity, maxCapacity);
+            buf = PlatformDependent.hasUnsafe() ?
+                    new UnpooledUnsafeHeapByteBuf(this, initialCapacity, maxCapacity) :
+                    new UnpooledHeapByteBuf(this, initialCapacity, maxCapacity);
         }
 
         return toLeakAwareBuffer(buf);
@@ -241,7 +475,9 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
             buf = directArena.allocate(cache, initialCapacity, maxCapacity);
         } else {
             if (PlatformDependent.hasUnsafe()) {
-                buf = new UnpooledUnsafeDirectByteBuf(this, initialCapacity, maxCapacity);
+                buf = PlatformDependent.useDirectBufferNoCleaner() ?
+                        new UnpooledUnsafeNoCleanerDirectByteBuf(this, initialCapacity, maxCapacity) :
+                        new UnpooledUnsafeDirectByteBuf(this, initialCapacity, maxCapacity);
             } else {
                 buf = new UnpooledDirectByteBuf(this, initialCapacity, maxCapacity);
             }
@@ -255,6 +491,119 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
         return directArenas != null;
     }
 
+    /**
+     * Return the number of heap arenas.
+     */
+    public int numHeapArenas() {
+        return heapArenaMetrics.size();
+    }
+
+    /**
+     * Return the number of direct arenas.
+     */
+    public int numDirectArenas() {
+        return directArenaMetrics.size();
+    }
+
+    /**
+     * Return a {@link List} of all heap {@link PoolArenaMetric}s that are provided by this pool.
+     */
+    public List<PoolArenaMetric> heapArenas() {
+        return heapArenaMetrics;
+    }
+
+    /**
+     * Return a {@link List} of all direct {@link PoolArenaMetric}s that are provided by this pool.
+     */
+    public List<PoolArenaMetric> directArenas() {
+        return directArenaMetrics;
+    }
+
+    /**
+     * Return the number of thread local caches used by this {@link PooledByteBufAllocator}.
+     */
+    public int numThreadLocalCaches() {
+        PoolArena<?>[] arenas = heapArenas != null ? heapArenas : directArenas;
+        if (arenas == null) {
+            return 0;
+        }
+
+        int total = 0;
+        for (PoolArena<?> arena : arenas) {
+            total += arena.numThreadCaches();
+        }
+        return total;
+    }
+
+    /**
+     * Return the size of the tiny cache.
+     */
+    public int tinyCacheSize() {
+        return tinyCacheSize;
+    }
+
+    /**
+     * Return the size of the small cache.
+     */
+    public int smallCacheSize() {
+        return smallCacheSize;
+    }
+
+    /**
+     * Return the size of the normal cache.
+     */
+    public int normalCacheSize() {
+        return normalCacheSize;
+    }
+
+    /**
+     * Return the chunk size for an arena.
+     */
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Trim the thread-local cache of the current {@link Thread}, if it has one, so that cached buffers which were
+     * not used since the last trim are released to their arenas. If the {@link Thread} did not allocate at all since
+     * the last call, all of its cached buffers are released. Afterwards all chunks of these arenas which were
+     * completely unused for longer than {@code io.netty.allocator.maxUnusedChunkAgeMillis} are released.
+     * <p>
+     * This is done automatically for event loop threads every {@code io.netty.allocator.cacheTrimIntervalMillis},
+     * which defaults to 10 seconds.
+     *
+     * @return {@code true} if a cache for the current {@link Thread} exists and so was trimmed, {@code false}
+     *         otherwise.
+     */
+    public boolean trimCurrentThreadCache() {
+        if (!threadCache.isSet()) {
+            return false;
+        }
+        PoolThreadCache cache = threadCache.get();
+        cache.trimPeriodically();
+        if (DEFAULT_MAX_UNUSED_CHUNK_AGE_MILLIS >= 0) {
+            long maxUnusedNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_UNUSED_CHUNK_AGE_MILLIS);
+            if (cache.heapArena != null) {
+                cache.heapArena.destroyUnusedChunks(maxUnusedNanos);
+            }
+            if (cache.directArena != null) {
+                cache.directArena.destroyUnusedChunks(maxUnusedNanos);
+            }
+        }
+        return true;
+    }
+
+    private ScheduledFuture<?> scheduleTrimTask(EventExecutor executor) {
+        try {
+            return executor.scheduleAtFixedRate(trimTask, DEFAULT_CACHE_TRIM_INTERVAL_MILLIS,
+                    DEFAULT_CACHE_TRIM_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // The executor is shutting down, so there is no need to trim the cache of its thread anymore.
+            logger.debug("Failed to schedule the cache trim task on: {}", executor, e);
+            return null;
+        }
+    }
+
     final class PoolThreadLocalCache extends FastThreadLocal<PoolThreadCache> {
         private final AtomicInteger index = new AtomicInteger();
 
@@ -265,20 +614,34 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
             final PoolArena<ByteBuffer> directArena;
 
             if (heapArenas != null) {
-                heapArena = heapArenas[Math.abs(idx % heapArenas.length)];
+                int heapIdx = arenaChooser == null ? idx : arenaChooser.choose(heapArenaMetrics);
+                heapArena = heapArenas[Math.abs(heapIdx % heapArenas.length)];
             } else {
                 heapArena = null;
             }
 
             if (directArenas != null) {
-                directArena = directArenas[Math.abs(idx % directArenas.length)];
+                int directIdx = arenaChooser == null ? idx : arenaChooser.choose(directArenaMetrics);
+                directArena = directArenas[Math.abs(directIdx % directArenas.length)];
             } else {
                 directArena = null;
             }
 
-            return new PoolThreadCache(
+            PoolThreadCache cache = new PoolThreadCache(
                     heapArena, directArena, tinyCacheSize, smallCacheSize, normalCacheSize,
-                    DEFAULT_MAX_CACHED_BUFFER_CAPACITY, DEFAULT_CACHE_TRIM_INTERVAL);
+                    DEFAULT_MAX_CACHED_BUFFER_CAPACITY, DEFAULT_CACHE_TRIM_INTERVAL, DEFAULT_RETURN_QUEUE_SIZE);
+
+            if (DEFAULT_CACHE_TRIM_INTERVAL_MILLIS > 0) {
+                // Trim the caches periodically from the event loop, so a thread that became idle does not hold its
+                // cached memory forever. The task always trims the cache of the thread it is executed by, which
+                // makes it safe even if the EventExecutor is served by different threads over time.
+                // The task is cancelled once the cache is freed.
+                EventExecutor executor = ThreadExecutorMap.currentExecutor();
+                if (executor != null) {
+                    cache.trimFuture = scheduleTrimTask(executor);
+                }
+            }
+            return cache;
         }
 
         @Override
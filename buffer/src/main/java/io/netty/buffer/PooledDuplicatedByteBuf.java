@@ -0,0 +1,294 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.Recycler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+
+/**
+ * Recyclable variant of {@link DuplicatedByteBuf} which is returned by {@link ByteBuf#retainedDuplicate()}.
+ */
+final class PooledDuplicatedByteBuf extends AbstractPooledDerivedByteBuf<PooledDuplicatedByteBuf> {
+
+    private static final Recycler<PooledDuplicatedByteBuf> RECYCLER = new Recycler<PooledDuplicatedByteBuf>() {
+        @Override
+        protected PooledDuplicatedByteBuf newObject(Handle<PooledDuplicatedByteBuf> handle) {
+            return new PooledDuplicatedByteBuf(handle);
+        }
+    };
+
+    /**
+     * Returns a duplicate of {@code buffer} which retains {@code parent} until it is released.
+     */
+    static ByteBuf newInstance(ByteBuf buffer, ByteBuf parent) {
+        int readerIndex = buffer.readerIndex();
+        int writerIndex = buffer.writerIndex();
+        if (buffer instanceof PooledDuplicatedByteBuf) {
+            buffer = buffer.unwrap();
+        }
+
+        parent.retain();
+        PooledDuplicatedByteBuf duplicate = RECYCLER.get();
+        duplicate.init(buffer, parent, readerIndex, writerIndex, buffer.maxCapacity());
+        return duplicate;
+    }
+
+    private PooledDuplicatedByteBuf(Recycler.Handle<PooledDuplicatedByteBuf> recyclerHandle) {
+        super(recyclerHandle);
+    }
+
+    @Override
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public ByteBuf capacity(int newCapacity) {
+        ensureAccessible();
+        buffer.capacity(newCapacity);
+        return this;
+    }
+
+    @Override
+    public int arrayOffset() {
+        return buffer.arrayOffset();
+    }
+
+    @Override
+    public long memoryAddress() {
+        return buffer.memoryAddress();
+    }
+
+    @Override
+    protected byte _getByte(int index) {
+        return buffer.getByte(index);
+    }
+
+    @Override
+    protected short _getShort(int index) {
+        return buffer.getShort(index);
+    }
+
+    @Override
+    protected int _getUnsignedMedium(int index) {
+        return buffer.getUnsignedMedium(index);
+    }
+
+    @Override
+    protected int _getInt(int index) {
+        return buffer.getInt(index);
+    }
+
+    @Override
+    protected long _getLong(int index) {
+        return buffer.getLong(index);
+    }
+
+    @Override
+    public ByteBuf duplicate() {
+        ensureAccessible();
+        // Derive from the wrapped buffer and not from this one, as this instance is recycled once it was released.
+        return buffer.duplicate().setIndex(readerIndex(), writerIndex());
+    }
+
+    @Override
+    public ByteBuf copy(int index, int length) {
+        ensureAccessible();
+        return buffer.copy(index, length);
+    }
+
+    @Override
+    public ByteBuf slice(int index, int length) {
+        checkIndex(index, length);
+        if (length == 0) {
+            return Unpooled.EMPTY_BUFFER;
+        }
+        // Derive from the wrapped buffer and not from this one, as this instance is recycled once it was released.
+        return buffer.slice(index, length);
+    }
+
+    @Override
+    public ByteBuf getBytes(int index, ByteBuf dst, int dstIndex, int length) {
+        ensureAccessible();
+        buffer.getBytes(index, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf getBytes(int index, byte[] dst, int dstIndex, int length) {
+        ensureAccessible();
+        buffer.getBytes(index, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf getBytes(int index, ByteBuffer dst) {
+        ensureAccessible();
+        buffer.getBytes(index, dst);
+        return this;
+    }
+
+    @Override
+    protected void _setByte(int index, int value) {
+        buffer.setByte(index, value);
+    }
+
+    @Override
+    protected void _setShort(int index, int value) {
+        buffer.setShort(index, value);
+    }
+
+    @Override
+    protected void _setMedium(int index, int value) {
+        buffer.setMedium(index, value);
+    }
+
+    @Override
+    protected void _setInt(int index, int value) {
+        buffer.setInt(index, value);
+    }
+
+    @Override
+    protected void _setLong(int index, long value) {
+        buffer.setLong(index, value);
+    }
+
+    @Override
+    void _getShorts(int index, short[] dst, int dstIndex, int length) {
+        buffer.getShorts(index, dst, dstIndex, length);
+    }
+
+    @Override
+    void _setShorts(int index, short[] src, int srcIndex, int length) {
+        buffer.setShorts(index, src, srcIndex, length);
+    }
+
+    @Override
+    void _getInts(int index, int[] dst, int dstIndex, int length) {
+        buffer.getInts(index, dst, dstIndex, length);
+    }
+
+    @Override
+    void _setInts(int index, int[] src, int srcIndex, int length) {
+        buffer.setInts(index, src, srcIndex, length);
+    }
+
+    @Override
+    void _getLongs(int index, long[] dst, int dstIndex, int length) {
+        buffer.getLongs(index, dst, dstIndex, length);
+    }
+
+    @Override
+    void _setLongs(int index, long[] src, int srcIndex, int length) {
+        buffer.setLongs(index, src, srcIndex, length);
+    }
+
+    @Override
+    void _getFloats(int index, float[] dst, int dstIndex, int length) {
+        buffer.getFloats(index, dst, dstIndex, length);
+    }
+
+    @Override
+    void _setFloats(int index, float[] src, int srcIndex, int length) {
+        buffer.setFloats(index, src, srcIndex, length);
+    }
+
+    @Override
+    void _getDoubles(int index, double[] dst, int dstIndex, int length) {
+        buffer.getDoubles(index, dst, dstIndex, length);
+    }
+
+    @Override
+    void _setDoubles(int index, double[] src, int srcIndex, int length) {
+        buffer.setDoubles(index, src, srcIndex, length);
+    }
+
+    @Override
+    public ByteBuf setBytes(int index, byte[] src, int srcIndex, int length) {
+        ensureAccessible();
+        buffer.setBytes(index, src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setBytes(int index, ByteBuf src, int srcIndex, int length) {
+        ensureAccessible();
+        buffer.setBytes(index, src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setBytes(int index, ByteBuffer src) {
+        ensureAccessible();
+        buffer.setBytes(index, src);
+        return this;
+    }
+
+    @Override
+    public ByteBuf getBytes(int index, OutputStream out, int length) throws IOException {
+        ensureAccessible();
+        buffer.getBytes(index, out, length);
+        return this;
+    }
+
+    @Override
+    public int getBytes(int index, GatheringByteChannel out, int length) throws IOException {
+        ensureAccessible();
+        return buffer.getBytes(index, out, length);
+    }
+
+    @Override
+    public int setBytes(int index, InputStream in, int length) throws IOException {
+        ensureAccessible();
+        return buffer.setBytes(index, in, length);
+    }
+
+    @Override
+    public int setBytes(int index, ScatteringByteChannel in, int length) throws IOException {
+        ensureAccessible();
+        return buffer.setBytes(index, in, length);
+    }
+
+    @Override
+    public ByteBuffer nioBuffer(int index, int length) {
+        ensureAccessible();
+        return buffer.nioBuffer(index, length);
+    }
+
+    @Override
+    public ByteBuffer[] nioBuffers(int index, int length) {
+        ensureAccessible();
+        return buffer.nioBuffers(index, length);
+    }
+
+    @Override
+    public int forEachByte(int index, int length, ByteBufProcessor processor) {
+        ensureAccessible();
+        return buffer.forEachByte(index, length, processor);
+    }
+
+    @Override
+    public int forEachByteDesc(int index, int length, ByteBufProcessor processor) {
+        ensureAccessible();
+        return buffer.forEachByteDesc(index, length, processor);
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.Recycler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+
+/**
+ * Recyclable variant of {@link SlicedByteBuf} which is returned by {@link ByteBuf#retainedSlice(int, int)}.
+ */
+final class PooledSlicedByteBuf extends AbstractPooledDerivedByteBuf<PooledSlicedByteBuf> {
+
+    private static final Recycler<PooledSlicedByteBuf> RECYCLER = new Recycler<PooledSlicedByteBuf>() {
+        @Override
+        protected PooledSlicedByteBuf newObject(Handle<PooledSlicedByteBuf> handle) {
+            return new PooledSlicedByteBuf(handle);
+        }
+    };
+
+    /**
+     * Returns a slice of {@code buffer} which retains {@code parent} until it is released.
+     */
+    static ByteBuf newInstance(ByteBuf buffer, ByteBuf parent, int index, int length) {
+        if (index < 0 || length < 0 || index > buffer.capacity() - length) {
+            throw new IndexOutOfBoundsException(buffer + ".retainedSlice(" + index + ", " + length + ')');
+        }
+        if (length == 0) {
+            return Unpooled.EMPTY_BUFFER;
+        }
+        if (buffer instanceof PooledSlicedByteBuf) {
+            PooledSlicedByteBuf slice = (PooledSlicedByteBuf) buffer;
+            buffer = slice.buffer;
+            index += slice.adjustment;
+        } else if (buffer instanceof PooledDuplicatedByteBuf) {
+            buffer = buffer.unwrap();
+        }
+
+        parent.retain();
+        PooledSlicedByteBuf slice = RECYCLER.get();
+        slice.adjustment = index;
+        slice.length = length;
+        slice.init(buffer, parent, 0, length, length);
+        return slice;
+    }
+
+    private int adjustment;
+    private int length;
+
+    private PooledSlicedByteBuf(Recycler.Handle<PooledSlicedByteBuf> recyclerHandle) {
+        super(recyclerHandle);
+    }
+
+    @Override
+    public int capacity() {
+        return length;
+    }
+
+    @Override
+    public ByteBuf capacity(int newCapacity) {
+        throw new UnsupportedOperationException("sliced buffer");
+    }
+
+    @Override
+    public int arrayOffset() {
+        return buffer.arrayOffset() + adjustment;
+    }
+
+    @Override
+    public long memoryAddress() {
+        return buffer.memoryAddress() + adjustment;
+    }
+
+    @Override
+    protected byte _getByte(int index) {
+        return buffer.getByte(index + adjustment);
+    }
+
+    @Override
+    protected short _getShort(int index) {
+        return buffer.getShort(index + adjustment);
+    }
+
+    @Override
+    protected int _getUnsignedMedium(int index) {
+        return buffer.getUnsignedMedium(index + adjustment);
+    }
+
+    @Override
+    protected int _getInt(int index) {
+        return buffer.getInt(index + adjustment);
+    }
+
+    @Override
+    protected long _getLong(int index) {
+        return buffer.getLong(index + adjustment);
+    }
+
+    @Override
+    public ByteBuf duplicate() {
+        ensureAccessible();
+        // Derive from the wrapped buffer and not from this one, as this instance is recycled once it was released.
+        return buffer.slice(adjustment, length).setIndex(readerIndex(), writerIndex());
+    }
+
+    @Override
+    public ByteBuf copy(int index, int length) {
+        checkIndex(index, length);
+        return buffer.copy(index + adjustment, length);
+    }
+
+    @Override
+    public ByteBuf slice(int index, int length) {
+        checkIndex(index, length);
+        if (length == 0) {
+            return Unpooled.EMPTY_BUFFER;
+        }
+        // Derive from the wrapped buffer and not from this one, as this instance is recycled once it was released.
+        return buffer.slice(index + adjustment, length);
+    }
+
+    @Override
+    public ByteBuf getBytes(int index, ByteBuf dst, int dstIndex, int length) {
+        checkIndex(index, length);
+        buffer.getBytes(index + adjustment, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf getBytes(int index, byte[] dst, int dstIndex, int length) {
+        checkIndex(index, length);
+        buffer.getBytes(index + adjustment, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf getBytes(int index, ByteBuffer dst) {
+        checkIndex(index, dst.remaining());
+        buffer.getBytes(index + adjustment, dst);
+        return this;
+    }
+
+    @Override
+    protected void _setByte(int index, int value) {
+        buffer.setByte(index + adjustment, value);
+    }
+
+    @Override
+    protected void _setShort(int index, int value) {
+        buffer.setShort(index + adjustment, value);
+    }
+
+    @Override
+    protected void _setMedium(int index, int value) {
+        buffer.setMedium(index + adjustment, value);
+    }
+
+    @Override
+    protected void _setInt(int index, int value) {
+        buffer.setInt(index + adjustment, value);
+    }
+
+    @Override
+    protected void _setLong(int index, long value) {
+        buffer.setLong(index + adjustment, value);
+    }
+
+    @Override
+    void _getShorts(int index, short[] dst, int dstIndex, int length) {
+        buffer.getShorts(index + adjustment, dst, dstIndex, length);
+    }
+
+    @Override
+    void _setShorts(int index, short[] src, int srcIndex, int length) {
+        buffer.setShorts(index + adjustment, src, srcIndex, length);
+    }
+
+    @Override
+    void _getInts(int index, int[] dst, int dstIndex, int length) {
+        buffer.getInts(index + adjustment, dst, dstIndex, length);
+    }
+
+    @Override
+    void _setInts(int index, int[] src, int srcIndex, int length) {
+        buffer.setInts(index + adjustment, src, srcIndex, length);
+    }
+
+    @Override
+    void _getLongs(int index, long[] dst, int dstIndex, int length) {
+        buffer.getLongs(index + adjustment, dst, dstIndex, length);
+    }
+
+    @Override
+    void _setLongs(int index, long[] src, int srcIndex, int length) {
+        buffer.setLongs(index + adjustment, src, srcIndex, length);
+    }
+
+    @Override
+    void _getFloats(int index, float[] dst, int dstIndex, int length) {
+        buffer.getFloats(index + adjustment, dst, dstIndex, length);
+    }
+
+    @Override
+    void _setFloats(int index, float[] src, int srcIndex, int length) {
+        buffer.setFloats(index + adjustment, src, srcIndex, length);
+    }
+
+    @Override
+    void _getDoubles(int index, double[] dst, int dstIndex, int length) {
+        buffer.getDoubles(index + adjustment, dst, dstIndex, length);
+    }
+
+    @Override
+    void _setDoubles(int index, double[] src, int srcIndex, int length) {
+        buffer.setDoubles(index + adjustment, src, srcIndex, length);
+    }
+
+    @Override
+    public ByteBuf setBytes(int index, byte[] src, int srcIndex, int length) {
+        checkIndex(index, length);
+        buffer.setBytes(index + adjustment, src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setBytes(int index, ByteBuf src, int srcIndex, int length) {
+        checkIndex(index, length);
+        buffer.setBytes(index + adjustment, src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setBytes(int index, ByteBuffer src) {
+        checkIndex(index, src.remaining());
+        buffer.setBytes(index + adjustment, src);
+        return this;
+    }
+
+    @Override
+    public ByteBuf getBytes(int index, OutputStream out, int length) throws IOException {
+        checkIndex(index, length);
+        buffer.getBytes(index + adjustment, out, length);
+        return this;
+    }
+
+    @Override
+    public int getBytes(int index, GatheringByteChannel out, int length) throws IOException {
+        checkIndex(index, length);
+        return buffer.getBytes(index + adjustment, out, length);
+    }
+
+    @Override
+    public int setBytes(int index, InputStream in, int length) throws IOException {
+        checkIndex(index, length);
+        return buffer.setBytes(index + adjustment, in, length);
+    }
+
+    @Override
+    public int setBytes(int index, ScatteringByteChannel in, int length) throws IOException {
+        checkIndex(index, length);
+        return buffer.setBytes(index + adjustment, in, length);
+    }
+
+    @Override
+    public ByteBuffer nioBuffer(int index, int length) {
+        checkIndex(index, length);
+        return buffer.nioBuffer(index + adjustment, length);
+    }
+
+    @Override
+    public ByteBuffer[] nioBuffers(int index, int length) {
+        checkIndex(index, length);
+        return buffer.nioBuffers(index + adjustment, length);
+    }
+
+    @Override
+    public int forEachByte(int index, int length, ByteBufProcessor processor) {
+        checkIndex(index, length);
+        int ret = buffer.forEachByte(index + adjustment, length, processor);
+        if (ret >= adjustment) {
+            return ret - adjustment;
+        } else {
+            return -1;
+        }
+    }
+
+    @Override
+    public int forEachByteDesc(int index, int length, ByteBufProcessor processor) {
+        checkIndex(index, length);
+        int ret = buffer.forEachByteDesc(index + adjustment, length, processor);
+        if (ret >= adjustment) {
+            return ret - adjustment;
+        } else {
+            return -1;
+        }
+    }
+}
@@ -245,6 +245,56 @@ final class PooledUnsafeDirectByteBuf extends PooledByteBuf<ByteBuffer> {
         PlatformDependent.putLong(addr(index), NATIVE_ORDER ? value : Long.reverseBytes(value));
     }
 
+    @Override
+    void _getShorts(int index, short[] dst, int dstIndex, int length) {
+        UnsafeByteBufUtil.getShorts(addr(index), dst, dstIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _setShorts(int index, short[] src, int srcIndex, int length) {
+        UnsafeByteBufUtil.setShorts(addr(index), src, srcIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _getInts(int index, int[] dst, int dstIndex, int length) {
+        UnsafeByteBufUtil.getInts(addr(index), dst, dstIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _setInts(int index, int[] src, int srcIndex, int length) {
+        UnsafeByteBufUtil.setInts(addr(index), src, srcIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _getLongs(int index, long[] dst, int dstIndex, int length) {
+        UnsafeByteBufUtil.getLongs(addr(index), dst, dstIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _setLongs(int index, long[] src, int srcIndex, int length) {
+        UnsafeByteBufUtil.setLongs(addr(index), src, srcIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _getFloats(int index, float[] dst, int dstIndex, int length) {
+        UnsafeByteBufUtil.getFloats(addr(index), dst, dstIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _setFloats(int index, float[] src, int srcIndex, int length) {
+        UnsafeByteBufUtil.setFloats(addr(index), src, srcIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _getDoubles(int index, double[] dst, int dstIndex, int length) {
+        UnsafeByteBufUtil.getDoubles(addr(index), dst, dstIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _setDoubles(int index, double[] src, int srcIndex, int length) {
+        UnsafeByteBufUtil.setDoubles(addr(index), src, srcIndex, length, NATIVE_ORDER);
+    }
+
     @Override
     public ByteBuf setBytes(int index, ByteBuf src, int srcIndex, int length) {
         checkIndex(index, length);
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.Recycler;
+import io.netty.util.internal.PlatformDependent;
+
+import java.nio.ByteOrder;
+
+/**
+ * {@link PooledHeapByteBuf} which accesses multi-byte values via {@link sun.misc.Unsafe} instead of assembling them
+ * one byte at a time.
+ */
+final class PooledUnsafeHeapByteBuf extends PooledHeapByteBuf {
+
+    private static final boolean NATIVE_ORDER = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+
+    private static final Recycler<PooledUnsafeHeapByteBuf> RECYCLER = new Recycler<PooledUnsafeHeapByteBuf>() {
+        @Override
+        protected PooledUnsafeHeapByteBuf newObject(Handle<PooledUnsafeHeapByteBuf> handle) {
+            return new PooledUnsafeHeapByteBuf(handle, 0);
+        }
+    };
+
+    static PooledUnsafeHeapByteBuf newUnsafeInstance(int maxCapacity) {
+        PooledUnsafeHeapByteBuf buf = RECYCLER.get();
+        buf.setRefCnt(1);
+        buf.maxCapacity(maxCapacity);
+        return buf;
+    }
+
+    private PooledUnsafeHeapByteBuf(Recycler.Handle<PooledUnsafeHeapByteBuf> recyclerHandle, int maxCapacity) {
+        super(recyclerHandle, maxCapacity);
+    }
+
+    @Override
+    protected byte _getByte(int index) {
+        return PlatformDependent.getByte(memory, idx(index));
+    }
+
+    @Override
+    protected short _getShort(int index) {
+        short v = PlatformDependent.getShort(memory, idx(index));
+        return NATIVE_ORDER ? v : Short.reverseBytes(v);
+    }
+
+    @Override
+    protected int _getUnsignedMedium(int index) {
+        index = idx(index);
+        return (PlatformDependent.getByte(memory, index) & 0xff) << 16 |
+               (PlatformDependent.getByte(memory, index + 1) & 0xff) << 8 |
+                PlatformDependent.getByte(memory, index + 2) & 0xff;
+    }
+
+    @Override
+    protected int _getInt(int index) {
+        int v = PlatformDependent.getInt(memory, idx(index));
+        return NATIVE_ORDER ? v : Integer.reverseBytes(v);
+    }
+
+    @Override
+    protected long _getLong(int index) {
+        long v = PlatformDependent.getLong(memory, idx(index));
+        return NATIVE_ORDER ? v : Long.reverseBytes(v);
+    }
+
+    @Override
+    protected void _setByte(int index, int value) {
+        PlatformDependent.putByte(memory, idx(index), (byte) value);
+    }
+
+    @Override
+    protected void _setShort(int index, int value) {
+        PlatformDependent.putShort(memory, idx(index),
+                NATIVE_ORDER ? (short) value : Short.reverseBytes((short) value));
+    }
+
+    @Override
+    protected void _setMedium(int index, int value) {
+        index = idx(index);
+        PlatformDependent.putByte(memory, index, (byte) (value >>> 16));
+        PlatformDependent.putByte(memory, index + 1, (byte) (value >>> 8));
+        PlatformDependent.putByte(memory, index + 2, (byte) value);
+    }
+
+    @Override
+    protected void _setInt(int index, int value) {
+        PlatformDependent.putInt(memory, idx(index), NATIVE_ORDER ? value : Integer.reverseBytes(value));
+    }
+
+    @Override
+    protected void _setLong(int index, long value) {
+        PlatformDependent.putLong(memory, idx(index), NATIVE_ORDER ? value : Long.reverseBytes(value));
+    }
+}
@@ -26,7 +26,7 @@ import java.nio.ByteOrder;
 /**
  * Read-only ByteBuf which wraps a read-only direct ByteBuffer and use unsafe for best performance.
  */
-final class ReadOnlyUnsafeDirectByteBuf extends ReadOnlyByteBufferBuf {
+class ReadOnlyUnsafeDirectByteBuf extends ReadOnlyByteBufferBuf {
     private static final boolean NATIVE_ORDER = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
     private final long memoryAddress;
 
@@ -66,6 +66,31 @@ final class ReadOnlyUnsafeDirectByteBuf extends ReadOnlyByteBufferBuf {
         return NATIVE_ORDER? v : Long.reverseBytes(v);
     }
 
+    @Override
+    void _getShorts(int index, short[] dst, int dstIndex, int length) {
+        UnsafeByteBufUtil.getShorts(addr(index), dst, dstIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _getInts(int index, int[] dst, int dstIndex, int length) {
+        UnsafeByteBufUtil.getInts(addr(index), dst, dstIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _getLongs(int index, long[] dst, int dstIndex, int length) {
+        UnsafeByteBufUtil.getLongs(addr(index), dst, dstIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _getFloats(int index, float[] dst, int dstIndex, int length) {
+        UnsafeByteBufUtil.getFloats(addr(index), dst, dstIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _getDoubles(int index, double[] dst, int dstIndex, int length) {
+        UnsafeByteBufUtil.getDoubles(addr(index), dst, dstIndex, length, NATIVE_ORDER);
+    }
+
     @Override
     public ByteBuf getBytes(int index, ByteBuf dst, int dstIndex, int length) {
         checkIndex(index, length);
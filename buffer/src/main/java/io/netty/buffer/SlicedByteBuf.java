@@ -205,6 +205,56 @@ public class SlicedByteBuf extends AbstractDerivedByteBuf {
         buffer.setLong(index + adjustment, value);
     }
 
+    @Override
+    void _getShorts(int index, short[] dst, int dstIndex, int length) {
+        buffer.getShorts(index + adjustment, dst, dstIndex, length);
+    }
+
+    @Override
+    void _setShorts(int index, short[] src, int srcIndex, int length) {
+        buffer.setShorts(index + adjustment, src, srcIndex, length);
+    }
+
+    @Override
+    void _getInts(int index, int[] dst, int dstIndex, int length) {
+        buffer.getInts(index + adjustment, dst, dstIndex, length);
+    }
+
+    @Override
+    void _setInts(int index, int[] src, int srcIndex, int length) {
+        buffer.setInts(index + adjustment, src, srcIndex, length);
+    }
+
+    @Override
+    void _getLongs(int index, long[] dst, int dstIndex, int length) {
+        buffer.getLongs(index + adjustment, dst, dstIndex, length);
+    }
+
+    @Override
+    void _setLongs(int index, long[] src, int srcIndex, int length) {
+        buffer.setLongs(index + adjustment, src, srcIndex, length);
+    }
+
+    @Override
+    void _getFloats(int index, float[] dst, int dstIndex, int length) {
+        buffer.getFloats(index + adjustment, dst, dstIndex, length);
+    }
+
+    @Override
+    void _setFloats(int index, float[] src, int srcIndex, int length) {
+        buffer.setFloats(index + adjustment, src, srcIndex, length);
+    }
+
+    @Override
+    void _getDoubles(int index, double[] dst, int dstIndex, int length) {
+        buffer.getDoubles(index + adjustment, dst, dstIndex, length);
+    }
+
+    @Override
+    void _setDoubles(int index, double[] src, int srcIndex, int length) {
+        buffer.setDoubles(index + adjustment, src, srcIndex, length);
+    }
+
     @Override
     public ByteBuf setBytes(int index, byte[] src, int srcIndex, int length) {
         checkIndex(index, length);
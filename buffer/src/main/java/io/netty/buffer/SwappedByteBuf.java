@@ -500,6 +500,11 @@ public class SwappedByteBuf extends ByteBuf {
         return buf.readSlice(length).order(order);
     }
 
+    @Override
+    public ByteBuf readRetainedSlice(int length) {
+        return buf.readRetainedSlice(length).order(order);
+    }
+
     @Override
     public ByteBuf readBytes(ByteBuf dst) {
         buf.readBytes(dst);
@@ -659,11 +664,229 @@ public class SwappedByteBuf extends ByteBuf {
         return this;
     }
 
+    // The getters of the integral types transfer in bulk and then swap the destination array in place. The setters
+    // and the floating point getters go element by element instead: swapping the caller's source array would
+    // expose it to other threads, and a swapped bit pattern is not guaranteed to survive the round trip through a
+    // float or double. The whole range is checked up front so that a failing call never transfers partially.
+
+    @Override
+    public ByteBuf getShorts(int index, short[] dst, int dstIndex, int length) {
+        buf.getShorts(index, dst, dstIndex, length);
+        for (int i = dstIndex, end = dstIndex + length; i < end; i ++) {
+            dst[i] = Short.reverseBytes(dst[i]);
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf setShorts(int index, short[] src, int srcIndex, int length) {
+        checkIndex(index, length, 2);
+        AbstractByteBuf.checkArrayIndex(srcIndex, length, src.length);
+        for (int i = srcIndex, end = srcIndex + length; i < end; i ++, index += 2) {
+            buf.setShort(index, Short.reverseBytes(src[i]));
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf readShorts(short[] dst, int dstIndex, int length) {
+        int bytes = AbstractByteBuf.checkArrayLength(length, 2);
+        checkReadableBytes(bytes);
+        getShorts(buf.readerIndex(), dst, dstIndex, length);
+        buf.skipBytes(bytes);
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeShorts(short[] src, int srcIndex, int length) {
+        int bytes = AbstractByteBuf.checkArrayLength(length, 2);
+        buf.ensureWritable(bytes);
+        int writerIndex = buf.writerIndex();
+        setShorts(writerIndex, src, srcIndex, length);
+        buf.writerIndex(writerIndex + bytes);
+        return this;
+    }
+
+    @Override
+    public ByteBuf getInts(int index, int[] dst, int dstIndex, int length) {
+        buf.getInts(index, dst, dstIndex, length);
+        for (int i = dstIndex, end = dstIndex + length; i < end; i ++) {
+            dst[i] = Integer.reverseBytes(dst[i]);
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf setInts(int index, int[] src, int srcIndex, int length) {
+        checkIndex(index, length, 4);
+        AbstractByteBuf.checkArrayIndex(srcIndex, length, src.length);
+        for (int i = srcIndex, end = srcIndex + length; i < end; i ++, index += 4) {
+            buf.setInt(index, Integer.reverseBytes(src[i]));
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf readInts(int[] dst, int dstIndex, int length) {
+        int bytes = AbstractByteBuf.checkArrayLength(length, 4);
+        checkReadableBytes(bytes);
+        getInts(buf.readerIndex(), dst, dstIndex, length);
+        buf.skipBytes(bytes);
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeInts(int[] src, int srcIndex, int length) {
+        int bytes = AbstractByteBuf.checkArrayLength(length, 4);
+        buf.ensureWritable(bytes);
+        int writerIndex = buf.writerIndex();
+        setInts(writerIndex, src, srcIndex, length);
+        buf.writerIndex(writerIndex + bytes);
+        return this;
+    }
+
+    @Override
+    public ByteBuf getLongs(int index, long[] dst, int dstIndex, int length) {
+        buf.getLongs(index, dst, dstIndex, length);
+        for (int i = dstIndex, end = dstIndex + length; i < end; i ++) {
+            dst[i] = Long.reverseBytes(dst[i]);
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf setLongs(int index, long[] src, int srcIndex, int length) {
+        checkIndex(index, length, 8);
+        AbstractByteBuf.checkArrayIndex(srcIndex, length, src.length);
+        for (int i = srcIndex, end = srcIndex + length; i < end; i ++, index += 8) {
+            buf.setLong(index, Long.reverseBytes(src[i]));
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf readLongs(long[] dst, int dstIndex, int length) {
+        int bytes = AbstractByteBuf.checkArrayLength(length, 8);
+        checkReadableBytes(bytes);
+        getLongs(buf.readerIndex(), dst, dstIndex, length);
+        buf.skipBytes(bytes);
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeLongs(long[] src, int srcIndex, int length) {
+        int bytes = AbstractByteBuf.checkArrayLength(length, 8);
+        buf.ensureWritable(bytes);
+        int writerIndex = buf.writerIndex();
+        setLongs(writerIndex, src, srcIndex, length);
+        buf.writerIndex(writerIndex + bytes);
+        return this;
+    }
+
+    @Override
+    public ByteBuf getFloats(int index, float[] dst, int dstIndex, int length) {
+        checkIndex(index, length, 4);
+        AbstractByteBuf.checkArrayIndex(dstIndex, length, dst.length);
+        for (int i = dstIndex, end = dstIndex + length; i < end; i ++, index += 4) {
+            dst[i] = getFloat(index);
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf setFloats(int index, float[] src, int srcIndex, int length) {
+        checkIndex(index, length, 4);
+        AbstractByteBuf.checkArrayIndex(srcIndex, length, src.length);
+        for (int i = srcIndex, end = srcIndex + length; i < end; i ++, index += 4) {
+            setFloat(index, src[i]);
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf readFloats(float[] dst, int dstIndex, int length) {
+        int bytes = AbstractByteBuf.checkArrayLength(length, 4);
+        checkReadableBytes(bytes);
+        getFloats(buf.readerIndex(), dst, dstIndex, length);
+        buf.skipBytes(bytes);
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeFloats(float[] src, int srcIndex, int length) {
+        int bytes = AbstractByteBuf.checkArrayLength(length, 4);
+        buf.ensureWritable(bytes);
+        int writerIndex = buf.writerIndex();
+        setFloats(writerIndex, src, srcIndex, length);
+        buf.writerIndex(writerIndex + bytes);
+        return this;
+    }
+
+    @Override
+    public ByteBuf getDoubles(int index, double[] dst, int dstIndex, int length) {
+        checkIndex(index, length, 8);
+        AbstractByteBuf.checkArrayIndex(dstIndex, length, dst.length);
+        for (int i = dstIndex, end = dstIndex + length; i < end; i ++, index += 8) {
+            dst[i] = getDouble(index);
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf setDoubles(int index, double[] src, int srcIndex, int length) {
+        checkIndex(index, length, 8);
+        AbstractByteBuf.checkArrayIndex(srcIndex, length, src.length);
+        for (int i = srcIndex, end = srcIndex + length; i < end; i ++, index += 8) {
+            setDouble(index, src[i]);
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf readDoubles(double[] dst, int dstIndex, int length) {
+        int bytes = AbstractByteBuf.checkArrayLength(length, 8);
+        checkReadableBytes(bytes);
+        getDoubles(buf.readerIndex(), dst, dstIndex, length);
+        buf.skipBytes(bytes);
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeDoubles(double[] src, int srcIndex, int length) {
+        int bytes = AbstractByteBuf.checkArrayLength(length, 8);
+        buf.ensureWritable(bytes);
+        int writerIndex = buf.writerIndex();
+        setDoubles(writerIndex, src, srcIndex, length);
+        buf.writerIndex(writerIndex + bytes);
+        return this;
+    }
+
+    private void checkIndex(int index, int length, int elementSize) {
+        int bytes = AbstractByteBuf.checkArrayLength(length, elementSize);
+        if (index < 0 || index > buf.capacity() - bytes) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "index: %d, length: %d (expected: range(0, %d))", index, bytes, buf.capacity()));
+        }
+    }
+
+    private void checkReadableBytes(int minimumReadableBytes) {
+        if (minimumReadableBytes > buf.readableBytes()) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "readerIndex(%d) + length(%d) exceeds writerIndex(%d): %s",
+                    buf.readerIndex(), minimumReadableBytes, buf.writerIndex(), this));
+        }
+    }
+
     @Override
     public int indexOf(int fromIndex, int toIndex, byte value) {
         return buf.indexOf(fromIndex, toIndex, value);
     }
 
+    @Override
+    public int indexOfAny(int fromIndex, int toIndex, byte... values) {
+        return buf.indexOfAny(fromIndex, toIndex, values);
+    }
+
     @Override
     public int bytesBefore(byte value) {
         return buf.bytesBefore(value);
@@ -724,6 +947,21 @@ public class SwappedByteBuf extends ByteBuf {
         return buf.duplicate().order(order);
     }
 
+    @Override
+    public ByteBuf retainedSlice() {
+        return buf.retainedSlice().order(order);
+    }
+
+    @Override
+    public ByteBuf retainedSlice(int index, int length) {
+        return buf.retainedSlice(index, length).order(order);
+    }
+
+    @Override
+    public ByteBuf retainedDuplicate() {
+        return buf.retainedDuplicate().order(order);
+    }
+
     @Override
     public int nioBufferCount() {
         return buf.nioBufferCount();
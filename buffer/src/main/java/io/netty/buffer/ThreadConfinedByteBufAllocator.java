@@ -0,0 +1,198 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+/**
+ * A {@link ByteBufAllocator} which confines the reference count of every buffer it allocates to the allocating
+ * thread. {@link ByteBuf#retain()} and {@link ByteBuf#release()} of such a buffer use plain stores instead of a
+ * CAS, so it must only be retained and released by the thread which allocated it, which is usually the
+ * {@code EventLoop} of a {@code Channel}. Use it as the allocator of a {@code Channel} whose buffers never leave
+ * its {@code EventLoop}.
+ * <p>
+ * The wrapped allocator must return buffers which extend {@link AbstractReferenceCountedByteBuf}, possibly wrapped
+ * by a leak-aware buffer, otherwise an {@link IllegalArgumentException} is thrown by the allocation.
+ * <p>
+ * Buffers which are derived via {@link ByteBuf#retainedSlice()} or {@link ByteBuf#retainedDuplicate()} are confined
+ * to the same thread. Once a buffer is deallocated it is not confined anymore.
+ * <p>
+ * Set the system property {@code io.netty.buffer.checkThreadConfinement} to {@code true} while debugging to make
+ * {@link ByteBuf#retain()} and {@link ByteBuf#release()} throw an {@link IllegalStateException} when they are
+ * called by another thread.
+ */
+public final class ThreadConfinedByteBufAllocator implements ByteBufAllocator {
+
+    private static final InternalLogger logger =
+            InternalLoggerFactory.getInstance(ThreadConfinedByteBufAllocator.class);
+
+    private static final boolean DEFAULT_CHECK_THREAD_CONFINEMENT =
+            SystemPropertyUtil.getBoolean("io.netty.buffer.checkThreadConfinement", false);
+
+    static {
+        logger.debug("-Dio.netty.buffer.checkThreadConfinement: {}", DEFAULT_CHECK_THREAD_CONFINEMENT);
+    }
+
+    private final ByteBufAllocator alloc;
+    private final boolean checkThreadConfinement;
+
+    /**
+     * Creates a new instance which allocates its buffers from {@code alloc}.
+     */
+    public ThreadConfinedByteBufAllocator(ByteBufAllocator alloc) {
+        this(alloc, DEFAULT_CHECK_THREAD_CONFINEMENT);
+    }
+
+    /**
+     * Creates a new instance which allocates its buffers from {@code alloc}.
+     *
+     * @param checkThreadConfinement {@code true} if the reference count operations of the allocated buffers should
+     *                               throw an {@link IllegalStateException} when called by another thread
+     */
+    public ThreadConfinedByteBufAllocator(ByteBufAllocator alloc, boolean checkThreadConfinement) {
+        if (alloc == null) {
+            throw new NullPointerException("alloc");
+        }
+        this.alloc = alloc;
+        this.checkThreadConfinement = checkThreadConfinement;
+    }
+
+    private <T extends ByteBuf> T confine(T buf) {
+        ByteBuf unwrapped = buf;
+        // Skip the leak-aware wrappers as they delegate the reference counting.
+        while (unwrapped instanceof WrappedByteBuf) {
+            unwrapped = unwrapped.unwrap();
+        }
+        if (unwrapped instanceof AbstractReferenceCountedByteBuf) {
+            ((AbstractReferenceCountedByteBuf) unwrapped).confineToCurrentThread(checkThreadConfinement);
+        } else if (!(unwrapped instanceof EmptyByteBuf)) {
+            // An empty buffer is never deallocated and so needs no confinement, everything else would silently
+            // keep using atomic reference counting.
+            buf.release();
+            throw new IllegalArgumentException(
+                    "buffer type: " + unwrapped.getClass().getName() +
+                    " (expected: " + AbstractReferenceCountedByteBuf.class.getSimpleName() + ')');
+        }
+        return buf;
+    }
+
+    @Override
+    public ByteBuf buffer() {
+        return confine(alloc.buffer());
+    }
+
+    @Override
+    public ByteBuf buffer(int initialCapacity) {
+        return confine(alloc.buffer(initialCapacity));
+    }
+
+    @Override
+    public ByteBuf buffer(int initialCapacity, int maxCapacity) {
+        return confine(alloc.buffer(initialCapacity, maxCapacity));
+    }
+
+    @Override
+    public ByteBuf ioBuffer() {
+        return confine(alloc.ioBuffer());
+    }
+
+    @Override
+    public ByteBuf ioBuffer(int initialCapacity) {
+        return confine(alloc.ioBuffer(initialCapacity));
+    }
+
+    @Override
+    public ByteBuf ioBuffer(int initialCapacity, int maxCapacity) {
+        return confine(alloc.ioBuffer(initialCapacity, maxCapacity));
+    }
+
+    @Override
+    public ByteBuf heapBuffer() {
+        return confine(alloc.heapBuffer());
+    }
+
+    @Override
+    public ByteBuf heapBuffer(int initialCapacity) {
+        return confine(alloc.heapBuffer(initialCapacity));
+    }
+
+    @Override
+    public ByteBuf heapBuffer(int initialCapacity, int maxCapacity) {
+        return confine(alloc.heapBuffer(initialCapacity, maxCapacity));
+    }
+
+    @Override
+    public ByteBuf directBuffer() {
+        return confine(alloc.directBuffer());
+    }
+
+    @Override
+    public ByteBuf directBuffer(int initialCapacity) {
+        return confine(alloc.directBuffer(initialCapacity));
+    }
+
+    @Override
+    public ByteBuf directBuffer(int initialCapacity, int maxCapacity) {
+        return confine(alloc.directBuffer(initialCapacity, maxCapacity));
+    }
+
+    @Override
+    public CompositeByteBuf compositeBuffer() {
+        return confine(alloc.compositeBuffer());
+    }
+
+    @Override
+    public CompositeByteBuf compositeBuffer(int maxNumComponents) {
+        return confine(alloc.compositeBuffer(maxNumComponents));
+    }
+
+    @Override
+    public CompositeByteBuf compositeHeapBuffer() {
+        return confine(alloc.compositeHeapBuffer());
+    }
+
+    @Override
+    public CompositeByteBuf compositeHeapBuffer(int maxNumComponents) {
+        return confine(alloc.compositeHeapBuffer(maxNumComponents));
+    }
+
+    @Override
+    public CompositeByteBuf compositeDirectBuffer() {
+        return confine(alloc.compositeDirectBuffer());
+    }
+
+    @Override
+    public CompositeByteBuf compositeDirectBuffer(int maxNumComponents) {
+        return confine(alloc.compositeDirectBuffer(maxNumComponents));
+    }
+
+    @Override
+    public boolean isDirectBufferPooled() {
+        return alloc.isDirectBufferPooled();
+    }
+
+    @Override
+    public int calculateNewCapacity(int minNewCapacity, int maxCapacity) {
+        return alloc.calculateNewCapacity(minNewCapacity, maxCapacity);
+    }
+
+    @Override
+    public String toString() {
+        return "ThreadConfinedByteBufAllocator(" + alloc + ')';
+    }
+}
@@ -15,11 +15,15 @@
  */
 package io.netty.buffer;
 
+import io.netty.util.CharsetUtil;
 import io.netty.util.internal.PlatformDependent;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
@@ -209,6 +213,38 @@ public final class Unpooled {
         }
     }
 
+    /**
+     * Creates a new read-only buffer which maps the specified region of the file into memory. Unlike
+     * {@link #wrappedBuffer(ByteBuffer)} the region is unmapped as soon as the reference count of the returned
+     * buffer drops to {@code 0}, so neither the returned buffer nor any buffer derived from it, e.g. via
+     * {@link ByteBuf#slice()} or {@link ByteBuf#retainedSlice()}, may be accessed after it was released.
+     * If {@code sun.misc.Unsafe} is not available the region is unmapped when the buffer is garbage-collected.
+     *
+     * @param channel the file to map
+     * @param offset  the position within the file at which the mapped region starts
+     * @param length  the number of bytes to map
+     */
+    public static ByteBuf mapFile(FileChannel channel, long offset, int length) throws IOException {
+        if (channel == null) {
+            throw new NullPointerException("channel");
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset: " + offset + " (expected: >= 0)");
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("length: " + length + " (expected: >= 0)");
+        }
+        if (length == 0) {
+            return EMPTY_BUFFER;
+        }
+
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        if (PlatformDependent.hasUnsafe()) {
+            return new MappedFileByteBuf(ALLOC, mapped);
+        }
+        return new ReadOnlyByteBufferBuf(ALLOC, mapped);
+    }
+
     /**
      * Creates a new buffer which wraps the specified buffer's readable bytes.
      * A modification on the specified buffer's content will be visible to the
@@ -589,6 +625,10 @@ public final class Unpooled {
             return copiedBuffer((CharBuffer) string, charset);
         }
 
+        if (CharsetUtil.UTF_8.equals(charset)) {
+            return ByteBufUtil.encodeUtf8(ALLOC, true, string);
+        }
+
         return copiedBuffer(CharBuffer.wrap(string), charset);
     }
 
@@ -40,14 +40,18 @@ public final class UnpooledByteBufAllocator extends AbstractByteBufAllocator {
 
     @Override
     protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
-        return new UnpooledHeapByteBuf(this, initialCapacity, maxCapacity);
+        return PlatformDependent.hasUnsafe() ?
+                new UnpooledUnsafeHeapByteBuf(this, initialCapacity, maxCapacity) :
+                new UnpooledHeapByteBuf(this, initialCapacity, maxCapacity);
     }
 
     @Override
     protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
         ByteBuf buf;
         if (PlatformDependent.hasUnsafe()) {
-            buf = new UnpooledUnsafeDirectByteBuf(this, initialCapacity, maxCapacity);
+            buf = PlatformDependent.useDirectBufferNoCleaner() ?
+                    new UnpooledUnsafeNoCleanerDirectByteBuf(this, initialCapacity, maxCapacity) :
+                    new UnpooledUnsafeDirectByteBuf(this, initialCapacity, maxCapacity);
         } else {
             buf = new UnpooledDirectByteBuf(this, initialCapacity, maxCapacity);
         }
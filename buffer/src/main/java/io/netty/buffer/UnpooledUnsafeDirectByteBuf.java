@@ -38,7 +38,7 @@ public class UnpooledUnsafeDirectByteBuf extends AbstractReferenceCountedByteBuf
     private final ByteBufAllocator alloc;
 
     private long memoryAddress;
-    private ByteBuffer buffer;
+    ByteBuffer buffer;
     private ByteBuffer tmpNioBuf;
     private int capacity;
     private boolean doNotFree;
@@ -66,7 +66,7 @@ public class UnpooledUnsafeDirectByteBuf extends AbstractReferenceCountedByteBuf
         }
 
         this.alloc = alloc;
-        setByteBuffer(allocateDirect(initialCapacity));
+        setByteBuffer(allocateDirect(initialCapacity), true);
     }
 
     /**
@@ -97,7 +97,7 @@ public class UnpooledUnsafeDirectByteBuf extends AbstractReferenceCountedByteBuf
 
         this.alloc = alloc;
         doNotFree = true;
-        setByteBuffer(initialBuffer.slice().order(ByteOrder.BIG_ENDIAN));
+        setByteBuffer(initialBuffer.slice().order(ByteOrder.BIG_ENDIAN), true);
         writerIndex(initialCapacity);
     }
 
@@ -115,9 +115,9 @@ public class UnpooledUnsafeDirectByteBuf extends AbstractReferenceCountedByteBuf
         PlatformDependent.freeDirectBuffer(buffer);
     }
 
-    private void setByteBuffer(ByteBuffer buffer) {
+    final void setByteBuffer(ByteBuffer buffer, boolean tryFree) {
         ByteBuffer oldBuffer = this.buffer;
-        if (oldBuffer != null) {
+        if (oldBuffer != null && tryFree) {
             if (doNotFree) {
                 doNotFree = false;
             } else {
@@ -159,7 +159,7 @@ public class UnpooledUnsafeDirectByteBuf extends AbstractReferenceCountedByteBuf
             newBuffer.position(0).limit(oldBuffer.capacity());
             newBuffer.put(oldBuffer);
             newBuffer.clear();
-            setByteBuffer(newBuffer);
+            setByteBuffer(newBuffer, true);
         } else if (newCapacity < oldCapacity) {
             ByteBuffer oldBuffer = buffer;
             ByteBuffer newBuffer = allocateDirect(newCapacity);
@@ -174,7 +174,7 @@ public class UnpooledUnsafeDirectByteBuf extends AbstractReferenceCountedByteBuf
             } else {
                 setIndex(newCapacity, newCapacity);
             }
-            setByteBuffer(newBuffer);
+            setByteBuffer(newBuffer, true);
         }
         return this;
     }
@@ -342,6 +342,56 @@ public class UnpooledUnsafeDirectByteBuf extends AbstractReferenceCountedByteBuf
         PlatformDependent.putLong(addr(index), NATIVE_ORDER ? value : Long.reverseBytes(value));
     }
 
+    @Override
+    void _getShorts(int index, short[] dst, int dstIndex, int length) {
+        UnsafeByteBufUtil.getShorts(addr(index), dst, dstIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _setShorts(int index, short[] src, int srcIndex, int length) {
+        UnsafeByteBufUtil.setShorts(addr(index), src, srcIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _getInts(int index, int[] dst, int dstIndex, int length) {
+        UnsafeByteBufUtil.getInts(addr(index), dst, dstIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _setInts(int index, int[] src, int srcIndex, int length) {
+        UnsafeByteBufUtil.setInts(addr(index), src, srcIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _getLongs(int index, long[] dst, int dstIndex, int length) {
+        UnsafeByteBufUtil.getLongs(addr(index), dst, dstIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _setLongs(int index, long[] src, int srcIndex, int length) {
+        UnsafeByteBufUtil.setLongs(addr(index), src, srcIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _getFloats(int index, float[] dst, int dstIndex, int length) {
+        UnsafeByteBufUtil.getFloats(addr(index), dst, dstIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _setFloats(int index, float[] src, int srcIndex, int length) {
+        UnsafeByteBufUtil.setFloats(addr(index), src, srcIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _getDoubles(int index, double[] dst, int dstIndex, int length) {
+        UnsafeByteBufUtil.getDoubles(addr(index), dst, dstIndex, length, NATIVE_ORDER);
+    }
+
+    @Override
+    void _setDoubles(int index, double[] src, int srcIndex, int length) {
+        UnsafeByteBufUtil.setDoubles(addr(index), src, srcIndex, length, NATIVE_ORDER);
+    }
+
     @Override
     public ByteBuf setBytes(int index, ByteBuf src, int srcIndex, int length) {
         checkIndex(index, length);
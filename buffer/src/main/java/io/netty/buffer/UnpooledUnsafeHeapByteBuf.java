@@ -0,0 +1,156 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.internal.PlatformDependent;
+
+import java.nio.ByteOrder;
+
+/**
+ * {@link UnpooledHeapByteBuf} which accesses multi-byte values via {@link sun.misc.Unsafe} instead of assembling
+ * them one byte at a time. As {@link sun.misc.Unsafe} does no bounds checks, all accessors check the index
+ * explicitly instead of relying on the bounds checks of the JVM.
+ */
+final class UnpooledUnsafeHeapByteBuf extends UnpooledHeapByteBuf {
+
+    private static final boolean NATIVE_ORDER = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+
+    UnpooledUnsafeHeapByteBuf(ByteBufAllocator alloc, int initialCapacity, int maxCapacity) {
+        super(alloc, initialCapacity, maxCapacity);
+    }
+
+    @Override
+    public byte getByte(int index) {
+        checkIndex(index);
+        return _getByte(index);
+    }
+
+    @Override
+    protected byte _getByte(int index) {
+        return PlatformDependent.getByte(array, index);
+    }
+
+    @Override
+    public short getShort(int index) {
+        checkIndex(index, 2);
+        return _getShort(index);
+    }
+
+    @Override
+    protected short _getShort(int index) {
+        short v = PlatformDependent.getShort(array, index);
+        return NATIVE_ORDER ? v : Short.reverseBytes(v);
+    }
+
+    @Override
+    public int getUnsignedMedium(int index) {
+        checkIndex(index, 3);
+        return _getUnsignedMedium(index);
+    }
+
+    @Override
+    protected int _getUnsignedMedium(int index) {
+        return (PlatformDependent.getByte(array, index) & 0xff) << 16 |
+               (PlatformDependent.getByte(array, index + 1) & 0xff) << 8 |
+                PlatformDependent.getByte(array, index + 2) & 0xff;
+    }
+
+    @Override
+    public int getInt(int index) {
+        checkIndex(index, 4);
+        return _getInt(index);
+    }
+
+    @Override
+    protected int _getInt(int index) {
+        int v = PlatformDependent.getInt(array, index);
+        return NATIVE_ORDER ? v : Integer.reverseBytes(v);
+    }
+
+    @Override
+    public long getLong(int index) {
+        checkIndex(index, 8);
+        return _getLong(index);
+    }
+
+    @Override
+    protected long _getLong(int index) {
+        long v = PlatformDependent.getLong(array, index);
+        return NATIVE_ORDER ? v : Long.reverseBytes(v);
+    }
+
+    @Override
+    public ByteBuf setByte(int index, int value) {
+        checkIndex(index);
+        _setByte(index, value);
+        return this;
+    }
+
+    @Override
+    protected void _setByte(int index, int value) {
+        PlatformDependent.putByte(array, index, (byte) value);
+    }
+
+    @Override
+    public ByteBuf setShort(int index, int value) {
+        checkIndex(index, 2);
+        _setShort(index, value);
+        return this;
+    }
+
+    @Override
+    protected void _setShort(int index, int value) {
+        PlatformDependent.putShort(array, index, NATIVE_ORDER ? (short) value : Short.reverseBytes((short) value));
+    }
+
+    @Override
+    public ByteBuf setMedium(int index, int value) {
+        checkIndex(index, 3);
+        _setMedium(index, value);
+        return this;
+    }
+
+    @Override
+    protected void _setMedium(int index, int value) {
+        PlatformDependent.putByte(array, index, (byte) (value >>> 16));
+        PlatformDependent.putByte(array, index + 1, (byte) (value >>> 8));
+        PlatformDependent.putByte(array, index + 2, (byte) value);
+    }
+
+    @Override
+    public ByteBuf setInt(int index, int value) {
+        checkIndex(index, 4);
+        _setInt(index, value);
+        return this;
+    }
+
+    @Override
+    protected void _setInt(int index, int value) {
+        PlatformDependent.putInt(array, index, NATIVE_ORDER ? value : Integer.reverseBytes(value));
+    }
+
+    @Override
+    public ByteBuf setLong(int index, long value) {
+        checkIndex(index, 8);
+        _setLong(index, value);
+        return this;
+    }
+
+    @Override
+    protected void _setLong(int index, long value) {
+        PlatformDependent.putLong(array, index, NATIVE_ORDER ? value : Long.reverseBytes(value));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.internal.PlatformDependent;
+
+/**
+ * Bulk transfers between primitive arrays and the memory of buffers which are backed by a {@code memoryAddress}.
+ * If the byte order of the buffer is the native one the elements are copied as a whole, otherwise every element
+ * is swapped while it is copied.
+ */
+final class UnsafeByteBufUtil {
+
+    static void getShorts(long addr, short[] dst, int dstIndex, int length, boolean nativeOrder) {
+        if (nativeOrder) {
+            PlatformDependent.copyMemory(addr, dst, dstIndex, length);
+            return;
+        }
+        for (int i = dstIndex, end = dstIndex + length; i < end; i ++, addr += 2) {
+            dst[i] = Short.reverseBytes(PlatformDependent.getShort(addr));
+        }
+    }
+
+    static void setShorts(long addr, short[] src, int srcIndex, int length, boolean nativeOrder) {
+        if (nativeOrder) {
+            PlatformDependent.copyMemory(src, srcIndex, addr, length);
+            return;
+        }
+        for (int i = srcIndex, end = srcIndex + length; i < end; i ++, addr += 2) {
+            PlatformDependent.putShort(addr, Short.reverseBytes(src[i]));
+        }
+    }
+
+    static void getInts(long addr, int[] dst, int dstIndex, int length, boolean nativeOrder) {
+        if (nativeOrder) {
+            PlatformDependent.copyMemory(addr, dst, dstIndex, length);
+            return;
+        }
+        for (int i = dstIndex, end = dstIndex + length; i < end; i ++, addr += 4) {
+            dst[i] = Integer.reverseBytes(PlatformDependent.getInt(addr));
+        }
+    }
+
+    static void setInts(long addr, int[] src, int srcIndex, int length, boolean nativeOrder) {
+        if (nativeOrder) {
+            PlatformDependent.copyMemory(src, srcIndex, addr, length);
+            return;
+        }
+        for (int i = srcIndex, end = srcIndex + length; i < end; i ++, addr += 4) {
+            PlatformDependent.putInt(addr, Integer.reverseBytes(src[i]));
+        }
+    }
+
+    static void getLongs(long addr, long[] dst, int dstIndex, int length, boolean nativeOrder) {
+        if (nativeOrder) {
+            PlatformDependent.copyMemory(addr, dst, dstIndex, length);
+            return;
+        }
+        for (int i = dstIndex, end = dstIndex + length; i < end; i ++, addr += 8) {
+            dst[i] = Long.reverseBytes(PlatformDependent.getLong(addr));
+        }
+    }
+
+    static void setLongs(long addr, long[] src, int srcIndex, int length, boolean nativeOrder) {
+        if (nativeOrder) {
+            PlatformDependent.copyMemory(src, srcIndex, addr, length);
+            return;
+        }
+        for (int i = srcIndex, end = srcIndex + length; i < end; i ++, addr += 8) {
+            PlatformDependent.putLong(addr, Long.reverseBytes(src[i]));
+        }
+    }
+
+    static void getFloats(long addr, float[] dst, int dstIndex, int length, boolean nativeOrder) {
+        if (nativeOrder) {
+            PlatformDependent.copyMemory(addr, dst, dstIndex, length);
+            return;
+        }
+        for (int i = dstIndex, end = dstIndex + length; i < end; i ++, addr += 4) {
+            dst[i] = Float.intBitsToFloat(Integer.reverseBytes(PlatformDependent.getInt(addr)));
+        }
+    }
+
+    static void setFloats(long addr, float[] src, int srcIndex, int length, boolean nativeOrder) {
+        if (nativeOrder) {
+            PlatformDependent.copyMemory(src, srcIndex, addr, length);
+            return;
+        }
+        for (int i = srcIndex, end = srcIndex + length; i < end; i ++, addr += 4) {
+            PlatformDependent.putInt(addr, Integer.reverseBytes(Float.floatToRawIntBits(src[i])));
+        }
+    }
+
+    static void getDoubles(long addr, double[] dst, int dstIndex, int length, boolean nativeOrder) {
+        if (nativeOrder) {
+            PlatformDependent.copyMemory(addr, dst, dstIndex, length);
+            return;
+        }
+        for (int i = dstIndex, end = dstIndex + length; i < end; i ++, addr += 8) {
+            dst[i] = Double.longBitsToDouble(Long.reverseBytes(PlatformDependent.getLong(addr)));
+        }
+    }
+
+    static void setDoubles(long addr, double[] src, int srcIndex, int length, boolean nativeOrder) {
+        if (nativeOrder) {
+            PlatformDependent.copyMemory(src, srcIndex, addr, length);
+            return;
+        }
+        for (int i = srcIndex, end = srcIndex + length; i < end; i ++, addr += 8) {
+            PlatformDependent.putLong(addr, Long.reverseBytes(Double.doubleToRawLongBits(src[i])));
+        }
+    }
+
+    private UnsafeByteBufUtil() { }
+}
@@ -172,6 +172,191 @@ final class UnsafeDirectSwappedByteBuf extends SwappedByteBuf {
         return this;
     }
 
+    @Override
+    public ByteBuf getShorts(int index, short[] dst, int dstIndex, int length) {
+        wrapped.checkIndex(index, AbstractByteBuf.checkArrayLength(length, 2));
+        AbstractByteBuf.checkArrayIndex(dstIndex, length, dst.length);
+        UnsafeByteBufUtil.getShorts(addr(index), dst, dstIndex, length, nativeByteOrder);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setShorts(int index, short[] src, int srcIndex, int length) {
+        wrapped.checkIndex(index, AbstractByteBuf.checkArrayLength(length, 2));
+        AbstractByteBuf.checkArrayIndex(srcIndex, length, src.length);
+        UnsafeByteBufUtil.setShorts(addr(index), src, srcIndex, length, nativeByteOrder);
+        return this;
+    }
+
+    @Override
+    public ByteBuf readShorts(short[] dst, int dstIndex, int length) {
+        int bytes = AbstractByteBuf.checkArrayLength(length, 2);
+        wrapped.checkReadableBytes(bytes);
+        AbstractByteBuf.checkArrayIndex(dstIndex, length, dst.length);
+        UnsafeByteBufUtil.getShorts(addr(wrapped.readerIndex), dst, dstIndex, length, nativeByteOrder);
+        wrapped.readerIndex += bytes;
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeShorts(short[] src, int srcIndex, int length) {
+        int bytes = AbstractByteBuf.checkArrayLength(length, 2);
+        AbstractByteBuf.checkArrayIndex(srcIndex, length, src.length);
+        wrapped.ensureAccessible();
+        wrapped.ensureWritable(bytes);
+        UnsafeByteBufUtil.setShorts(addr(wrapped.writerIndex), src, srcIndex, length, nativeByteOrder);
+        wrapped.writerIndex += bytes;
+        return this;
+    }
+
+    @Override
+    public ByteBuf getInts(int index, int[] dst, int dstIndex, int length) {
+        wrapped.checkIndex(index, AbstractByteBuf.checkArrayLength(length, 4));
+        AbstractByteBuf.checkArrayIndex(dstIndex, length, dst.length);
+        UnsafeByteBufUtil.getInts(addr(index), dst, dstIndex, length, nativeByteOrder);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setInts(int index, int[] src, int srcIndex, int length) {
+        wrapped.checkIndex(index, AbstractByteBuf.checkArrayLength(length, 4));
+        AbstractByteBuf.checkArrayIndex(srcIndex, length, src.length);
+        UnsafeByteBufUtil.setInts(addr(index), src, srcIndex, length, nativeByteOrder);
+        return this;
+    }
+
+    @Override
+    public ByteBuf readInts(int[] dst, int dstIndex, int length) {
+        int bytes = AbstractByteBuf.checkArrayLength(length, 4);
+        wrapped.checkReadableBytes(bytes);
+        AbstractByteBuf.checkArrayIndex(dstIndex, length, dst.length);
+        UnsafeByteBufUtil.getInts(addr(wrapped.readerIndex), dst, dstIndex, length, nativeByteOrder);
+        wrapped.readerIndex += bytes;
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeInts(int[] src, int srcIndex, int length) {
+        int bytes = AbstractByteBuf.checkArrayLength(length, 4);
+        AbstractByteBuf.checkArrayIndex(srcIndex, length, src.length);
+        wrapped.ensureAccessible();
+        wrapped.ensureWritable(bytes);
+        UnsafeByteBufUtil.setInts(addr(wrapped.writerIndex), src, srcIndex, length, nativeByteOrder);
+        wrapped.writerIndex += bytes;
+        return this;
+    }
+
+    @Override
+    public ByteBuf getLongs(int index, long[] dst, int dstIndex, int length) {
+        wrapped.checkIndex(index, AbstractByteBuf.checkArrayLength(length, 8));
+        AbstractByteBuf.checkArrayIndex(dstIndex, length, dst.length);
+        UnsafeByteBufUtil.getLongs(addr(index), dst, dstIndex, length, nativeByteOrder);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setLongs(int index, long[] src, int srcIndex, int length) {
+        wrapped.checkIndex(index, AbstractByteBuf.checkArrayLength(length, 8));
+        AbstractByteBuf.checkArrayIndex(srcIndex, length, src.length);
+        UnsafeByteBufUtil.setLongs(addr(index), src, srcIndex, length, nativeByteOrder);
+        return this;
+    }
+
+    @Override
+    public ByteBuf readLongs(long[] dst, int dstIndex, int length) {
+        int bytes = AbstractByteBuf.checkArrayLength(length, 8);
+        wrapped.checkReadableBytes(bytes);
+        AbstractByteBuf.checkArrayIndex(dstIndex, length, dst.length);
+        UnsafeByteBufUtil.getLongs(addr(wrapped.readerIndex), dst, dstIndex, length, nativeByteOrder);
+        wrapped.readerIndex += bytes;
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeLongs(long[] src, int srcIndex, int length) {
+        int bytes = AbstractByteBuf.checkArrayLength(length, 8);
+        AbstractByteBuf.checkArrayIndex(srcIndex, length, src.length);
+        wrapped.ensureAccessible();
+        wrapped.ensureWritable(bytes);
+        UnsafeByteBufUtil.setLongs(addr(wrapped.writerIndex), src, srcIndex, length, nativeByteOrder);
+        wrapped.writerIndex += bytes;
+        return this;
+    }
+
+    @Override
+    public ByteBuf getFloats(int index, float[] dst, int dstIndex, int length) {
+        wrapped.checkIndex(index, AbstractByteBuf.checkArrayLength(length, 4));
+        AbstractByteBuf.checkArrayIndex(dstIndex, length, dst.length);
+        UnsafeByteBufUtil.getFloats(addr(index), dst, dstIndex, length, nativeByteOrder);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setFloats(int index, float[] src, int srcIndex, int length) {
+        wrapped.checkIndex(index, AbstractByteBuf.checkArrayLength(length, 4));
+        AbstractByteBuf.checkArrayIndex(srcIndex, length, src.length);
+        UnsafeByteBufUtil.setFloats(addr(index), src, srcIndex, length, nativeByteOrder);
+        return this;
+    }
+
+    @Override
+    public ByteBuf readFloats(float[] dst, int dstIndex, int length) {
+        int bytes = AbstractByteBuf.checkArrayLength(length, 4);
+        wrapped.checkReadableBytes(bytes);
+        AbstractByteBuf.checkArrayIndex(dstIndex, length, dst.length);
+        UnsafeByteBufUtil.getFloats(addr(wrapped.readerIndex), dst, dstIndex, length, nativeByteOrder);
+        wrapped.readerIndex += bytes;
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeFloats(float[] src, int srcIndex, int length) {
+        int bytes = AbstractByteBuf.checkArrayLength(length, 4);
+        AbstractByteBuf.checkArrayIndex(srcIndex, length, src.length);
+        wrapped.ensureAccessible();
+        wrapped.ensureWritable(bytes);
+        UnsafeByteBufUtil.setFloats(addr(wrapped.writerIndex), src, srcIndex, length, nativeByteOrder);
+        wrapped.writerIndex += bytes;
+        return this;
+    }
+
+    @Override
+    public ByteBuf getDoubles(int index, double[] dst, int dstIndex, int length) {
+        wrapped.checkIndex(index, AbstractByteBuf.checkArrayLength(length, 8));
+        AbstractByteBuf.checkArrayIndex(dstIndex, length, dst.length);
+        UnsafeByteBufUtil.getDoubles(addr(index), dst, dstIndex, length, nativeByteOrder);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setDoubles(int index, double[] src, int srcIndex, int length) {
+        wrapped.checkIndex(index, AbstractByteBuf.checkArrayLength(length, 8));
+        AbstractByteBuf.checkArrayIndex(srcIndex, length, src.length);
+        UnsafeByteBufUtil.setDoubles(addr(index), src, srcIndex, length, nativeByteOrder);
+        return this;
+    }
+
+    @Override
+    public ByteBuf readDoubles(double[] dst, int dstIndex, int length) {
+        int bytes = AbstractByteBuf.checkArrayLength(length, 8);
+        wrapped.checkReadableBytes(bytes);
+        AbstractByteBuf.checkArrayIndex(dstIndex, length, dst.length);
+        UnsafeByteBufUtil.getDoubles(addr(wrapped.readerIndex), dst, dstIndex, length, nativeByteOrder);
+        wrapped.readerIndex += bytes;
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeDoubles(double[] src, int srcIndex, int length) {
+        int bytes = AbstractByteBuf.checkArrayLength(length, 8);
+        AbstractByteBuf.checkArrayIndex(srcIndex, length, src.length);
+        wrapped.ensureAccessible();
+        wrapped.ensureWritable(bytes);
+        UnsafeByteBufUtil.setDoubles(addr(wrapped.writerIndex), src, srcIndex, length, nativeByteOrder);
+        wrapped.writerIndex += bytes;
+        return this;
+    }
+
     private void _setShort(int index, int value) {
         PlatformDependent.putShort(addr(index), nativeByteOrder ? (short) value : Short.reverseBytes((short) value));
     }
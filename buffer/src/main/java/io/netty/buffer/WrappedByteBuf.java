@@ -488,6 +488,13 @@ public class WrappedByteBuf extends ByteBuf {
         return buf.readSlice(length);
     }
 
+    @Override
+    public ByteBuf readRetainedSlice(int length) {
+        int readerIndex = buf.readerIndex();
+        buf.skipBytes(length);
+        return retainedSlice(readerIndex, length);
+    }
+
     @Override
     public ByteBuf readBytes(ByteBuf dst) {
         buf.readBytes(dst);
@@ -647,11 +654,136 @@ public class WrappedByteBuf extends ByteBuf {
         return this;
     }
 
+    @Override
+    public ByteBuf getShorts(int index, short[] dst, int dstIndex, int length) {
+        buf.getShorts(index, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setShorts(int index, short[] src, int srcIndex, int length) {
+        buf.setShorts(index, src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf readShorts(short[] dst, int dstIndex, int length) {
+        buf.readShorts(dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeShorts(short[] src, int srcIndex, int length) {
+        buf.writeShorts(src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf getInts(int index, int[] dst, int dstIndex, int length) {
+        buf.getInts(index, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setInts(int index, int[] src, int srcIndex, int length) {
+        buf.setInts(index, src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf readInts(int[] dst, int dstIndex, int length) {
+        buf.readInts(dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeInts(int[] src, int srcIndex, int length) {
+        buf.writeInts(src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf getLongs(int index, long[] dst, int dstIndex, int length) {
+        buf.getLongs(index, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setLongs(int index, long[] src, int srcIndex, int length) {
+        buf.setLongs(index, src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf readLongs(long[] dst, int dstIndex, int length) {
+        buf.readLongs(dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeLongs(long[] src, int srcIndex, int length) {
+        buf.writeLongs(src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf getFloats(int index, float[] dst, int dstIndex, int length) {
+        buf.getFloats(index, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setFloats(int index, float[] src, int srcIndex, int length) {
+        buf.setFloats(index, src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf readFloats(float[] dst, int dstIndex, int length) {
+        buf.readFloats(dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeFloats(float[] src, int srcIndex, int length) {
+        buf.writeFloats(src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf getDoubles(int index, double[] dst, int dstIndex, int length) {
+        buf.getDoubles(index, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setDoubles(int index, double[] src, int srcIndex, int length) {
+        buf.setDoubles(index, src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf readDoubles(double[] dst, int dstIndex, int length) {
+        buf.readDoubles(dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeDoubles(double[] src, int srcIndex, int length) {
+        buf.writeDoubles(src, srcIndex, length);
+        return this;
+    }
+
     @Override
     public int indexOf(int fromIndex, int toIndex, byte value) {
         return buf.indexOf(fromIndex, toIndex, value);
     }
 
+    @Override
+    public int indexOfAny(int fromIndex, int toIndex, byte... values) {
+        return buf.indexOfAny(fromIndex, toIndex, values);
+    }
+
     @Override
     public int bytesBefore(byte value) {
         return buf.bytesBefore(value);
@@ -712,6 +844,23 @@ public class WrappedByteBuf extends ByteBuf {
         return buf.duplicate();
     }
 
+    @Override
+    public ByteBuf retainedSlice() {
+        return retainedSlice(buf.readerIndex(), buf.readableBytes());
+    }
+
+    @Override
+    public ByteBuf retainedSlice(int index, int length) {
+        // Hold the reference of this buffer instead of the wrapped one, so releasing the slice is observed by the
+        // wrapper.
+        return PooledSlicedByteBuf.newInstance(buf, this, index, length);
+    }
+
+    @Override
+    public ByteBuf retainedDuplicate() {
+        return PooledDuplicatedByteBuf.newInstance(buf, this);
+    }
+
     @Override
     public int nioBufferCount() {
         return buf.nioBufferCount();
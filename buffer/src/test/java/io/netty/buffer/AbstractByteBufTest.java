@@ -27,6 +27,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.Channels;
 import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.ScatteringByteChannel;
@@ -1555,6 +1556,430 @@ public abstract class AbstractByteBufTest {
         assertEquals(3, buffer.indexOf(4, 1, (byte) 2));
     }
 
+    @Test
+    public void testIndexOfLongRange() {
+        buffer.clear();
+        // Use bytes with the high bit set and neighbours of the searched value to catch false matches.
+        for (int i = 0; i < 64; i ++) {
+            buffer.writeByte(i % 2 == 0 ? 0x80 : 0x0B);
+        }
+        for (int i = 0; i < 64; i ++) {
+            buffer.setByte(i, 0x0A);
+            assertEquals(i, buffer.indexOf(0, 64, (byte) 0x0A));
+            assertEquals(i, buffer.indexOfAny(0, 64, (byte) 0x0D, (byte) 0x0A));
+            assertEquals(i, buffer.forEachByte(0, 64, ByteBufProcessor.FIND_LF));
+            assertEquals(i, buffer.forEachByte(0, 64, ByteBufProcessor.FIND_CRLF));
+            if (i > 0) {
+                assertEquals(-1, buffer.indexOf(0, i, (byte) 0x0A));
+                assertEquals(-1, buffer.indexOfAny(0, i, (byte) 0x0D, (byte) 0x0A));
+            }
+            buffer.setByte(i, i % 2 == 0 ? 0x80 : 0x0B);
+        }
+        assertEquals(-1, buffer.indexOf(0, 64, (byte) 0x0A));
+        assertEquals(-1, buffer.forEachByte(0, 64, ByteBufProcessor.FIND_LF));
+        assertEquals(0, buffer.indexOf(0, 64, (byte) 0x80));
+        assertEquals(1, buffer.indexOf(1, 64, (byte) 0x0B));
+    }
+
+    @Test
+    public void testIndexOfAny() {
+        buffer.clear();
+        buffer.writeByte((byte) 1);
+        buffer.writeByte((byte) 2);
+        buffer.writeByte((byte) 3);
+        buffer.writeByte((byte) 2);
+        buffer.writeByte((byte) 1);
+
+        assertEquals(-1, buffer.indexOfAny(1, 4, (byte) 1, (byte) 4));
+        assertEquals(-1, buffer.indexOfAny(4, 1, (byte) 1, (byte) 4));
+        assertEquals(1, buffer.indexOfAny(1, 4, (byte) 3, (byte) 2));
+        assertEquals(3, buffer.indexOfAny(4, 1, (byte) 3, (byte) 2));
+        assertEquals(-1, buffer.indexOfAny(0, 5));
+    }
+
+    @Test
+    public void testBulkShorts() {
+        testBulkShorts(ByteOrder.BIG_ENDIAN);
+        testBulkShorts(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void testBulkShorts(ByteOrder order) {
+        ByteBuf buf = buffer.order(order);
+        int length = buf.capacity() / 2 - 1;
+        short[] expected = new short[length];
+        for (int i = 0; i < length; i ++) {
+            expected[i] = (short) random.nextInt();
+        }
+
+        // Start at an odd index so that the transfers are unaligned.
+        buf.clear().writeByte(0);
+        for (short v: expected) {
+            buf.writeShort(v);
+        }
+        short[] actual = new short[length + 2];
+        buf.getShorts(1, actual, 1, length);
+        assertArrayEquals(expected, Arrays.copyOfRange(actual, 1, length + 1));
+
+        buf.setShorts(1, expected, 2, length - 2);
+        for (int i = 0; i < length - 2; i ++) {
+            assertEquals(expected[i + 2], buf.getShort(1 + i * 2));
+        }
+
+        buf.clear().writeByte(0).writeShorts(expected, 0, length);
+        assertEquals(1 + length * 2, buf.writerIndex());
+        buf.skipBytes(1);
+        for (short v: expected) {
+            assertEquals(v, buf.readShort());
+        }
+
+        buf.readerIndex(1);
+        Arrays.fill(actual, (short) 0);
+        buf.readShorts(actual, 0, length);
+        assertFalse(buf.isReadable());
+        assertArrayEquals(expected, Arrays.copyOf(actual, length));
+
+        try {
+            buf.readerIndex(1);
+            buf.readShorts(actual, 0, length + 1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        assertEquals(1, buf.readerIndex());
+        try {
+            buf.getShorts(0, actual, 3, length);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBulkInts() {
+        testBulkInts(ByteOrder.BIG_ENDIAN);
+        testBulkInts(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void testBulkInts(ByteOrder order) {
+        ByteBuf buf = buffer.order(order);
+        int length = buf.capacity() / 4 - 1;
+        int[] expected = new int[length];
+        for (int i = 0; i < length; i ++) {
+            expected[i] = random.nextInt();
+        }
+
+        // Start at an odd index so that the transfers are unaligned.
+        buf.clear().writeByte(0);
+        for (int v: expected) {
+            buf.writeInt(v);
+        }
+        int[] actual = new int[length + 2];
+        buf.getInts(1, actual, 1, length);
+        assertArrayEquals(expected, Arrays.copyOfRange(actual, 1, length + 1));
+
+        buf.setInts(1, expected, 2, length - 2);
+        for (int i = 0; i < length - 2; i ++) {
+            assertEquals(expected[i + 2], buf.getInt(1 + i * 4));
+        }
+
+        buf.clear().writeByte(0).writeInts(expected, 0, length);
+        assertEquals(1 + length * 4, buf.writerIndex());
+        buf.skipBytes(1);
+        for (int v: expected) {
+            assertEquals(v, buf.readInt());
+        }
+
+        buf.readerIndex(1);
+        Arrays.fill(actual, (int) 0);
+        buf.readInts(actual, 0, length);
+        assertFalse(buf.isReadable());
+        assertArrayEquals(expected, Arrays.copyOf(actual, length));
+
+        try {
+            buf.readerIndex(1);
+            buf.readInts(actual, 0, length + 1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        assertEquals(1, buf.readerIndex());
+        try {
+            buf.getInts(0, actual, 3, length);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBulkLongs() {
+        testBulkLongs(ByteOrder.BIG_ENDIAN);
+        testBulkLongs(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void testBulkLongs(ByteOrder order) {
+        ByteBuf buf = buffer.order(order);
+        int length = buf.capacity() / 8 - 1;
+        long[] expected = new long[length];
+        for (int i = 0; i < length; i ++) {
+            expected[i] = random.nextLong();
+        }
+
+        // Start at an odd index so that the transfers are unaligned.
+        buf.clear().writeByte(0);
+        for (long v: expected) {
+            buf.writeLong(v);
+        }
+        long[] actual = new long[length + 2];
+        buf.getLongs(1, actual, 1, length);
+        assertArrayEquals(expected, Arrays.copyOfRange(actual, 1, length + 1));
+
+        buf.setLongs(1, expected, 2, length - 2);
+        for (int i = 0; i < length - 2; i ++) {
+            assertEquals(expected[i + 2], buf.getLong(1 + i * 8));
+        }
+
+        buf.clear().writeByte(0).writeLongs(expected, 0, length);
+        assertEquals(1 + length * 8, buf.writerIndex());
+        buf.skipBytes(1);
+        for (long v: expected) {
+            assertEquals(v, buf.readLong());
+        }
+
+        buf.readerIndex(1);
+        Arrays.fill(actual, (long) 0);
+        buf.readLongs(actual, 0, length);
+        assertFalse(buf.isReadable());
+        assertArrayEquals(expected, Arrays.copyOf(actual, length));
+
+        try {
+            buf.readerIndex(1);
+            buf.readLongs(actual, 0, length + 1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        assertEquals(1, buf.readerIndex());
+        try {
+            buf.getLongs(0, actual, 3, length);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBulkFloats() {
+        testBulkFloats(ByteOrder.BIG_ENDIAN);
+        testBulkFloats(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void testBulkFloats(ByteOrder order) {
+        ByteBuf buf = buffer.order(order);
+        int length = buf.capacity() / 4 - 1;
+        float[] expected = new float[length];
+        for (int i = 0; i < length; i ++) {
+            expected[i] = random.nextFloat();
+        }
+
+        // Start at an odd index so that the transfers are unaligned.
+        buf.clear().writeByte(0);
+        for (float v: expected) {
+            buf.writeFloat(v);
+        }
+        float[] actual = new float[length + 2];
+        buf.getFloats(1, actual, 1, length);
+        assertArrayEquals(expected, Arrays.copyOfRange(actual, 1, length + 1), 0);
+
+        buf.setFloats(1, expected, 2, length - 2);
+        for (int i = 0; i < length - 2; i ++) {
+            assertEquals(expected[i + 2], buf.getFloat(1 + i * 4), 0);
+        }
+
+        buf.clear().writeByte(0).writeFloats(expected, 0, length);
+        assertEquals(1 + length * 4, buf.writerIndex());
+        buf.skipBytes(1);
+        for (float v: expected) {
+            assertEquals(v, buf.readFloat(), 0);
+        }
+
+        buf.readerIndex(1);
+        Arrays.fill(actual, (float) 0);
+        buf.readFloats(actual, 0, length);
+        assertFalse(buf.isReadable());
+        assertArrayEquals(expected, Arrays.copyOf(actual, length), 0);
+
+        try {
+            buf.readerIndex(1);
+            buf.readFloats(actual, 0, length + 1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        assertEquals(1, buf.readerIndex());
+        try {
+            buf.getFloats(0, actual, 3, length);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBulkDoubles() {
+        testBulkDoubles(ByteOrder.BIG_ENDIAN);
+        testBulkDoubles(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void testBulkDoubles(ByteOrder order) {
+        ByteBuf buf = buffer.order(order);
+        int length = buf.capacity() / 8 - 1;
+        double[] expected = new double[length];
+        for (int i = 0; i < length; i ++) {
+            expected[i] = random.nextDouble();
+        }
+
+        // Start at an odd index so that the transfers are unaligned.
+        buf.clear().writeByte(0);
+        for (double v: expected) {
+            buf.writeDouble(v);
+        }
+        double[] actual = new double[length + 2];
+        buf.getDoubles(1, actual, 1, length);
+        assertArrayEquals(expected, Arrays.copyOfRange(actual, 1, length + 1), 0);
+
+        buf.setDoubles(1, expected, 2, length - 2);
+        for (int i = 0; i < length - 2; i ++) {
+            assertEquals(expected[i + 2], buf.getDouble(1 + i * 8), 0);
+        }
+
+        buf.clear().writeByte(0).writeDoubles(expected, 0, length);
+        assertEquals(1 + length * 8, buf.writerIndex());
+        buf.skipBytes(1);
+        for (double v: expected) {
+            assertEquals(v, buf.readDouble(), 0);
+        }
+
+        buf.readerIndex(1);
+        Arrays.fill(actual, (double) 0);
+        buf.readDoubles(actual, 0, length);
+        assertFalse(buf.isReadable());
+        assertArrayEquals(expected, Arrays.copyOf(actual, length), 0);
+
+        try {
+            buf.readerIndex(1);
+            buf.readDoubles(actual, 0, length + 1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        assertEquals(1, buf.readerIndex());
+        try {
+            buf.getDoubles(0, actual, 3, length);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBulkSetOutOfRangeDoesNotTransferPartially() {
+        testBulkSetOutOfRangeDoesNotTransferPartially(ByteOrder.BIG_ENDIAN);
+        testBulkSetOutOfRangeDoesNotTransferPartially(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void testBulkSetOutOfRangeDoesNotTransferPartially(ByteOrder order) {
+        ByteBuf buf = buffer.order(order);
+        int capacity = buf.capacity();
+        buf.setZero(0, capacity);
+        int index = capacity - 12;
+        try {
+            buf.setShorts(index, new short[] { 1, 1, 1, 1, 1, 1, 1 }, 0, 7);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        try {
+            buf.setInts(index, new int[] { 1, 1, 1, 1 }, 0, 4);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        try {
+            buf.setLongs(index, new long[] { 1, 1 }, 0, 2);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        try {
+            buf.setFloats(index, new float[] { 1, 1, 1, 1 }, 0, 4);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        try {
+            buf.setDoubles(index, new double[] { 1, 1 }, 0, 2);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        for (int i = index; i < capacity; i ++) {
+            assertEquals(0, buf.getByte(i));
+        }
+    }
+
+    @Test
+    public void testBulkTransferRejectsNegativeLength() {
+        testBulkTransferRejectsNegativeLength(ByteOrder.BIG_ENDIAN);
+        testBulkTransferRejectsNegativeLength(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void testBulkTransferRejectsNegativeLength(ByteOrder order) {
+        ByteBuf buf = buffer.order(order);
+        try {
+            buf.setShorts(0, new short[1], 0, -1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            buf.setInts(0, new int[1], 0, -1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            buf.setLongs(0, new long[1], 0, -1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            buf.getFloats(0, new float[1], 0, -1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            buf.setFloats(0, new float[1], 0, -1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            buf.getDoubles(0, new double[1], 0, -1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            buf.setDoubles(0, new double[1], 0, -1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
     @Test
     public void testNioBuffer1() {
         Assume.assumeTrue(buffer.nioBufferCount() == 1);
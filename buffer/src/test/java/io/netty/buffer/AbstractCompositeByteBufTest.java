@@ -812,4 +812,108 @@ public abstract class AbstractCompositeByteBufTest extends AbstractByteBufTest {
 
         cbuf.discardSomeReadBytes();
     }
+
+    @Test
+    public void testAddComponentsInTheMiddle() {
+        CompositeByteBuf buf = releaseLater(compositeBuffer(Integer.MAX_VALUE));
+        buf.addComponents(wrappedBuffer(new byte[] { 1 }), wrappedBuffer(new byte[] { 5 }));
+        buf.addComponents(1, wrappedBuffer(new byte[] { 2, 3 }), EMPTY_BUFFER, wrappedBuffer(new byte[] { 4 }));
+        buf.writerIndex(buf.capacity());
+
+        assertEquals(4, buf.numComponents());
+        assertEquals(5, buf.capacity());
+        assertEquals(0, buf.toByteIndex(0));
+        assertEquals(1, buf.toByteIndex(1));
+        assertEquals(3, buf.toByteIndex(2));
+        assertEquals(4, buf.toByteIndex(3));
+        for (int i = 0; i < 5; i ++) {
+            assertEquals(i + 1, buf.getByte(i));
+        }
+        assertEquals(1, buf.toComponentIndex(2));
+        assertEquals(3, buf.toComponentIndex(4));
+    }
+
+    @Test
+    public void testGetAfterRemoveComponent() {
+        CompositeByteBuf buf = releaseLater(compositeBuffer());
+        buf.addComponents(wrappedBuffer(new byte[] { 1, 2 }), wrappedBuffer(new byte[] { 3, 4 }));
+        buf.writerIndex(buf.capacity());
+        // Populate the cached component and then remove it.
+        assertEquals(1, buf.getByte(0));
+        buf.removeComponent(0);
+
+        assertEquals(2, buf.capacity());
+        assertEquals(3, buf.getByte(0));
+        assertEquals(4, buf.getByte(1));
+    }
+
+    @Test
+    public void testConsolidationPolicyNone() {
+        CompositeByteBuf buf = releaseLater(
+                new CompositeByteBuf(UnpooledByteBufAllocator.DEFAULT, false, 2,
+                        CompositeByteBuf.ConsolidationPolicy.NONE));
+        for (int i = 0; i < 8; i ++) {
+            buf.addComponent(wrappedBuffer(new byte[] { (byte) i }));
+        }
+        buf.writerIndex(buf.capacity());
+
+        assertEquals(8, buf.numComponents());
+        for (int i = 0; i < 8; i ++) {
+            assertEquals(i, buf.readByte());
+        }
+    }
+
+    @Test
+    public void testCustomConsolidationPolicy() {
+        CompositeByteBuf buf = releaseLater(
+                new CompositeByteBuf(UnpooledByteBufAllocator.DEFAULT, false, 4,
+                        new CompositeByteBuf.ConsolidationPolicy() {
+                            @Override
+                            public void consolidate(CompositeByteBuf buffer) {
+                                // Only merge the newest components and leave the older ones untouched.
+                                int num = buffer.numComponents() - buffer.maxNumComponents() + 1;
+                                buffer.consolidate(buffer.numComponents() - num, num);
+                            }
+                        }));
+        for (int i = 0; i < 6; i ++) {
+            buf.addComponent(wrappedBuffer(new byte[] { (byte) i }));
+        }
+        buf.writerIndex(buf.capacity());
+
+        assertEquals(4, buf.numComponents());
+        assertEquals(3, buf.internalComponent(3).readableBytes());
+        for (int i = 0; i < 6; i ++) {
+            assertEquals(i, buf.readByte());
+        }
+    }
+
+    @Test
+    public void testRecycledCompositeBuffer() {
+        CompositeByteBuf buf = UnpooledByteBufAllocator.DEFAULT.compositeDirectBuffer(4);
+        ByteBuf component = wrappedBuffer(new byte[] { 1, 2, 3 });
+        buf.addComponent(component).writerIndex(3);
+        buf.readByte();
+        buf.markReaderIndex();
+        assertTrue(buf.release());
+        assertEquals(0, component.refCnt());
+
+        CompositeByteBuf recycled = UnpooledByteBufAllocator.DEFAULT.compositeHeapBuffer(8);
+        try {
+            assertSame(buf, recycled);
+            assertEquals(1, recycled.refCnt());
+            assertEquals(8, recycled.maxNumComponents());
+            assertEquals(0, recycled.numComponents());
+            assertEquals(0, recycled.capacity());
+            assertEquals(0, recycled.readerIndex());
+            assertEquals(0, recycled.writerIndex());
+            recycled.resetReaderIndex();
+            assertEquals(0, recycled.readerIndex());
+
+            recycled.addComponent(wrappedBuffer(new byte[] { 4, 5 })).writerIndex(2);
+            assertEquals(4, recycled.readByte());
+            assertEquals(5, recycled.readByte());
+        } finally {
+            recycled.release();
+        }
+    }
 }
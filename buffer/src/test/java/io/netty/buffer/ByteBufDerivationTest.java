@@ -16,6 +16,7 @@
 
 package io.netty.buffer;
 
+import io.netty.util.IllegalReferenceCountException;
 import org.junit.Test;
 
 import java.nio.ByteOrder;
@@ -91,6 +92,121 @@ public class ByteBufDerivationTest {
         assertThat(dup2.maxCapacity(), is(dup.maxCapacity()));
     }
 
+    @Test
+    public void testRetainedSlice() throws Exception {
+        ByteBuf buf = Unpooled.buffer(8).setIndex(1, 7);
+        ByteBuf slice = buf.retainedSlice(1, 6);
+
+        assertThat(slice, instanceOf(PooledSlicedByteBuf.class));
+        assertThat(slice.unwrap(), sameInstance(buf));
+        assertThat(slice.readerIndex(), is(0));
+        assertThat(slice.writerIndex(), is(6));
+        assertThat(slice.capacity(), is(6));
+        assertThat(slice.maxCapacity(), is(6));
+        assertThat(slice.refCnt(), is(1));
+        assertThat(buf.refCnt(), is(2));
+
+        slice.setByte(0, 42);
+        assertThat(buf.getByte(1), is((byte) 42));
+
+        assertThat(buf.release(), is(false));
+        assertThat(slice.getByte(0), is((byte) 42));
+        assertThat(slice.release(), is(true));
+        assertThat(buf.refCnt(), is(0));
+    }
+
+    @Test
+    public void testRetainedSliceOfRetainedSlice() throws Exception {
+        ByteBuf buf = Unpooled.buffer(8);
+        ByteBuf slice = buf.retainedSlice(1, 7);
+        ByteBuf slice2 = slice.retainedSlice(1, 5);
+
+        assertThat(slice2, instanceOf(PooledSlicedByteBuf.class));
+        assertThat(slice2.unwrap(), sameInstance(buf));
+        assertThat(slice2.arrayOffset(), is(2));
+        assertThat(slice.refCnt(), is(2));
+        assertThat(buf.refCnt(), is(2));
+
+        assertThat(slice.release(), is(false));
+        assertThat(slice2.release(), is(true));
+        assertThat(slice.refCnt(), is(0));
+        assertThat(buf.refCnt(), is(1));
+        assertThat(buf.release(), is(true));
+    }
+
+    @Test
+    public void testRetainedDuplicate() throws Exception {
+        ByteBuf buf = Unpooled.buffer(8).setIndex(1, 7);
+        ByteBuf dup = buf.retainedDuplicate();
+
+        assertThat(dup, instanceOf(PooledDuplicatedByteBuf.class));
+        assertThat(dup.unwrap(), sameInstance(buf));
+        assertThat(dup.readerIndex(), is(buf.readerIndex()));
+        assertThat(dup.writerIndex(), is(buf.writerIndex()));
+        assertThat(dup.capacity(), is(buf.capacity()));
+        assertThat(dup.maxCapacity(), is(buf.maxCapacity()));
+        assertThat(buf.refCnt(), is(2));
+
+        dup.setIndex(2, 6);
+        assertThat(buf.readerIndex(), is(1));
+        assertThat(buf.writerIndex(), is(7));
+
+        assertThat(dup.release(), is(true));
+        assertThat(buf.refCnt(), is(1));
+        assertThat(buf.release(), is(true));
+    }
+
+    @Test
+    public void testReadRetainedSlice() throws Exception {
+        ByteBuf buf = Unpooled.buffer(8).writeLong(0x0102030405060708L);
+        ByteBuf slice = buf.readRetainedSlice(3);
+
+        assertThat(buf.readerIndex(), is(3));
+        assertThat(slice.readableBytes(), is(3));
+        assertThat(slice.getUnsignedMedium(0), is(0x010203));
+
+        assertThat(slice.release(), is(true));
+        assertThat(buf.release(), is(true));
+    }
+
+    @Test
+    public void testRetainedSliceIsRecycled() throws Exception {
+        ByteBuf buf = Unpooled.buffer(8).writeLong(1);
+        ByteBuf slice = buf.retainedSlice(0, 4);
+        assertThat(slice.release(), is(true));
+
+        ByteBuf slice2 = buf.retainedSlice(4, 4).markReaderIndex();
+        assertThat(slice2, sameInstance(slice));
+        assertThat(slice2.refCnt(), is(1));
+        assertThat(slice2.getInt(0), is(1));
+        assertThat(slice2.release(), is(true));
+        assertThat(buf.release(), is(true));
+    }
+
+    @Test
+    public void testSliceOfRecycledRetainedSliceIsNotStale() throws Exception {
+        ByteBuf buf = Unpooled.buffer(8).writeInt(1).writeInt(2);
+        ByteBuf retainedSlice = buf.retainedSlice(0, 4);
+        ByteBuf slice = retainedSlice.slice();
+        ByteBuf dup = retainedSlice.duplicate();
+        assertThat(retainedSlice.release(), is(true));
+
+        // Reuses the recycled instance for another region of the buffer.
+        ByteBuf retainedSlice2 = buf.retainedSlice(4, 4);
+        assertThat(retainedSlice2, sameInstance(retainedSlice));
+        assertThat(slice.getInt(0), is(1));
+        assertThat(dup.getInt(0), is(1));
+        assertThat(retainedSlice2.release(), is(true));
+
+        assertThat(buf.release(), is(true));
+        try {
+            slice.getInt(0);
+            fail();
+        } catch (IllegalReferenceCountException e) {
+            // expected
+        }
+    }
+
     @Test
     public void testReadOnly() throws Exception {
         ByteBuf buf = Unpooled.buffer(8).setIndex(1, 7);
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.nio.CharBuffer;
+
+import static io.netty.util.ReferenceCountUtil.releaseLater;
+import static org.junit.Assert.*;
+
+public class ByteBufUtilTest {
+
+    private static final String[] UTF8_STRINGS = {
+            "",
+            "Hello, World!",
+            "\u00e4\u00f6\u00fc\u00df",
+            "\u20ac\u4e2d\u6587",
+            "\ud83d\ude00 emoji",
+            "unpaired high \ud800 surrogate",
+            "unpaired low \udc00 surrogate",
+            "trailing high surrogate \ud800",
+            "mixed a\u00e4\u20ac\ud83d\ude00z",
+    };
+
+    @Test
+    public void testUtf8Length() {
+        for (String s: UTF8_STRINGS) {
+            assertEquals(s, s.getBytes(CharsetUtil.UTF_8).length, ByteBufUtil.utf8Length(s));
+        }
+    }
+
+    @Test
+    public void testWriteUtf8Heap() {
+        testWriteUtf8(Unpooled.buffer(1));
+    }
+
+    @Test
+    public void testWriteUtf8Direct() {
+        testWriteUtf8(Unpooled.directBuffer(1));
+    }
+
+    @Test
+    public void testWriteUtf8Composite() {
+        CompositeByteBuf buf = Unpooled.compositeBuffer();
+        buf.addComponent(Unpooled.buffer(4).writeInt(0)).addComponent(Unpooled.directBuffer(4).writeInt(0));
+        // The buffer has more than one component, so it has neither an array nor a memory address.
+        testWriteUtf8(buf);
+    }
+
+    private static void testWriteUtf8(ByteBuf buf) {
+        releaseLater(buf);
+        for (String s: UTF8_STRINGS) {
+            buf.clear();
+            byte[] expected = s.getBytes(CharsetUtil.UTF_8);
+            assertEquals(expected.length, ByteBufUtil.writeUtf8(buf, s));
+            assertEquals(expected.length, buf.readableBytes());
+            byte[] actual = new byte[expected.length];
+            buf.readBytes(actual);
+            assertArrayEquals(s, expected, actual);
+        }
+    }
+
+    @Test
+    public void testWriteUtf8Allocator() {
+        for (String s: UTF8_STRINGS) {
+            ByteBuf buf = releaseLater(ByteBufUtil.writeUtf8(UnpooledByteBufAllocator.DEFAULT, s));
+            assertEquals(Unpooled.copiedBuffer(s.getBytes(CharsetUtil.UTF_8)), buf);
+        }
+    }
+
+    @Test
+    public void testEncodeStringUtf8() {
+        for (String s: UTF8_STRINGS) {
+            CharBuffer src = CharBuffer.wrap(s);
+            ByteBuf buf = releaseLater(
+                    ByteBufUtil.encodeString(UnpooledByteBufAllocator.DEFAULT, src, CharsetUtil.UTF_8));
+            assertEquals(Unpooled.copiedBuffer(s.getBytes(CharsetUtil.UTF_8)), buf);
+            assertFalse(src.hasRemaining());
+        }
+    }
+
+    @Test
+    public void testWriteAscii() {
+        String s = "GET /index.html HTTP/1.1 \u00e4\u20ac";
+        byte[] expected = "GET /index.html HTTP/1.1 \u00e4?".getBytes(CharsetUtil.ISO_8859_1);
+        ByteBuf[] buffers = { Unpooled.buffer(1), Unpooled.directBuffer(1) };
+        for (ByteBuf buf: buffers) {
+            releaseLater(buf);
+            buf.writeByte('x');
+            assertEquals(s.length(), ByteBufUtil.writeAscii(buf, s));
+            assertEquals('x', buf.readByte());
+            assertEquals(Unpooled.wrappedBuffer(expected), buf);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.IllegalReferenceCountException;
+import io.netty.util.internal.PlatformDependent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+public class MappedFileByteBufTest {
+
+    private static final int FILE_SIZE = 8192;
+
+    @Rule
+    public final TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private byte[] content;
+    private RandomAccessFile file;
+    private FileChannel channel;
+
+    @BeforeClass
+    public static void assumeConditions() {
+        assumeTrue(PlatformDependent.hasUnsafe());
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        content = new byte[FILE_SIZE];
+        new Random().nextBytes(content);
+        File f = tmpDir.newFile();
+        FileOutputStream out = new FileOutputStream(f);
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+        file = new RandomAccessFile(f, "r");
+        channel = file.getChannel();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        file.close();
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        ByteBuf buf = Unpooled.mapFile(channel, 16, 1024);
+        assertTrue(buf instanceof MappedFileByteBuf);
+        assertFalse(buf.hasMemoryAddress());
+        assertEquals(1024, buf.readableBytes());
+        assertEquals(Unpooled.wrappedBuffer(content, 16, 1024), buf);
+        assertEquals(Unpooled.wrappedBuffer(content).getLong(16 + 8), buf.getLong(8));
+
+        int[] ints = new int[4];
+        buf.getInts(4, ints, 0, ints.length);
+        for (int i = 0; i < ints.length; i ++) {
+            assertEquals(Unpooled.wrappedBuffer(content).getInt(16 + 4 + i * 4), ints[i]);
+        }
+        assertTrue(buf.release());
+    }
+
+    @Test(expected = ReadOnlyBufferException.class)
+    public void testSetByte() throws Exception {
+        ByteBuf buf = Unpooled.mapFile(channel, 0, FILE_SIZE);
+        try {
+            buf.setByte(0, 1);
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testSlicesShareMapping() throws Exception {
+        ByteBuf buf = Unpooled.mapFile(channel, 0, FILE_SIZE);
+        ByteBuf slice = buf.slice(100, 100);
+        ByteBuf retainedSlice = buf.retainedSlice(200, 100);
+        assertEquals(2, buf.refCnt());
+
+        assertFalse(buf.release());
+        assertEquals(content[200], retainedSlice.getByte(0));
+        assertEquals(content[100], slice.getByte(0));
+
+        assertTrue(retainedSlice.release());
+        assertEquals(0, buf.refCnt());
+        try {
+            slice.getByte(0);
+            fail();
+        } catch (IllegalReferenceCountException expected) {
+            // expected
+        }
+        try {
+            buf.getByte(0);
+            fail();
+        } catch (IllegalReferenceCountException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testGetBytesIntoMappedBuffer() throws Exception {
+        ByteBuf buf = Unpooled.mapFile(channel, 0, FILE_SIZE);
+        ByteBuf direct = Unpooled.directBuffer(16).writeZero(16);
+        ByteBuf heap = Unpooled.buffer(16).writeZero(16);
+        try {
+            try {
+                direct.getBytes(0, buf, 0, 16);
+                fail();
+            } catch (ReadOnlyBufferException expected) {
+                // expected
+            }
+            try {
+                heap.getBytes(0, buf, 0, 16);
+                fail();
+            } catch (ReadOnlyBufferException expected) {
+                // expected
+            }
+            assertEquals(Unpooled.wrappedBuffer(content), buf);
+        } finally {
+            buf.release();
+            direct.release();
+            heap.release();
+        }
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        assertSame(Unpooled.EMPTY_BUFFER, Unpooled.mapFile(channel, 0, 0));
+    }
+}
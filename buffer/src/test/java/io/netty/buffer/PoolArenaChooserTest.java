@@ -0,0 +1,114 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PoolArenaChooserTest {
+
+    @Rule
+    public final TemporaryFolder tmpDir = new TemporaryFolder();
+
+    @Test
+    public void testParseCpuList() {
+        assertArrayEquals(new int[] { 0, 1, 2, 3, 8, 10, 11 }, NumaPoolArenaChooser.parseCpuList("0-3,8,10-11\n"));
+        assertArrayEquals(new int[] { 5 }, NumaPoolArenaChooser.parseCpuList("5"));
+        assertArrayEquals(new int[0], NumaPoolArenaChooser.parseCpuList(""));
+    }
+
+    @Test
+    public void testNumaNodes() throws Exception {
+        File nodeDir = tmpDir.newFolder("node");
+        writeCpuList(nodeDir, "node0", "0-1,4-5");
+        writeCpuList(nodeDir, "node1", "2-3,6-7");
+        assertTrue(new File(nodeDir, "possible").createNewFile());
+
+        NumaPoolArenaChooser chooser = new NumaPoolArenaChooser(nodeDir);
+        assertEquals(2, chooser.numNodes());
+        assertEquals(0, chooser.node(0));
+        assertEquals(0, chooser.node(5));
+        assertEquals(1, chooser.node(2));
+        assertEquals(1, chooser.node(7));
+        assertEquals(-1, chooser.node(8));
+        assertEquals(-1, chooser.node(-1));
+    }
+
+    @Test
+    public void testMissingNumaNodes() throws Exception {
+        NumaPoolArenaChooser chooser = new NumaPoolArenaChooser(new File(tmpDir.getRoot(), "missing"));
+        assertEquals(0, chooser.numNodes());
+
+        PooledByteBufAllocator allocator = newAllocator(chooser);
+        allocator.directBuffer(16).release();
+        assertEquals(1, allocator.directArenas().get(0).numThreadCaches());
+    }
+
+    @Test
+    public void testEventExecutorBinding() throws Exception {
+        EventExecutorGroup group = new DefaultEventExecutorGroup(2);
+        try {
+            final PooledByteBufAllocator allocator = newAllocator(new EventExecutorPoolArenaChooser(group));
+            for (EventExecutor executor: group.children()) {
+                executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        allocator.directBuffer(16).release();
+                        return null;
+                    }
+                }).sync();
+            }
+            assertEquals(1, allocator.directArenas().get(0).numThreadCaches());
+            assertEquals(1, allocator.directArenas().get(1).numThreadCaches());
+
+            // Threads outside of the group use the arenas which are not bound to an executor.
+            allocator.directBuffer(16).release();
+            assertEquals(1, allocator.directArenas().get(2).numThreadCaches());
+            assertEquals(0, allocator.directArenas().get(3).numThreadCaches());
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    private static PooledByteBufAllocator newAllocator(PoolArenaChooser chooser) {
+        return PooledByteBufAllocator.builder().preferDirect(true).numHeapArenas(0).numDirectArenas(4)
+                .tinyCacheSize(0).smallCacheSize(0).normalCacheSize(0).maxCachedHugeBytes(0)
+                .powerOfTwoSizeClasses(true).mappedChunkDirectory(null).arenaChooser(chooser).build();
+    }
+
+    private static void writeCpuList(File nodeDir, String node, String cpuList) throws IOException {
+        File dir = new File(nodeDir, node);
+        assertTrue(dir.mkdir());
+        FileOutputStream out = new FileOutputStream(new File(dir, "cpulist"));
+        try {
+            out.write((cpuList + '\n').getBytes("US-ASCII"));
+        } finally {
+            out.close();
+        }
+    }
+}
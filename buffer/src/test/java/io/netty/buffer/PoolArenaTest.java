@@ -20,16 +20,42 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
 
 public class PoolArenaTest {
 
     @Test
     public void testNormalizeCapacity() throws Exception {
-        PoolArena<ByteBuffer> arena = new PoolArena.DirectArena(null, 0, 0, 9, 999999);
+        PoolArena<ByteBuffer> arena = new PoolArena.DirectArena(null, 0, 0, 9, 999999, 0, true, null);
         int[] reqCapacities = {0, 15, 510, 1024, 1023, 1025};
         int[] expectedResult = {0, 16, 512, 1024, 1024, 2048};
         for (int i = 0; i < reqCapacities.length; i ++) {
             Assert.assertEquals(expectedResult[i], arena.normalizeCapacity(reqCapacities[i]));
         }
     }
+
+    @Test
+    public void testNormalizeCapacityWithFineSizeClasses() throws Exception {
+        // 8 KiB pages and 16 MiB chunks.
+        PoolArena<ByteBuffer> arena = new PoolArena.DirectArena(null, 8192, 11, 13, 8192 << 11, 0, false, null);
+        int[] reqCapacities = {0, 15, 510, 513, 1023, 1025, 5000, 8193, 9216, 12289, 524289, 917505, 1048577};
+        int[] expectedResult = {0, 16, 512, 640, 1024, 1280, 5120, 10240, 10240, 14336, 655360, 1048576, 2097152};
+        for (int i = 0; i < reqCapacities.length; i ++) {
+            Assert.assertEquals(expectedResult[i], arena.normalizeCapacity(reqCapacities[i]));
+        }
+    }
+
+    @Test
+    public void testHugeChunkCacheReleasesExpiredChunks() throws Exception {
+        PoolArena<byte[]> arena = new PoolArena.HeapArena(null, 4096, 1, 12, 8192, 0, false);
+        PoolHugeChunkCache<byte[]> cache =
+                new PoolHugeChunkCache<byte[]>(arena, 8192, 65536, TimeUnit.MILLISECONDS.toNanos(10));
+        Assert.assertTrue(cache.offer(arena.newUnpooledChunk(10240)));
+        Assert.assertEquals(10240, cache.cachedBytes());
+
+        Thread.sleep(50);
+        // Polling a different size class releases the expired chunk without any trimming.
+        Assert.assertNull(cache.poll(12288));
+        Assert.assertEquals(0, cache.cachedBytes());
+    }
 }
@@ -0,0 +1,461 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.concurrent.DefaultEventExecutor;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.PlatformDependent;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class PooledByteBufAllocatorTest {
+
+    private static final int[] SIZES = { 16, 64, 496, 600, 1024, 4096, 8192, 12000, 65536, 200000 };
+
+    @Rule
+    public final TemporaryFolder tmpDir = new TemporaryFolder();
+
+    @Test(timeout = 30000)
+    public void testConcurrentAllocateAndRelease() throws Throwable {
+        // Use a single arena so that all threads contend on it.
+        final PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 1, 1, 8192, 11, 0, 0, 0);
+        final int numThreads = 8;
+        final int iterations = 10000;
+        final Queue<ByteBuf> releaseQueue = new ConcurrentLinkedQueue<ByteBuf>();
+        final AtomicReference<Throwable> cause = new AtomicReference<Throwable>();
+        final CountDownLatch latch = new CountDownLatch(numThreads);
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < numThreads; i ++) {
+            final int threadIdx = i;
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < iterations; j ++) {
+                            int size = SIZES[(threadIdx + j) % SIZES.length];
+                            ByteBuf buf = (j & 1) == 0 ? allocator.directBuffer(size) : allocator.heapBuffer(size);
+                            buf.writeZero(size);
+                            assertEquals(size, buf.readableBytes());
+                            if ((j & 3) == 0) {
+                                // Release from a different thread.
+                                releaseQueue.add(buf);
+                            } else {
+                                buf.release();
+                            }
+                            ByteBuf other = releaseQueue.poll();
+                            if (other != null) {
+                                assertTrue(other.release());
+                            }
+                        }
+                    } catch (Throwable t) {
+                        cause.compareAndSet(null, t);
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+
+        latch.await();
+        for (Thread t: threads) {
+            t.join();
+        }
+
+        for (;;) {
+            ByteBuf buf = releaseQueue.poll();
+            if (buf == null) {
+                break;
+            }
+            assertTrue(buf.release());
+        }
+
+        Throwable t = cause.get();
+        if (t != null) {
+            throw t;
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentNormalAllocations() throws Throwable {
+        // Use small chunks and no thread caches so chunks are moved between the lists and destroyed all the time.
+        final PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 3, 0, 0, 0);
+        final int numThreads = 8;
+        final int iterations = 10000;
+        final AtomicReference<Throwable> cause = new AtomicReference<Throwable>();
+        final CountDownLatch latch = new CountDownLatch(numThreads);
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < numThreads; i ++) {
+            final byte[] data = new byte[16384];
+            Arrays.fill(data, (byte) i);
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        List<ByteBuf> bufs = new ArrayList<ByteBuf>();
+                        for (int j = 0; j < iterations; j ++) {
+                            int size = 8192 << (j & 1);
+                            ByteBuf buf = allocator.heapBuffer(size);
+                            buf.writeBytes(data, 0, size);
+                            bufs.add(buf);
+                            if (bufs.size() == 4) {
+                                for (ByteBuf b: bufs) {
+                                    assertEquals(Unpooled.wrappedBuffer(data, 0, b.readableBytes()), b);
+                                    assertTrue(b.release());
+                                }
+                                bufs.clear();
+                            }
+                        }
+                        for (ByteBuf b: bufs) {
+                            assertTrue(b.release());
+                        }
+                    } catch (Throwable t) {
+                        cause.compareAndSet(null, t);
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+
+        latch.await();
+        for (Thread t: threads) {
+            t.join();
+        }
+
+        Throwable t = cause.get();
+        if (t != null) {
+            throw t;
+        }
+        assertEquals(0, allocator.heapArenas().get(0).numActiveNormalAllocations());
+    }
+
+    @Test(timeout = 10000)
+    public void testNormalAllocationsPreferChunksNotUsedByOtherThreads() throws Exception {
+        final PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 2, 0, 0, 0);
+        List<ByteBuf> bufs = new ArrayList<ByteBuf>();
+        for (int i = 0; i < 5; i ++) {
+            bufs.add(allocator.heapBuffer(8192));
+        }
+        PoolChunk<?> full = ((PooledByteBuf<?>) unwrapLeakAware(bufs.get(0))).chunk;
+        PoolChunk<?> current = ((PooledByteBuf<?>) unwrapLeakAware(bufs.get(4))).chunk;
+        assertNotSame(full, current);
+        assertTrue(bufs.remove(0).release());
+
+        // The current thread allocates from the second chunk, so another thread should pick the first one.
+        final AtomicReference<ByteBuf> other = new AtomicReference<ByteBuf>();
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                other.set(allocator.heapBuffer(8192));
+            }
+        });
+        t.start();
+        t.join();
+        assertSame(full, ((PooledByteBuf<?>) unwrapLeakAware(other.get())).chunk);
+        bufs.add(allocator.heapBuffer(8192));
+        assertSame(current, ((PooledByteBuf<?>) unwrapLeakAware(bufs.get(bufs.size() - 1))).chunk);
+
+        assertTrue(other.get().release());
+        for (ByteBuf buf: bufs) {
+            assertTrue(buf.release());
+        }
+    }
+
+    @Test
+    public void testArenaMetrics() {
+        PooledByteBufAllocator allocator = PooledByteBufAllocator.builder().numHeapArenas(1).numDirectArenas(0)
+                .tinyCacheSize(0).smallCacheSize(0).normalCacheSize(0).maxCachedHugeBytes(0).build();
+        assertEquals(1, allocator.numHeapArenas());
+        assertEquals(0, allocator.numDirectArenas());
+        assertEquals(8192 << 11, allocator.chunkSize());
+
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+        assertEquals(6, metric.numChunkLists());
+        assertEquals(0, metric.numActiveBytes());
+
+        ByteBuf tiny = allocator.heapBuffer(16);
+        ByteBuf small = allocator.heapBuffer(1024);
+        ByteBuf normal = allocator.heapBuffer(16384);
+        ByteBuf huge = allocator.heapBuffer(allocator.chunkSize() + 1);
+
+        assertEquals(1, allocator.numThreadLocalCaches());
+        assertEquals(1, metric.numTinyAllocations());
+        assertEquals(1, metric.numSmallAllocations());
+        assertEquals(1, metric.numNormalAllocations());
+        assertEquals(1, metric.numHugeAllocations());
+        assertEquals(4, metric.numActiveAllocations());
+        assertEquals(allocator.chunkSize() * 2L + 1, metric.numActiveBytes());
+        assertEquals(1, metric.tinySubpages().size());
+        assertEquals(1, metric.smallSubpages().size());
+
+        int numChunks = 0;
+        for (PoolChunkListMetric list: metric.chunkLists()) {
+            numChunks += list.numChunks();
+            for (PoolChunkMetric chunk: list) {
+                assertEquals(allocator.chunkSize(), chunk.chunkSize());
+                assertTrue(chunk.freeBytes() < chunk.chunkSize());
+            }
+        }
+        assertEquals(1, numChunks);
+
+        assertTrue(tiny.release());
+        assertTrue(small.release());
+        assertTrue(normal.release());
+        assertTrue(huge.release());
+
+        assertEquals(1, metric.numTinyDeallocations());
+        assertEquals(1, metric.numSmallDeallocations());
+        assertEquals(1, metric.numNormalDeallocations());
+        assertEquals(1, metric.numHugeDeallocations());
+        assertEquals(0, metric.numActiveAllocations());
+    }
+
+    @Test(timeout = 10000)
+    public void testReleaseFromOtherThreadIsReturnedToAllocatingThread() throws Exception {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 1, 1, 8192, 11);
+        testReleaseFromOtherThreadIsReturnedToAllocatingThread(allocator.heapBuffer(64));
+        testReleaseFromOtherThreadIsReturnedToAllocatingThread(allocator.directBuffer(1024));
+        testReleaseFromOtherThreadIsReturnedToAllocatingThread(allocator.directBuffer(16384));
+    }
+
+    @Test(timeout = 10000)
+    public void testReleaseFromOtherThreadOfUncachedSizeIsFreedToArena() throws Exception {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 0, 1, 8192, 11);
+        PoolArenaMetric metric = allocator.directArenas().get(0);
+        // Larger than maxCachedBufferCapacity so the cache of this thread would never hold it.
+        final ByteBuf buf = allocator.directBuffer(65536);
+        assertEquals(1, metric.numActiveNormalAllocations());
+
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                buf.release();
+            }
+        });
+        t.start();
+        t.join();
+
+        assertEquals(1, metric.numNormalDeallocations());
+        assertEquals(0, metric.numActiveNormalAllocations());
+    }
+
+    private static void testReleaseFromOtherThreadIsReturnedToAllocatingThread(ByteBuf buf) throws Exception {
+        final PooledByteBuf<?> pooled = (PooledByteBuf<?>) unwrapLeakAware(buf);
+        final PoolChunk<?> chunk = pooled.chunk;
+        final long handle = pooled.handle;
+        final int capacity = buf.capacity();
+
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                pooled.release();
+            }
+        });
+        t.start();
+        t.join();
+
+        ByteBuf newBuf = buf.isDirect() ? pooled.alloc().directBuffer(capacity) : pooled.alloc().heapBuffer(capacity);
+        PooledByteBuf<?> newPooled = (PooledByteBuf<?>) unwrapLeakAware(newBuf);
+        try {
+            // The memory must have been handed back to the cache of this thread and so be reused.
+            assertSame(chunk, newPooled.chunk);
+            assertEquals(handle, newPooled.handle);
+        } finally {
+            newBuf.release();
+        }
+    }
+
+    @Test
+    public void testTrimIdleThreadCacheAndUnusedChunks() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 0, 1, 8192, 11);
+        PoolArena<?> arena = (PoolArena<?>) allocator.directArenas().get(0);
+
+        assertFalse(allocator.trimCurrentThreadCache());
+        allocator.directBuffer(16384).release();
+        assertEquals(allocator.chunkSize(), arena.numActiveBytes());
+
+        // The buffer was allocated since the last trim so it stays cached.
+        assertTrue(allocator.trimCurrentThreadCache());
+        assertEquals(0, arena.destroyUnusedChunks(0));
+
+        // No allocation since the last trim so the thread is considered idle and the cache is released.
+        assertTrue(allocator.trimCurrentThreadCache());
+        assertEquals(1, arena.destroyUnusedChunks(0));
+        assertEquals(0, arena.numActiveBytes());
+    }
+
+    @Test(timeout = 10000)
+    public void testTrimTaskIsCancelledWhenCacheIsFreed() throws Exception {
+        final PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 0, 1, 8192, 11);
+        EventExecutor executor = new DefaultEventExecutor();
+        try {
+            ScheduledFuture<?> trimFuture = executor.submit(new Callable<ScheduledFuture<?>>() {
+                @Override
+                public ScheduledFuture<?> call() {
+                    allocator.directBuffer(16).release();
+                    return allocator.threadCache.get().trimFuture;
+                }
+            }).sync().getNow();
+            assertNotNull(trimFuture);
+            assertFalse(trimFuture.isDone());
+
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    allocator.threadCache.remove();
+                }
+            }).sync();
+            assertTrue(trimFuture.isCancelled());
+        } finally {
+            executor.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    @Test
+    public void testHugeAllocationsAreCached() {
+        // 8 KiB chunks and at most 64 KiB of cached huge allocations.
+        PooledByteBufAllocator allocator = PooledByteBufAllocator.builder().numHeapArenas(1).numDirectArenas(0)
+                .pageSize(4096).maxOrder(1).tinyCacheSize(0).smallCacheSize(0).normalCacheSize(0)
+                .maxCachedHugeBytes(65536).build();
+        PoolArena<?> arena = (PoolArena<?>) allocator.heapArenas().get(0);
+
+        // Rounded up to the next of four size classes between 8 KiB and 16 KiB.
+        ByteBuf buf = allocator.heapBuffer(9000);
+        assertEquals(9000, buf.capacity());
+        assertEquals(10240, arena.numActiveBytes());
+        Object memory = ((PooledByteBuf<?>) unwrapLeakAware(buf)).memory;
+        assertTrue(buf.release());
+        assertEquals(0, arena.numActiveBytes());
+        assertEquals(10240, arena.numCachedHugeBytes());
+
+        buf = allocator.heapBuffer(10000);
+        assertSame(memory, ((PooledByteBuf<?>) unwrapLeakAware(buf)).memory);
+        assertEquals(0, arena.numCachedHugeBytes());
+        assertTrue(buf.release());
+
+        // Bigger than the cap so never cached.
+        assertTrue(allocator.heapBuffer(100000).release());
+        assertEquals(10240, arena.numCachedHugeBytes());
+
+        // Exceeding the cap evicts the chunks which were unused for the longest time.
+        ByteBuf a = allocator.heapBuffer(30000);
+        ByteBuf b = allocator.heapBuffer(30000);
+        assertTrue(a.release());
+        assertTrue(b.release());
+        assertEquals(65536, arena.numCachedHugeBytes());
+
+        assertEquals(0, arena.destroyUnusedChunks(Long.MAX_VALUE));
+        assertEquals(2, arena.destroyUnusedChunks(0));
+        assertEquals(0, arena.numCachedHugeBytes());
+    }
+
+    @Test
+    public void testFineSizeClasses() {
+        testSizeClasses(false, 9216, 10240);
+        testSizeClasses(false, 600, 640);
+        testSizeClasses(false, 200000, 229376);
+    }
+
+    @Test
+    public void testPowerOfTwoSizeClasses() {
+        testSizeClasses(true, 9216, 16384);
+        testSizeClasses(true, 600, 1024);
+        testSizeClasses(true, 200000, 262144);
+    }
+
+    private static void testSizeClasses(boolean powerOfTwoSizeClasses, int reqCapacity, int expectedMaxLength) {
+        PooledByteBufAllocator allocator = PooledByteBufAllocator.builder().numHeapArenas(1).numDirectArenas(0)
+                .tinyCacheSize(0).smallCacheSize(0).normalCacheSize(0).maxCachedHugeBytes(0)
+                .powerOfTwoSizeClasses(powerOfTwoSizeClasses).build();
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+
+        List<ByteBuf> buffers = new ArrayList<ByteBuf>();
+        for (int i = 0; i < 100; i ++) {
+            ByteBuf buf = allocator.heapBuffer(reqCapacity);
+            assertEquals(expectedMaxLength, ((PooledByteBuf<?>) unwrapLeakAware(buf)).maxLength);
+            buffers.add(buf.writerIndex(reqCapacity).setByte(0, i).setByte(reqCapacity - 1, i));
+        }
+        for (int i = 0; i < buffers.size(); i ++) {
+            ByteBuf buf = buffers.get(i);
+            assertEquals((byte) i, buf.getByte(0));
+            assertEquals((byte) i, buf.getByte(reqCapacity - 1));
+            assertTrue(buf.release());
+        }
+        assertEquals(0, metric.numActiveAllocations());
+    }
+
+    @Test
+    public void testMappedChunks() throws Exception {
+        File dir = tmpDir.newFolder();
+        PooledByteBufAllocator allocator = PooledByteBufAllocator.builder()
+                .preferDirect(true).numHeapArenas(0).numDirectArenas(1)
+                .tinyCacheSize(0).smallCacheSize(0).normalCacheSize(0).maxCachedHugeBytes(0)
+                .powerOfTwoSizeClasses(false).mappedChunkDirectory(dir).build();
+        PoolArena<?> arena = (PoolArena<?>) allocator.directArenas().get(0);
+
+        List<ByteBuf> buffers = new ArrayList<ByteBuf>();
+        for (int size: SIZES) {
+            ByteBuf buf = allocator.directBuffer(size);
+            PoolChunk<?> chunk = ((PooledByteBuf<?>) unwrapLeakAware(buf)).chunk;
+            assertTrue(chunk.base instanceof MappedByteBuffer);
+            if (PlatformDependent.hasUnsafe()) {
+                long address = PlatformDependent.directBufferAddress((ByteBuffer) chunk.memory);
+                assertEquals(0, address & DirectChunkMapper.ALIGNMENT - 1);
+            }
+            buffers.add(buf.writeZero(size).setInt(0, size).setByte(size - 1, 42));
+        }
+        // The files are deleted right after they were mapped.
+        assertEquals(0, dir.list().length);
+
+        for (int i = 0; i < buffers.size(); i ++) {
+            ByteBuf buf = buffers.get(i);
+            assertEquals(SIZES[i], buf.getInt(0));
+            assertEquals(42, buf.getByte(SIZES[i] - 1));
+            assertTrue(buf.release());
+        }
+        assertEquals(0, arena.numActiveAllocations());
+    }
+
+    private static ByteBuf unwrapLeakAware(ByteBuf buf) {
+        if (buf instanceof SimpleLeakAwareByteBuf || buf instanceof AdvancedLeakAwareByteBuf) {
+            return buf.unwrap();
+        }
+        return buf;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.IllegalReferenceCountException;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ThreadConfinedByteBufAllocatorTest {
+
+    @Test
+    public void testRetainRelease() {
+        ByteBufAllocator alloc = new ThreadConfinedByteBufAllocator(UnpooledByteBufAllocator.DEFAULT, true);
+        ByteBuf buf = alloc.heapBuffer(8);
+        assertEquals(1, buf.refCnt());
+        buf.retain(2);
+        assertEquals(3, buf.refCnt());
+        assertFalse(buf.release());
+        assertFalse(buf.release());
+        assertTrue(buf.release());
+        assertEquals(0, buf.refCnt());
+        try {
+            buf.release();
+            fail();
+        } catch (IllegalReferenceCountException expected) {
+            // expected
+        }
+        try {
+            buf.retain();
+            fail();
+        } catch (IllegalReferenceCountException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testReleaseByOtherThread() throws Exception {
+        ByteBufAllocator alloc = new ThreadConfinedByteBufAllocator(UnpooledByteBufAllocator.DEFAULT, true);
+        final ByteBuf buf = alloc.directBuffer(8);
+        final AtomicReference<Throwable> cause = new AtomicReference<Throwable>();
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    buf.release();
+                } catch (Throwable e) {
+                    cause.set(e);
+                }
+            }
+        });
+        t.start();
+        t.join();
+        assertTrue(cause.get() instanceof IllegalStateException);
+        assertEquals(1, buf.refCnt());
+        assertTrue(buf.release());
+    }
+
+    @Test
+    public void testRetainedSliceIsConfined() {
+        PooledByteBufAllocator pooled = new PooledByteBufAllocator(false);
+        ByteBufAllocator alloc = new ThreadConfinedByteBufAllocator(pooled, true);
+        ByteBuf buf = alloc.heapBuffer(8).writeLong(1);
+        ByteBuf slice = buf.retainedSlice(0, 4);
+        assertTrue(isThreadConfined(slice));
+        assertEquals(2, buf.refCnt());
+        assertTrue(slice.release());
+        assertTrue(buf.release());
+    }
+
+    @Test
+    public void testPooledBufferNotConfinedAfterReuse() {
+        PooledByteBufAllocator pooled = new PooledByteBufAllocator(false);
+        ByteBufAllocator alloc = new ThreadConfinedByteBufAllocator(pooled, true);
+        ByteBuf buf = alloc.heapBuffer(8);
+        assertTrue(isThreadConfined(buf));
+        assertTrue(buf.release());
+
+        // The same instance is handed out again by the recycler.
+        ByteBuf reused = pooled.heapBuffer(8);
+        assertFalse(isThreadConfined(reused));
+        assertTrue(reused.release());
+    }
+
+    @Test
+    public void testUnconfinableBufferIsRejected() {
+        ByteBufAllocator readOnly = new AbstractByteBufAllocator() {
+            @Override
+            protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+                return Unpooled.unmodifiableBuffer(Unpooled.buffer(initialCapacity, maxCapacity));
+            }
+
+            @Override
+            protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+                return Unpooled.unmodifiableBuffer(Unpooled.directBuffer(initialCapacity, maxCapacity));
+            }
+
+            @Override
+            public boolean isDirectBufferPooled() {
+                return false;
+            }
+        };
+        ByteBufAllocator alloc = new ThreadConfinedByteBufAllocator(readOnly);
+        try {
+            alloc.heapBuffer(8);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        // Empty buffers are never deallocated and so are returned as they are.
+        assertSame(Unpooled.EMPTY_BUFFER.getClass(), alloc.heapBuffer(0, 0).getClass());
+    }
+
+    private static boolean isThreadConfined(ByteBuf buf) {
+        while (buf instanceof WrappedByteBuf) {
+            buf = buf.unwrap();
+        }
+        return ((AbstractReferenceCountedByteBuf) buf).isThreadConfined();
+    }
+}
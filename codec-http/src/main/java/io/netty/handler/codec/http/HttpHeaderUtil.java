@@ -17,6 +17,7 @@
 package io.netty.handler.codec.http;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.handler.codec.AsciiString;
 import io.netty.handler.codec.http.HttpHeaders.Names;
 import io.netty.handler.codec.http.HttpHeaders.Values;
@@ -257,10 +258,7 @@ public final class HttpHeaderUtil {
     }
 
     static void encodeAscii0(CharSequence seq, ByteBuf buf) {
-        int length = seq.length();
-        for (int i = 0 ; i < length; i++) {
-            buf.writeByte((byte) seq.charAt(i));
-        }
+        ByteBufUtil.writeAscii(buf, seq);
     }
 
     private HttpHeaderUtil() { }
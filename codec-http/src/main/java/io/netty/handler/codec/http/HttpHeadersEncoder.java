@@ -17,6 +17,7 @@
 package io.netty.handler.codec.http;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.handler.codec.AsciiString;
 import io.netty.handler.codec.TextHeaderProcessor;
 
@@ -31,42 +32,21 @@ final class HttpHeadersEncoder implements TextHeaderProcessor {
     @Override
     public boolean process(CharSequence name, CharSequence value) throws Exception {
         final ByteBuf buf = this.buf;
-        final int nameLen = name.length();
-        final int valueLen = value.length();
-        final int entryLen = nameLen + valueLen + 4;
-        int offset = buf.writerIndex();
-        buf.ensureWritable(entryLen);
-        writeAscii(buf, offset, name, nameLen);
-        offset += nameLen;
-        buf.setByte(offset ++, ':');
-        buf.setByte(offset ++, ' ');
-        writeAscii(buf, offset, value, valueLen);
-        offset += valueLen;
-        buf.setByte(offset ++, '\r');
-        buf.setByte(offset ++, '\n');
-        buf.writerIndex(offset);
+        buf.ensureWritable(name.length() + value.length() + 4);
+        writeAscii(buf, name);
+        buf.writeByte(':');
+        buf.writeByte(' ');
+        writeAscii(buf, value);
+        buf.writeByte('\r');
+        buf.writeByte('\n');
         return true;
     }
 
-    private static void writeAscii(ByteBuf buf, int offset, CharSequence value, int valueLen) {
+    private static void writeAscii(ByteBuf buf, CharSequence value) {
         if (value instanceof AsciiString) {
-            writeAsciiString(buf, offset, (AsciiString) value, valueLen);
+            ((AsciiString) value).copy(0, buf, value.length());
         } else {
-            writeCharSequence(buf, offset, value, valueLen);
+            ByteBufUtil.writeAscii(buf, value);
         }
     }
-
-    private static void writeAsciiString(ByteBuf buf, int offset, AsciiString value, int valueLen) {
-        value.copy(0, buf, offset, valueLen);
-    }
-
-    private static void writeCharSequence(ByteBuf buf, int offset, CharSequence value, int valueLen) {
-        for (int i = 0; i < valueLen; i ++) {
-            buf.setByte(offset ++, c2b(value.charAt(i)));
-        }
-    }
-
-    private static int c2b(char ch) {
-        return ch < 256? (byte) ch : '?';
-    }
 }
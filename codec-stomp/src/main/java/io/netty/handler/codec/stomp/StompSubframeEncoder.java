@@ -16,12 +16,12 @@
 package io.netty.handler.codec.stomp;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.AsciiHeadersEncoder;
 import io.netty.handler.codec.AsciiHeadersEncoder.NewlineType;
 import io.netty.handler.codec.AsciiHeadersEncoder.SeparatorType;
 import io.netty.handler.codec.MessageToMessageEncoder;
-import io.netty.util.CharsetUtil;
 
 import java.util.List;
 
@@ -63,7 +63,7 @@ public class StompSubframeEncoder extends MessageToMessageEncoder<StompSubframe>
     private static ByteBuf encodeFrame(StompHeadersSubframe frame, ChannelHandlerContext ctx) {
         ByteBuf buf = ctx.alloc().buffer();
 
-        buf.writeBytes(frame.command().toString().getBytes(CharsetUtil.US_ASCII));
+        ByteBufUtil.writeAscii(buf, frame.command().toString());
         buf.writeByte(StompConstants.LF);
         frame.headers().forEachEntry(new AsciiHeadersEncoder(buf, SeparatorType.COLON, NewlineType.LF));
         buf.writeByte(StompConstants.LF);
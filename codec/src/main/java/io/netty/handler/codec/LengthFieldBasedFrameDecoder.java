@@ -482,6 +482,10 @@ public class LengthFieldBasedFrameDecoder extends ByteToMessageDecoder {
     /**
      * Extract the sub-region of the specified buffer.
      * <p>
+     * By default the frame is copied, so the cumulation buffer can be released as soon as it was fully read.
+     * If the frame is released soon you can avoid the memory copy by returning a retained slice
+     * (i.e. <tt>return buffer.retainedSlice(index, length)</tt>), which keeps the whole cumulation buffer
+     * referenced until the frame is released.
      * If you are sure that the frame and its content are not accessed after
      * the current {@link #decode(ChannelHandlerContext, ByteBuf)}
      * call returns, you can even avoid memory copy by returning the sliced
@@ -318,6 +318,19 @@ final class ReplayingDecoderBuffer extends ByteBuf {
         return buffer.indexOf(fromIndex, toIndex, value);
     }
 
+    @Override
+    public int indexOfAny(int fromIndex, int toIndex, byte... values) {
+        if (fromIndex == toIndex) {
+            return -1;
+        }
+
+        if (Math.max(fromIndex, toIndex) > buffer.writerIndex()) {
+            throw REPLAY;
+        }
+
+        return buffer.indexOfAny(fromIndex, toIndex, values);
+    }
+
     @Override
     public int bytesBefore(byte value) {
         int bytes = buffer.bytesBefore(value);
@@ -528,6 +541,12 @@ final class ReplayingDecoderBuffer extends ByteBuf {
         return buffer.readSlice(length);
     }
 
+    @Override
+    public ByteBuf readRetainedSlice(int length) {
+        checkReadableBytes(length);
+        return buffer.readRetainedSlice(length);
+    }
+
     @Override
     public ByteBuf readBytes(OutputStream out, int length) {
         reject();
@@ -750,6 +769,24 @@ final class ReplayingDecoderBuffer extends ByteBuf {
         return buffer.slice(index, length);
     }
 
+    @Override
+    public ByteBuf retainedSlice() {
+        reject();
+        return this;
+    }
+
+    @Override
+    public ByteBuf retainedSlice(int index, int length) {
+        checkIndex(index, length);
+        return buffer.retainedSlice(index, length);
+    }
+
+    @Override
+    public ByteBuf retainedDuplicate() {
+        reject();
+        return this;
+    }
+
     @Override
     public int nioBufferCount() {
         return buffer.nioBufferCount();
@@ -912,6 +949,136 @@ final class ReplayingDecoderBuffer extends ByteBuf {
         return this;
     }
 
+    @Override
+    public ByteBuf getShorts(int index, short[] dst, int dstIndex, int length) {
+        checkIndex(index, length << 1);
+        buffer.getShorts(index, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setShorts(int index, short[] src, int srcIndex, int length) {
+        reject();
+        return this;
+    }
+
+    @Override
+    public ByteBuf readShorts(short[] dst, int dstIndex, int length) {
+        checkReadableBytes(length << 1);
+        buffer.readShorts(dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeShorts(short[] src, int srcIndex, int length) {
+        reject();
+        return this;
+    }
+
+    @Override
+    public ByteBuf getInts(int index, int[] dst, int dstIndex, int length) {
+        checkIndex(index, length << 2);
+        buffer.getInts(index, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setInts(int index, int[] src, int srcIndex, int length) {
+        reject();
+        return this;
+    }
+
+    @Override
+    public ByteBuf readInts(int[] dst, int dstIndex, int length) {
+        checkReadableBytes(length << 2);
+        buffer.readInts(dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeInts(int[] src, int srcIndex, int length) {
+        reject();
+        return this;
+    }
+
+    @Override
+    public ByteBuf getLongs(int index, long[] dst, int dstIndex, int length) {
+        checkIndex(index, length << 3);
+        buffer.getLongs(index, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setLongs(int index, long[] src, int srcIndex, int length) {
+        reject();
+        return this;
+    }
+
+    @Override
+    public ByteBuf readLongs(long[] dst, int dstIndex, int length) {
+        checkReadableBytes(length << 3);
+        buffer.readLongs(dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeLongs(long[] src, int srcIndex, int length) {
+        reject();
+        return this;
+    }
+
+    @Override
+    public ByteBuf getFloats(int index, float[] dst, int dstIndex, int length) {
+        checkIndex(index, length << 2);
+        buffer.getFloats(index, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setFloats(int index, float[] src, int srcIndex, int length) {
+        reject();
+        return this;
+    }
+
+    @Override
+    public ByteBuf readFloats(float[] dst, int dstIndex, int length) {
+        checkReadableBytes(length << 2);
+        buffer.readFloats(dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeFloats(float[] src, int srcIndex, int length) {
+        reject();
+        return this;
+    }
+
+    @Override
+    public ByteBuf getDoubles(int index, double[] dst, int dstIndex, int length) {
+        checkIndex(index, length << 3);
+        buffer.getDoubles(index, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setDoubles(int index, double[] src, int srcIndex, int length) {
+        reject();
+        return this;
+    }
+
+    @Override
+    public ByteBuf readDoubles(double[] dst, int dstIndex, int length) {
+        checkReadableBytes(length << 3);
+        buffer.readDoubles(dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf writeDoubles(double[] src, int srcIndex, int length) {
+        reject();
+        return this;
+    }
+
     @Override
     public int writerIndex() {
         return buffer.writerIndex();
@@ -22,6 +22,7 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPipeline;
 import io.netty.handler.codec.LineBasedFrameDecoder;
 import io.netty.handler.codec.MessageToMessageEncoder;
+import io.netty.util.CharsetUtil;
 
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
@@ -53,6 +54,7 @@ public class StringEncoder extends MessageToMessageEncoder<CharSequence> {
 
     // TODO Use CharsetEncoder instead.
     private final Charset charset;
+    private final boolean utf8;
 
     /**
      * Creates a new instance with the current system character set.
@@ -69,6 +71,7 @@ public class StringEncoder extends MessageToMessageEncoder<CharSequence> {
             throw new NullPointerException("charset");
         }
         this.charset = charset;
+        utf8 = CharsetUtil.UTF_8.equals(charset);
     }
 
     @Override
@@ -77,6 +80,10 @@ public class StringEncoder extends MessageToMessageEncoder<CharSequence> {
             return;
         }
 
-        out.add(ByteBufUtil.encodeString(ctx.alloc(), CharBuffer.wrap(msg), charset));
+        if (utf8) {
+            out.add(ByteBufUtil.writeUtf8(ctx.alloc(), msg));
+        } else {
+            out.add(ByteBufUtil.encodeString(ctx.alloc(), CharBuffer.wrap(msg), charset));
+        }
     }
 }
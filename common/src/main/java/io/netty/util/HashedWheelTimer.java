@@ -30,6 +30,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A {@link Timer} optimized for approximated I/O timeout scheduling.
@@ -55,12 +56,23 @@ import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
  * (i.e. the size of the wheel) is 512.  You could specify a larger value
  * if you are going to schedule a lot of timeouts.
  *
+ * <h3>Hierarchical Wheels</h3>
+ *
+ * A timeout whose deadline is more than one rotation of the wheel away is
+ * visited on every rotation until its deadline is reached.  If you schedule
+ * many long timeouts, specify more than one {@code levels} in the constructor.
+ * Each additional level is a wheel whose buckets span a whole rotation of the
+ * level below, and a timeout is only moved down to the finer wheel once the
+ * rotation it expires in begins.
+ *
  * <h3>Do not create many instances.</h3>
  *
  * {@link HashedWheelTimer} creates a new thread whenever it is instantiated and
  * started.  Therefore, you should make sure to create only one instance and
  * share it across your application.  One of the common mistakes, that makes
  * your application unresponsive, is to create a new instance for every connection.
+ * If a single worker thread cannot keep up with the rate of timeouts, use a
+ * {@link ShardedHashedWheelTimer} instead.
  *
  * <h3>Implementation Details</h3>
  *
@@ -103,11 +115,19 @@ public class HashedWheelTimer implements Timer {
 
     private final long tickDuration;
     private final HashedWheelBucket[] wheel;
+    // wheels[0] is the wheel, wheels[n] are the coarser wheels of the hierarchical mode.
+    private final HashedWheelBucket[][] wheels;
+    private final int wheelBits;
     private final int mask;
     private final CountDownLatch startTimeInitialized = new CountDownLatch(1);
     private final Queue<HashedWheelTimeout> timeouts = PlatformDependent.newMpscQueue();
     private final Queue<Runnable> cancelledTimeouts = PlatformDependent.newMpscQueue();
 
+    private final AtomicLong pendingTimeouts = new AtomicLong();
+    private volatile long expiredTimeouts;
+    private volatile int lastTickExpiredTimeouts;
+    private volatile long workerLagNanos;
+
     private volatile long startTime;
 
     /**
@@ -191,6 +211,26 @@ public class HashedWheelTimer implements Timer {
     public HashedWheelTimer(
             ThreadFactory threadFactory,
             long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        this(threadFactory, tickDuration, unit, ticksPerWheel, 1);
+    }
+
+    /**
+     * Creates a new timer.
+     *
+     * @param threadFactory  a {@link ThreadFactory} that creates a
+     *                       background {@link Thread} which is dedicated to
+     *                       {@link TimerTask} execution.
+     * @param tickDuration   the duration between tick
+     * @param unit           the time unit of the {@code tickDuration}
+     * @param ticksPerWheel  the size of the wheel
+     * @param levels         the number of hierarchical wheels, {@code 1} for a single wheel
+     * @throws NullPointerException     if either of {@code threadFactory} and {@code unit} is {@code null}
+     * @throws IllegalArgumentException if either of {@code tickDuration}, {@code ticksPerWheel} and {@code levels}
+     *                                  is <= 0, or if the levels span more ticks than fit into a {@code long}
+     */
+    public HashedWheelTimer(
+            ThreadFactory threadFactory,
+            long tickDuration, TimeUnit unit, int ticksPerWheel, int levels) {
 
         if (threadFactory == null) {
             throw new NullPointerException("threadFactory");
@@ -204,10 +244,23 @@ public class HashedWheelTimer implements Timer {
         if (ticksPerWheel <= 0) {
             throw new IllegalArgumentException("ticksPerWheel must be greater than 0: " + ticksPerWheel);
         }
+        if (levels <= 0) {
+            throw new IllegalArgumentException("levels: " + levels + " (expected: > 0)");
+        }
 
         // Normalize ticksPerWheel to power of two and initialize the wheel.
         wheel = createWheel(ticksPerWheel);
         mask = wheel.length - 1;
+        wheelBits = Integer.numberOfTrailingZeros(wheel.length);
+        if (levels > 1 && (wheelBits == 0 || (long) wheelBits * levels > 62)) {
+            throw new IllegalArgumentException(
+                    "levels: " + levels + " (expected: 1 or 1 < levels * log2(ticksPerWheel) <= 62)");
+        }
+        wheels = new HashedWheelBucket[levels][];
+        wheels[0] = wheel;
+        for (int i = 1; i < levels; i ++) {
+            wheels[i] = createWheel(wheel.length);
+        }
 
         // Convert tickDuration to nanos.
         this.tickDuration = unit.toNanos(tickDuration);
@@ -335,10 +388,40 @@ public class HashedWheelTimer implements Timer {
         // During processing all the queued HashedWheelTimeouts will be added to the correct HashedWheelBucket.
         long deadline = System.nanoTime() + unit.toNanos(delay) - startTime;
         HashedWheelTimeout timeout = new HashedWheelTimeout(this, task, deadline);
+        pendingTimeouts.incrementAndGet();
         timeouts.add(timeout);
         return timeout;
     }
 
+    /**
+     * Returns the number of timeouts which were neither expired nor cancelled yet.
+     */
+    public long pendingTimeouts() {
+        return pendingTimeouts.get();
+    }
+
+    /**
+     * Returns the number of timeouts which expired since this timer was started.
+     */
+    public long expiredTimeouts() {
+        return expiredTimeouts;
+    }
+
+    /**
+     * Returns the number of timeouts which expired on the last tick.
+     */
+    public int lastTickExpiredTimeouts() {
+        return lastTickExpiredTimeouts;
+    }
+
+    /**
+     * Returns how many nanoseconds the worker thread was behind the wall clock when it processed the last tick.
+     * A lag that keeps growing beyond the tick duration means that the {@link TimerTask}s take too long.
+     */
+    public long workerLagNanos() {
+        return workerLagNanos;
+    }
+
     private final class Worker implements Runnable {
         private final Set<Timeout> unprocessedTimeouts = new HashSet<Timeout>();
 
@@ -363,15 +446,23 @@ public class HashedWheelTimer implements Timer {
                     processCancelledTasks();
                     HashedWheelBucket bucket =
                             wheel[idx];
+                    // Cascade before the transfer so that new timeouts are never placed into a bucket
+                    // which was already cascaded on this tick.
+                    cascadeTimeouts();
                     transferTimeoutsToBuckets();
-                    bucket.expireTimeouts(deadline);
+                    int expired = bucket.expireTimeouts(deadline);
+                    workerLagNanos = deadline - tickDuration * (tick + 1);
+                    lastTickExpiredTimeouts = expired;
+                    expiredTimeouts += expired;
                     tick++;
                 }
             } while (WORKER_STATE_UPDATER.get(HashedWheelTimer.this) == WORKER_STATE_STARTED);
 
             // Fill the unprocessedTimeouts so we can return them from stop() method.
-            for (HashedWheelBucket bucket: wheel) {
-                bucket.clearTimeouts(unprocessedTimeouts);
+            for (HashedWheelBucket[] wheel: wheels) {
+                for (HashedWheelBucket bucket: wheel) {
+                    bucket.clearTimeouts(unprocessedTimeouts);
+                }
             }
             for (;;) {
                 HashedWheelTimeout timeout = timeouts.poll();
@@ -399,6 +490,11 @@ public class HashedWheelTimer implements Timer {
                     continue;
                 }
 
+                if (wheels.length > 1) {
+                    placeTimeout(timeout);
+                    continue;
+                }
+
                 long calculated = timeout.deadline / tickDuration;
                 timeout.remainingRounds = (calculated - tick) / wheel.length;
 
@@ -410,6 +506,60 @@ public class HashedWheelTimer implements Timer {
             }
         }
 
+        /**
+         * Adds the timeout to the bucket of the level which covers the highest digit in which its tick differs
+         * from the current tick. Timeouts beyond the range of the top level count the rotations of the top level.
+         */
+        private void placeTimeout(HashedWheelTimeout timeout) {
+            final long ticks = Math.max(timeout.deadline / tickDuration, tick); // Ensure we don't schedule for past.
+            long diff = ticks ^ tick;
+            int level = diff == 0 ? 0 : (63 - Long.numberOfLeadingZeros(diff)) / wheelBits;
+            int top = wheels.length - 1;
+            if (level < top) {
+                timeout.remainingRounds = 0;
+                wheels[level][(int) (ticks >>> level * wheelBits) & mask].addTimeout(timeout);
+                return;
+            }
+
+            int shift = top * wheelBits;
+            int stopIndex = (int) (ticks >>> shift) & mask;
+            long round = tick >>> shift + wheelBits;
+            if (stopIndex <= ((int) (tick >>> shift) & mask)) {
+                // The bucket is not visited again before the next rotation of the top level.
+                round ++;
+            }
+            timeout.remainingRounds = (ticks >>> shift + wheelBits) - round;
+            wheels[top][stopIndex].addTimeout(timeout);
+        }
+
+        /**
+         * Moves the timeouts of the buckets which begin on the current tick down to the finer wheels.
+         */
+        private void cascadeTimeouts() {
+            int top = wheels.length - 1;
+            for (int level = top; level > 0; level --) {
+                int shift = level * wheelBits;
+                if ((tick & (1L << shift) - 1) != 0) {
+                    continue;
+                }
+
+                HashedWheelBucket bucket = wheels[level][(int) (tick >>> shift) & mask];
+                HashedWheelTimeout timeout = bucket.head;
+                while (timeout != null) {
+                    HashedWheelTimeout next = timeout.next;
+                    if (timeout.isCancelled()) {
+                        bucket.remove(timeout);
+                    } else if (timeout.remainingRounds > 0) {
+                        timeout.remainingRounds --;
+                    } else {
+                        bucket.remove(timeout);
+                        placeTimeout(timeout);
+                    }
+                    timeout = next;
+                }
+            }
+        }
+
         private void processCancelledTasks() {
             for (;;) {
                 Runnable task = cancelledTimeouts.poll();
@@ -530,6 +680,7 @@ public class HashedWheelTimer implements Timer {
             if (!compareAndSetState(ST_INIT, ST_CANCELLED)) {
                 return false;
             }
+            timer.pendingTimeouts.decrementAndGet();
             // If a task should be canceled we create a new Runnable for this to another queue which will
             // be processed on each tick. So this means that we will have a GC latency of max. 1 tick duration
             // which is good enough. This way we can make again use of our MpscLinkedQueue and so minimize the
@@ -572,10 +723,11 @@ public class HashedWheelTimer implements Timer {
             return this;
         }
 
-        public void expire() {
+        public boolean expire() {
             if (!compareAndSetState(ST_INIT, ST_EXPIRED)) {
-                return;
+                return false;
             }
+            timer.pendingTimeouts.decrementAndGet();
 
             try {
                 task.run(this);
@@ -584,6 +736,7 @@ public class HashedWheelTimer implements Timer {
                     logger.warn("An exception was thrown by " + TimerTask.class.getSimpleName() + '.', t);
                 }
             }
+            return true;
         }
 
         @Override
@@ -643,9 +796,10 @@ public class HashedWheelTimer implements Timer {
         }
 
         /**
-         * Expire all {@link HashedWheelTimeout}s for the given {@code deadline}.
+         * Expire all {@link HashedWheelTimeout}s for the given {@code deadline} and return how many expired.
          */
-        public void expireTimeouts(long deadline) {
+        public int expireTimeouts(long deadline) {
+            int expired = 0;
             HashedWheelTimeout timeout = head;
 
             // process all timeouts
@@ -653,7 +807,9 @@ public class HashedWheelTimer implements Timer {
                 boolean remove = false;
                 if (timeout.remainingRounds <= 0) {
                     if (timeout.deadline <= deadline) {
-                        timeout.expire();
+                        if (timeout.expire()) {
+                            expired ++;
+                        }
                     } else {
                         // The timeout was placed into a wrong slot. This should never happen.
                         throw new IllegalStateException(String.format(
@@ -672,6 +828,7 @@ public class HashedWheelTimer implements Timer {
                 }
                 timeout = next;
             }
+            return expired;
         }
 
         public void remove(HashedWheelTimeout timeout) {
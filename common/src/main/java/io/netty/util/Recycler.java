@@ -26,6 +26,7 @@ import java.util.Arrays;
 import java.util.Map;
 import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Light-weight object pool based on a thread-local stack.
@@ -40,6 +41,11 @@ public abstract class Recycler<T> {
     private static final int OWN_THREAD_ID = ID_GENERATOR.getAndIncrement();
     private static final int DEFAULT_MAX_CAPACITY;
     private static final int INITIAL_CAPACITY;
+    private static final int DEFAULT_MAX_SHARED_CAPACITY_FACTOR;
+    private static final int DEFAULT_RATIO;
+    private static final int DEFAULT_MAX_DELAYED_QUEUES_PER_THREAD;
+    private static final boolean DEFAULT_STATS;
+    private static final int LINK_CAPACITY = 16;
 
     static {
         // In the future, we might have different maxCapacity for different object types.
@@ -52,18 +58,46 @@ public abstract class Recycler<T> {
         }
 
         DEFAULT_MAX_CAPACITY = maxCapacity;
+
+        // The objects recycled by other threads may take at most maxCapacity / maxSharedCapacityFactor slots
+        // of a stack until the owner thread picks them up.
+        DEFAULT_MAX_SHARED_CAPACITY_FACTOR = Math.max(1,
+                SystemPropertyUtil.getInt("io.netty.recycler.maxSharedCapacityFactor", 2));
+
+        // Only every ratio-th object which is recycled by another thread is kept.
+        DEFAULT_RATIO = Math.max(1, SystemPropertyUtil.getInt("io.netty.recycler.ratio", 8));
+
+        // The number of stacks of other threads a thread may keep delayed objects for.
+        DEFAULT_MAX_DELAYED_QUEUES_PER_THREAD = Math.max(0, SystemPropertyUtil.getInt(
+                "io.netty.recycler.maxDelayedQueuesPerThread", Runtime.getRuntime().availableProcessors() * 2));
+
+        DEFAULT_STATS = SystemPropertyUtil.getBoolean("io.netty.recycler.stats", false);
+
         if (logger.isDebugEnabled()) {
             logger.debug("-Dio.netty.recycler.maxCapacity: {}", DEFAULT_MAX_CAPACITY);
+            logger.debug("-Dio.netty.recycler.maxSharedCapacityFactor: {}", DEFAULT_MAX_SHARED_CAPACITY_FACTOR);
+            logger.debug("-Dio.netty.recycler.ratio: {}", DEFAULT_RATIO);
+            logger.debug("-Dio.netty.recycler.maxDelayedQueuesPerThread: {}", DEFAULT_MAX_DELAYED_QUEUES_PER_THREAD);
+            logger.debug("-Dio.netty.recycler.stats: {}", DEFAULT_STATS);
         }
 
         INITIAL_CAPACITY = Math.min(DEFAULT_MAX_CAPACITY, 256);
     }
 
     private final int maxCapacity;
+    private final int maxSharedCapacityFactor;
+    private final int ratioMask;
+    private final int maxDelayedQueuesPerThread;
+    private final boolean stats;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong drops;
+    private final AtomicLong crossThreadTransfers;
+
     private final FastThreadLocal<Stack<T>> threadLocal = new FastThreadLocal<Stack<T>>() {
         @Override
         protected Stack<T> initialValue() {
-            return new Stack<T>(Recycler.this, Thread.currentThread(), maxCapacity);
+            return new Stack<T>(Recycler.this, Thread.currentThread(), maxCapacity, maxSharedCapacityFactor);
         }
     };
 
@@ -72,7 +106,62 @@ public abstract class Recycler<T> {
     }
 
     protected Recycler(int maxCapacity) {
+        this(maxCapacity, DEFAULT_MAX_SHARED_CAPACITY_FACTOR);
+    }
+
+    protected Recycler(int maxCapacity, int maxSharedCapacityFactor) {
+        this(maxCapacity, maxSharedCapacityFactor, DEFAULT_RATIO, DEFAULT_MAX_DELAYED_QUEUES_PER_THREAD);
+    }
+
+    protected Recycler(int maxCapacity, int maxSharedCapacityFactor, int ratio, int maxDelayedQueuesPerThread) {
+        this(maxCapacity, maxSharedCapacityFactor, ratio, maxDelayedQueuesPerThread, DEFAULT_STATS);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxCapacity               the maximum number of objects pooled per thread
+     * @param maxSharedCapacityFactor   the objects recycled by other threads may take up at most
+     *                                  {@code maxCapacity / maxSharedCapacityFactor} objects per thread
+     * @param ratio                     only every {@code ratio}-th object recycled by another thread is pooled,
+     *                                  rounded up to the next power of two
+     * @param maxDelayedQueuesPerThread the maximum number of threads a thread may recycle objects for
+     * @param stats                     {@code true} to count the hits, misses, drops and cross-thread transfers,
+     *                                  which costs an atomic increment each
+     */
+    protected Recycler(int maxCapacity, int maxSharedCapacityFactor, int ratio, int maxDelayedQueuesPerThread,
+                       boolean stats) {
+        if (maxSharedCapacityFactor <= 0) {
+            throw new IllegalArgumentException(
+                    "maxSharedCapacityFactor: " + maxSharedCapacityFactor + " (expected: > 0)");
+        }
+        if (ratio <= 0) {
+            throw new IllegalArgumentException("ratio: " + ratio + " (expected: > 0)");
+        }
+        if (ratio > 1 << 30) {
+            throw new IllegalArgumentException("ratio: " + ratio + " (expected: <= 2^30)");
+        }
         this.maxCapacity = Math.max(0, maxCapacity);
+        this.maxSharedCapacityFactor = maxSharedCapacityFactor;
+        ratioMask = nextPowerOfTwo(ratio) - 1;
+        this.maxDelayedQueuesPerThread = Math.max(0, maxDelayedQueuesPerThread);
+        this.stats = stats;
+        if (stats) {
+            hits = new AtomicLong();
+            misses = new AtomicLong();
+            drops = new AtomicLong();
+            crossThreadTransfers = new AtomicLong();
+        } else {
+            hits = misses = drops = crossThreadTransfers = null;
+        }
+    }
+
+    private static int nextPowerOfTwo(int value) {
+        int powerOfTwo = 1;
+        while (powerOfTwo < value) {
+            powerOfTwo <<= 1;
+        }
+        return powerOfTwo;
     }
 
     @SuppressWarnings("unchecked")
@@ -80,8 +169,13 @@ public abstract class Recycler<T> {
         Stack<T> stack = threadLocal.get();
         DefaultHandle<T> handle = stack.pop();
         if (handle == null) {
+            if (stats) {
+                misses.incrementAndGet();
+            }
             handle = stack.newHandle();
             handle.value = newObject(handle);
+        } else if (stats) {
+            hits.incrementAndGet();
         }
         return (T) handle.value;
     }
@@ -96,10 +190,52 @@ public abstract class Recycler<T> {
         return true;
     }
 
+    /**
+     * Returns the number of {@link #get()} calls which returned a pooled object, or {@code -1} if the statistics
+     * are disabled.
+     */
+    public final long numHits() {
+        return stats ? hits.get() : -1;
+    }
+
+    /**
+     * Returns the number of {@link #get()} calls which had to create a new object, or {@code -1} if the statistics
+     * are disabled.
+     */
+    public final long numMisses() {
+        return stats ? misses.get() : -1;
+    }
+
+    /**
+     * Returns the number of recycled objects which were not pooled because a capacity was exhausted or because of
+     * the ratio, or {@code -1} if the statistics are disabled.
+     */
+    public final long numDrops() {
+        return stats ? drops.get() : -1;
+    }
+
+    /**
+     * Returns the number of objects recycled by other threads which were moved back to the stack of their owner
+     * thread, or {@code -1} if the statistics are disabled.
+     */
+    public final long numCrossThreadTransfers() {
+        return stats ? crossThreadTransfers.get() : -1;
+    }
+
     final int threadLocalCapacity() {
         return threadLocal.get().elements.length;
     }
 
+    final int threadLocalSize() {
+        return threadLocal.get().size;
+    }
+
+    void drop() {
+        if (stats) {
+            drops.incrementAndGet();
+        }
+    }
+
     protected abstract T newObject(Handle<T> handle);
 
     public interface Handle<T> {
@@ -130,12 +266,31 @@ public abstract class Recycler<T> {
             // we don't want to have a ref to the queue as the value in our weak map
             // so we null it out; to ensure there are no races with restoring it later
             // we impose a memory ordering here (no-op on x86)
+            Stack<?> stack = this.stack;
+            Recycler<?> parent = stack.parent;
             Map<Stack<?>, WeakOrderQueue> delayedRecycled = DELAYED_RECYCLED.get();
             WeakOrderQueue queue = delayedRecycled.get(stack);
             if (queue == null) {
-                delayedRecycled.put(stack, queue = new WeakOrderQueue(stack, thread));
+                if (delayedRecycled.size() >= parent.maxDelayedQueuesPerThread) {
+                    // Remember that this thread recycles no objects for the stack anymore.
+                    delayedRecycled.put(stack, WeakOrderQueue.DUMMY);
+                    parent.drop();
+                    return;
+                }
+                queue = WeakOrderQueue.allocate(stack, thread);
+                if (queue == null) {
+                    // The shared capacity of the stack is exhausted.
+                    parent.drop();
+                    return;
+                }
+                delayedRecycled.put(stack, queue);
+            } else if (queue == WeakOrderQueue.DUMMY) {
+                parent.drop();
+                return;
+            }
+            if ((queue.handleRecycleCount ++ & parent.ratioMask) != 0 || !queue.add(this)) {
+                parent.drop();
             }
-            queue.add(this);
         }
     }
 
@@ -150,7 +305,8 @@ public abstract class Recycler<T> {
     // a queue that makes only moderate guarantees about visibility: items are seen in the correct order,
     // but we aren't absolutely guaranteed to ever see anything at all, thereby keeping the queue cheap to maintain
     private static final class WeakOrderQueue {
-        private static final int LINK_CAPACITY = 16;
+        // Marks the stacks for which a thread has no queue because it reached maxDelayedQueuesPerThread.
+        static final WeakOrderQueue DUMMY = new WeakOrderQueue();
 
         // Let Link extend AtomicInteger for intrinsics. The Link itself will be used as writerIndex.
         @SuppressWarnings("serial")
@@ -167,30 +323,80 @@ public abstract class Recycler<T> {
         private WeakOrderQueue next;
         private final WeakReference<Thread> owner;
         private final int id = ID_GENERATOR.getAndIncrement();
+        // The shared capacity of the stack, which every Link reserves LINK_CAPACITY of.
+        private final AtomicInteger availableSharedCapacity;
+        // Only accessed by the thread which recycles into this queue.
+        private int handleRecycleCount;
+
+        private WeakOrderQueue() {
+            owner = null;
+            availableSharedCapacity = null;
+        }
 
-        WeakOrderQueue(Stack<?> stack, Thread thread) {
+        private WeakOrderQueue(Stack<?> stack, Thread thread) {
             head = tail = new Link();
             owner = new WeakReference<Thread>(thread);
+            availableSharedCapacity = stack.availableSharedCapacity;
             synchronized (stack) {
                 next = stack.head;
                 stack.head = this;
             }
         }
 
-        void add(DefaultHandle<?> handle) {
-            handle.lastRecycledId = id;
+        /**
+         * Creates a new queue for the specified stack, or returns {@code null} if the shared capacity of the stack
+         * is exhausted.
+         */
+        static WeakOrderQueue allocate(Stack<?> stack, Thread thread) {
+            return reserveSpace(stack.availableSharedCapacity) ? new WeakOrderQueue(stack, thread) : null;
+        }
+
+        private static boolean reserveSpace(AtomicInteger availableSharedCapacity) {
+            for (;;) {
+                int available = availableSharedCapacity.get();
+                if (available < LINK_CAPACITY) {
+                    return false;
+                }
+                if (availableSharedCapacity.compareAndSet(available, available - LINK_CAPACITY)) {
+                    return true;
+                }
+            }
+        }
+
+        private void reclaimSpace() {
+            availableSharedCapacity.addAndGet(LINK_CAPACITY);
+        }
 
+        /**
+         * Gives the capacity of all links back to the stack. Must only be called once the owner thread is gone.
+         */
+        void reclaimAllSpace() {
+            for (Link link = head; link != null; link = link.next) {
+                reclaimSpace();
+            }
+            head = null;
+        }
+
+        /**
+         * Adds the handle to this queue, or returns {@code false} if the shared capacity of the stack is exhausted.
+         */
+        boolean add(DefaultHandle<?> handle) {
             Link tail = this.tail;
             int writeIndex;
             if ((writeIndex = tail.get()) == LINK_CAPACITY) {
+                if (!reserveSpace(availableSharedCapacity)) {
+                    return false;
+                }
                 this.tail = tail = tail.next = new Link();
                 writeIndex = tail.get();
             }
+            handle.lastRecycledId = id;
             tail.elements[writeIndex] = handle;
             handle.stack = null;
             // we lazy set to ensure that setting stack to null appears before we unnull it in the owning thread;
             // this also means we guarantee visibility of an element in the queue if we see the index updated
             tail.lazySet(writeIndex + 1);
+            return true;
         }
 
         boolean hasFinalData() {
@@ -211,6 +417,7 @@ public abstract class Recycler<T> {
                     return false;
                 }
                 this.head = head = head.next;
+                reclaimSpace();
             }
 
             int start = head.readIndex;
@@ -221,7 +428,12 @@ public abstract class Recycler<T> {
 
             int count = end - start;
             if (to.size + count > to.elements.length) {
-                to.elements = Arrays.copyOf(to.elements, (to.size + count) * 2);
+                int capacity = to.increaseCapacity(to.size + count);
+                // Leave what does not fit into the stack in the queue.
+                end = Math.min(start + capacity - to.size, end);
+                if (start == end) {
+                    return false;
+                }
             }
 
             DefaultHandle[] src = head.elements;
@@ -238,10 +450,12 @@ public abstract class Recycler<T> {
                 trg[size++] = element;
                 src[start++] = null;
             }
+            to.parent.transferred(size - to.size);
             to.size = size;
 
             if (end == LINK_CAPACITY && head.next != null) {
                 this.head = head.next;
+                reclaimSpace();
             }
 
             head.readIndex = end;
@@ -249,6 +463,12 @@ public abstract class Recycler<T> {
         }
     }
 
+    void transferred(int count) {
+        if (stats) {
+            crossThreadTransfers.addAndGet(count);
+        }
+    }
+
     static final class Stack<T> {
 
         // we keep a queue of per-thread queues, which is appended to once only, each time a new thread other
@@ -259,16 +479,36 @@ public abstract class Recycler<T> {
         final Thread thread;
         private DefaultHandle<?>[] elements;
         private final int maxCapacity;
+        // The capacity left for the objects which other threads recycled into their WeakOrderQueues.
+        final AtomicInteger availableSharedCapacity;
         private int size;
 
         private volatile WeakOrderQueue head;
         private WeakOrderQueue cursor, prev;
 
-        Stack(Recycler<T> parent, Thread thread, int maxCapacity) {
+        Stack(Recycler<T> parent, Thread thread, int maxCapacity, int maxSharedCapacityFactor) {
             this.parent = parent;
             this.thread = thread;
             this.maxCapacity = maxCapacity;
-            elements = new DefaultHandle[INITIAL_CAPACITY];
+            availableSharedCapacity = new AtomicInteger(Math.max(maxCapacity / maxSharedCapacityFactor, LINK_CAPACITY));
+            elements = new DefaultHandle[Math.min(INITIAL_CAPACITY, maxCapacity)];
+        }
+
+        /**
+         * Grows the elements towards the expected capacity, but not beyond the maximum capacity, and returns the
+         * new capacity.
+         */
+        int increaseCapacity(int expectedCapacity) {
+            int newCapacity = elements.length;
+            do {
+                newCapacity = Math.max(1, newCapacity << 1);
+            } while (newCapacity < expectedCapacity && newCapacity < maxCapacity);
+
+            newCapacity = Math.min(newCapacity, maxCapacity);
+            if (newCapacity != elements.length) {
+                elements = Arrays.copyOf(elements, newCapacity);
+            }
+            return newCapacity;
         }
 
         @SuppressWarnings({ "unchecked", "rawtypes" })
@@ -306,6 +546,11 @@ public abstract class Recycler<T> {
         boolean scavengeSome() {
             boolean success = false;
             WeakOrderQueue cursor = this.cursor, prev = this.prev;
+            if (cursor == null) {
+                // Start a new scavenge, so that the objects of other threads are picked up on the first attempt.
+                prev = null;
+                cursor = head;
+            }
             while (cursor != null) {
                 if (cursor.transfer(this)) {
                     success = true;
@@ -323,6 +568,7 @@ public abstract class Recycler<T> {
                             }
                         }
                     }
+                    cursor.reclaimAllSpace();
                     if (prev != null) {
                         prev.next = next;
                     }
@@ -343,12 +589,13 @@ public abstract class Recycler<T> {
             item.recycleId = item.lastRecycledId = OWN_THREAD_ID;
 
             int size = this.size;
-            if (size == maxCapacity) {
+            if (size >= maxCapacity) {
                 // Hit the maximum capacity - drop the possibly youngest object.
+                parent.drop();
                 return;
             }
             if (size == elements.length) {
-                elements = Arrays.copyOf(elements, Math.min(size << 1, maxCapacity));
+                increaseCapacity(size + 1);
             }
 
             elements[size] = item;
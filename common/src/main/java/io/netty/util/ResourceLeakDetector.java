@@ -18,6 +18,7 @@ package io.netty.util;
 
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.ThreadLocalRandom;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
@@ -36,6 +37,12 @@ public final class ResourceLeakDetector<T> {
     private static final String PROP_LEVEL = "io.netty.leakDetectionLevel";
     private static final Level DEFAULT_LEVEL = Level.SIMPLE;
 
+    private static final String PROP_MAX_RECORDS = "io.netty.leakDetection.maxRecords";
+    private static final int DEFAULT_MAX_RECORDS = 4;
+
+    private static final String PROP_TARGET_SAMPLES = "io.netty.leakDetection.targetSamplesPerSecond";
+    private static final int DEFAULT_TARGET_SAMPLES = 100;
+
     /**
      * Represents the level of resource leak detection.
      */
@@ -58,10 +65,19 @@ public final class ResourceLeakDetector<T> {
          * Enables paranoid resource leak detection which reports where the leaked object was accessed recently,
          * at the cost of the highest possible overhead (for testing purposes only).
          */
-        PARANOID
+        PARANOID,
+        /**
+         * Enables adaptive sampling resource leak detection which reports where the leaked object was accessed
+         * recently like {@link #ADVANCED}, at an overhead low enough for production use. The sampling interval grows
+         * with the allocation rate, stack traces are only resolved when a leak is reported and the number of access
+         * records per sampled object is capped.
+         */
+        ADAPTIVE
     }
 
     private static Level level;
+    private static final int MAX_RECORDS;
+    private static final int TARGET_SAMPLES_PER_SECOND;
 
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(ResourceLeakDetector.class);
 
@@ -75,13 +91,23 @@ public final class ResourceLeakDetector<T> {
         }
 
         ResourceLeakDetector.level = level;
+        MAX_RECORDS = Math.max(1, SystemPropertyUtil.getInt(PROP_MAX_RECORDS, DEFAULT_MAX_RECORDS));
+        TARGET_SAMPLES_PER_SECOND = Math.max(1, SystemPropertyUtil.getInt(PROP_TARGET_SAMPLES, DEFAULT_TARGET_SAMPLES));
         if (logger.isDebugEnabled()) {
             logger.debug("-D{}: {}", PROP_LEVEL, level.name().toLowerCase());
+            logger.debug("-D{}: {}", PROP_MAX_RECORDS, MAX_RECORDS);
+            logger.debug("-D{}: {}", PROP_TARGET_SAMPLES, TARGET_SAMPLES_PER_SECOND);
         }
     }
 
     private static final int DEFAULT_SAMPLING_INTERVAL = 113;
 
+    // The adaptive sampling interval is re-calculated at most once per second, checking the clock only every
+    // ADAPTIVE_CHECK_MASK + 1 calls to open().
+    private static final long ADAPTIVE_WINDOW_NANOS = 1000000000L;
+    private static final int ADAPTIVE_CHECK_MASK = 1023;
+    private static final int MAX_ADAPTIVE_SAMPLING_INTERVAL = 1 << 16;
+
     /**
      * Sets the resource leak detection level.
      */
@@ -114,6 +140,10 @@ public final class ResourceLeakDetector<T> {
 
     private long leakCheckCnt;
 
+    private int adaptiveSamplingInterval;
+    private long adaptiveWindowStartNanos;
+    private long adaptiveWindowStartCnt;
+
     public ResourceLeakDetector(Class<?> resourceType) {
         this(simpleClassName(resourceType));
     }
@@ -140,6 +170,8 @@ public final class ResourceLeakDetector<T> {
         this.resourceType = resourceType;
         this.samplingInterval = samplingInterval;
         this.maxActive = maxActive;
+        adaptiveSamplingInterval = samplingInterval;
+        adaptiveWindowStartNanos = System.nanoTime();
 
         head.next = tail;
         tail.prev = head;
@@ -157,16 +189,66 @@ public final class ResourceLeakDetector<T> {
             return null;
         }
 
-        if (level.ordinal() < Level.PARANOID.ordinal()) {
-            if (leakCheckCnt ++ % samplingInterval == 0) {
+        if (level == Level.PARANOID) {
+            reportLeak(level);
+            return new DefaultResourceLeak(obj);
+        }
+
+        if (level == Level.ADAPTIVE) {
+            if ((leakCheckCnt & ADAPTIVE_CHECK_MASK) == 0) {
+                updateAdaptiveSamplingInterval();
+            }
+            if (leakCheckCnt ++ % adaptiveSamplingInterval == 0) {
                 reportLeak(level);
                 return new DefaultResourceLeak(obj);
-            } else {
-                return null;
             }
-        } else {
+            return null;
+        }
+
+        if (leakCheckCnt ++ % samplingInterval == 0) {
             reportLeak(level);
             return new DefaultResourceLeak(obj);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Adjusts the sampling interval of {@link Level#ADAPTIVE} so that about
+     * {@code io.netty.leakDetection.targetSamplesPerSecond} objects are tracked per second, but never less often
+     * than every {@code samplingInterval}th object. This is driven by the call count rather than by the sampled
+     * objects so that the interval shrinks again once a burst of allocations is over.
+     */
+    private void updateAdaptiveSamplingInterval() {
+        long now = System.nanoTime();
+        long elapsed = now - adaptiveWindowStartNanos;
+        if (elapsed < ADAPTIVE_WINDOW_NANOS) {
+            return;
+        }
+
+        double allocationsPerSecond =
+                (leakCheckCnt - adaptiveWindowStartCnt) * (double) ADAPTIVE_WINDOW_NANOS / elapsed;
+        long interval = (long) (allocationsPerSecond / TARGET_SAMPLES_PER_SECOND);
+        adaptiveSamplingInterval = (int) Math.max(samplingInterval, Math.min(MAX_ADAPTIVE_SAMPLING_INTERVAL, interval));
+        adaptiveWindowStartNanos = now;
+        adaptiveWindowStartCnt = leakCheckCnt;
+    }
+
+    /**
+     * Returns the interval in which {@link #open(Object)} currently tracks objects.
+     */
+    int samplingInterval() {
+        return samplingInterval(level);
+    }
+
+    private int samplingInterval(Level level) {
+        switch (level) {
+            case PARANOID:
+                return 1;
+            case ADAPTIVE:
+                return adaptiveSamplingInterval;
+            default:
+                return samplingInterval;
         }
     }
 
@@ -184,7 +266,7 @@ public final class ResourceLeakDetector<T> {
         }
 
         // Report too many instances.
-        int samplingInterval = level == Level.PARANOID? 1 : this.samplingInterval;
+        int samplingInterval = samplingInterval(level);
         if (active * samplingInterval > maxActive && loggedTooManyActive.compareAndSet(false, true)) {
             logger.error("LEAK: You are creating too many " + resourceType + " instances.  " +
                     resourceType + " is a shared resource that must be reused across the JVM," +
@@ -224,10 +306,10 @@ public final class ResourceLeakDetector<T> {
 
     private final class DefaultResourceLeak extends PhantomReference<Object> implements ResourceLeak {
 
-        private static final int MAX_RECORDS = 4;
-
-        private final String creationRecord;
-        private final Deque<String> lastRecords = new ArrayDeque<String>();
+        private final Object creationRecord;
+        private final boolean compact;
+        private final Deque<Object> lastRecords = new ArrayDeque<Object>();
+        private int discardedRecords;
         private final AtomicBoolean freed;
         private DefaultResourceLeak prev;
         private DefaultResourceLeak next;
@@ -237,7 +319,10 @@ public final class ResourceLeakDetector<T> {
 
             if (referent != null) {
                 Level level = getLevel();
-                if (level.ordinal() >= Level.ADVANCED.ordinal()) {
+                compact = level == Level.ADAPTIVE;
+                if (compact) {
+                    creationRecord = newCompactRecord(null, 3);
+                } else if (level == Level.ADVANCED || level == Level.PARANOID) {
                     creationRecord = newRecord(null, 3);
                 } else {
                     creationRecord = null;
@@ -254,6 +339,7 @@ public final class ResourceLeakDetector<T> {
                 freed = new AtomicBoolean();
             } else {
                 creationRecord = null;
+                compact = false;
                 freed = new AtomicBoolean(true);
             }
         }
@@ -269,21 +355,49 @@ public final class ResourceLeakDetector<T> {
         }
 
         private void record0(Object hint, int recordsToSkip) {
-            if (creationRecord != null) {
-                String value = newRecord(hint, recordsToSkip);
+            if (creationRecord == null) {
+                return;
+            }
 
-                synchronized (lastRecords) {
-                    int size = lastRecords.size();
-                    if (size == 0 || !lastRecords.getLast().equals(value)) {
-                        lastRecords.add(value);
-                    }
-                    if (size > MAX_RECORDS) {
+            Object value;
+            if (compact) {
+                if (!shouldRecord()) {
+                    return;
+                }
+                value = newCompactRecord(hint, recordsToSkip);
+            } else {
+                value = newRecord(hint, recordsToSkip);
+            }
+
+            synchronized (lastRecords) {
+                // Only the resolved records of ADVANCED and PARANOID are de-duplicated, a CompactRecord is never
+                // equal to another one.
+                int size = lastRecords.size();
+                if (size == 0 || !lastRecords.getLast().equals(value)) {
+                    lastRecords.add(value);
+                    if (size >= MAX_RECORDS) {
                         lastRecords.removeFirst();
                     }
                 }
             }
         }
 
+        /**
+         * Once {@code io.netty.leakDetection.maxRecords} are kept, a new record replaces the oldest one only with
+         * a probability of {@code 1 / 2^n}, where {@code n} is the number of records discarded so far. This keeps
+         * the cost of a frequently accessed object bounded while the most recent access is still likely recorded.
+         */
+        private boolean shouldRecord() {
+            int discarded;
+            synchronized (lastRecords) {
+                if (lastRecords.size() < MAX_RECORDS) {
+                    return true;
+                }
+                discarded = ++ discardedRecords;
+            }
+            return ThreadLocalRandom.current().nextInt(1 << Math.min(discarded, 30)) == 0;
+        }
+
         @Override
         public boolean close() {
             if (freed.compareAndSet(false, true)) {
@@ -305,8 +419,10 @@ public final class ResourceLeakDetector<T> {
             }
 
             Object[] array;
+            int discarded;
             synchronized (lastRecords) {
                 array = lastRecords.toArray();
+                discarded = discardedRecords;
             }
 
             StringBuilder buf = new StringBuilder(16384);
@@ -314,6 +430,13 @@ public final class ResourceLeakDetector<T> {
             buf.append("Recent access records: ");
             buf.append(array.length);
             buf.append(NEWLINE);
+            if (discarded > 0) {
+                buf.append(discarded);
+                buf.append(" further access records were discarded, see '-D");
+                buf.append(PROP_MAX_RECORDS);
+                buf.append('\'');
+                buf.append(NEWLINE);
+            }
 
             if (array.length > 0) {
                 for (int i = array.length - 1; i >= 0; i --) {
@@ -340,18 +463,21 @@ public final class ResourceLeakDetector<T> {
             "io.netty.buffer.AbstractByteBufAllocator.toLeakAwareBuffer(",
     };
 
+    private static String hintString(Object hint) {
+        // Prefer a hint string to a simple string form.
+        if (hint instanceof ResourceLeakHint) {
+            return ((ResourceLeakHint) hint).toHintString();
+        }
+        return String.valueOf(hint);
+    }
+
     static String newRecord(Object hint, int recordsToSkip) {
         StringBuilder buf = new StringBuilder(4096);
 
         // Append the hint first if available.
         if (hint != null) {
             buf.append("\tHint: ");
-            // Prefer a hint string to a simple string form.
-            if (hint instanceof ResourceLeakHint) {
-                buf.append(((ResourceLeakHint) hint).toHintString());
-            } else {
-                buf.append(hint);
-            }
+            buf.append(hintString(hint));
             buf.append(NEWLINE);
         }
 
@@ -382,4 +508,59 @@ public final class ResourceLeakDetector<T> {
 
         return buf.toString();
     }
+
+    /**
+     * Captures the caller's stack without materializing it. Only the VM's native backtrace is filled in here, the
+     * {@link StackTraceElement}s are created when the leak is reported.
+     */
+    static CompactRecord newCompactRecord(Object hint, int recordsToSkip) {
+        return new CompactRecord(hint != null ? hintString(hint) : null, recordsToSkip);
+    }
+
+    private static boolean isExcluded(StackTraceElement e) {
+        String className = e.getClassName();
+        String methodName = e.getMethodName();
+        for (String exclusion: STACK_TRACE_ELEMENT_EXCLUSIONS) {
+            // exclusion is "<className>.<methodName>("
+            int classNameLength = className.length();
+            if (exclusion.length() == classNameLength + methodName.length() + 2 &&
+                exclusion.startsWith(className) && exclusion.charAt(classNameLength) == '.' &&
+                exclusion.startsWith(methodName, classNameLength + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static final class CompactRecord extends Throwable {
+        private static final long serialVersionUID = -3326540262069474052L;
+
+        private final String hint;
+        private final int recordsToSkip;
+
+        CompactRecord(String hint, int recordsToSkip) {
+            this.hint = hint;
+            this.recordsToSkip = recordsToSkip;
+        }
+
+        @Override
+        public String toString() {
+            StackTraceElement[] array = getStackTrace();
+            StringBuilder buf = new StringBuilder(array.length * 64);
+            if (hint != null) {
+                buf.append("\tHint: ");
+                buf.append(hint);
+                buf.append(NEWLINE);
+            }
+            for (int i = recordsToSkip; i < array.length; i ++) {
+                StackTraceElement e = array[i];
+                if (!isExcluded(e)) {
+                    buf.append('\t');
+                    buf.append(e);
+                    buf.append(NEWLINE);
+                }
+            }
+            return buf.toString();
+        }
+    }
 }
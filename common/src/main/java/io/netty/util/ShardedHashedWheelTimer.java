@@ -0,0 +1,156 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util;
+
+import io.netty.util.internal.ThreadLocalRandom;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link Timer} which spreads its timeouts over several {@link HashedWheelTimer}s, each with its own queue of
+ * new timeouts and its own worker thread. Use it instead of a single {@link HashedWheelTimer} if the rate of new
+ * timeouts is so high that the producers contend on the queue, or that one worker thread cannot keep up.
+ * <p>
+ * {@link Timeout#timer()} of a {@link Timeout} returned by this timer returns the {@link HashedWheelTimer} shard
+ * it was scheduled on.
+ */
+public class ShardedHashedWheelTimer implements Timer {
+
+    private final HashedWheelTimer[] shards;
+
+    /**
+     * Creates a new timer with the default thread factory ({@link Executors#defaultThreadFactory()}), default tick
+     * duration, and default number of ticks per wheel.
+     *
+     * @param shards  the number of {@link HashedWheelTimer}s and worker threads
+     * @throws IllegalArgumentException if {@code shards} is <= 0
+     */
+    public ShardedHashedWheelTimer(int shards) {
+        this(Executors.defaultThreadFactory(), 100, TimeUnit.MILLISECONDS, 512, 1, shards);
+    }
+
+    /**
+     * Creates a new timer.
+     *
+     * @param threadFactory  a {@link ThreadFactory} that creates the
+     *                       background {@link Thread}s which are dedicated to
+     *                       {@link TimerTask} execution.
+     * @param tickDuration   the duration between tick
+     * @param unit           the time unit of the {@code tickDuration}
+     * @param ticksPerWheel  the size of the wheel of each shard
+     * @param levels         the number of hierarchical wheels of each shard
+     * @param shards         the number of {@link HashedWheelTimer}s and worker threads
+     * @throws NullPointerException     if either of {@code threadFactory} and {@code unit} is {@code null}
+     * @throws IllegalArgumentException if either of {@code tickDuration}, {@code ticksPerWheel}, {@code levels}
+     *                                  and {@code shards} is <= 0
+     * @see HashedWheelTimer#HashedWheelTimer(ThreadFactory, long, TimeUnit, int, int)
+     */
+    public ShardedHashedWheelTimer(
+            ThreadFactory threadFactory,
+            long tickDuration, TimeUnit unit, int ticksPerWheel, int levels, int shards) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("shards: " + shards + " (expected: > 0)");
+        }
+        this.shards = new HashedWheelTimer[shards];
+        for (int i = 0; i < shards; i ++) {
+            this.shards[i] = new HashedWheelTimer(threadFactory, tickDuration, unit, ticksPerWheel, levels);
+        }
+    }
+
+    /**
+     * Starts the background threads of all shards explicitly.  The background threads will
+     * start automatically on demand even if you did not call this method.
+     *
+     * @throws IllegalStateException if this timer has been
+     *                               {@linkplain #stop() stopped} already
+     */
+    public void start() {
+        for (HashedWheelTimer shard: shards) {
+            shard.start();
+        }
+    }
+
+    @Override
+    public Timeout newTimeout(TimerTask task, long delay, TimeUnit unit) {
+        HashedWheelTimer shard = shards.length == 1 ? shards[0]
+                : shards[ThreadLocalRandom.current().nextInt(shards.length)];
+        return shard.newTimeout(task, delay, unit);
+    }
+
+    @Override
+    public Set<Timeout> stop() {
+        Set<Timeout> unprocessed = new HashSet<Timeout>();
+        for (HashedWheelTimer shard: shards) {
+            unprocessed.addAll(shard.stop());
+        }
+        return unprocessed;
+    }
+
+    /**
+     * Returns the number of shards.
+     */
+    public int shards() {
+        return shards.length;
+    }
+
+    /**
+     * Returns the number of timeouts of all shards which were neither expired nor cancelled yet.
+     */
+    public long pendingTimeouts() {
+        long pending = 0;
+        for (HashedWheelTimer shard: shards) {
+            pending += shard.pendingTimeouts();
+        }
+        return pending;
+    }
+
+    /**
+     * Returns the number of timeouts of all shards which expired since this timer was started.
+     */
+    public long expiredTimeouts() {
+        long expired = 0;
+        for (HashedWheelTimer shard: shards) {
+            expired += shard.expiredTimeouts();
+        }
+        return expired;
+    }
+
+    /**
+     * Returns the number of timeouts of all shards which expired on the last tick of each shard.
+     */
+    public int lastTickExpiredTimeouts() {
+        int expired = 0;
+        for (HashedWheelTimer shard: shards) {
+            expired += shard.lastTickExpiredTimeouts();
+        }
+        return expired;
+    }
+
+    /**
+     * Returns the highest {@linkplain HashedWheelTimer#workerLagNanos() worker lag} of all shards.
+     */
+    public long workerLagNanos() {
+        long lag = 0;
+        for (HashedWheelTimer shard: shards) {
+            lag = Math.max(lag, shard.workerLagNanos());
+        }
+        return lag;
+    }
+}
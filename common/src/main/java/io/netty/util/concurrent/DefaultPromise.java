@@ -23,9 +23,9 @@ import io.netty.util.internal.StringUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
-import java.util.ArrayDeque;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import static java.util.concurrent.TimeUnit.*;
 
@@ -40,8 +40,40 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
     private static final Signal UNCANCELLABLE = Signal.valueOf(DefaultPromise.class, "UNCANCELLABLE");
     private static final CauseHolder CANCELLATION_CAUSE_HOLDER = new CauseHolder(new CancellationException());
 
+    /**
+     * Terminates the listener stack while its listeners are notified. Listeners which are added meanwhile are pushed
+     * on top of it and notified by the same thread once it is done with the current ones.
+     */
+    private static final ListenerNode NOTIFYING = new ListenerNode(null);
+    /**
+     * Terminates the listener stack once the promise is done and no listeners are being notified.
+     */
+    private static final ListenerNode NOTIFIED = new ListenerNode(null);
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<DefaultPromise, Object> RESULT_UPDATER;
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<DefaultPromise, ListenerNode> LISTENERS_UPDATER;
+
     static {
         CANCELLATION_CAUSE_HOLDER.cause.setStackTrace(EmptyArrays.EMPTY_STACK_TRACE);
+
+        @SuppressWarnings("rawtypes")
+        AtomicReferenceFieldUpdater<DefaultPromise, Object> resultUpdater =
+                PlatformDependent.newAtomicReferenceFieldUpdater(DefaultPromise.class, "result");
+        if (resultUpdater == null) {
+            resultUpdater = AtomicReferenceFieldUpdater.newUpdater(DefaultPromise.class, Object.class, "result");
+        }
+        RESULT_UPDATER = resultUpdater;
+
+        @SuppressWarnings("rawtypes")
+        AtomicReferenceFieldUpdater<DefaultPromise, ListenerNode> listenersUpdater =
+                PlatformDependent.newAtomicReferenceFieldUpdater(DefaultPromise.class, "listeners");
+        if (listenersUpdater == null) {
+            listenersUpdater = AtomicReferenceFieldUpdater.newUpdater(
+                    DefaultPromise.class, ListenerNode.class, "listeners");
+        }
+        LISTENERS_UPDATER = listenersUpdater;
     }
 
     EventExecutor executor;
@@ -49,19 +81,16 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
     private volatile Object result;
 
     /**
-     * One or more listeners. Can be a {@link GenericFutureListener} or a {@link DefaultFutureListeners}.
-     * If {@code null}, it means either 1) no listeners were added yet or 2) all listeners were notified.
+     * The stack of the listeners which were not notified yet, the most recently added listener first. Terminated by
+     * {@code null} until the promise is done, and by {@link #NOTIFYING} or {@link #NOTIFIED} afterwards.
      */
-    private Object listeners;
+    private volatile ListenerNode listeners;
 
     /**
-     * The list of the listeners that were added after the promise is done.  Initially {@code null} and lazily
-     * instantiated when the late listener is scheduled to be notified later.  Also used as a cached {@link Runnable}
-     * that performs the notification of the listeners it contains.
+     * The number of threads waiting on the monitor of this promise. Only modified while holding the monitor, but read
+     * without it when the promise is done so that {@link #notifyAll()} is called only if there are any waiters.
      */
-    private LateListeners lateListeners;
-
-    private short waiters;
+    private volatile short waiters;
 
     /**
      * Creates a new instance.
@@ -134,29 +163,17 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
             throw new NullPointerException("listener");
         }
 
-        if (isDone()) {
-            notifyLateListener(listener);
-            return this;
-        }
+        ListenerNode node = new ListenerNode(listener);
+        ListenerNode head;
+        do {
+            head = listeners;
+            node.link(head);
+        } while (!LISTENERS_UPDATER.compareAndSet(this, head, node));
 
-        synchronized (this) {
-            if (!isDone()) {
-                if (listeners == null) {
-                    listeners = listener;
-                } else {
-                    if (listeners instanceof DefaultFutureListeners) {
-                        ((DefaultFutureListeners) listeners).add(listener);
-                    } else {
-                        final GenericFutureListener<? extends Future<V>> firstListener =
-                                (GenericFutureListener<? extends Future<V>>) listeners;
-                        listeners = new DefaultFutureListeners(firstListener, listener);
-                    }
-                }
-                return this;
-            }
+        if (head == NOTIFIED) {
+            // The promise is done and nobody notifies its listeners, so it is up to us.
+            notifyListeners();
         }
-
-        notifyLateListener(listener);
         return this;
     }
 
@@ -181,21 +198,29 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
             throw new NullPointerException("listener");
         }
 
-        if (isDone()) {
-            return this;
-        }
+        for (;;) {
+            if (isDone()) {
+                return this;
+            }
 
-        synchronized (this) {
-            if (!isDone()) {
-                if (listeners instanceof DefaultFutureListeners) {
-                    ((DefaultFutureListeners) listeners).remove(listener);
-                } else if (listeners == listener) {
-                    listeners = null;
+            ListenerNode head = listeners;
+            // Remove the earliest added occurrence of the listener, as it is the last one on the stack.
+            ListenerNode found = null;
+            for (ListenerNode n = head; !isTerminator(n); n = n.next) {
+                if (n.listener == listener) {
+                    found = n;
                 }
             }
-        }
+            if (found == null) {
+                return this;
+            }
 
-        return this;
+            // The nodes are immutable once pushed, so copy the ones above the removed node.
+            ListenerNode newHead = copyAbove(head, found);
+            if (LISTENERS_UPDATER.compareAndSet(this, head, newHead)) {
+                return this;
+            }
+        }
     }
 
     @Override
@@ -247,11 +272,14 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
         }
 
         synchronized (this) {
-            while (!isDone()) {
+            if (!isDone()) {
                 checkDeadLock();
                 incWaiters();
                 try {
-                    wait();
+                    // Check again once counted, as the completing thread calls notifyAll() only if there are waiters.
+                    while (!isDone()) {
+                        wait();
+                    }
                 } finally {
                     decWaiters();
                 }
@@ -279,14 +307,18 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
 
         boolean interrupted = false;
         synchronized (this) {
-            while (!isDone()) {
+            if (!isDone()) {
                 checkDeadLock();
                 incWaiters();
                 try {
-                    wait();
-                } catch (InterruptedException e) {
-                    // Interrupted while waiting.
-                    interrupted = true;
+                    while (!isDone()) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            // Interrupted while waiting.
+                            interrupted = true;
+                        }
+                    }
                 } finally {
                     decWaiters();
                 }
@@ -351,6 +383,10 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
                 incWaiters();
                 try {
                     for (;;) {
+                        if (isDone()) {
+                            return true;
+                        }
+
                         try {
                             wait(waitTime / 1000000, (int) (waitTime % 1000000));
                         } catch (InterruptedException e) {
@@ -361,13 +397,9 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
                             }
                         }
 
-                        if (isDone()) {
-                            return true;
-                        } else {
-                            waitTime = timeoutNanos - (System.nanoTime() - startTime);
-                            if (waitTime <= 0) {
-                                return isDone();
-                            }
+                        waitTime = timeoutNanos - (System.nanoTime() - startTime);
+                        if (waitTime <= 0) {
+                            return isDone();
                         }
                     }
                 } finally {
@@ -429,90 +461,55 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
 
     @Override
     public boolean cancel(boolean mayInterruptIfRunning) {
-        Object result = this.result;
-        if (isDone0(result) || result == UNCANCELLABLE) {
-            return false;
-        }
-
-        synchronized (this) {
-            // Allow only once.
-            result = this.result;
-            if (isDone0(result) || result == UNCANCELLABLE) {
-                return false;
-            }
-
-            this.result = CANCELLATION_CAUSE_HOLDER;
-            if (hasWaiters()) {
-                notifyAll();
-            }
+        // Allow only once, and not once uncancellable.
+        if (RESULT_UPDATER.compareAndSet(this, null, CANCELLATION_CAUSE_HOLDER)) {
+            notifyWaiters();
+            notifyListeners();
+            return true;
         }
-
-        notifyListeners();
-        return true;
+        return false;
     }
 
     @Override
     public boolean setUncancellable() {
-        Object result = this.result;
-        if (isDone0(result)) {
-            return !isCancelled0(result);
-        }
-
-        synchronized (this) {
-            // Allow only once.
-            result = this.result;
-            if (isDone0(result)) {
-                return !isCancelled0(result);
-            }
-
-            this.result = UNCANCELLABLE;
+        if (RESULT_UPDATER.compareAndSet(this, null, UNCANCELLABLE)) {
+            return true;
         }
-        return true;
+        Object result = this.result;
+        return !isDone0(result) || !isCancelled0(result);
     }
 
     private boolean setFailure0(Throwable cause) {
         if (cause == null) {
             throw new NullPointerException("cause");
         }
-
-        if (isDone()) {
-            return false;
-        }
-
-        synchronized (this) {
-            // Allow only once.
-            if (isDone()) {
-                return false;
-            }
-
-            result = new CauseHolder(cause);
-            if (hasWaiters()) {
-                notifyAll();
-            }
-        }
-        return true;
+        return setValue0(new CauseHolder(cause));
     }
 
     private boolean setSuccess0(V result) {
-        if (isDone()) {
-            return false;
+        return setValue0(result == null ? SUCCESS : result);
+    }
+
+    private boolean setValue0(Object result) {
+        // Allow only once.
+        if (RESULT_UPDATER.compareAndSet(this, null, result) ||
+            RESULT_UPDATER.compareAndSet(this, UNCANCELLABLE, result)) {
+            notifyWaiters();
+            return true;
         }
+        return false;
+    }
 
-        synchronized (this) {
-            // Allow only once.
-            if (isDone()) {
-                return false;
-            }
-            if (result == null) {
-                this.result = SUCCESS;
-            } else {
-                this.result = result;
-            }
-            if (hasWaiters()) {
+    /**
+     * Wakes up the threads waiting for this promise, if any. The waiters are counted before the result is checked and
+     * the result is set before the waiters are read, so either this method sees a waiter or the waiter sees the result.
+     */
+    private void notifyWaiters() {
+        if (waiters > 0) {
+            synchronized (this) {
                 notifyAll();
             }
         }
-        return true;
     }
 
     @Override
@@ -525,10 +522,6 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
         return (V) result;
     }
 
-    private boolean hasWaiters() {
-        return waiters > 0;
-    }
-
     private void incWaiters() {
         if (waiters == Short.MAX_VALUE) {
             throw new IllegalStateException("too many waiters: " + this);
@@ -541,14 +534,8 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
     }
 
     private void notifyListeners() {
-        // This method doesn't need synchronization because:
-        // 1) This method is always called after synchronized (this) block.
-        //    Hence any listener list modification happens-before this method.
-        // 2) This method is called only when 'done' is true.  Once 'done'
-        //    becomes true, the listener list is never modified - see add/removeListener()
-
-        Object listeners = this.listeners;
-        if (listeners == null) {
+        // No need to go through the executor if no listeners were added.
+        if (listeners == null && LISTENERS_UPDATER.compareAndSet(this, null, NOTIFIED)) {
             return;
         }
 
@@ -559,86 +546,75 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
             if (stackDepth < MAX_LISTENER_STACK_DEPTH) {
                 threadLocals.setFutureListenerStackDepth(stackDepth + 1);
                 try {
-                    if (listeners instanceof DefaultFutureListeners) {
-                        notifyListeners0(this, (DefaultFutureListeners) listeners);
-                    } else {
-                        final GenericFutureListener<? extends Future<V>> l =
-                                (GenericFutureListener<? extends Future<V>>) listeners;
-                        notifyListener0(this, l);
-                    }
+                    notifyListenersNow();
                 } finally {
-                    this.listeners = null;
                     threadLocals.setFutureListenerStackDepth(stackDepth);
                 }
                 return;
             }
         }
 
-        if (listeners instanceof DefaultFutureListeners) {
-            final DefaultFutureListeners dfl = (DefaultFutureListeners) listeners;
-            execute(executor, new Runnable() {
-                @Override
-                public void run() {
-                    notifyListeners0(DefaultPromise.this, dfl);
-                    DefaultPromise.this.listeners = null;
-                }
-            });
-        } else {
-            final GenericFutureListener<? extends Future<V>> l =
-                    (GenericFutureListener<? extends Future<V>>) listeners;
-            execute(executor, new Runnable() {
-                @Override
-                public void run() {
-                    notifyListener0(DefaultPromise.this, l);
-                    DefaultPromise.this.listeners = null;
-                }
-            });
+        execute(executor, new Runnable() {
+            @Override
+            public void run() {
+                notifyListenersNow();
+            }
+        });
+    }
+
+    /**
+     * Notifies all listeners on the stack, including the ones which are added while doing so. Only called by the
+     * thread which completed the promise or which added a listener when the stack was {@link #NOTIFIED}, so that
+     * the listeners are notified by one thread at a time and in the order they were added.
+     */
+    private void notifyListenersNow() {
+        ListenerNode head = LISTENERS_UPDATER.getAndSet(this, NOTIFYING);
+        for (;;) {
+            notifyListeners0(this, head);
+            if (LISTENERS_UPDATER.compareAndSet(this, NOTIFYING, NOTIFIED)) {
+                return;
+            }
+            head = LISTENERS_UPDATER.getAndSet(this, NOTIFYING);
         }
     }
 
-    private static void notifyListeners0(Future<?> future, DefaultFutureListeners listeners) {
-        final GenericFutureListener<?>[] a = listeners.listeners();
-        final int size = listeners.size();
-        for (int i = 0; i < size; i ++) {
-            notifyListener0(future, a[i]);
+    private static void notifyListeners0(Future<?> future, ListenerNode head) {
+        if (isTerminator(head)) {
+            return;
+        }
+        if (isTerminator(head.next)) {
+            notifyListener0(future, head.listener);
+            return;
+        }
+
+        // Reverse the stack to notify the listeners in the order they were added.
+        int size = 0;
+        for (ListenerNode n = head; !isTerminator(n); n = n.next) {
+            size ++;
+        }
+        GenericFutureListener<?>[] a = new GenericFutureListener[size];
+        for (ListenerNode n = head; !isTerminator(n); n = n.next) {
+            a[-- size] = n.listener;
+        }
+        for (GenericFutureListener<?> l: a) {
+            notifyListener0(future, l);
         }
     }
 
     /**
-     * Notifies the specified listener which were added after this promise is already done.
-     * This method ensures that the specified listener is not notified until {@link #listeners} becomes {@code null}
-     * to avoid the case where the late listeners are notified even before the early listeners are notified.
+     * Returns a copy of the nodes from the specified head to the specified node, linked to the node below it.
      */
-    private void notifyLateListener(final GenericFutureListener<?> l) {
-        final EventExecutor executor = executor();
-        if (executor.inEventLoop()) {
-            if (listeners == null && lateListeners == null) {
-                final InternalThreadLocalMap threadLocals = InternalThreadLocalMap.get();
-                final int stackDepth = threadLocals.futureListenerStackDepth();
-                if (stackDepth < MAX_LISTENER_STACK_DEPTH) {
-                    threadLocals.setFutureListenerStackDepth(stackDepth + 1);
-                    try {
-                        notifyListener0(this, l);
-                    } finally {
-                        threadLocals.setFutureListenerStackDepth(stackDepth);
-                    }
-                    return;
-                }
-            } else {
-                LateListeners lateListeners = this.lateListeners;
-                if (lateListeners == null) {
-                    this.lateListeners = lateListeners = new LateListeners();
-                }
-                lateListeners.add(l);
-                execute(executor, lateListeners);
-                return;
-            }
+    private static ListenerNode copyAbove(ListenerNode head, ListenerNode removed) {
+        if (head == removed) {
+            return removed.next;
         }
+        ListenerNode copy = new ListenerNode(head.listener);
+        copy.link(copyAbove(head.next, removed));
+        return copy;
+    }
 
-        // Add the late listener to lateListeners in the executor thread for thread safety.
-        // We could just make LateListeners extend ConcurrentLinkedQueue, but it's an overkill considering
-        // that most asynchronous applications won't execute this code path.
-        execute(executor, new LateListenerNotifier(l));
+    private static boolean isTerminator(ListenerNode node) {
+        return node == null || node == NOTIFYING || node == NOTIFIED;
     }
 
     protected static void notifyListener(
@@ -689,45 +665,34 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
      * Returns a {@link GenericProgressiveFutureListener}, an array of {@link GenericProgressiveFutureListener}, or
      * {@code null}.
      */
-    private synchronized Object progressiveListeners() {
-        Object listeners = this.listeners;
-        if (listeners == null) {
-            // No listeners added
+    private Object progressiveListeners() {
+        ListenerNode head = listeners;
+        if (isTerminator(head)) {
+            // No listeners added, or the promise is done already.
             return null;
         }
 
-        if (listeners instanceof DefaultFutureListeners) {
-            // Copy DefaultFutureListeners into an array of listeners.
-            DefaultFutureListeners dfl = (DefaultFutureListeners) listeners;
-            int progressiveSize = dfl.progressiveSize();
-            switch (progressiveSize) {
-                case 0:
-                    return null;
-                case 1:
-                    for (GenericFutureListener<?> l: dfl.listeners()) {
-                        if (l instanceof GenericProgressiveFutureListener) {
-                            return l;
-                        }
+        int progressiveSize = head.progressiveSize;
+        switch (progressiveSize) {
+            case 0:
+                return null;
+            case 1:
+                for (ListenerNode n = head; !isTerminator(n); n = n.next) {
+                    if (n.listener instanceof GenericProgressiveFutureListener) {
+                        return n.listener;
                     }
-                    return null;
-            }
-
-            GenericFutureListener<?>[] array = dfl.listeners();
-            GenericProgressiveFutureListener<?>[] copy = new GenericProgressiveFutureListener[progressiveSize];
-            for (int i = 0, j = 0; j < progressiveSize; i ++) {
-                GenericFutureListener<?> l = array[i];
-                if (l instanceof GenericProgressiveFutureListener) {
-                    copy[j ++] = (GenericProgressiveFutureListener<?>) l;
                 }
-            }
+                return null;
+        }
 
-            return copy;
-        } else if (listeners instanceof GenericProgressiveFutureListener) {
-            return listeners;
-        } else {
-            // Only one listener was added and it's not a progressive listener.
-            return null;
+        // Copy the progressive listeners in the order they were added.
+        GenericProgressiveFutureListener<?>[] copy = new GenericProgressiveFutureListener[progressiveSize];
+        for (ListenerNode n = head; progressiveSize > 0; n = n.next) {
+            if (n.listener instanceof GenericProgressiveFutureListener) {
+                copy[-- progressiveSize] = (GenericProgressiveFutureListener<?>) n.listener;
+            }
         }
+        return copy;
     }
 
     @SuppressWarnings("unchecked")
@@ -826,51 +791,23 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
         return buf;
     }
 
-    private final class LateListeners extends ArrayDeque<GenericFutureListener<?>> implements Runnable {
-
-        private static final long serialVersionUID = -687137418080392244L;
-
-        LateListeners() {
-            super(2);
-        }
-
-        @Override
-        public void run() {
-            if (listeners == null) {
-                for (;;) {
-                    GenericFutureListener<?> l = poll();
-                    if (l == null) {
-                        break;
-                    }
-                    notifyListener0(DefaultPromise.this, l);
-                }
-            } else {
-                // Reschedule until the initial notification is done to avoid the race condition
-                // where the notification is made in an incorrect order.
-                execute(executor(), this);
-            }
-        }
-    }
-
-    private final class LateListenerNotifier implements Runnable {
-        private GenericFutureListener<?> l;
+    /**
+     * A node of the listener stack. Immutable once pushed, so that the stack can be read without locking.
+     */
+    private static final class ListenerNode {
+        final GenericFutureListener<?> listener;
+        ListenerNode next;
+        // The number of progressive listeners from this node to the bottom of the stack.
+        int progressiveSize;
 
-        LateListenerNotifier(GenericFutureListener<?> l) {
-            this.l = l;
+        ListenerNode(GenericFutureListener<?> listener) {
+            this.listener = listener;
         }
 
-        @Override
-        public void run() {
-            LateListeners lateListeners = DefaultPromise.this.lateListeners;
-            if (l != null) {
-                if (lateListeners == null) {
-                    DefaultPromise.this.lateListeners = lateListeners = new LateListeners();
-                }
-                lateListeners.add(l);
-                l = null;
-            }
-
-            lateListeners.run();
+        void link(ListenerNode next) {
+            this.next = next;
+            progressiveSize = (listener instanceof GenericProgressiveFutureListener ? 1 : 0) +
+                    (isTerminator(next) ? 0 : next.progressiveSize);
         }
     }
 }
@@ -22,6 +22,7 @@ import io.netty.util.internal.OneTimeTask;
 import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Delayed;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -34,6 +35,13 @@ final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFu
         return System.nanoTime() - START_TIME;
     }
 
+    /**
+     * Converts a value of {@link System#nanoTime()} to the time base of {@link #nanoTime()}.
+     */
+    static long nanoTime(long currentTimeNanos) {
+        return currentTimeNanos - START_TIME;
+    }
+
     static long deadlineNanos(long delay) {
         return nanoTime() + delay;
     }
@@ -44,6 +52,11 @@ final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFu
     /* 0 - no repeat, >0 - repeat at fixed rate, <0 - repeat with fixed delay */
     private final long periodNanos;
 
+    // Used by ScheduledTaskWheel.
+    int wheelSlot = ScheduledTaskWheel.NOT_QUEUED;
+    ScheduledFutureTask<?> wheelPrev;
+    ScheduledFutureTask<?> wheelNext;
+
     ScheduledFutureTask(EventExecutor executor, Queue<ScheduledFutureTask<?>> delayedTaskQueue,
                         Callable<V> callable, long nanoTime, long period) {
         super(executor.unwrap(), callable);
@@ -102,6 +115,39 @@ final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFu
         }
     }
 
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean canceled = super.cancel(mayInterruptIfRunning);
+        if (canceled) {
+            removeFromDelayedTaskQueue();
+        }
+        return canceled;
+    }
+
+    private void removeFromDelayedTaskQueue() {
+        final Queue<ScheduledFutureTask<?>> delayedTaskQueue = this.delayedTaskQueue;
+        if (!(delayedTaskQueue instanceof ScheduledTaskWheel)) {
+            // Removing a task from a PriorityQueue is O(n), so it stays there until its deadline.
+            return;
+        }
+
+        EventExecutor executor = executor();
+        if (executor.inEventLoop()) {
+            delayedTaskQueue.remove(this);
+        } else if (!executor.isShutdown()) {
+            try {
+                executor.execute(new OneTimeTask() {
+                    @Override
+                    public void run() {
+                        delayedTaskQueue.remove(ScheduledFutureTask.this);
+                    }
+                });
+            } catch (RejectedExecutionException ignore) {
+                // The executor drops all its delayed tasks when it terminates.
+            }
+        }
+    }
+
     @Override
     public void run() {
         assert executor().inEventLoop();
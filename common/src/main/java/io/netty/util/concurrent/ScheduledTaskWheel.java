@@ -0,0 +1,364 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The delayed task queue of a {@link SingleThreadEventExecutor}, implemented as a hierarchical timing wheel.
+ * <p>
+ * The deadline of a task is divided into ticks. A task is linked into the slot of the wheel level which covers the
+ * highest digit in which its tick differs from the current tick of the wheel, so adding and removing a task is O(1)
+ * and does not allocate. Once the time reaches the first tick of an occupied slot, its tasks are spread over the
+ * lower levels. The tasks which are due at or before the current tick are kept in a {@link PriorityQueue} so that
+ * they are still executed in the exact order of their deadlines, and tasks whose deadline is beyond the range of the
+ * wheel are kept in another {@link PriorityQueue}.
+ * <p>
+ * This class is not thread-safe and must only be accessed from the event loop.
+ */
+final class ScheduledTaskWheel extends AbstractQueue<ScheduledFutureTask<?>> {
+
+    static final int NOT_QUEUED = -1;
+    private static final int READY = -2;
+    private static final int OVERFLOW = -3;
+
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int WHEEL_BITS = LEVELS * SLOT_BITS;
+
+    private final long tickNanos;
+    private final ScheduledFutureTask<?>[] slots = new ScheduledFutureTask<?>[LEVELS * SLOTS];
+    // One bit per occupied slot of each level.
+    private final long[] occupied = new long[LEVELS];
+    // Tasks whose tick is not after the current tick.
+    private final PriorityQueue<ScheduledFutureTask<?>> ready = new PriorityQueue<ScheduledFutureTask<?>>();
+    // Tasks whose tick is too far away from the current tick to fit into the wheel.
+    private final PriorityQueue<ScheduledFutureTask<?>> overflow = new PriorityQueue<ScheduledFutureTask<?>>();
+    private long currentTick;
+    private int size;
+
+    ScheduledTaskWheel(long tickNanos) {
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("tickNanos: " + tickNanos + " (expected: > 0)");
+        }
+        this.tickNanos = tickNanos;
+        currentTick = ScheduledFutureTask.nanoTime() / tickNanos;
+    }
+
+    /**
+     * Returns the time until the next task is due, or {@code -1} if there are no tasks. If the next task is not
+     * due within the current tick, the returned delay may end before its deadline, at the tick when its slot has
+     * to be spread over the lower levels.
+     *
+     * @param nanoTime the current time as returned by {@link ScheduledFutureTask#nanoTime()}
+     */
+    long nextDelayNanos(long nanoTime) {
+        advance(nanoTime / tickNanos);
+        ScheduledFutureTask<?> task = ready.peek();
+        if (task != null) {
+            return Math.max(0, task.deadlineNanos() - nanoTime);
+        }
+
+        int level = lowestOccupiedLevel();
+        if (level < LEVELS) {
+            return slotStart(level, Long.numberOfTrailingZeros(occupied[level])) * tickNanos - nanoTime;
+        }
+        task = overflow.peek();
+        if (task != null) {
+            return blockStart(tick(task)) * tickNanos - nanoTime;
+        }
+        return -1;
+    }
+
+    /**
+     * Removes and returns the task with the earliest deadline if it is due, or returns {@code null}.
+     *
+     * @param nanoTime the current time as returned by {@link ScheduledFutureTask#nanoTime()}
+     */
+    ScheduledFutureTask<?> pollExpired(long nanoTime) {
+        advance(nanoTime / tickNanos);
+        ScheduledFutureTask<?> task = ready.peek();
+        if (task == null || task.deadlineNanos() > nanoTime) {
+            return null;
+        }
+        ready.poll();
+        task.wheelSlot = NOT_QUEUED;
+        size --;
+        return task;
+    }
+
+    @Override
+    public boolean offer(ScheduledFutureTask<?> task) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        if (task.wheelSlot != NOT_QUEUED) {
+            throw new IllegalStateException("task already queued: " + task);
+        }
+        place(task);
+        size ++;
+        return true;
+    }
+
+    @Override
+    public ScheduledFutureTask<?> peek() {
+        advance(ScheduledFutureTask.nanoTime() / tickNanos);
+        ScheduledFutureTask<?> task = ready.peek();
+        if (task != null) {
+            return task;
+        }
+
+        int level = lowestOccupiedLevel();
+        if (level == LEVELS) {
+            return overflow.peek();
+        }
+        // The event loop uses nextDelayNanos() and pollExpired(), so a scan of the next slot is fine here.
+        ScheduledFutureTask<?> first = slots[level << SLOT_BITS | Long.numberOfTrailingZeros(occupied[level])];
+        for (task = first.wheelNext; task != null; task = task.wheelNext) {
+            if (task.compareTo(first) < 0) {
+                first = task;
+            }
+        }
+        return first;
+    }
+
+    @Override
+    public ScheduledFutureTask<?> poll() {
+        ScheduledFutureTask<?> task = peek();
+        if (task != null) {
+            remove(task);
+        }
+        return task;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof ScheduledFutureTask)) {
+            return false;
+        }
+        ScheduledFutureTask<?> task = (ScheduledFutureTask<?>) o;
+        int slot = task.wheelSlot;
+        if (slot >= 0) {
+            unlink(task);
+        } else if (slot == READY) {
+            if (!ready.remove(task)) {
+                return false;
+            }
+        } else if (slot == OVERFLOW) {
+            if (!overflow.remove(task)) {
+                return false;
+            }
+        } else {
+            return false;
+        }
+        task.wheelSlot = NOT_QUEUED;
+        size --;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (ScheduledFutureTask<?> task: snapshot()) {
+            task.wheelSlot = NOT_QUEUED;
+            task.wheelPrev = task.wheelNext = null;
+        }
+        Arrays.fill(slots, null);
+        Arrays.fill(occupied, 0);
+        ready.clear();
+        overflow.clear();
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<ScheduledFutureTask<?>> iterator() {
+        final Iterator<ScheduledFutureTask<?>> i = snapshot().iterator();
+        return new Iterator<ScheduledFutureTask<?>>() {
+            private ScheduledFutureTask<?> last;
+
+            @Override
+            public boolean hasNext() {
+                return i.hasNext();
+            }
+
+            @Override
+            public ScheduledFutureTask<?> next() {
+                return last = i.next();
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                ScheduledTaskWheel.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    private List<ScheduledFutureTask<?>> snapshot() {
+        List<ScheduledFutureTask<?>> tasks = new ArrayList<ScheduledFutureTask<?>>(size);
+        tasks.addAll(ready);
+        for (ScheduledFutureTask<?> head: slots) {
+            for (ScheduledFutureTask<?> task = head; task != null; task = task.wheelNext) {
+                tasks.add(task);
+            }
+        }
+        tasks.addAll(overflow);
+        return tasks;
+    }
+
+    private long tick(ScheduledFutureTask<?> task) {
+        return task.deadlineNanos() / tickNanos;
+    }
+
+    /**
+     * Returns the level of the highest digit in which the specified tick differs from the current tick.
+     */
+    private int level(long tick) {
+        return (63 - Long.numberOfLeadingZeros(tick ^ currentTick)) / SLOT_BITS;
+    }
+
+    private int lowestOccupiedLevel() {
+        int level = 0;
+        while (level < LEVELS && occupied[level] == 0) {
+            level ++;
+        }
+        return level;
+    }
+
+    /**
+     * Returns the first tick of the specified slot, which is always after the current tick.
+     */
+    private long slotStart(int level, int slot) {
+        int shift = level * SLOT_BITS;
+        return currentTick & ~((1L << shift + SLOT_BITS) - 1) | (long) slot << shift;
+    }
+
+    /**
+     * Returns the first tick from which on the specified tick is in the range of the wheel.
+     */
+    private static long blockStart(long tick) {
+        return tick >>> WHEEL_BITS << WHEEL_BITS;
+    }
+
+    private void place(ScheduledFutureTask<?> task) {
+        long tick = tick(task);
+        if (tick <= currentTick) {
+            task.wheelSlot = READY;
+            ready.add(task);
+            return;
+        }
+
+        int level = level(tick);
+        if (level >= LEVELS) {
+            task.wheelSlot = OVERFLOW;
+            overflow.add(task);
+            return;
+        }
+
+        int slot = (int) (tick >>> level * SLOT_BITS) & SLOT_MASK;
+        int idx = level << SLOT_BITS | slot;
+        ScheduledFutureTask<?> head = slots[idx];
+        task.wheelNext = head;
+        if (head != null) {
+            head.wheelPrev = task;
+        }
+        slots[idx] = task;
+        task.wheelSlot = idx;
+        occupied[level] |= 1L << slot;
+    }
+
+    private void unlink(ScheduledFutureTask<?> task) {
+        int idx = task.wheelSlot;
+        ScheduledFutureTask<?> prev = task.wheelPrev;
+        ScheduledFutureTask<?> next = task.wheelNext;
+        if (prev != null) {
+            prev.wheelNext = next;
+        } else {
+            slots[idx] = next;
+            if (next == null) {
+                occupied[idx >>> SLOT_BITS] &= ~(1L << (idx & SLOT_MASK));
+            }
+        }
+        if (next != null) {
+            next.wheelPrev = prev;
+        }
+        task.wheelPrev = task.wheelNext = null;
+    }
+
+    /**
+     * Moves the current tick forward to the specified tick and spreads the tasks of all slots which were passed
+     * over the lower levels.
+     */
+    private void advance(long targetTick) {
+        for (;;) {
+            int level = lowestOccupiedLevel();
+            if (level < LEVELS) {
+                int slot = Long.numberOfTrailingZeros(occupied[level]);
+                long start = slotStart(level, slot);
+                if (start > targetTick) {
+                    break;
+                }
+
+                currentTick = start;
+                int idx = level << SLOT_BITS | slot;
+                ScheduledFutureTask<?> task = slots[idx];
+                slots[idx] = null;
+                occupied[level] &= ~(1L << slot);
+                while (task != null) {
+                    ScheduledFutureTask<?> next = task.wheelNext;
+                    task.wheelPrev = task.wheelNext = null;
+                    place(task);
+                    task = next;
+                }
+            } else {
+                ScheduledFutureTask<?> task = overflow.peek();
+                if (task == null) {
+                    break;
+                }
+                long start = blockStart(tick(task));
+                if (start > targetTick) {
+                    break;
+                }
+
+                // The wheel is empty, so move to the range of the earliest long deadline and pull in all tasks of it.
+                currentTick = start;
+                while ((task = overflow.peek()) != null && blockStart(tick(task)) == start) {
+                    overflow.poll();
+                    place(task);
+                }
+            }
+        }
+
+        // No slot starts before the target tick, so all tasks stay in the slots they are in.
+        if (targetTick > currentTick) {
+            currentTick = targetTick;
+        }
+    }
+}
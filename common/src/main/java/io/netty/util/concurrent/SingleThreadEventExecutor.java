@@ -18,6 +18,8 @@ package io.netty.util.concurrent;
 import io.netty.util.internal.CallableEventExecutorAdapter;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.RunnableEventExecutorAdapter;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.ThreadExecutorMap;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
@@ -64,7 +66,25 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
     private static final AtomicIntegerFieldUpdater<SingleThreadEventExecutor> STATE_UPDATER;
     private static final AtomicReferenceFieldUpdater<SingleThreadEventExecutor, Thread> THREAD_UPDATER;
 
+    // The tick of the timing wheel which holds the delayed tasks, or 0 to use a PriorityQueue instead.
+    private static final long TIMING_WHEEL_TICK_NANOS;
+
+    static final int DEFAULT_MAX_PENDING_EXECUTOR_TASKS;
+
     static {
+        DEFAULT_MAX_PENDING_EXECUTOR_TASKS = Math.max(16, SystemPropertyUtil.getInt(
+                "io.netty.eventExecutor.maxPendingTasks", Integer.MAX_VALUE));
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.eventExecutor.maxPendingTasks: {}", DEFAULT_MAX_PENDING_EXECUTOR_TASKS);
+        }
+
+        TIMING_WHEEL_TICK_NANOS = TimeUnit.MICROSECONDS.toNanos(Math.max(0, SystemPropertyUtil.getLong(
+                "io.netty.eventExecutor.timingWheelTickMicros", 1000)));
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.eventExecutor.timingWheelTickMicros: {}",
+                    TimeUnit.NANOSECONDS.toMicros(TIMING_WHEEL_TICK_NANOS));
+        }
+
         AtomicIntegerFieldUpdater<SingleThreadEventExecutor> updater =
                 PlatformDependent.newAtomicIntegerFieldUpdater(SingleThreadEventExecutor.class, "state");
         if (updater == null) {
@@ -82,7 +102,8 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
     }
 
     private final Queue<Runnable> taskQueue;
-    final Queue<ScheduledFutureTask<?>> delayedTaskQueue = new PriorityQueue<ScheduledFutureTask<?>>();
+    final Queue<ScheduledFutureTask<?>> delayedTaskQueue = TIMING_WHEEL_TICK_NANOS > 0 ?
+            new ScheduledTaskWheel(TIMING_WHEEL_TICK_NANOS) : new PriorityQueue<ScheduledFutureTask<?>>();
 
     @SuppressWarnings({ "FieldMayBeFinal", "unused" })
     private volatile Thread thread;
@@ -90,6 +111,8 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
     private final Semaphore threadLock = new Semaphore(0);
     private final Set<Runnable> shutdownHooks = new LinkedHashSet<Runnable>();
     private final boolean addTaskWakesUp;
+    private final int maxPendingTasks;
+    private final RejectedExecutionHandler rejectedExecutionHandler;
 
     private long lastExecutionTime;
 
@@ -118,11 +141,15 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
                 updateLastExecutionTime();
             }
 
+            ThreadExecutorMap.setCurrentEventExecutor(SingleThreadEventExecutor.this);
             try {
                 SingleThreadEventExecutor.this.run();
             } catch (Throwable t) {
                 logger.warn("Unexpected exception from an event executor: ", t);
                 cleanupAndTerminate(false);
+            } finally {
+                // The thread may be used by another executor once we returned.
+                ThreadExecutorMap.setCurrentEventExecutor(null);
             }
         }
     };
@@ -134,25 +161,54 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
      *                         the executor thread.
      */
     protected SingleThreadEventExecutor(EventExecutorGroup parent, Executor executor, boolean addTaskWakesUp) {
+        this(parent, executor, addTaskWakesUp, DEFAULT_MAX_PENDING_EXECUTOR_TASKS, RejectedExecutionHandlers.reject());
+    }
+
+    /**
+     * @param parent            the {@link EventExecutorGroup} which is the parent of this instance and belongs to it.
+     * @param executor          the {@link Executor} which will be used for executing.
+     * @param addTaskWakesUp   {@code true} if and only if invocation of {@link #addTask(Runnable)} will wake up
+     *                         the executor thread.
+     * @param maxPendingTasks   the maximum number of pending tasks before new tasks will be rejected.
+     * @param rejectedHandler   the {@link RejectedExecutionHandler} to use.
+     */
+    protected SingleThreadEventExecutor(EventExecutorGroup parent, Executor executor, boolean addTaskWakesUp,
+                                        int maxPendingTasks, RejectedExecutionHandler rejectedHandler) {
         super(parent);
 
         if (executor == null) {
             throw new NullPointerException("executor");
         }
+        if (rejectedHandler == null) {
+            throw new NullPointerException("rejectedHandler");
+        }
 
         this.addTaskWakesUp = addTaskWakesUp;
         this.executor = executor;
+        this.maxPendingTasks = Math.max(16, maxPendingTasks);
+        rejectedExecutionHandler = rejectedHandler;
         taskQueue = newTaskQueue();
     }
 
+    /**
+     * @deprecated Please use and override {@link #newTaskQueue(int)}.
+     */
+    @Deprecated
+    protected Queue<Runnable> newTaskQueue() {
+        return newTaskQueue(maxPendingTasks);
+    }
+
     /**
      * Create a new {@link Queue} which will holds the tasks to execute. This default implementation will return a
      * {@link LinkedBlockingQueue} but if your sub-class of {@link SingleThreadEventExecutor} will not do any blocking
      * calls on the this {@link Queue} it may make sense to {@code @Override} this and return some more performant
-     * implementation that does not support blocking operations at all.
+     * implementation that does not support blocking operations at all, such as
+     * {@link PlatformDependent#newMpscQueue(int)}.
+     *
+     * @param maxPendingTasks the maximum number of tasks the {@link Queue} should accept
      */
-    protected Queue<Runnable> newTaskQueue() {
-        return new LinkedBlockingQueue<Runnable>();
+    protected Queue<Runnable> newTaskQueue(int maxPendingTasks) {
+        return new LinkedBlockingQueue<Runnable>(maxPendingTasks);
     }
 
     /**
@@ -186,8 +242,8 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
 
         BlockingQueue<Runnable> taskQueue = (BlockingQueue<Runnable>) this.taskQueue;
         for (;;) {
-            ScheduledFutureTask<?> delayedTask = delayedTaskQueue.peek();
-            if (delayedTask == null) {
+            long delayNanos = nextDelayedTaskDelayNanos(ScheduledFutureTask.nanoTime());
+            if (delayNanos < 0) {
                 Runnable task = null;
                 try {
                     task = taskQueue.take();
@@ -199,7 +255,6 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
                 }
                 return task;
             } else {
-                long delayNanos = delayedTask.delayNanos();
                 Runnable task = null;
                 if (delayNanos > 0) {
                     try {
@@ -226,26 +281,52 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
     }
 
     private void fetchFromDelayedQueue() {
-        long nanoTime = 0L;
+        if (delayedTaskQueue.isEmpty()) {
+            return;
+        }
+
+        long nanoTime = ScheduledFutureTask.nanoTime();
         for (;;) {
-            ScheduledFutureTask<?> delayedTask = delayedTaskQueue.peek();
+            ScheduledFutureTask<?> delayedTask = pollExpiredDelayedTask(nanoTime);
             if (delayedTask == null) {
                 break;
             }
-
-            if (nanoTime == 0L) {
-                nanoTime = ScheduledFutureTask.nanoTime();
-            }
-
-            if (delayedTask.deadlineNanos() <= nanoTime) {
-                delayedTaskQueue.remove();
-                taskQueue.add(delayedTask);
-            } else {
+            if (!taskQueue.offer(delayedTask)) {
+                // The task queue is full, so keep the task until there is space again.
+                delayedTaskQueue.add(delayedTask);
                 break;
             }
         }
     }
 
+    private ScheduledFutureTask<?> pollExpiredDelayedTask(long nanoTime) {
+        if (delayedTaskQueue instanceof ScheduledTaskWheel) {
+            return ((ScheduledTaskWheel) delayedTaskQueue).pollExpired(nanoTime);
+        }
+
+        ScheduledFutureTask<?> delayedTask = delayedTaskQueue.peek();
+        if (delayedTask == null || delayedTask.deadlineNanos() > nanoTime) {
+            return null;
+        }
+        delayedTaskQueue.remove();
+        return delayedTask;
+    }
+
+    /**
+     * Returns the time until the next delayed task is due, or {@code -1} if there are no delayed tasks.
+     */
+    private long nextDelayedTaskDelayNanos(long nanoTime) {
+        if (delayedTaskQueue instanceof ScheduledTaskWheel) {
+            return ((ScheduledTaskWheel) delayedTaskQueue).nextDelayNanos(nanoTime);
+        }
+
+        ScheduledFutureTask<?> delayedTask = delayedTaskQueue.peek();
+        if (delayedTask == null) {
+            return -1;
+        }
+        return Math.max(0, delayedTask.deadlineNanos() - nanoTime);
+    }
+
     /**
      * @see {@link Queue#peek()}
      */
@@ -268,8 +349,7 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
      */
     protected boolean hasScheduledTasks() {
         assert inEventLoop();
-        ScheduledFutureTask<?> delayedTask = delayedTaskQueue.peek();
-        return delayedTask != null && delayedTask.deadlineNanos() <= ScheduledFutureTask.nanoTime();
+        return nextDelayedTaskDelayNanos(ScheduledFutureTask.nanoTime()) == 0;
     }
 
     /**
@@ -284,16 +364,22 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
 
     /**
      * Add a task to the task queue, or throws a {@link RejectedExecutionException} if this instance was shutdown
-     * before.
+     * before. If the task queue is full, the task is passed to the {@link RejectedExecutionHandler}.
      */
     protected void addTask(Runnable task) {
         if (task == null) {
             throw new NullPointerException("task");
         }
+        if (!offerTask(task)) {
+            rejectedExecutionHandler.rejected(task, this);
+        }
+    }
+
+    final boolean offerTask(Runnable task) {
         if (isShutdown()) {
             reject();
         }
-        taskQueue.add(task);
+        return taskQueue.offer(task);
     }
 
     /**
@@ -380,12 +466,12 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
      * Returns the amount of time left until the scheduled task with the closest dead line is executed.
      */
     protected long delayNanos(long currentTimeNanos) {
-        ScheduledFutureTask<?> delayedTask = delayedTaskQueue.peek();
-        if (delayedTask == null) {
+        long delayNanos = nextDelayedTaskDelayNanos(ScheduledFutureTask.nanoTime(currentTimeNanos));
+        if (delayNanos < 0) {
             return SCHEDULE_PURGE_INTERVAL;
         }
 
-        return delayedTask.delayNanos(currentTimeNanos);
+        return delayNanos;
     }
 
     /**
@@ -413,7 +499,8 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
 
     protected void wakeup(boolean inEventLoop) {
         if (!inEventLoop || STATE_UPDATER.get(this) == ST_SHUTTING_DOWN) {
-            taskQueue.add(WAKEUP_TASK);
+            // If the queue is full, the thread will not block on it anyway.
+            taskQueue.offer(WAKEUP_TASK);
         }
     }
 
@@ -868,9 +955,12 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
     private void startExecution() {
         if (STATE_UPDATER.get(this) == ST_NOT_STARTED) {
             if (STATE_UPDATER.compareAndSet(this, ST_NOT_STARTED, ST_STARTED)) {
-                delayedTaskQueue.add(new ScheduledFutureTask<Void>(
-                        this, delayedTaskQueue, Executors.<Void>callable(new PurgeTask(), null),
-                        ScheduledFutureTask.deadlineNanos(SCHEDULE_PURGE_INTERVAL), -SCHEDULE_PURGE_INTERVAL));
+                // The timing wheel removes cancelled tasks right away, so there is nothing to purge.
+                if (!(delayedTaskQueue instanceof ScheduledTaskWheel)) {
+                    delayedTaskQueue.add(new ScheduledFutureTask<Void>(
+                            this, delayedTaskQueue, Executors.<Void>callable(new PurgeTask(), null),
+                            ScheduledFutureTask.deadlineNanos(SCHEDULE_PURGE_INTERVAL), -SCHEDULE_PURGE_INTERVAL));
+                }
                 scheduleExecution();
             }
         }
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free multiple-producer single-consumer queue which stores its elements in linked array chunks, based on
+ * {@code MpscChunkedArrayQueue} and {@code MpscUnboundedArrayQueue} of the
+ * <a href="https://github.com/JCTools/JCTools">JCTools project</a>.
+ * <p>
+ * Producers claim a slot by a CAS on the producer index and then store the element into it, so an offer does not
+ * allocate unless a new chunk is needed. A chunk is reused as a ring buffer as long as the consumer keeps up.
+ * Otherwise the producer which runs out of space links a new chunk while the other producers spin, and stores a
+ * {@code JUMP} marker which tells the consumer to continue with the next chunk. The indices of the producer and
+ * the consumer are padded to avoid false sharing.
+ * <p>
+ * The queue is either unbounded, or {@link #offer(Object)} returns {@code false} once it contains its maximum
+ * capacity, which is rounded up to the next power of two. {@link #iterator()} and {@link #remove(Object)} are
+ * not supported.
+ */
+final class MpscArrayQueue<E> extends MpscArrayQueueConsumerFields<E> {
+
+    // Marks the slot at which the consumer has to continue with the next chunk.
+    private static final Object JUMP = new Object();
+
+    private static final int CONTINUE_TO_P_INDEX_CAS = 0;
+    private static final int RETRY = 1;
+    private static final int QUEUE_FULL = 2;
+    private static final int QUEUE_RESIZE = 3;
+
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p30, p31, p32, p33, p34, p35, p36, p37;
+
+    /**
+     * Creates a new unbounded queue.
+     */
+    MpscArrayQueue(int chunkSize) {
+        this(chunkSize, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new queue which holds at most {@code maxCapacity} elements, rounded up to the next power of two,
+     * or which is unbounded if {@code maxCapacity} is greater than {@code 2^30}.
+     */
+    MpscArrayQueue(int chunkSize, int maxCapacity) {
+        super(chunkSize, maxCapacity);
+        // The last slot of a chunk links to the next chunk.
+        AtomicReferenceArray<Object> buffer = new AtomicReferenceArray<Object>(this.chunkSize + 1);
+        producerBuffer = buffer;
+        consumerBuffer = buffer;
+        lazySetProducerLimit(mask);
+    }
+
+    private static int offset(long index, long mask) {
+        return (int) ((index & mask) >> 1);
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException("e");
+        }
+
+        AtomicReferenceArray<Object> buffer;
+        long pIndex;
+        for (;;) {
+            long producerLimit = producerLimit();
+            pIndex = producerIndex();
+            if ((pIndex & 1) == 1) {
+                // Another producer links a new chunk.
+                continue;
+            }
+            // The buffer is only changed while the producer index is odd, and the CAS below fails if it was.
+            buffer = producerBuffer;
+
+            if (producerLimit <= pIndex) {
+                switch (offerSlowPath(pIndex, producerLimit)) {
+                    case CONTINUE_TO_P_INDEX_CAS:
+                        break;
+                    case RETRY:
+                        continue;
+                    case QUEUE_FULL:
+                        return false;
+                    case QUEUE_RESIZE:
+                        resize(buffer, pIndex, e);
+                        return true;
+                    default:
+                        throw new Error();
+                }
+            }
+
+            if (casProducerIndex(pIndex, pIndex + 2)) {
+                break;
+            }
+        }
+
+        buffer.lazySet(offset(pIndex, mask), e);
+        return true;
+    }
+
+    private int offerSlowPath(long pIndex, long producerLimit) {
+        long cIndex = consumerIndex();
+        if (cIndex + mask > pIndex) {
+            // The consumer freed slots of the current chunk.
+            return casProducerLimit(producerLimit, cIndex + mask) ? CONTINUE_TO_P_INDEX_CAS : RETRY;
+        }
+        if (pIndex - cIndex >= maxQueueCapacity) {
+            return QUEUE_FULL;
+        }
+        // Claim the index with the lowest bit set, which makes the other producers wait until the next chunk is linked.
+        return casProducerIndex(pIndex, pIndex + 1) ? QUEUE_RESIZE : RETRY;
+    }
+
+    private void resize(AtomicReferenceArray<Object> oldBuffer, long pIndex, E e) {
+        AtomicReferenceArray<Object> newBuffer = new AtomicReferenceArray<Object>(chunkSize + 1);
+        producerBuffer = newBuffer;
+
+        int offset = offset(pIndex, mask);
+        newBuffer.lazySet(offset, e);
+        oldBuffer.lazySet(chunkSize, newBuffer);
+
+        long cIndex = consumerIndex();
+        lazySetProducerLimit(pIndex + Math.min(mask, maxQueueCapacity - (pIndex - cIndex)));
+        // Release the other producers.
+        lazySetProducerIndex(pIndex + 2);
+        // The consumer spins on the slot until this marker is visible.
+        oldBuffer.lazySet(offset, JUMP);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        AtomicReferenceArray<Object> buffer = consumerBuffer;
+        long index = consumerIndex();
+        int offset = offset(index, mask);
+        Object e = buffer.get(offset);
+        if (e == null) {
+            if (index == producerIndex()) {
+                return null;
+            }
+            // A producer claimed the slot but did not store the element yet.
+            do {
+                e = buffer.get(offset);
+            } while (e == null);
+        }
+
+        if (e == JUMP) {
+            buffer = nextBuffer(buffer);
+            e = buffer.get(offset);
+        }
+        buffer.lazySet(offset, null);
+        lazySetConsumerIndex(index + 2);
+        return (E) e;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        AtomicReferenceArray<Object> buffer = consumerBuffer;
+        long index = consumerIndex();
+        int offset = offset(index, mask);
+        Object e = buffer.get(offset);
+        if (e == null) {
+            if (index == producerIndex()) {
+                return null;
+            }
+            do {
+                e = buffer.get(offset);
+            } while (e == null);
+        }
+
+        if (e == JUMP) {
+            e = nextBuffer(buffer).get(offset);
+        }
+        return (E) e;
+    }
+
+    @SuppressWarnings("unchecked")
+    private AtomicReferenceArray<Object> nextBuffer(AtomicReferenceArray<Object> buffer) {
+        AtomicReferenceArray<Object> next = (AtomicReferenceArray<Object>) buffer.get(chunkSize);
+        // Unlink the consumed chunk to help the GC.
+        buffer.lazySet(chunkSize, null);
+        consumerBuffer = next;
+        return next;
+    }
+
+    @Override
+    public int size() {
+        long after = consumerIndex();
+        for (;;) {
+            long before = after;
+            long pIndex = producerIndex();
+            after = consumerIndex();
+            if (before == after) {
+                return (int) Math.min((pIndex - after) >> 1, Integer.MAX_VALUE);
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return consumerIndex() == producerIndex();
+    }
+
+    @Override
+    public void clear() {
+        while (poll() != null) {
+            continue;
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String toString() {
+        return StringUtil.simpleClassName(this) + "(size: " + size() + ')';
+    }
+}
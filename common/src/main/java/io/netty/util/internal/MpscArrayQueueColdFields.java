@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+import java.util.AbstractQueue;
+
+abstract class MpscArrayQueueColdFields<E> extends AbstractQueue<E> {
+
+    // The number of elements per chunk.
+    protected final int chunkSize;
+    // The indices count in steps of 2 as the lowest bit of the producer index marks a resize in progress.
+    protected final long mask;
+    // The maximum of producerIndex - consumerIndex, or Long.MAX_VALUE if unbounded.
+    protected final long maxQueueCapacity;
+
+    MpscArrayQueueColdFields(int chunkSize, int maxCapacity) {
+        if (chunkSize < 2) {
+            throw new IllegalArgumentException("chunkSize: " + chunkSize + " (expected: >= 2)");
+        }
+        if (maxCapacity < 2) {
+            throw new IllegalArgumentException("maxCapacity: " + maxCapacity + " (expected: >= 2)");
+        }
+        chunkSize = roundToPowerOfTwo(Math.min(chunkSize, 1 << 30));
+        if (maxCapacity > 1 << 30) {
+            maxQueueCapacity = Long.MAX_VALUE;
+        } else {
+            maxCapacity = roundToPowerOfTwo(maxCapacity);
+            chunkSize = Math.min(chunkSize, maxCapacity);
+            maxQueueCapacity = (long) maxCapacity << 1;
+        }
+        this.chunkSize = chunkSize;
+        mask = (long) (chunkSize - 1) << 1;
+    }
+
+    private static int roundToPowerOfTwo(int value) {
+        int powerOfTwo = 1;
+        while (powerOfTwo < value) {
+            powerOfTwo <<= 1;
+        }
+        return powerOfTwo;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+abstract class MpscArrayQueueConsumerFields<E> extends MpscArrayQueuePad1<E> {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<MpscArrayQueueConsumerFields> C_INDEX_UPDATER;
+
+    static {
+        @SuppressWarnings("rawtypes")
+        AtomicLongFieldUpdater<MpscArrayQueueConsumerFields> updater;
+        updater = PlatformDependent.newAtomicLongFieldUpdater(MpscArrayQueueConsumerFields.class, "consumerIndex");
+        if (updater == null) {
+            updater = AtomicLongFieldUpdater.newUpdater(MpscArrayQueueConsumerFields.class, "consumerIndex");
+        }
+        C_INDEX_UPDATER = updater;
+    }
+
+    @SuppressWarnings({ "unused", "FieldMayBeFinal" })
+    private volatile long consumerIndex;
+    // Only accessed by the consumer.
+    protected AtomicReferenceArray<Object> consumerBuffer;
+
+    MpscArrayQueueConsumerFields(int chunkSize, int maxCapacity) {
+        super(chunkSize, maxCapacity);
+    }
+
+    protected final long consumerIndex() {
+        return consumerIndex;
+    }
+
+    protected final void lazySetConsumerIndex(long consumerIndex) {
+        C_INDEX_UPDATER.lazySet(this, consumerIndex);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+abstract class MpscArrayQueueProducerFields<E> extends MpscArrayQueuePad0<E> {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<MpscArrayQueueProducerFields> P_INDEX_UPDATER;
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<MpscArrayQueueProducerFields> P_LIMIT_UPDATER;
+
+    static {
+        @SuppressWarnings("rawtypes")
+        AtomicLongFieldUpdater<MpscArrayQueueProducerFields> updater;
+        updater = PlatformDependent.newAtomicLongFieldUpdater(MpscArrayQueueProducerFields.class, "producerIndex");
+        if (updater == null) {
+            updater = AtomicLongFieldUpdater.newUpdater(MpscArrayQueueProducerFields.class, "producerIndex");
+        }
+        P_INDEX_UPDATER = updater;
+
+        updater = PlatformDependent.newAtomicLongFieldUpdater(MpscArrayQueueProducerFields.class, "producerLimit");
+        if (updater == null) {
+            updater = AtomicLongFieldUpdater.newUpdater(MpscArrayQueueProducerFields.class, "producerLimit");
+        }
+        P_LIMIT_UPDATER = updater;
+    }
+
+    @SuppressWarnings({ "unused", "FieldMayBeFinal" })
+    private volatile long producerIndex;
+    // The producer index from which on a producer has to check the consumer index before it claims a slot.
+    @SuppressWarnings({ "unused", "FieldMayBeFinal" })
+    private volatile long producerLimit;
+    // Only written while a resize is in progress and read after the producer index, so need not be volatile.
+    protected AtomicReferenceArray<Object> producerBuffer;
+
+    MpscArrayQueueProducerFields(int chunkSize, int maxCapacity) {
+        super(chunkSize, maxCapacity);
+    }
+
+    protected final long producerIndex() {
+        return producerIndex;
+    }
+
+    protected final boolean casProducerIndex(long expect, long update) {
+        return P_INDEX_UPDATER.compareAndSet(this, expect, update);
+    }
+
+    protected final void lazySetProducerIndex(long producerIndex) {
+        P_INDEX_UPDATER.lazySet(this, producerIndex);
+    }
+
+    protected final long producerLimit() {
+        return producerLimit;
+    }
+
+    protected final boolean casProducerLimit(long expect, long update) {
+        return P_LIMIT_UPDATER.compareAndSet(this, expect, update);
+    }
+
+    protected final void lazySetProducerLimit(long producerLimit) {
+        P_LIMIT_UPDATER.lazySet(this, producerLimit);
+    }
+}
@@ -37,6 +37,7 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.regex.Matcher;
@@ -73,6 +74,11 @@ public final class PlatformDependent {
     private static final long MAX_DIRECT_MEMORY = maxDirectMemory0();
 
     private static final long ARRAY_BASE_OFFSET = arrayBaseOffset0();
+    private static final long SHORT_ARRAY_BASE_OFFSET = arrayBaseOffset0(short[].class);
+    private static final long INT_ARRAY_BASE_OFFSET = arrayBaseOffset0(int[].class);
+    private static final long LONG_ARRAY_BASE_OFFSET = arrayBaseOffset0(long[].class);
+    private static final long FLOAT_ARRAY_BASE_OFFSET = arrayBaseOffset0(float[].class);
+    private static final long DOUBLE_ARRAY_BASE_OFFSET = arrayBaseOffset0(double[].class);
 
     private static final boolean HAS_JAVASSIST = hasJavassist0();
 
@@ -82,11 +88,43 @@ public final class PlatformDependent {
 
     private static final int ADDRESS_SIZE = addressSize0();
 
+    // The number of elements per chunk of the queues returned by newMpscQueue(int).
+    private static final int MPSC_CHUNK_SIZE = 1024;
+
+    private static final boolean HAS_DIRECT_BUFFER_NO_CLEANER;
+    private static final boolean USE_DIRECT_BUFFER_NO_CLEANER;
+    private static final AtomicLong DIRECT_MEMORY_COUNTER;
+    private static final long DIRECT_MEMORY_LIMIT;
+
     static {
         if (logger.isDebugEnabled()) {
             logger.debug("-Dio.netty.noPreferDirect: {}", !DIRECT_BUFFER_PREFERRED);
         }
 
+        // Here is how the system property is used:
+        //
+        // * <  0  - Use the same limit as the JDK (-XX:MaxDirectMemorySize) and allocate direct buffers without
+        //           a Cleaner.
+        // * == 0  - Use the JDK allocation path which relies on a Cleaner and the JDK's own accounting. (default)
+        // * >  0  - Allocate direct buffers without a Cleaner and limit them to the given number of bytes.
+        //
+        // Buffers without a Cleaner are never released if they leak, so they are only used if asked for.
+        long maxDirectMemory = SystemPropertyUtil.getLong("io.netty.maxDirectMemory", 0);
+        if (!hasUnsafe() || isAndroid() || !PlatformDependent0.hasDirectBufferNoCleanerConstructor()) {
+            HAS_DIRECT_BUFFER_NO_CLEANER = false;
+            USE_DIRECT_BUFFER_NO_CLEANER = false;
+            DIRECT_MEMORY_COUNTER = null;
+            DIRECT_MEMORY_LIMIT = -1;
+        } else {
+            HAS_DIRECT_BUFFER_NO_CLEANER = true;
+            USE_DIRECT_BUFFER_NO_CLEANER = maxDirectMemory != 0;
+            DIRECT_MEMORY_COUNTER = new AtomicLong();
+            DIRECT_MEMORY_LIMIT = maxDirectMemory <= 0 ? MAX_DIRECT_MEMORY : maxDirectMemory;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.maxDirectMemory: {} bytes", maxDirectMemory);
+        }
+
         if (!hasUnsafe() && !isAndroid()) {
             logger.info(
                     "Your platform does not provide complete low-level API for accessing direct buffers reliably. " +
@@ -275,6 +313,104 @@ public final class PlatformDependent {
         }
     }
 
+    /**
+     * Returns {@code true} if {@link #allocateDirectNoCleaner(int)} can be used on this platform.
+     */
+    public static boolean hasDirectBufferNoCleaner() {
+        return HAS_DIRECT_BUFFER_NO_CLEANER;
+    }
+
+    /**
+     * Returns {@code true} if the allocators should allocate direct buffers via {@link #allocateDirectNoCleaner(int)},
+     * which is only the case if {@code io.netty.maxDirectMemory} is set to a value other than {@code 0}.
+     */
+    public static boolean useDirectBufferNoCleaner() {
+        return USE_DIRECT_BUFFER_NO_CLEANER;
+    }
+
+    /**
+     * Returns the number of bytes currently allocated via {@link #allocateDirectNoCleaner(int)} or {@code -1} if
+     * direct buffers without a Cleaner are not supported.
+     */
+    public static long usedDirectMemory() {
+        return DIRECT_MEMORY_COUNTER != null ? DIRECT_MEMORY_COUNTER.get() : -1;
+    }
+
+    /**
+     * Allocate a new direct {@link ByteBuffer} with the given capacity which has no Cleaner attached. Its memory
+     * is counted against {@code io.netty.maxDirectMemory} and must be released via
+     * {@link #freeDirectNoCleaner(ByteBuffer)}.
+     *
+     * @throws OutOfDirectMemoryError if the allocation would exceed the limit
+     */
+    public static ByteBuffer allocateDirectNoCleaner(int capacity) {
+        assert HAS_DIRECT_BUFFER_NO_CLEANER;
+
+        incrementMemoryCounter(capacity);
+        try {
+            return PlatformDependent0.allocateDirectNoCleaner(capacity);
+        } catch (Throwable e) {
+            decrementMemoryCounter(capacity);
+            throwException(e);
+            return null;
+        }
+    }
+
+    /**
+     * Reallocate the memory of a direct {@link ByteBuffer} which was allocated via
+     * {@link #allocateDirectNoCleaner(int)}. The given buffer must not be used anymore after this call.
+     *
+     * @throws OutOfDirectMemoryError if the allocation would exceed the limit
+     */
+    public static ByteBuffer reallocateDirectNoCleaner(ByteBuffer buffer, int capacity) {
+        assert HAS_DIRECT_BUFFER_NO_CLEANER;
+
+        int len = capacity - buffer.capacity();
+        incrementMemoryCounter(len);
+        try {
+            return PlatformDependent0.reallocateDirectNoCleaner(buffer, capacity);
+        } catch (Throwable e) {
+            decrementMemoryCounter(len);
+            throwException(e);
+            return null;
+        }
+    }
+
+    /**
+     * Release the memory of a direct {@link ByteBuffer} which was allocated via
+     * {@link #allocateDirectNoCleaner(int)}.
+     */
+    public static void freeDirectNoCleaner(ByteBuffer buffer) {
+        assert HAS_DIRECT_BUFFER_NO_CLEANER;
+
+        int capacity = buffer.capacity();
+        PlatformDependent0.freeDirectNoCleaner(buffer);
+        decrementMemoryCounter(capacity);
+    }
+
+    private static void incrementMemoryCounter(int capacity) {
+        if (capacity <= 0) {
+            decrementMemoryCounter(-capacity);
+            return;
+        }
+        for (;;) {
+            long usedMemory = DIRECT_MEMORY_COUNTER.get();
+            long newUsedMemory = usedMemory + capacity;
+            if (newUsedMemory > DIRECT_MEMORY_LIMIT) {
+                throw new OutOfDirectMemoryError("failed to allocate " + capacity
+                        + " byte(s) of direct memory (used: " + usedMemory + ", max: " + DIRECT_MEMORY_LIMIT + ')');
+            }
+            if (DIRECT_MEMORY_COUNTER.compareAndSet(usedMemory, newUsedMemory)) {
+                return;
+            }
+        }
+    }
+
+    private static void decrementMemoryCounter(int capacity) {
+        long usedMemory = DIRECT_MEMORY_COUNTER.addAndGet(-capacity);
+        assert usedMemory >= 0;
+    }
+
     public static long directBufferAddress(ByteBuffer buffer) {
         return PlatformDependent0.directBufferAddress(buffer);
     }
@@ -331,6 +467,38 @@ public final class PlatformDependent {
         PlatformDependent0.putLong(address, value);
     }
 
+    public static byte getByte(byte[] data, int index) {
+        return PlatformDependent0.getByte(data, index);
+    }
+
+    public static short getShort(byte[] data, int index) {
+        return PlatformDependent0.getShort(data, index);
+    }
+
+    public static int getInt(byte[] data, int index) {
+        return PlatformDependent0.getInt(data, index);
+    }
+
+    public static long getLong(byte[] data, int index) {
+        return PlatformDependent0.getLong(data, index);
+    }
+
+    public static void putByte(byte[] data, int index, byte value) {
+        PlatformDependent0.putByte(data, index, value);
+    }
+
+    public static void putShort(byte[] data, int index, short value) {
+        PlatformDependent0.putShort(data, index, value);
+    }
+
+    public static void putInt(byte[] data, int index, int value) {
+        PlatformDependent0.putInt(data, index, value);
+    }
+
+    public static void putLong(byte[] data, int index, long value) {
+        PlatformDependent0.putLong(data, index, value);
+    }
+
     public static void copyMemory(long srcAddr, long dstAddr, long length) {
         PlatformDependent0.copyMemory(srcAddr, dstAddr, length);
     }
@@ -343,6 +511,86 @@ public final class PlatformDependent {
         PlatformDependent0.copyMemory(null, srcAddr, dst, ARRAY_BASE_OFFSET + dstIndex, length);
     }
 
+    /**
+     * Copies {@code length} {@code short}s in native byte order from {@code srcAddr} to {@code dst}.
+     */
+    public static void copyMemory(long srcAddr, short[] dst, int dstIndex, int length) {
+        PlatformDependent0.copyMemory(
+                null, srcAddr, dst, SHORT_ARRAY_BASE_OFFSET + ((long) dstIndex << 1), (long) length << 1);
+    }
+
+    /**
+     * Copies {@code length} {@code short}s from {@code src} to {@code dstAddr} in native byte order.
+     */
+    public static void copyMemory(short[] src, int srcIndex, long dstAddr, int length) {
+        PlatformDependent0.copyMemory(
+                src, SHORT_ARRAY_BASE_OFFSET + ((long) srcIndex << 1), null, dstAddr, (long) length << 1);
+    }
+
+    /**
+     * Copies {@code length} {@code int}s in native byte order from {@code srcAddr} to {@code dst}.
+     */
+    public static void copyMemory(long srcAddr, int[] dst, int dstIndex, int length) {
+        PlatformDependent0.copyMemory(
+                null, srcAddr, dst, INT_ARRAY_BASE_OFFSET + ((long) dstIndex << 2), (long) length << 2);
+    }
+
+    /**
+     * Copies {@code length} {@code int}s from {@code src} to {@code dstAddr} in native byte order.
+     */
+    public static void copyMemory(int[] src, int srcIndex, long dstAddr, int length) {
+        PlatformDependent0.copyMemory(
+                src, INT_ARRAY_BASE_OFFSET + ((long) srcIndex << 2), null, dstAddr, (long) length << 2);
+    }
+
+    /**
+     * Copies {@code length} {@code long}s in native byte order from {@code srcAddr} to {@code dst}.
+     */
+    public static void copyMemory(long srcAddr, long[] dst, int dstIndex, int length) {
+        PlatformDependent0.copyMemory(
+                null, srcAddr, dst, LONG_ARRAY_BASE_OFFSET + ((long) dstIndex << 3), (long) length << 3);
+    }
+
+    /**
+     * Copies {@code length} {@code long}s from {@code src} to {@code dstAddr} in native byte order.
+     */
+    public static void copyMemory(long[] src, int srcIndex, long dstAddr, int length) {
+        PlatformDependent0.copyMemory(
+                src, LONG_ARRAY_BASE_OFFSET + ((long) srcIndex << 3), null, dstAddr, (long) length << 3);
+    }
+
+    /**
+     * Copies {@code length} {@code float}s in native byte order from {@code srcAddr} to {@code dst}.
+     */
+    public static void copyMemory(long srcAddr, float[] dst, int dstIndex, int length) {
+        PlatformDependent0.copyMemory(
+                null, srcAddr, dst, FLOAT_ARRAY_BASE_OFFSET + ((long) dstIndex << 2), (long) length << 2);
+    }
+
+    /**
+     * Copies {@code length} {@code float}s from {@code src} to {@code dstAddr} in native byte order.
+     */
+    public static void copyMemory(float[] src, int srcIndex, long dstAddr, int length) {
+        PlatformDependent0.copyMemory(
+                src, FLOAT_ARRAY_BASE_OFFSET + ((long) srcIndex << 2), null, dstAddr, (long) length << 2);
+    }
+
+    /**
+     * Copies {@code length} {@code double}s in native byte order from {@code srcAddr} to {@code dst}.
+     */
+    public static void copyMemory(long srcAddr, double[] dst, int dstIndex, int length) {
+        PlatformDependent0.copyMemory(
+                null, srcAddr, dst, DOUBLE_ARRAY_BASE_OFFSET + ((long) dstIndex << 3), (long) length << 3);
+    }
+
+    /**
+     * Copies {@code length} {@code double}s from {@code src} to {@code dstAddr} in native byte order.
+     */
+    public static void copyMemory(double[] src, int srcIndex, long dstAddr, int length) {
+        PlatformDependent0.copyMemory(
+                src, DOUBLE_ARRAY_BASE_OFFSET + ((long) srcIndex << 3), null, dstAddr, (long) length << 3);
+    }
+
     /**
      * Create a new optimized {@link AtomicReferenceFieldUpdater} or {@code null} if it
      * could not be created. Because of this the caller need to check for {@code null} and if {@code null} is returned
@@ -396,12 +644,23 @@ public final class PlatformDependent {
 
     /**
      * Create a new {@link Queue} which is safe to use for multiple producers (different threads) and a single
-     * consumer (one thread!).
+     * consumer (one thread!). The queue is linked, so elements which extend {@link MpscLinkedQueueNode} are used as
+     * their own node and can be recycled once they were polled.
      */
     public static <T> Queue<T> newMpscQueue() {
         return new MpscLinkedQueue<T>();
     }
 
+    /**
+     * Create a new {@link Queue} which is safe to use for multiple producers (different threads) and a single
+     * consumer (one thread!), and which holds at most {@code maxCapacity} elements, rounded up to the next power of
+     * two. {@link Queue#offer(Object)} returns {@code false} once it is full. A {@code maxCapacity} greater than
+     * {@code 2^30} makes the queue unbounded.
+     */
+    public static <T> Queue<T> newMpscQueue(int maxCapacity) {
+        return new MpscArrayQueue<T>(MPSC_CHUNK_SIZE, Math.max(2, maxCapacity));
+    }
+
     /**
      * Return the {@link ClassLoader} for the given {@link Class}.
      */
@@ -623,6 +882,14 @@ public final class PlatformDependent {
         return PlatformDependent0.arrayBaseOffset();
     }
 
+    private static long arrayBaseOffset0(Class<?> arrayClass) {
+        if (!hasUnsafe()) {
+            return -1;
+        }
+
+        return PlatformDependent0.arrayBaseOffset(arrayClass);
+    }
+
     private static long maxDirectMemory0() {
         long maxDirectMemory = 0;
         try {
@@ -19,6 +19,7 @@ import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 import sun.misc.Unsafe;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.nio.Buffer;
@@ -39,6 +40,9 @@ final class PlatformDependent0 {
     private static final Unsafe UNSAFE;
     private static final boolean BIG_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
     private static final long ADDRESS_FIELD_OFFSET;
+    private static final long BYTE_ARRAY_BASE_OFFSET;
+    // java.nio.DirectByteBuffer(long address, int capacity) which creates a direct buffer without a Cleaner.
+    private static final Constructor<?> DIRECT_BUFFER_CONSTRUCTOR;
 
     /**
      * Limits the number of bytes to copy per {@link Unsafe#copyMemory(long, long, long)} to allow safepoint polling
@@ -112,9 +116,12 @@ final class PlatformDependent0 {
 
         if (unsafe == null) {
             ADDRESS_FIELD_OFFSET = -1;
+            BYTE_ARRAY_BASE_OFFSET = -1;
             UNALIGNED = false;
+            DIRECT_BUFFER_CONSTRUCTOR = null;
         } else {
             ADDRESS_FIELD_OFFSET = objectFieldOffset(addressField);
+            BYTE_ARRAY_BASE_OFFSET = arrayBaseOffset();
             boolean unaligned;
             try {
                 Class<?> bitsClass = Class.forName("java.nio.Bits", false, ClassLoader.getSystemClassLoader());
@@ -130,6 +137,55 @@ final class PlatformDependent0 {
 
             UNALIGNED = unaligned;
             logger.debug("java.nio.Bits.unaligned: {}", UNALIGNED);
+
+            Constructor<?> directBufferConstructor;
+            long address = -1;
+            try {
+                directBufferConstructor = direct.getClass().getDeclaredConstructor(long.class, int.class);
+                directBufferConstructor.setAccessible(true);
+                address = unsafe.allocateMemory(1);
+                if (!(directBufferConstructor.newInstance(address, 1) instanceof ByteBuffer)) {
+                    directBufferConstructor = null;
+                }
+            } catch (Throwable t) {
+                directBufferConstructor = null;
+            } finally {
+                if (address != -1) {
+                    unsafe.freeMemory(address);
+                }
+            }
+            DIRECT_BUFFER_CONSTRUCTOR = directBufferConstructor;
+            logger.debug("java.nio.DirectByteBuffer.<init>(long, int): {}",
+                    directBufferConstructor != null ? "available" : "unavailable");
+        }
+    }
+
+    static boolean hasDirectBufferNoCleanerConstructor() {
+        return DIRECT_BUFFER_CONSTRUCTOR != null;
+    }
+
+    static ByteBuffer allocateDirectNoCleaner(int capacity) {
+        return newDirectBuffer(UNSAFE.allocateMemory(Math.max(1, capacity)), capacity);
+    }
+
+    static ByteBuffer reallocateDirectNoCleaner(ByteBuffer buffer, int capacity) {
+        return newDirectBuffer(UNSAFE.reallocateMemory(directBufferAddress(buffer), Math.max(1, capacity)), capacity);
+    }
+
+    static void freeDirectNoCleaner(ByteBuffer buffer) {
+        UNSAFE.freeMemory(directBufferAddress(buffer));
+    }
+
+    private static ByteBuffer newDirectBuffer(long address, int capacity) {
+        try {
+            return (ByteBuffer) DIRECT_BUFFER_CONSTRUCTOR.newInstance(address, capacity);
+        } catch (Throwable cause) {
+            // Not expected as the constructor was tested already, but do not leak the memory.
+            UNSAFE.freeMemory(address);
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new Error(cause);
         }
     }
 
@@ -155,6 +211,10 @@ final class PlatformDependent0 {
         return UNSAFE.arrayBaseOffset(byte[].class);
     }
 
+    static long arrayBaseOffset(Class<?> arrayClass) {
+        return UNSAFE.arrayBaseOffset(arrayClass);
+    }
+
     static Object getObject(Object object, long fieldOffset) {
         return UNSAFE.getObject(object, fieldOffset);
     }
@@ -289,6 +349,116 @@ final class PlatformDependent0 {
         }
     }
 
+    static byte getByte(byte[] data, int index) {
+        return UNSAFE.getByte(data, BYTE_ARRAY_BASE_OFFSET + index);
+    }
+
+    static short getShort(byte[] data, int index) {
+        if (UNALIGNED) {
+            return UNSAFE.getShort(data, BYTE_ARRAY_BASE_OFFSET + index);
+        } else if (BIG_ENDIAN) {
+            return (short) (getByte(data, index) << 8 | getByte(data, index + 1) & 0xff);
+        } else {
+            return (short) (getByte(data, index + 1) << 8 | getByte(data, index) & 0xff);
+        }
+    }
+
+    static int getInt(byte[] data, int index) {
+        if (UNALIGNED) {
+            return UNSAFE.getInt(data, BYTE_ARRAY_BASE_OFFSET + index);
+        } else if (BIG_ENDIAN) {
+            return getByte(data, index) << 24 |
+                  (getByte(data, index + 1) & 0xff) << 16 |
+                  (getByte(data, index + 2) & 0xff) <<  8 |
+                   getByte(data, index + 3) & 0xff;
+        } else {
+            return getByte(data, index + 3) << 24 |
+                  (getByte(data, index + 2) & 0xff) << 16 |
+                  (getByte(data, index + 1) & 0xff) <<  8 |
+                   getByte(data, index) & 0xff;
+        }
+    }
+
+    static long getLong(byte[] data, int index) {
+        if (UNALIGNED) {
+            return UNSAFE.getLong(data, BYTE_ARRAY_BASE_OFFSET + index);
+        } else if (BIG_ENDIAN) {
+            return (long) getByte(data, index) << 56 |
+                  ((long) getByte(data, index + 1) & 0xff) << 48 |
+                  ((long) getByte(data, index + 2) & 0xff) << 40 |
+                  ((long) getByte(data, index + 3) & 0xff) << 32 |
+                  ((long) getByte(data, index + 4) & 0xff) << 24 |
+                  ((long) getByte(data, index + 5) & 0xff) << 16 |
+                  ((long) getByte(data, index + 6) & 0xff) <<  8 |
+                   (long) getByte(data, index + 7) & 0xff;
+        } else {
+            return (long) getByte(data, index + 7) << 56 |
+                  ((long) getByte(data, index + 6) & 0xff) << 48 |
+                  ((long) getByte(data, index + 5) & 0xff) << 40 |
+                  ((long) getByte(data, index + 4) & 0xff) << 32 |
+                  ((long) getByte(data, index + 3) & 0xff) << 24 |
+                  ((long) getByte(data, index + 2) & 0xff) << 16 |
+                  ((long) getByte(data, index + 1) & 0xff) <<  8 |
+                   (long) getByte(data, index) & 0xff;
+        }
+    }
+
+    static void putByte(byte[] data, int index, byte value) {
+        UNSAFE.putByte(data, BYTE_ARRAY_BASE_OFFSET + index, value);
+    }
+
+    static void putShort(byte[] data, int index, short value) {
+        if (UNALIGNED) {
+            UNSAFE.putShort(data, BYTE_ARRAY_BASE_OFFSET + index, value);
+        } else if (BIG_ENDIAN) {
+            putByte(data, index, (byte) (value >>> 8));
+            putByte(data, index + 1, (byte) value);
+        } else {
+            putByte(data, index + 1, (byte) (value >>> 8));
+            putByte(data, index, (byte) value);
+        }
+    }
+
+    static void putInt(byte[] data, int index, int value) {
+        if (UNALIGNED) {
+            UNSAFE.putInt(data, BYTE_ARRAY_BASE_OFFSET + index, value);
+        } else if (BIG_ENDIAN) {
+            putByte(data, index, (byte) (value >>> 24));
+            putByte(data, index + 1, (byte) (value >>> 16));
+            putByte(data, index + 2, (byte) (value >>> 8));
+            putByte(data, index + 3, (byte) value);
+        } else {
+            putByte(data, index + 3, (byte) (value >>> 24));
+            putByte(data, index + 2, (byte) (value >>> 16));
+            putByte(data, index + 1, (byte) (value >>> 8));
+            putByte(data, index, (byte) value);
+        }
+    }
+
+    static void putLong(byte[] data, int index, long value) {
+        if (UNALIGNED) {
+            UNSAFE.putLong(data, BYTE_ARRAY_BASE_OFFSET + index, value);
+        } else if (BIG_ENDIAN) {
+            putByte(data, index, (byte) (value >>> 56));
+            putByte(data, index + 1, (byte) (value >>> 48));
+            putByte(data, index + 2, (byte) (value >>> 40));
+            putByte(data, index + 3, (byte) (value >>> 32));
+            putByte(data, index + 4, (byte) (value >>> 24));
+            putByte(data, index + 5, (byte) (value >>> 16));
+            putByte(data, index + 6, (byte) (value >>> 8));
+            putByte(data, index + 7, (byte) value);
+        } else {
+            putByte(data, index + 7, (byte) (value >>> 56));
+            putByte(data, index + 6, (byte) (value >>> 48));
+            putByte(data, index + 5, (byte) (value >>> 40));
+            putByte(data, index + 4, (byte) (value >>> 32));
+            putByte(data, index + 3, (byte) (value >>> 24));
+            putByte(data, index + 2, (byte) (value >>> 16));
+            putByte(data, index + 1, (byte) (value >>> 8));
+            putByte(data, index, (byte) value);
+        }
+    }
+
     static void copyMemory(long srcAddr, long dstAddr, long length) {
         //UNSAFE.copyMemory(srcAddr, dstAddr, length);
         while (length > 0) {
@@ -17,15 +17,18 @@ package io.netty.util;
 
 import org.junit.Test;
 
+import java.util.Random;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -154,4 +157,129 @@ public class HashedWheelTimerTest {
 
         timer.stop();
     }
+
+    @Test
+    public void testHierarchicalWheelExecutesNotBeforeDelay() throws InterruptedException {
+        // 4 ticks per wheel and 3 levels span 64 ticks, so the longer timeouts also count rounds on the top level.
+        final HashedWheelTimer timer = new HashedWheelTimer(
+                Executors.defaultThreadFactory(), 5, TimeUnit.MILLISECONDS, 4, 3);
+        final BlockingQueue<Long> queue = new LinkedBlockingQueue<Long>();
+        Random random = new Random(42);
+
+        int scheduledTasks = 500;
+        long maxDelay = 0;
+        for (int i = 0; i < scheduledTasks; i++) {
+            final long delay = random.nextInt(1000);
+            final long start = System.nanoTime();
+            timer.newTimeout(new TimerTask() {
+                @Override
+                public void run(final Timeout timeout) throws Exception {
+                    queue.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) - delay);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+            maxDelay = Math.max(maxDelay, delay);
+        }
+
+        for (int i = 0; i < scheduledTasks; i++) {
+            Long late = queue.poll(maxDelay + 5000, TimeUnit.MILLISECONDS);
+            assertNotNull("timeout " + i + " did not expire", late);
+            assertTrue("timeout expired " + -late + " ms early", late >= 0);
+        }
+        assertEquals(0, timer.pendingTimeouts());
+        assertTrue(timer.stop().isEmpty());
+        // The worker updates the counter once all timeouts of a tick expired, and is done once stopped.
+        assertEquals(scheduledTasks, timer.expiredTimeouts());
+    }
+
+    @Test
+    public void testStopHierarchicalTimerReturnsUnprocessedTimeouts() throws InterruptedException {
+        final HashedWheelTimer timer = new HashedWheelTimer(
+                Executors.defaultThreadFactory(), 10, TimeUnit.MILLISECONDS, 8, 4);
+        for (int i = 1; i <= 10; i ++) {
+            timer.newTimeout(new TimerTask() {
+                @Override
+                public void run(Timeout timeout) throws Exception {
+                    fail("This should not run");
+                }
+            }, i, TimeUnit.HOURS);
+        }
+        Thread.sleep(100);
+        assertEquals(10, timer.stop().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyLevels() {
+        new HashedWheelTimer(Executors.defaultThreadFactory(), 100, TimeUnit.MILLISECONDS, 512, 7);
+    }
+
+    @Test
+    public void testPendingTimeouts() throws InterruptedException {
+        final HashedWheelTimer timer = new HashedWheelTimer();
+        final CountDownLatch latch = new CountDownLatch(1);
+        Timeout t1 = timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) throws Exception {
+            }
+        }, 10, TimeUnit.MINUTES);
+        timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) throws Exception {
+            }
+        }, 10, TimeUnit.MINUTES);
+        timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) throws Exception {
+                latch.countDown();
+            }
+        }, 1, TimeUnit.MILLISECONDS);
+        assertEquals(3, timer.pendingTimeouts());
+
+        assertTrue(t1.cancel());
+        assertFalse(t1.cancel());
+        assertEquals(2, timer.pendingTimeouts());
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, timer.pendingTimeouts());
+        assertEquals(1, timer.stop().size());
+        assertEquals(1, timer.expiredTimeouts());
+        assertTrue(timer.workerLagNanos() >= 0);
+    }
+
+    @Test
+    public void testShardedTimer() throws InterruptedException {
+        final ThreadFactory threadFactory = Executors.defaultThreadFactory();
+        final ShardedHashedWheelTimer timer = new ShardedHashedWheelTimer(
+                threadFactory, 10, TimeUnit.MILLISECONDS, 512, 2, 4);
+        assertEquals(4, timer.shards());
+
+        final int producers = 4;
+        final int timeoutsPerProducer = 10000;
+        final CountDownLatch latch = new CountDownLatch(producers * timeoutsPerProducer);
+        final TimerTask task = new TimerTask() {
+            @Override
+            public void run(Timeout timeout) throws Exception {
+                latch.countDown();
+            }
+        };
+        Thread[] threads = new Thread[producers];
+        for (int i = 0; i < producers; i ++) {
+            threads[i] = threadFactory.newThread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < timeoutsPerProducer; i ++) {
+                        timer.newTimeout(task, i % 100, TimeUnit.MILLISECONDS);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread: threads) {
+            thread.join();
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(0, timer.pendingTimeouts());
+        assertTrue(timer.stop().isEmpty());
+        assertEquals(producers * timeoutsPerProducer, timer.expiredTimeouts());
+    }
 }
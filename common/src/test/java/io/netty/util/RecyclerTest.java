@@ -104,4 +104,107 @@ public class RecyclerTest {
             this.handle = handle;
         }
     }
+
+    private static Recycler<HandledObject> newRecycler(
+            int maxCapacity, int maxSharedCapacityFactor, int ratio, int maxDelayedQueuesPerThread) {
+        return new Recycler<HandledObject>(maxCapacity, maxSharedCapacityFactor, ratio, maxDelayedQueuesPerThread,
+                                           true) {
+            @Override
+            protected HandledObject newObject(Recycler.Handle<HandledObject> handle) {
+                return new HandledObject(handle);
+            }
+        };
+    }
+
+    private static void recycleInOtherThread(final Recycler<HandledObject> recycler, final HandledObject... objects)
+            throws InterruptedException {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (HandledObject object: objects) {
+                    recycler.recycle(object, object.handle);
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+    }
+
+    private static HandledObject[] getObjects(Recycler<HandledObject> recycler, int count) {
+        HandledObject[] objects = new HandledObject[count];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = recycler.get();
+        }
+        return objects;
+    }
+
+    @Test
+    public void testStats() {
+        Recycler<HandledObject> recycler = newRecycler(2, 1, 1, 1);
+        HandledObject[] objects = getObjects(recycler, 3);
+        for (HandledObject object: objects) {
+            recycler.recycle(object, object.handle);
+        }
+        getObjects(recycler, 2);
+
+        Assert.assertEquals(2, recycler.numHits());
+        Assert.assertEquals(3, recycler.numMisses());
+        Assert.assertEquals(1, recycler.numDrops());
+        Assert.assertEquals(0, recycler.numCrossThreadTransfers());
+        Assert.assertEquals(-1, RecyclableObject.RECYCLER.numHits());
+    }
+
+    @Test
+    public void testRecycleAtDifferentThread() throws Exception {
+        Recycler<HandledObject> recycler = newRecycler(256, 2, 1, 1);
+        HandledObject object = recycler.get();
+        recycleInOtherThread(recycler, object);
+        Assert.assertSame(object, recycler.get());
+        Assert.assertEquals(1, recycler.numCrossThreadTransfers());
+    }
+
+    @Test
+    public void testCrossThreadRatio() throws Exception {
+        Recycler<HandledObject> recycler = newRecycler(256, 1, 4, 1);
+        recycleInOtherThread(recycler, getObjects(recycler, 16));
+        Assert.assertNotNull(recycler.get());
+        Assert.assertEquals(4, recycler.threadLocalSize() + 1);
+        Assert.assertEquals(4, recycler.numCrossThreadTransfers());
+        Assert.assertEquals(12, recycler.numDrops());
+    }
+
+    @Test
+    public void testMaxSharedCapacity() throws Exception {
+        // 64 / 2 leaves room for two links of 16 objects.
+        Recycler<HandledObject> recycler = newRecycler(64, 2, 1, 1);
+        recycleInOtherThread(recycler, getObjects(recycler, 100));
+        Assert.assertEquals(68, recycler.numDrops());
+
+        getObjects(recycler, 32);
+        Assert.assertEquals(32, recycler.numHits());
+        Assert.assertEquals(32, recycler.numCrossThreadTransfers());
+
+        // The transferred links were given back to the stack.
+        recycleInOtherThread(recycler, getObjects(recycler, 16));
+        Assert.assertEquals(68, recycler.numDrops());
+    }
+
+    @Test
+    public void testMaxDelayedQueuesPerThread() throws Exception {
+        final Recycler<HandledObject> recycler = newRecycler(256, 1, 1, 1);
+        final HandledObject[] objects = new HandledObject[2];
+        // Get the objects from two different threads so that they belong to two different stacks.
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                objects[0] = recycler.get();
+            }
+        });
+        thread.start();
+        thread.join();
+        objects[1] = recycler.get();
+
+        recycleInOtherThread(recycler, objects);
+        Assert.assertEquals(1, recycler.numDrops());
+    }
 }
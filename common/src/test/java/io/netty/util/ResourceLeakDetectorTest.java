@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util;
+
+import io.netty.util.ResourceLeakDetector.Level;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ResourceLeakDetectorTest {
+
+    private Level oldLevel;
+
+    @Before
+    public void setUp() {
+        oldLevel = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(Level.ADAPTIVE);
+    }
+
+    @After
+    public void tearDown() {
+        ResourceLeakDetector.setLevel(oldLevel);
+    }
+
+    @Test
+    public void testCompactRecordResolvesFrames() {
+        // Skip the frame of newCompactRecord() itself.
+        String str = ResourceLeakDetector.newCompactRecord("myHint", 1).toString();
+        assertTrue(str, str.contains("Hint: myHint"));
+        assertTrue(str, str.contains(ResourceLeakDetectorTest.class.getName() + ".testCompactRecordResolvesFrames("));
+        assertFalse(str, str.contains(ResourceLeakDetector.class.getName() + ".newCompactRecord("));
+    }
+
+    @Test
+    public void testRecordsAreCapped() {
+        ResourceLeakDetector<Object> detector = new ResourceLeakDetector<Object>(Object.class, 1, Long.MAX_VALUE);
+        Object resource = new Object();
+        ResourceLeak leak = detector.open(resource);
+        assertNotNull(leak);
+        for (int i = 0; i < 100; i ++) {
+            leak.record(i);
+        }
+        String str = leak.toString();
+        assertTrue(str, str.contains("Recent access records: 4"));
+        assertTrue(str, str.contains("further access records were discarded"));
+        assertTrue(str, str.contains("Created at:"));
+        assertTrue(leak.close());
+    }
+
+    @Test(timeout = 10000)
+    public void testSamplingIntervalGrowsWithAllocationRate() {
+        ResourceLeakDetector<Object> detector = new ResourceLeakDetector<Object>(Object.class, 2, Long.MAX_VALUE);
+        assertEquals(2, detector.samplingInterval());
+
+        openBurst(detector, 1500);
+        assertTrue(String.valueOf(detector.samplingInterval()), detector.samplingInterval() > 2);
+    }
+
+    @Test(timeout = 10000)
+    public void testSamplingIntervalShrinksAfterBurst() throws Exception {
+        ResourceLeakDetector<Object> detector = new ResourceLeakDetector<Object>(Object.class, 2, Long.MAX_VALUE);
+        openBurst(detector, 1500);
+        int burstInterval = detector.samplingInterval();
+        assertTrue(String.valueOf(burstInterval), burstInterval > 2);
+
+        // A few thousand objects per second are far below the burst rate. The first window still contains the
+        // tail of the burst, the second one does not.
+        for (int i = 0; i < 2; i ++) {
+            Thread.sleep(1100);
+            open(detector, 2048);
+        }
+        assertTrue(detector.samplingInterval() + " (burst: " + burstInterval + ')',
+                   detector.samplingInterval() < burstInterval);
+    }
+
+    private static void openBurst(ResourceLeakDetector<Object> detector, long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        while (System.nanoTime() < deadline) {
+            open(detector, 1000);
+        }
+    }
+
+    private static void open(ResourceLeakDetector<Object> detector, int count) {
+        Object resource = new Object();
+        for (int i = 0; i < count; i ++) {
+            ResourceLeak leak = detector.open(resource);
+            if (leak != null) {
+                leak.close();
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.*;
@@ -175,6 +176,137 @@ public class DefaultPromiseTest {
         executor.shutdownGracefully().sync();
     }
 
+    @Test(timeout = 20000)
+    public void testListenersAddedConcurrentlyAreNotifiedOnce() throws Exception {
+        EventExecutor executor = new TestEventExecutor();
+        final int threads = 4;
+        final int listenersPerThread = 1000;
+        try {
+            for (int run = 0; run < 100; run ++) {
+                final Promise<Void> promise = new DefaultPromise<Void>(executor);
+                final AtomicInteger notified = new AtomicInteger();
+                final CountDownLatch latch = new CountDownLatch(threads * listenersPerThread);
+                final FutureListener<Void> listener = new FutureListener<Void>() {
+                    @Override
+                    public void operationComplete(Future<Void> future) throws Exception {
+                        notified.incrementAndGet();
+                        latch.countDown();
+                    }
+                };
+
+                Thread[] adders = new Thread[threads];
+                for (int i = 0; i < threads; i ++) {
+                    adders[i] = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            for (int i = 0; i < listenersPerThread; i ++) {
+                                promise.addListener(listener);
+                            }
+                        }
+                    });
+                    adders[i].start();
+                }
+                promise.setSuccess(null);
+                for (Thread adder: adders) {
+                    adder.join();
+                }
+
+                assertTrue(latch.await(5, TimeUnit.SECONDS));
+                // Give late duplicate notifications a chance to show up.
+                executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                    }
+                }).sync();
+                assertEquals(threads * listenersPerThread, notified.get());
+            }
+        } finally {
+            executor.shutdownGracefully().sync();
+        }
+    }
+
+    @Test
+    public void testRemoveListener() throws Exception {
+        final BlockingQueue<Integer> notified = new LinkedBlockingQueue<Integer>();
+        FutureListener<Void>[] l = new FutureListener[4];
+        for (int i = 0; i < l.length; i ++) {
+            final int n = i;
+            l[i] = new FutureListener<Void>() {
+                @Override
+                public void operationComplete(Future<Void> future) throws Exception {
+                    notified.add(n);
+                }
+            };
+        }
+
+        Promise<Void> promise = new DefaultPromise<Void>(ImmediateEventExecutor.INSTANCE);
+        promise.addListeners(l[0], l[1], l[2], l[1], l[3]);
+        promise.removeListener(l[1]);
+        promise.removeListener(l[3]);
+        promise.setSuccess(null);
+
+        assertEquals(Integer.valueOf(0), notified.poll());
+        assertEquals(Integer.valueOf(2), notified.poll());
+        assertEquals(Integer.valueOf(1), notified.poll());
+        assertNull(notified.poll());
+    }
+
+    @Test
+    public void testProgressiveListeners() throws Exception {
+        final BlockingQueue<Long> progress = new LinkedBlockingQueue<Long>();
+        ProgressivePromise<Void> promise = new DefaultProgressivePromise<Void>(ImmediateEventExecutor.INSTANCE);
+        GenericProgressiveFutureListener<ProgressiveFuture<Void>> listener =
+                new GenericProgressiveFutureListener<ProgressiveFuture<Void>>() {
+            @Override
+            public void operationProgressed(ProgressiveFuture<Void> future, long p, long total) {
+                progress.add(p);
+            }
+
+            @Override
+            public void operationComplete(ProgressiveFuture<Void> future) {
+            }
+        };
+        promise.addListener(new FutureListener<Void>() {
+            @Override
+            public void operationComplete(Future<Void> future) throws Exception {
+            }
+        });
+        promise.addListener(listener);
+        promise.addListener(listener);
+        promise.setProgress(1, 10);
+        assertEquals(Long.valueOf(1), progress.poll());
+        assertEquals(Long.valueOf(1), progress.poll());
+
+        promise.removeListener(listener);
+        promise.setProgress(2, 10);
+        assertEquals(Long.valueOf(2), progress.poll());
+        assertNull(progress.poll());
+
+        promise.setSuccess(null);
+        assertFalse(promise.tryProgress(3, 10));
+        assertNull(progress.poll());
+    }
+
+    @Test(timeout = 10000)
+    public void testAwaitIsWokenUp() throws Exception {
+        for (int i = 0; i < 1000; i ++) {
+            final Promise<Void> promise = new DefaultPromise<Void>(GlobalEventExecutor.INSTANCE);
+            Thread waiter = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    promise.awaitUninterruptibly();
+                }
+            });
+            waiter.start();
+            if ((i & 1) == 0) {
+                Thread.yield();
+            }
+            promise.setSuccess(null);
+            waiter.join();
+            assertTrue(promise.await(0));
+        }
+    }
+
     private static final class TestEventExecutor extends SingleThreadEventExecutor {
         TestEventExecutor() {
             super(null, new DefaultExecutorServiceFactory(TestEventExecutor.class).newExecutorService(1), true);
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ScheduledTaskWheelTest {
+
+    private static final Callable<Void> NOOP = new Callable<Void>() {
+        @Override
+        public Void call() {
+            return null;
+        }
+    };
+
+    // A tick of 1 microsecond so that the wheel covers ~16 seconds and longer deadlines overflow.
+    private final ScheduledTaskWheel wheel = new ScheduledTaskWheel(1000);
+    private final long now = ScheduledFutureTask.nanoTime();
+
+    private ScheduledFutureTask<Void> newTask(long deadlineNanos) {
+        return new ScheduledFutureTask<Void>(ImmediateEventExecutor.INSTANCE, wheel, NOOP, deadlineNanos);
+    }
+
+    private List<ScheduledFutureTask<Void>> addRandomTasks(int count) {
+        Random rand = new Random(42);
+        List<ScheduledFutureTask<Void>> tasks = new ArrayList<ScheduledFutureTask<Void>>();
+        for (int i = 0; i < count; i ++) {
+            long delay;
+            switch (rand.nextInt(4)) {
+            case 0:
+                // Already expired or within the current tick.
+                delay = rand.nextInt(4000) - 2000;
+                break;
+            case 1:
+                delay = rand.nextInt((int) TimeUnit.MILLISECONDS.toNanos(100));
+                break;
+            case 2:
+                delay = (long) (rand.nextDouble() * TimeUnit.SECONDS.toNanos(20));
+                break;
+            default:
+                delay = (long) (rand.nextDouble() * TimeUnit.HOURS.toNanos(2));
+                break;
+            }
+            ScheduledFutureTask<Void> task = newTask(now + delay);
+            tasks.add(task);
+            assertTrue(wheel.add(task));
+        }
+        assertEquals(count, wheel.size());
+        return tasks;
+    }
+
+    /**
+     * Advances the time as the event loop would and checks that no task is polled before its deadline, that the
+     * wakeups are never late and that the tasks are polled in the order of their deadlines.
+     */
+    private void assertPolledInOrder(List<ScheduledFutureTask<Void>> expected) {
+        Collections.sort(expected);
+        List<ScheduledFutureTask<?>> polled = new ArrayList<ScheduledFutureTask<?>>();
+        long time = now;
+        for (;;) {
+            long delay = wheel.nextDelayNanos(time);
+            if (delay < 0) {
+                break;
+            }
+            long nextDeadline = expected.get(polled.size()).deadlineNanos();
+            assertTrue(time + delay <= Math.max(time, nextDeadline));
+            time += delay;
+
+            ScheduledFutureTask<?> task;
+            while ((task = wheel.pollExpired(time)) != null) {
+                assertTrue(task.deadlineNanos() <= time);
+                polled.add(task);
+            }
+        }
+        assertEquals(expected, polled);
+        assertEquals(0, wheel.size());
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public void testPollInDeadlineOrder() {
+        assertPolledInOrder(addRandomTasks(10000));
+    }
+
+    @Test
+    public void testRemove() {
+        List<ScheduledFutureTask<Void>> tasks = addRandomTasks(10000);
+        List<ScheduledFutureTask<Void>> remaining = new ArrayList<ScheduledFutureTask<Void>>();
+        for (int i = 0; i < tasks.size(); i ++) {
+            ScheduledFutureTask<Void> task = tasks.get(i);
+            if ((i & 1) == 0) {
+                assertTrue(wheel.remove(task));
+                assertFalse(wheel.remove(task));
+            } else {
+                remaining.add(task);
+            }
+        }
+        assertEquals(remaining.size(), wheel.size());
+        assertPolledInOrder(remaining);
+    }
+
+    @Test
+    public void testAddWhileAdvancing() {
+        List<ScheduledFutureTask<Void>> tasks = new ArrayList<ScheduledFutureTask<Void>>();
+        ScheduledFutureTask<Void> longTask = newTask(now + TimeUnit.HOURS.toNanos(1));
+        tasks.add(longTask);
+        wheel.add(longTask);
+
+        // Move past the first ticks and add shorter tasks which must still be polled first.
+        assertNull(wheel.pollExpired(now + TimeUnit.SECONDS.toNanos(1)));
+        for (int i = 1; i <= 100; i ++) {
+            ScheduledFutureTask<Void> task = newTask(now + TimeUnit.SECONDS.toNanos(1) + i * 997L * 1000);
+            tasks.add(task);
+            wheel.add(task);
+        }
+        assertEquals(101, wheel.size());
+        Collections.sort(tasks);
+        assertSame(tasks.get(0), wheel.peek());
+
+        long time = now + TimeUnit.SECONDS.toNanos(1);
+        for (ScheduledFutureTask<Void> task: tasks) {
+            time = Math.max(time, task.deadlineNanos());
+            assertSame(task, wheel.pollExpired(time));
+        }
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public void testIteratorAndClear() {
+        List<ScheduledFutureTask<Void>> tasks = addRandomTasks(1000);
+        List<ScheduledFutureTask<?>> iterated = new ArrayList<ScheduledFutureTask<?>>(wheel);
+        assertEquals(tasks.size(), iterated.size());
+        assertTrue(iterated.containsAll(tasks));
+
+        wheel.clear();
+        assertEquals(0, wheel.size());
+        assertEquals(-1, wheel.nextDelayNanos(now));
+        assertNull(wheel.peek());
+
+        // The tasks can be added again once the wheel was cleared.
+        wheel.add(tasks.get(0));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test(timeout = 10000)
+    public void testCancelRemovesTask() throws Exception {
+        final DefaultEventExecutor executor = new DefaultEventExecutor();
+        try {
+            List<ScheduledFuture<?>> futures = new ArrayList<ScheduledFuture<?>>();
+            for (int i = 0; i < 1000; i ++) {
+                futures.add(executor.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        fail();
+                    }
+                }, 1 + i, TimeUnit.MINUTES));
+            }
+
+            Callable<Integer> delayedTasks = new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return executor.delayedTaskQueue.size();
+                }
+            };
+            assertEquals(1000, (int) executor.submit(delayedTasks).get());
+
+            for (ScheduledFuture<?> future: futures) {
+                assertTrue(future.cancel(false));
+            }
+            assertEquals(0, (int) executor.submit(delayedTasks).get());
+        } finally {
+            executor.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testScheduledTasksRunInOrder() throws Exception {
+        final DefaultEventExecutor executor = new DefaultEventExecutor();
+        try {
+            final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+            // Schedule from the event loop so that all delays are relative to almost the same time.
+            List<ScheduledFuture<?>> futures = executor.submit(new Callable<List<ScheduledFuture<?>>>() {
+                @Override
+                public List<ScheduledFuture<?>> call() {
+                    List<ScheduledFuture<?>> futures = new ArrayList<ScheduledFuture<?>>();
+                    for (int i = 9; i >= 0; i --) {
+                        final int n = i;
+                        futures.add(executor.schedule(new Runnable() {
+                            @Override
+                            public void run() {
+                                order.add(n);
+                            }
+                        }, 10 + n * 5, TimeUnit.MILLISECONDS));
+                    }
+                    return futures;
+                }
+            }).get();
+            for (ScheduledFuture<?> future: futures) {
+                future.sync();
+            }
+
+            assertEquals(10, order.size());
+            for (int i = 0; i < 10; i ++) {
+                assertEquals(i, (int) order.get(i));
+            }
+        } finally {
+            executor.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        }
+    }
+}
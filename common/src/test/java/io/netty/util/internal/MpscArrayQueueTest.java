@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+import org.junit.Test;
+
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class MpscArrayQueueTest {
+
+    @Test
+    public void testFifoAcrossChunks() {
+        Queue<Integer> queue = new MpscArrayQueue<Integer>(4);
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+        assertNull(queue.peek());
+
+        // Fill more than one chunk before polling so that new chunks are linked.
+        for (int i = 0; i < 100; i ++) {
+            assertTrue(queue.offer(i));
+        }
+        assertEquals(100, queue.size());
+        for (int i = 0; i < 50; i ++) {
+            assertEquals(i, (int) queue.peek());
+            assertEquals(i, (int) queue.poll());
+        }
+
+        // Interleave offers and polls so that the chunk is reused as a ring buffer.
+        for (int i = 100; i < 1000; i ++) {
+            assertTrue(queue.offer(i));
+            assertEquals(i - 50, (int) queue.poll());
+        }
+        for (int i = 950; i < 1000; i ++) {
+            assertEquals(i, (int) queue.poll());
+        }
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testBounded() {
+        // The capacity is rounded up to 16.
+        Queue<Integer> queue = new MpscArrayQueue<Integer>(4, 10);
+        for (int i = 0; i < 16; i ++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(16));
+        assertEquals(16, queue.size());
+        try {
+            queue.add(16);
+            fail();
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+
+        assertEquals(0, (int) queue.poll());
+        assertTrue(queue.offer(16));
+        assertFalse(queue.offer(17));
+        for (int i = 1; i <= 16; i ++) {
+            assertEquals(i, (int) queue.poll());
+        }
+        assertNull(queue.poll());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testOfferNull() {
+        new MpscArrayQueue<Object>(4).offer(null);
+    }
+
+    @Test(timeout = 30000)
+    public void testMultipleProducers() throws Exception {
+        testMultipleProducers(new MpscArrayQueue<long[]>(8));
+        testMultipleProducers(new MpscArrayQueue<long[]>(8, 64));
+    }
+
+    private static void testMultipleProducers(final Queue<long[]> queue) throws Exception {
+        final int producers = 4;
+        final int elements = 100000;
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[producers];
+        for (int i = 0; i < producers; i ++) {
+            final int producer = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < elements; j ++) {
+                        long[] element = { producer, j };
+                        while (!queue.offer(element)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+
+        // The elements of every producer must be polled in the order in which they were offered.
+        long[] next = new long[producers];
+        for (int i = 0; i < producers * elements;) {
+            long[] element = queue.poll();
+            if (element == null) {
+                Thread.yield();
+                continue;
+            }
+            int producer = (int) element[0];
+            assertEquals(next[producer], element[1]);
+            next[producer] ++;
+            i ++;
+        }
+        for (Thread thread: threads) {
+            thread.join();
+        }
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+}
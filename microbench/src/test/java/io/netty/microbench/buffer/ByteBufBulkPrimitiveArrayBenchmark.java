@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.ByteOrder;
+
+/**
+ * Compares writing and reading primitive arrays element by element with the bulk methods of {@link ByteBuf}.
+ */
+@State(Scope.Benchmark)
+public class ByteBufBulkPrimitiveArrayBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "BIG_ENDIAN", "LITTLE_ENDIAN" })
+    public String order;
+
+    @Param({ "8", "1024" })
+    public int length;
+
+    private ByteBuf buffer;
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+
+    @Setup
+    public void setup() {
+        ByteOrder byteOrder = "BIG_ENDIAN".equals(order) ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        buffer = PooledByteBufAllocator.DEFAULT.directBuffer(length * 8).order(byteOrder);
+        ints = new int[length];
+        longs = new long[length];
+        doubles = new double[length];
+        for (int i = 0; i < length; i ++) {
+            ints[i] = i;
+            longs[i] = i;
+            doubles[i] = i;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        buffer.release();
+    }
+
+    @Benchmark
+    public ByteBuf writeIntLoop() {
+        ByteBuf buf = buffer.clear();
+        int[] ints = this.ints;
+        for (int i = 0; i < ints.length; i ++) {
+            buf.writeInt(ints[i]);
+        }
+        return buf;
+    }
+
+    @Benchmark
+    public ByteBuf writeInts() {
+        return buffer.clear().writeInts(ints, 0, ints.length);
+    }
+
+    @Benchmark
+    public int[] readIntLoop() {
+        ByteBuf buf = buffer.setIndex(0, ints.length * 4);
+        int[] ints = this.ints;
+        for (int i = 0; i < ints.length; i ++) {
+            ints[i] = buf.readInt();
+        }
+        return ints;
+    }
+
+    @Benchmark
+    public int[] readInts() {
+        buffer.setIndex(0, ints.length * 4).readInts(ints, 0, ints.length);
+        return ints;
+    }
+
+    @Benchmark
+    public ByteBuf writeLongLoop() {
+        ByteBuf buf = buffer.clear();
+        long[] longs = this.longs;
+        for (int i = 0; i < longs.length; i ++) {
+            buf.writeLong(longs[i]);
+        }
+        return buf;
+    }
+
+    @Benchmark
+    public ByteBuf writeLongs() {
+        return buffer.clear().writeLongs(longs, 0, longs.length);
+    }
+
+    @Benchmark
+    public long[] readLongLoop() {
+        ByteBuf buf = buffer.setIndex(0, longs.length * 8);
+        long[] longs = this.longs;
+        for (int i = 0; i < longs.length; i ++) {
+            longs[i] = buf.readLong();
+        }
+        return longs;
+    }
+
+    @Benchmark
+    public long[] readLongs() {
+        buffer.setIndex(0, longs.length * 8).readLongs(longs, 0, longs.length);
+        return longs;
+    }
+
+    @Benchmark
+    public double[] getDoubleLoop() {
+        ByteBuf buf = buffer;
+        double[] doubles = this.doubles;
+        for (int i = 0; i < doubles.length; i ++) {
+            doubles[i] = buf.getDouble(i << 3);
+        }
+        return doubles;
+    }
+
+    @Benchmark
+    public double[] getDoubles() {
+        buffer.getDoubles(0, doubles, 0, doubles.length);
+        return doubles;
+    }
+}
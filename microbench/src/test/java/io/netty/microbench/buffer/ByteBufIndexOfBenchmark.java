@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufProcessor;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the word-at-a-time search behind {@link ByteBuf#indexOf(int, int, byte)} and the stock
+ * {@link ByteBufProcessor}s with the byte-by-byte loop of a custom {@link ByteBufProcessor}.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 10)
+@Measurement(iterations = 25)
+public class ByteBufIndexOfBenchmark extends AbstractMicrobenchmark {
+
+    private static final ByteBufProcessor BYTE_BY_BYTE_FIND_LF = new ByteBufProcessor() {
+        @Override
+        public boolean process(byte value) throws Exception {
+            return value != '\n';
+        }
+    };
+
+    private static final ByteBufProcessor BYTE_BY_BYTE_FIND_CRLF = new ByteBufProcessor() {
+        @Override
+        public boolean process(byte value) throws Exception {
+            return value != '\r' && value != '\n';
+        }
+    };
+
+    /**
+     * The number of bytes in front of the searched {@code LF}.
+     */
+    @Param({ "16", "128", "1024" })
+    public int size;
+
+    @Param({ "true", "false" })
+    public boolean direct;
+
+    private ByteBuf buffer;
+
+    @Setup
+    public void setup() {
+        buffer = direct ? PooledByteBufAllocator.DEFAULT.directBuffer(size + 1)
+                        : PooledByteBufAllocator.DEFAULT.heapBuffer(size + 1);
+        for (int i = 0; i < size; i ++) {
+            buffer.writeByte('a' + i % 26);
+        }
+        buffer.writeByte('\n');
+    }
+
+    @TearDown
+    public void destroy() {
+        buffer.release();
+    }
+
+    @Benchmark
+    public int forEachByteFindLf() {
+        return buffer.forEachByte(ByteBufProcessor.FIND_LF);
+    }
+
+    @Benchmark
+    public int forEachByteFindLfByteByByte() {
+        return buffer.forEachByte(BYTE_BY_BYTE_FIND_LF);
+    }
+
+    @Benchmark
+    public int forEachByteFindCrlf() {
+        return buffer.forEachByte(ByteBufProcessor.FIND_CRLF);
+    }
+
+    @Benchmark
+    public int forEachByteFindCrlfByteByByte() {
+        return buffer.forEachByte(BYTE_BY_BYTE_FIND_CRLF);
+    }
+
+    @Benchmark
+    public int indexOf() {
+        return buffer.indexOf(buffer.readerIndex(), buffer.writerIndex(), (byte) '\n');
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Builds short-lived {@link CompositeByteBuf}s the way gathering writes and cumulators do, either through the
+ * recycling {@link ByteBufAllocator#compositeDirectBuffer(int)} or by calling the constructor. The bytes allocated
+ * on the heap are reported per second next to the score, see {@link HeapAllocation}; run with
+ * {@code -Dprofilers=gc} to also report the GC activity.
+ */
+public class CompositeByteBufAllocationBenchmark extends AbstractMicrobenchmark {
+
+    private static final ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+
+    @Param({ "02", "08", "32" })
+    public int components;
+
+    /**
+     * Reports the bytes the benchmark thread allocated on the heap during the iteration. Divide its rate by the
+     * score to get the bytes per operation. Stays {@code 0} if the JVM can not measure it.
+     */
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class HeapAllocation {
+        public long heapAllocatedBytes;
+        private long start;
+
+        @Setup(Level.Iteration)
+        public void beforeIteration() {
+            heapAllocatedBytes = 0;
+            start = allocatedBytes();
+        }
+
+        @TearDown(Level.Iteration)
+        public void afterIteration() {
+            heapAllocatedBytes = allocatedBytes() - start;
+        }
+
+        private static long allocatedBytes() {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(
+                        Thread.currentThread().getId());
+            }
+            return 0;
+        }
+    }
+
+    @Benchmark
+    public int recycled(HeapAllocation heapAllocation) {
+        return build(allocator.compositeDirectBuffer(components));
+    }
+
+    @Benchmark
+    public int constructed(HeapAllocation heapAllocation) {
+        return build(new CompositeByteBuf(allocator, true, components));
+    }
+
+    private int build(CompositeByteBuf composite) {
+        for (int i = 0; i < components; i ++) {
+            ByteBuf component = allocator.directBuffer(64);
+            component.writerIndex(64);
+            composite.addComponent(component);
+        }
+        composite.writerIndex(composite.capacity());
+        int readable = composite.readableBytes();
+        composite.release();
+        return readable;
+    }
+}
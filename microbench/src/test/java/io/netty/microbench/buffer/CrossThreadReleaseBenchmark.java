@@ -0,0 +1,114 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Benchmarks the producer/consumer pattern where buffers are allocated by one thread (e.g. an event loop) and
+ * released by another one (e.g. a business executor). Run with {@code -Dio.netty.allocator.returnQueueSize=0} to
+ * compare against releasing without handing the buffers back to the allocating thread.
+ */
+public class CrossThreadReleaseBenchmark extends AbstractMicrobenchmark {
+
+    private static final ByteBufAllocator unpooledAllocator = new UnpooledByteBufAllocator(true);
+    private static final ByteBufAllocator pooledAllocator = new PooledByteBufAllocator(true);
+
+    private static final int MAX_IN_FLIGHT = 1024;
+
+    @State(Scope.Group)
+    public static class Handoff {
+        @Param({ "00256", "01024", "16384" })
+        public int size;
+
+        Queue<ByteBuf> queue;
+
+        @Setup
+        public void setup() {
+            queue = new ArrayBlockingQueue<ByteBuf>(MAX_IN_FLIGHT);
+        }
+
+        @TearDown
+        public void tearDown() {
+            for (;;) {
+                ByteBuf buf = queue.poll();
+                if (buf == null) {
+                    break;
+                }
+                buf.release();
+            }
+        }
+
+        void produce(ByteBufAllocator allocator) {
+            ByteBuf buf = allocator.directBuffer(size);
+            buf.writerIndex(size);
+            if (!queue.offer(buf)) {
+                // The consumer can not keep up so release it in place.
+                buf.release();
+            }
+        }
+
+        void consume() {
+            ByteBuf buf = queue.poll();
+            if (buf != null) {
+                buf.release();
+            }
+        }
+    }
+
+    @Benchmark
+    @Group("pooled")
+    @GroupThreads(1)
+    public void pooledAllocate(Handoff handoff) {
+        handoff.produce(pooledAllocator);
+    }
+
+    @Benchmark
+    @Group("pooled")
+    @GroupThreads(1)
+    public void pooledRelease(Handoff handoff) {
+        handoff.consume();
+    }
+
+    @Benchmark
+    @Group("unpooled")
+    @GroupThreads(1)
+    public void unpooledAllocate(Handoff handoff) {
+        handoff.produce(unpooledAllocator);
+    }
+
+    @Benchmark
+    @Group("unpooled")
+    @GroupThreads(1)
+    public void unpooledRelease(Handoff handoff) {
+        handoff.consume();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Compares the multi-byte accessors of {@code UnpooledHeapByteBuf}, which assembles values one byte at a time, with
+ * those of {@code UnpooledUnsafeHeapByteBuf}, which uses {@code sun.misc.Unsafe}.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 10)
+@Measurement(iterations = 25)
+public class HeapByteBufBenchmark extends AbstractMicrobenchmark {
+    private ByteBuf unsafeBuffer;
+    private ByteBuf buffer;
+
+    private static ByteBuf newBuffer(String className) throws Exception {
+        // Both classes are not part of the public API, so use reflection to create them.
+        Constructor<?> constructor = Class.forName(className).getDeclaredConstructor(
+                ByteBufAllocator.class, int.class, int.class);
+        constructor.setAccessible(true);
+        return (ByteBuf) constructor.newInstance(UnpooledByteBufAllocator.DEFAULT, 8, 8);
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        unsafeBuffer = newBuffer("io.netty.buffer.UnpooledUnsafeHeapByteBuf");
+        buffer = newBuffer("io.netty.buffer.UnpooledHeapByteBuf");
+        unsafeBuffer.writeLong(1L);
+        buffer.writeLong(1L);
+    }
+
+    @TearDown
+    public void destroy() {
+        unsafeBuffer.release();
+        buffer.release();
+    }
+
+    @Benchmark
+    public short getShortUnsafe() {
+        return unsafeBuffer.getShort(0);
+    }
+
+    @Benchmark
+    public short getShort() {
+        return buffer.getShort(0);
+    }
+
+    @Benchmark
+    public int getIntUnsafe() {
+        return unsafeBuffer.getInt(0);
+    }
+
+    @Benchmark
+    public int getInt() {
+        return buffer.getInt(0);
+    }
+
+    @Benchmark
+    public long getLongUnsafe() {
+        return unsafeBuffer.getLong(0);
+    }
+
+    @Benchmark
+    public long getLong() {
+        return buffer.getLong(0);
+    }
+
+    @Benchmark
+    public ByteBuf setIntUnsafe() {
+        return unsafeBuffer.setInt(0, 1);
+    }
+
+    @Benchmark
+    public ByteBuf setInt() {
+        return buffer.setInt(0, 1);
+    }
+
+    @Benchmark
+    public ByteBuf setLongUnsafe() {
+        return unsafeBuffer.setLong(0, 1L);
+    }
+
+    @Benchmark
+    public ByteBuf setLong() {
+        return buffer.setLong(0, 1L);
+    }
+}
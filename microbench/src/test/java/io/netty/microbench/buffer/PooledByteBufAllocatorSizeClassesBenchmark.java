@@ -0,0 +1,141 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PoolArenaMetric;
+import io.netty.buffer.PoolChunkListMetric;
+import io.netty.buffer.PoolChunkMetric;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+
+/**
+ * Compares the finer grained size classes of the {@link PooledByteBufAllocator} with rounding all capacities up to
+ * the next power of two. {@link #allocateAndFree()} measures the throughput, while
+ * {@link #footprint(Footprint)} fills an allocator with live buffers and reports how much pooled memory they use.
+ */
+public class PooledByteBufAllocatorSizeClassesBenchmark extends AbstractMicrobenchmark {
+
+    // Typical sizes of TLS records, HTTP/2 and WebSocket frames.
+    private static final int[] SIZES = { 600, 1500, 5000, 9216, 10240, 12288, 16000, 16413, 17000, 40000 };
+    private static final int MAX_LIVE_BUFFERS = 8192;
+
+    @Param({ "true", "false" })
+    public boolean powerOfTwoSizeClasses;
+
+    private final int[] sizes = new int[MAX_LIVE_BUFFERS];
+    private final ByteBuf[] buffers = new ByteBuf[MAX_LIVE_BUFFERS];
+    private PooledByteBufAllocator allocator;
+    private PooledByteBufAllocator footprintAllocator;
+    private int idx;
+
+    @Setup
+    public void setup() {
+        Random rand = new Random(42);
+        for (int i = 0; i < sizes.length; i ++) {
+            sizes[i] = SIZES[rand.nextInt(SIZES.length)];
+        }
+        allocator = newAllocator(powerOfTwoSizeClasses, 512, 256, 64);
+        // No thread-local caches so that only memory used by live buffers is counted.
+        footprintAllocator = newAllocator(powerOfTwoSizeClasses, 0, 0, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        releaseAll(buffers);
+    }
+
+    private static PooledByteBufAllocator newAllocator(
+            boolean powerOfTwoSizeClasses, int tinyCacheSize, int smallCacheSize, int normalCacheSize) {
+        return PooledByteBufAllocator.builder().preferDirect(true).numHeapArenas(0).numDirectArenas(1)
+                .tinyCacheSize(tinyCacheSize).smallCacheSize(smallCacheSize).normalCacheSize(normalCacheSize)
+                .maxCachedHugeBytes(0).powerOfTwoSizeClasses(powerOfTwoSizeClasses).build();
+    }
+
+    private static void releaseAll(ByteBuf[] buffers) {
+        for (int i = 0; i < buffers.length; i ++) {
+            ByteBuf buf = buffers[i];
+            if (buf != null) {
+                buf.release();
+                buffers[i] = null;
+            }
+        }
+    }
+
+    @Benchmark
+    public void allocateAndFree() {
+        int i = idx ++ & MAX_LIVE_BUFFERS - 1;
+        ByteBuf oldBuf = buffers[i];
+        if (oldBuf != null) {
+            oldBuf.release();
+        }
+        buffers[i] = allocator.directBuffer(sizes[i]);
+    }
+
+    /**
+     * Sums up the bytes requested by, used by and reserved for the live buffers of {@link #footprint(Footprint)}.
+     * JMH reports them per second, so {@code usedBytes / requestedBytes} is the memory used per requested byte.
+     */
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class Footprint {
+        public long requestedBytes;
+        public long usedBytes;
+        public long reservedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            requestedBytes = 0;
+            usedBytes = 0;
+            reservedBytes = 0;
+        }
+    }
+
+    @Benchmark
+    public double footprint(Footprint footprint) {
+        ByteBuf[] buffers = new ByteBuf[MAX_LIVE_BUFFERS];
+        long requested = 0;
+        for (int i = 0; i < buffers.length; i ++) {
+            buffers[i] = footprintAllocator.directBuffer(sizes[i]);
+            requested += sizes[i];
+        }
+
+        long used = 0;
+        PoolArenaMetric arena = footprintAllocator.directArenas().get(0);
+        for (PoolChunkListMetric chunkList: arena.chunkLists()) {
+            for (PoolChunkMetric chunk: chunkList) {
+                used += chunk.chunkSize() - chunk.freeBytes();
+            }
+        }
+        long reserved = arena.numActiveBytes();
+        releaseAll(buffers);
+
+        footprint.requestedBytes += requested;
+        footprint.usedBytes += used;
+        footprint.reservedBytes += reserved;
+        return (double) used / requested;
+    }
+}
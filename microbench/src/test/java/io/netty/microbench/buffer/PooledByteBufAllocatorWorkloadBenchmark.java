@@ -0,0 +1,287 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PoolArenaMetric;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Benchmarks the {@link PooledByteBufAllocator} with capacities distributed like the messages of HTTP traffic:
+ * <ul>
+ *     <li>{@link #mixedSizes(AllocatorState, LiveBuffers, CacheCounters)} keeps a window of live buffers per
+ *     thread, like a connection which holds on to its buffers until they are written,</li>
+ *     <li>{@link #mixedSizesContended(AllocatorState, LiveBuffers, CacheCounters)} does the same with several
+ *     threads sharing the arenas,</li>
+ *     <li>the {@code crossThread} group allocates the buffers on some threads and releases them on others. Only the
+ *     score of {@link #crossThreadAllocate(AllocatorState, Sizes, Handoff, CacheCounters)} is meaningful as the
+ *     releasing threads also count polling an empty queue,</li>
+ *     <li>{@link #composite(AllocatorState, Components, LiveBuffers, CacheCounters)} builds a
+ *     {@link CompositeByteBuf} out of several pooled buffers, like an aggregated HTTP message.</li>
+ * </ul>
+ * The thread cache hits and misses of the pooled allocators are reported per second next to the score, see
+ * {@link CacheCounters}. Run with {@code -Dprofilers=gc} to also report the GC activity of each benchmark.
+ */
+public class PooledByteBufAllocatorWorkloadBenchmark extends AbstractMicrobenchmark {
+
+    // { min capacity, max capacity, weight in percent } approximating HTTP/1.1 and HTTP/2 traffic: mostly headers
+    // and small bodies, some TLS record sized chunks and a few large transfers.
+    private static final int[][] HTTP_SIZE_DISTRIBUTION = {
+            { 64, 512, 40 },
+            { 512, 2048, 30 },
+            { 2048, 16384, 20 },
+            { 16384, 65536, 8 },
+            { 65536, 1048576, 2 }
+    };
+    private static final int[] SIZES = newSizes(8192, 42);
+    private static final int MAX_IN_FLIGHT = 1024;
+
+    private static int[] newSizes(int count, long seed) {
+        Random rand = new Random(seed);
+        int[] sizes = new int[count];
+        for (int i = 0; i < sizes.length; i ++) {
+            int weight = rand.nextInt(100);
+            for (int[] bucket: HTTP_SIZE_DISTRIBUTION) {
+                weight -= bucket[2];
+                if (weight < 0) {
+                    sizes[i] = bucket[0] + rand.nextInt(bucket[1] - bucket[0]);
+                    break;
+                }
+            }
+        }
+        return sizes;
+    }
+
+    @State(Scope.Benchmark)
+    public static class AllocatorState {
+        @Param({ "pooled", "pooledNoCache", "unpooled" })
+        public String allocatorType;
+
+        ByteBufAllocator allocator;
+        private long hits;
+        private long misses;
+        private boolean collected;
+
+        // The JMH version in use does not pass a @State with @Params to the helper methods of another @State, so
+        // CacheCounters finds the AllocatorState of the running benchmark here.
+        static volatile AllocatorState current;
+
+        @Setup
+        public void setup() {
+            if ("pooled".equals(allocatorType)) {
+                allocator = new PooledByteBufAllocator(true);
+            } else if ("pooledNoCache".equals(allocatorType)) {
+                // Same arenas as the default allocator but without thread caches.
+                allocator = new PooledByteBufAllocator(true, 0, PooledByteBufAllocator.DEFAULT.directArenas().size(),
+                        8192, 11, 0, 0, 0);
+            } else if ("unpooled".equals(allocatorType)) {
+                allocator = new UnpooledByteBufAllocator(true);
+            } else {
+                throw new IllegalArgumentException("allocatorType: " + allocatorType);
+            }
+            current = this;
+        }
+
+        @Setup(Level.Iteration)
+        public void beforeIteration() {
+            collected = false;
+            if (allocator instanceof PooledByteBufAllocator) {
+                hits = 0;
+                misses = 0;
+                for (PoolArenaMetric arena: ((PooledByteBufAllocator) allocator).directArenas()) {
+                    hits -= arena.numThreadCacheHits();
+                    misses -= arena.numThreadCacheMisses();
+                }
+            }
+        }
+
+        synchronized void collect(CacheCounters counters) {
+            if (collected || !(allocator instanceof PooledByteBufAllocator)) {
+                return;
+            }
+            collected = true;
+            for (PoolArenaMetric arena: ((PooledByteBufAllocator) allocator).directArenas()) {
+                hits += arena.numThreadCacheHits();
+                misses += arena.numThreadCacheMisses();
+            }
+            counters.threadCacheHits = hits;
+            counters.threadCacheMisses = misses;
+        }
+
+        ByteBuf allocate(int size) {
+            ByteBuf buf = allocator.directBuffer(size);
+            buf.writerIndex(size);
+            return buf;
+        }
+    }
+
+    /**
+     * Reports the thread cache hits and misses of each iteration. The arena metrics are shared by all threads, so
+     * only the first thread which finishes the iteration reports them and the others report {@code 0}.
+     */
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class CacheCounters {
+        public long threadCacheHits;
+        public long threadCacheMisses;
+
+        @Setup(Level.Iteration)
+        public void beforeIteration() {
+            threadCacheHits = 0;
+            threadCacheMisses = 0;
+        }
+
+        @TearDown(Level.Iteration)
+        public void afterIteration() {
+            AllocatorState.current.collect(this);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Sizes {
+        // Start at a different offset for each thread so that the threads do not allocate the same sizes in
+        // lockstep.
+        private int sizeIdx = System.identityHashCode(this);
+
+        int nextSize() {
+            return SIZES[sizeIdx ++ & SIZES.length - 1];
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class LiveBuffers extends Sizes {
+        @Param({ "00016", "00256" })
+        public int liveBuffers;
+
+        private ByteBuf[] buffers;
+        private int idx;
+
+        @Setup
+        public void setup() {
+            buffers = new ByteBuf[liveBuffers];
+        }
+
+        @TearDown
+        public void tearDown() {
+            for (int i = 0; i < buffers.length; i ++) {
+                if (buffers[i] != null) {
+                    buffers[i].release();
+                    buffers[i] = null;
+                }
+            }
+        }
+
+        void replace(ByteBuf buf) {
+            int i = idx;
+            ByteBuf oldBuf = buffers[i];
+            if (oldBuf != null) {
+                oldBuf.release();
+            }
+            buffers[i] = buf;
+            idx = i + 1 == buffers.length ? 0 : i + 1;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Components {
+        @Param({ "04", "16", "64" })
+        public int components;
+    }
+
+    @State(Scope.Group)
+    public static class Handoff {
+        Queue<ByteBuf> queue;
+
+        @Setup
+        public void setup() {
+            queue = new ArrayBlockingQueue<ByteBuf>(MAX_IN_FLIGHT);
+        }
+
+        @TearDown
+        public void tearDown() {
+            for (;;) {
+                ByteBuf buf = queue.poll();
+                if (buf == null) {
+                    break;
+                }
+                buf.release();
+            }
+        }
+    }
+
+    @Benchmark
+    public void mixedSizes(AllocatorState allocator, LiveBuffers live, CacheCounters counters) {
+        live.replace(allocator.allocate(live.nextSize()));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void mixedSizesContended(AllocatorState allocator, LiveBuffers live, CacheCounters counters) {
+        live.replace(allocator.allocate(live.nextSize()));
+    }
+
+    @Benchmark
+    @Group("crossThread")
+    @GroupThreads(2)
+    public void crossThreadAllocate(AllocatorState allocator, Sizes sizes, Handoff handoff, CacheCounters counters) {
+        ByteBuf buf = allocator.allocate(sizes.nextSize());
+        if (!handoff.queue.offer(buf)) {
+            // The releasing threads can not keep up so release it in place.
+            buf.release();
+        }
+    }
+
+    @Benchmark
+    @Group("crossThread")
+    @GroupThreads(2)
+    public void crossThreadRelease(Handoff handoff) {
+        ByteBuf buf = handoff.queue.poll();
+        if (buf != null) {
+            buf.release();
+        }
+    }
+
+    @Benchmark
+    public void composite(AllocatorState allocator, Components components, LiveBuffers live,
+                          CacheCounters counters) {
+        CompositeByteBuf composite = allocator.allocator.compositeDirectBuffer(components.components);
+        for (int i = 0; i < components.components; i ++) {
+            ByteBuf component = allocator.allocate(live.nextSize());
+            composite.addComponent(component);
+            composite.writerIndex(composite.writerIndex() + component.readableBytes());
+        }
+        live.replace(composite);
+    }
+}
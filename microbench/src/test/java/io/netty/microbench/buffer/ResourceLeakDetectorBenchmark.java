@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ResourceLeakDetector;
+import io.netty.util.ResourceLeakDetector.Level;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the overhead of the {@link ResourceLeakDetector} levels on a typical buffer life cycle: allocate, write,
+ * touch on a few handlers, read a retained slice and release.
+ */
+@State(Scope.Thread)
+public class ResourceLeakDetectorBenchmark extends AbstractMicrobenchmark {
+
+    private static final ByteBufAllocator allocator = new PooledByteBufAllocator(true);
+
+    @Param({ "DISABLED", "SIMPLE", "ADVANCED", "ADAPTIVE" })
+    public Level level;
+
+    private Level oldLevel;
+
+    @Setup
+    public void setup() {
+        oldLevel = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(level);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ResourceLeakDetector.setLevel(oldLevel);
+    }
+
+    @Benchmark
+    public int allocateTouchRelease() {
+        ByteBuf buf = allocator.directBuffer(256);
+        buf.writeLong(1).writeLong(2);
+        for (int i = 0; i < 4; i ++) {
+            buf.touch(i);
+        }
+        ByteBuf slice = buf.readRetainedSlice(8);
+        int v = slice.getInt(4);
+        slice.release();
+        buf.release();
+        return v;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.ThreadConfinedByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compares the CAS based reference counting with the one of buffers allocated by a
+ * {@link ThreadConfinedByteBufAllocator}, both for plain retain/release pairs and for a decoder-like pipeline which
+ * splits a buffer into retained slices.
+ */
+@State(Scope.Thread)
+public class ThreadConfinedRefCntBenchmark extends AbstractMicrobenchmark {
+
+    private static final int FRAME_SIZE = 32;
+
+    @Param({ "false", "true" })
+    public boolean confined;
+
+    private ByteBufAllocator allocator;
+    private ByteBuf buffer;
+
+    @Setup
+    public void setup() {
+        ByteBufAllocator pooled = new PooledByteBufAllocator(true);
+        allocator = confined ? new ThreadConfinedByteBufAllocator(pooled, false) : pooled;
+        buffer = allocator.directBuffer(1024);
+        buffer.writerIndex(buffer.capacity());
+    }
+
+    @TearDown
+    public void tearDown() {
+        buffer.release();
+    }
+
+    @Benchmark
+    public boolean retainRelease() {
+        return buffer.retain().release();
+    }
+
+    @Benchmark
+    public int readRetainedSlices() {
+        ByteBuf buf = allocator.directBuffer(1024);
+        buf.writerIndex(buf.capacity());
+        int frames = 0;
+        while (buf.readableBytes() >= FRAME_SIZE) {
+            ByteBuf frame = buf.readRetainedSlice(FRAME_SIZE);
+            frames += frame.getByte(0);
+            frame.release();
+        }
+        buf.release();
+        return frames;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.concurrent;
+
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the completion of a {@link DefaultPromise} with listeners which are added by the completing thread, and
+ * with listeners which are added by another thread while the promises are completed.
+ */
+public class DefaultPromiseBenchmark extends AbstractMicrobenchmark {
+
+    // Notifies the listeners in the completing thread, so that the executor is not part of the measurement.
+    private static final EventExecutor executor = ImmediateEventExecutor.INSTANCE;
+
+    private static final FutureListener<Void> listener = new FutureListener<Void>() {
+        @Override
+        public void operationComplete(Future<Void> future) {
+            // NOOP
+        }
+    };
+
+    @Param({ "1", "2", "8" })
+    public int listeners;
+
+    @State(Scope.Group)
+    public static class SharedPromise {
+        volatile Promise<Void> promise = new DefaultPromise<Void>(executor);
+    }
+
+    @Benchmark
+    public boolean sameThread() {
+        Promise<Void> promise = new DefaultPromise<Void>(executor);
+        for (int i = 0; i < listeners; i ++) {
+            promise.addListener(listener);
+        }
+        return promise.trySuccess(null);
+    }
+
+    @Benchmark
+    public boolean sameThreadLateListeners() {
+        Promise<Void> promise = new DefaultPromise<Void>(executor);
+        promise.trySuccess(null);
+        for (int i = 0; i < listeners; i ++) {
+            promise.addListener(listener);
+        }
+        return promise.isSuccess();
+    }
+
+    @Benchmark
+    @Group("otherThread")
+    @GroupThreads(1)
+    public boolean otherThreadComplete(SharedPromise shared) {
+        Promise<Void> promise = shared.promise;
+        shared.promise = new DefaultPromise<Void>(executor);
+        return promise.trySuccess(null);
+    }
+
+    @Benchmark
+    @Group("otherThread")
+    @GroupThreads(1)
+    public Promise<Void> otherThreadAddListeners(SharedPromise shared) {
+        Promise<Void> promise = shared.promise;
+        for (int i = 0; i < listeners; i ++) {
+            promise.addListener(listener);
+        }
+        return promise;
+    }
+}
@@ -17,6 +17,7 @@ package io.netty.microbench.util;
 
 import io.netty.util.ResourceLeakDetector;
 import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.internal.EmptyArrays;
 import io.netty.util.internal.SystemPropertyUtil;
 import org.junit.Test;
 import org.openjdk.jmh.annotations.Fork;
@@ -24,6 +25,8 @@ import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.Profiler;
+import org.openjdk.jmh.profile.ProfilerFactory;
 import org.openjdk.jmh.results.format.ResultFormatType;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
@@ -88,6 +91,14 @@ public class AbstractMicrobenchmark {
             runnerOptions.forks(getForks());
         }
 
+        for (String name: getProfilers()) {
+            Class<? extends Profiler> profiler = ProfilerFactory.getProfilerByName(name.trim());
+            if (profiler == null) {
+                throw new IllegalArgumentException("unknown profiler: " + name);
+            }
+            runnerOptions.addProfiler(profiler);
+        }
+
         if (getReportDir() != null) {
             String filePath = getReportDir() + className + ".json";
             File file = new File(filePath);
@@ -117,6 +128,15 @@ public class AbstractMicrobenchmark {
         return SystemPropertyUtil.getInt("forks", -1);
     }
 
+    /**
+     * Returns the names of the profilers to run the benchmarks with, e.g. {@code -Dprofilers=gc,stack} is the same
+     * as passing {@code -prof gc -prof stack} to JMH.
+     */
+    protected String[] getProfilers() {
+        String profilers = SystemPropertyUtil.get("profilers");
+        return profilers == null || profilers.isEmpty() ? EmptyArrays.EMPTY_STRINGS : profilers.split(",");
+    }
+
     protected String getReportDir() {
         return SystemPropertyUtil.get("perfReportDir");
     }
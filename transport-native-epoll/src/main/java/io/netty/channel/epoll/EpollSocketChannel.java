@@ -393,6 +393,11 @@ public final class EpollSocketChannel extends AbstractEpollChannel implements So
         if (msg instanceof ByteBuf) {
             ByteBuf buf = (ByteBuf) msg;
             if (!buf.hasMemoryAddress() && (PlatformDependent.hasUnsafe() || !buf.isDirect())) {
+                if (buf.isDirect() && buf.nioBufferCount() == 1 && !(buf instanceof CompositeByteBuf)) {
+                    // Direct buffers without a memory address, like read-only mapped files, are written via the
+                    // address of their NIO buffer, so there is no need to copy them.
+                    return buf;
+                }
                 if (buf instanceof CompositeByteBuf) {
                     // Special handling of CompositeByteBuf to reduce memory copies if some of the Components
                     // in the CompositeByteBuf are backed by a memoryAddress.
@@ -87,9 +87,14 @@ final class IovArray implements MessageProcessor {
             return true;
         }
 
-        final long addr = buf.memoryAddress();
-        final int offset = buf.readerIndex();
-        add(addr, offset, len);
+        if (buf.hasMemoryAddress()) {
+            add(buf.memoryAddress(), buf.readerIndex(), len);
+        } else {
+            // A direct buffer with a single NIO buffer, like a read-only mapped file. See
+            // EpollSocketChannel.filterOutboundMessage().
+            ByteBuffer nioBuffer = buf.internalNioBuffer(buf.readerIndex(), len);
+            add(PlatformDependent.directBufferAddress(nioBuffer), nioBuffer.position(), len);
+        }
         return true;
     }
 
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.internal.PlatformDependent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+public class EpollSocketMappedFileTest {
+
+    private static final int FILE_SIZE = 64 * 1024;
+
+    @Rule
+    public final TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private byte[] content;
+    private RandomAccessFile file;
+
+    @Before
+    public void setUp() throws Exception {
+        // Without unsafe the file is mapped into a ReadOnlyByteBufferBuf which is never copied.
+        assumeTrue(PlatformDependent.hasUnsafe());
+
+        content = new byte[FILE_SIZE];
+        new Random().nextBytes(content);
+        File f = tmpDir.newFile();
+        FileOutputStream out = new FileOutputStream(f);
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+        file = new RandomAccessFile(f, "r");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    @Test
+    public void testMappedFileIsNotCopied() throws Exception {
+        ByteBuf buf = Unpooled.mapFile(file.getChannel(), 0, FILE_SIZE);
+        EpollSocketChannel ch = new EpollSocketChannel();
+        try {
+            assertSame(buf, ch.filterOutboundMessage(buf));
+            ByteBuf slice = buf.slice(16, 1024);
+            assertSame(slice, ch.filterOutboundMessage(slice));
+        } finally {
+            buf.release();
+            Native.close(ch.fd);
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testWriteMappedFile() throws Exception {
+        EventLoopGroup group = new EpollEventLoopGroup(1);
+        final ByteBuf received = Unpooled.buffer(FILE_SIZE * 2);
+        final CountDownLatch done = new CountDownLatch(1);
+        Channel sc = null;
+        Channel cc = null;
+        try {
+            sc = new ServerBootstrap().group(group).channel(EpollServerSocketChannel.class)
+                    .childHandler(new ChannelHandlerAdapter() {
+                        @Override
+                        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                            ByteBuf buf = (ByteBuf) msg;
+                            received.writeBytes(buf);
+                            buf.release();
+                            if (received.readableBytes() == FILE_SIZE * 2) {
+                                done.countDown();
+                            }
+                        }
+                    }).bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+            cc = new Bootstrap().group(group).channel(EpollSocketChannel.class)
+                    .handler(new ChannelHandlerAdapter())
+                    .connect(sc.localAddress()).sync().channel();
+
+            ByteBuf buf = Unpooled.mapFile(file.getChannel(), 0, FILE_SIZE);
+            // A single buffer and then two buffers in one gathering write.
+            cc.writeAndFlush(buf.retainedSlice(0, FILE_SIZE / 2)).sync();
+            cc.write(buf.retainedSlice(FILE_SIZE / 2, FILE_SIZE / 2));
+            cc.writeAndFlush(buf).sync();
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(Unpooled.wrappedBuffer(content, content), received);
+        } finally {
+            if (cc != null) {
+                cc.close().sync();
+            }
+            if (sc != null) {
+                sc.close().sync();
+            }
+            group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+            received.release();
+        }
+    }
+}
@@ -22,6 +22,8 @@ import io.netty.channel.local.LocalChannel;
 import io.netty.util.concurrent.DefaultExecutorServiceFactory;
 import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.PausableEventExecutor;
+import io.netty.util.concurrent.RejectedExecutionHandler;
+import io.netty.util.concurrent.RejectedExecutionHandlers;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -42,6 +44,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.LockSupport;
 
 import static org.hamcrest.CoreMatchers.*;
@@ -693,6 +696,94 @@ public class SingleThreadEventLoopTest {
         assertTrue(oneTimeScheduledTaskExecuted.get());
     }
 
+    @Test(timeout = 10000)
+    public void testRejectWhenTaskQueueFull() throws Exception {
+        testTaskQueueFull(RejectedExecutionHandlers.reject(), false);
+    }
+
+    @Test(timeout = 10000)
+    public void testBackoffWhenTaskQueueFull() throws Exception {
+        testTaskQueueFull(RejectedExecutionHandlers.backoff(1000, 10, TimeUnit.MILLISECONDS), true);
+    }
+
+    private static void testTaskQueueFull(RejectedExecutionHandler rejectedHandler, boolean accepted)
+            throws Exception {
+        final SingleThreadEventLoopC loopC = new SingleThreadEventLoopC(16, rejectedHandler);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        try {
+            loopC.execute(new Runnable() {
+                @Override
+                public void run() {
+                    blocked.countDown();
+                    try {
+                        unblock.await();
+                    } catch (InterruptedException e) {
+                        // Ignore
+                    }
+                }
+            });
+            blocked.await();
+            for (int i = 0; i < 16; i ++) {
+                loopC.execute(NOOP);
+            }
+            assertEquals(16, loopC.pendingTasks());
+
+            if (accepted) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                        unblock.countDown();
+                    }
+                });
+            }
+            try {
+                loopC.execute(NOOP);
+                assertTrue(accepted);
+            } catch (RejectedExecutionException e) {
+                assertFalse(accepted);
+            }
+        } finally {
+            unblock.countDown();
+            loopC.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testScheduledTaskIsKeptWhenTaskQueueFull() throws Exception {
+        final SingleThreadEventLoopD loopD = new SingleThreadEventLoopD(16);
+        final AtomicReference<ScheduledFuture<?>> future = new AtomicReference<ScheduledFuture<?>>();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        try {
+            loopD.execute(new Runnable() {
+                @Override
+                public void run() {
+                    future.set(loopD.schedule(NOOP, 1, TimeUnit.MILLISECONDS));
+                    blocked.countDown();
+                    try {
+                        unblock.await();
+                    } catch (InterruptedException e) {
+                        // Ignore
+                    }
+                }
+            });
+            blocked.await();
+            for (int i = 0; i < 16; i ++) {
+                loopD.execute(NOOP);
+            }
+            // Let the scheduled task become due while the task queue is full.
+            Thread.sleep(50);
+            unblock.countDown();
+
+            future.get().get();
+        } finally {
+            unblock.countDown();
+            loopD.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+    }
+
     private static class SingleThreadEventLoopA extends SingleThreadEventLoop {
 
         final AtomicInteger cleanedUp = new AtomicInteger();
@@ -770,4 +861,50 @@ public class SingleThreadEventLoopTest {
             }
         }
     }
+
+    private static class SingleThreadEventLoopD extends SingleThreadEventLoop {
+
+        SingleThreadEventLoopD(int maxPendingTasks) {
+            super(null, executor, true, maxPendingTasks, RejectedExecutionHandlers.reject());
+        }
+
+        @Override
+        protected void run() {
+            Runnable task = takeTask();
+            if (task != null) {
+                task.run();
+            }
+            // Moves the scheduled tasks which are due to the task queue.
+            runAllTasks();
+            updateLastExecutionTime();
+
+            if (confirmShutdown()) {
+                cleanupAndTerminate(true);
+            } else {
+                scheduleExecution();
+            }
+        }
+    }
+
+    private static class SingleThreadEventLoopC extends SingleThreadEventLoop {
+
+        SingleThreadEventLoopC(int maxPendingTasks, RejectedExecutionHandler rejectedHandler) {
+            super(null, executor, true, maxPendingTasks, rejectedHandler);
+        }
+
+        @Override
+        protected void run() {
+            Runnable task = takeTask();
+            if (task != null) {
+                task.run();
+                updateLastExecutionTime();
+            }
+
+            if (confirmShutdown()) {
+                cleanupAndTerminate(true);
+            } else {
+                scheduleExecution();
+            }
+        }
+    }
 }